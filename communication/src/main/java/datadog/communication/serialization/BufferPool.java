@@ -0,0 +1,65 @@
+package datadog.communication.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of heap buffers of the same size. Acquiring a buffer blocks while all of the
+ * pool's buffers are in use, so the pool also bounds how much data can be in flight.
+ */
+public final class BufferPool {
+
+  private final int bufferSize;
+  private final int maxBuffers;
+  private final ArrayBlockingQueue<ByteBuffer> free;
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  public BufferPool(int bufferSize, int maxBuffers) {
+    this.bufferSize = bufferSize;
+    this.maxBuffers = maxBuffers;
+    this.free = new ArrayBlockingQueue<>(maxBuffers);
+  }
+
+  public int bufferSize() {
+    return bufferSize;
+  }
+
+  /** Returns an empty buffer, waiting for a buffer to be released if all of them are in use. */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = free.poll();
+    if (null != buffer) {
+      return buffer;
+    }
+    if (allocated.incrementAndGet() <= maxBuffers) {
+      return ByteBuffer.allocate(bufferSize);
+    }
+    allocated.decrementAndGet();
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return free.take();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns a buffer, or a slice of it, to the pool. Buffers that were replaced by larger ones are
+   * not kept, so their memory can be reclaimed, but they still free up a slot in the pool.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.hasArray() && buffer.array().length == bufferSize) {
+      free.offer(ByteBuffer.wrap(buffer.array()));
+    } else {
+      allocated.decrementAndGet();
+    }
+  }
+}
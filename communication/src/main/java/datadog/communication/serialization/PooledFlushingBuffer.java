@@ -0,0 +1,157 @@
+package datadog.communication.serialization;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link StreamingBuffer} which fills buffers taken from a {@link BufferPool} and hands each one
+ * to the consumer once it's full or flushed, continuing with a new buffer from the pool. The
+ * consumer owns the published buffer and must release it to the pool once it's done with it.
+ *
+ * <p>Pooled buffers are kept small so payloads are published in chunks. A message which doesn't
+ * fit in a pooled buffer on its own grows the buffer, up to the max capacity.
+ */
+public final class PooledFlushingBuffer implements StreamingBuffer {
+
+  private final BufferPool pool;
+  private final int maxCapacity;
+  private final ByteBufferConsumer consumer;
+
+  private ByteBuffer buffer;
+  private int messageCount;
+  private int mark;
+
+  public PooledFlushingBuffer(BufferPool pool, int maxCapacity, ByteBufferConsumer consumer) {
+    this.pool = pool;
+    this.maxCapacity = Math.max(pool.bufferSize(), maxCapacity);
+    this.consumer = consumer;
+    this.buffer = pool.acquire();
+  }
+
+  @Override
+  public int capacity() {
+    return maxCapacity;
+  }
+
+  @Override
+  public boolean isDirty() {
+    return mark > 0;
+  }
+
+  @Override
+  public void mark() {
+    mark = buffer.position();
+    ++messageCount;
+  }
+
+  @Override
+  public boolean flush() {
+    if (messageCount == 0) {
+      return false;
+    }
+    buffer.limit(mark);
+    buffer.position(0);
+    ByteBuffer toPublish = buffer.slice();
+    consumer.accept(messageCount, toPublish);
+    // blocks while all of the pool's buffers are in flight
+    buffer = pool.acquire();
+    reset();
+    return true;
+  }
+
+  @Override
+  public void put(byte b) {
+    ensureCapacity(1);
+    buffer.put(b);
+  }
+
+  @Override
+  public void putShort(short s) {
+    ensureCapacity(2);
+    buffer.putShort(s);
+  }
+
+  @Override
+  public void putChar(char c) {
+    ensureCapacity(2);
+    buffer.putChar(c);
+  }
+
+  @Override
+  public void putInt(int i) {
+    ensureCapacity(4);
+    buffer.putInt(i);
+  }
+
+  @Override
+  public void putLong(long l) {
+    ensureCapacity(8);
+    buffer.putLong(l);
+  }
+
+  @Override
+  public void putFloat(float f) {
+    ensureCapacity(4);
+    buffer.putFloat(f);
+  }
+
+  @Override
+  public void putDouble(double d) {
+    ensureCapacity(8);
+    buffer.putDouble(d);
+  }
+
+  @Override
+  public void put(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    buffer.put(bytes);
+  }
+
+  @Override
+  public void put(byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    buffer.put(bytes, offset, length);
+  }
+
+  @Override
+  public void put(ByteBuffer buffer) {
+    ensureCapacity(buffer.remaining());
+    this.buffer.put(buffer);
+  }
+
+  @Override
+  public void reset() {
+    messageCount = 0;
+    buffer.clear();
+    mark = 0;
+  }
+
+  private void ensureCapacity(int required) {
+    if (buffer.remaining() < required) {
+      grow(required);
+    }
+  }
+
+  private void grow(int required) {
+    // complete messages are published first, only a message on its own can grow the buffer
+    if (messageCount > 0) {
+      throw new BufferOverflowException();
+    }
+    int position = buffer.position();
+    long newCapacity = buffer.capacity();
+    while (newCapacity - position < required) {
+      newCapacity <<= 1;
+    }
+    if (newCapacity > maxCapacity) {
+      if (maxCapacity - position < required) {
+        throw new BufferOverflowException();
+      }
+      newCapacity = maxCapacity;
+    }
+    ByteBuffer grown = ByteBuffer.allocate((int) newCapacity);
+    buffer.flip();
+    grown.put(buffer);
+    // the grown buffer takes over the pool slot of the buffer it replaces
+    buffer = grown;
+  }
+}
@@ -27,6 +27,13 @@ public interface Writable {
 
   void writeBinary(byte[] binary, int offset, int length);
 
+  /**
+   * Copy a part of the message which has already been encoded, as it is
+   *
+   * @param encoded the encoded bytes, which must form whole values of the message
+   */
+  void writeEncoded(byte[] encoded);
+
   /**
    * Start a part of the message containing key-value pairs
    *
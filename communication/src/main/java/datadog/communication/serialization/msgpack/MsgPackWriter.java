@@ -1,7 +1,5 @@
 package datadog.communication.serialization.msgpack;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import datadog.communication.serialization.Codec;
 import datadog.communication.serialization.EncodingCache;
 import datadog.communication.serialization.Mapper;
@@ -149,7 +147,7 @@ public class MsgPackWriter implements WritableFormatter {
           return;
         }
       }
-      writeUTF8(s.getBytes(UTF_8));
+      writeDirect(s);
     }
   }
 
@@ -178,7 +176,9 @@ public class MsgPackWriter implements WritableFormatter {
       if (s instanceof UTF8BytesString) {
         writeUTF8((UTF8BytesString) s);
       } else {
-        writeUTF8(String.valueOf(s).getBytes(UTF_8));
+        // the length is computed before the characters are written, so take a snapshot of
+        // mutable sequences like StringBuilder
+        writeDirect(s.toString());
       }
     }
   }
@@ -212,6 +212,11 @@ public class MsgPackWriter implements WritableFormatter {
     buffer.put(binary, offset, length);
   }
 
+  @Override
+  public void writeEncoded(byte[] encoded) {
+    buffer.put(encoded);
+  }
+
   @Override
   public void writeBinary(ByteBuffer binary) {
     ByteBuffer slice = binary.slice();
@@ -551,6 +556,94 @@ public class MsgPackWriter implements WritableFormatter {
     }
   }
 
+  /**
+   * Encodes the string to UTF-8 straight into the buffer, the same way {@link
+   * String#getBytes(java.nio.charset.Charset)} would. The encoded length is computed first, so the
+   * header can be written before the string.
+   */
+  private void writeDirect(String s) {
+    int length = s.length();
+    int ascii = 0;
+    while (ascii < length && s.charAt(ascii) < 0x80) {
+      ascii++;
+    }
+    if (ascii == length) {
+      writeStringHeader(length);
+      writeAscii(s, 0, length);
+      return;
+    }
+    writeStringHeader(ascii + utf8Length(s, ascii, length));
+    writeAscii(s, 0, ascii);
+    for (int i = ascii; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (!Character.isSurrogate(c)) {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (isSurrogatePair(s, i, length)) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        buffer.putInt(
+            (0xF0 | (codePoint >> 18)) << 24
+                | (0x80 | ((codePoint >> 12) & 0x3F)) << 16
+                | (0x80 | ((codePoint >> 6) & 0x3F)) << 8
+                | (0x80 | (codePoint & 0x3F)));
+      } else {
+        // malformed, encoded as '?' like String.getBytes does
+        buffer.put((byte) '?');
+      }
+    }
+  }
+
+  private void writeAscii(String s, int start, int end) {
+    int i = start;
+    // pack 8 characters per write, big-endian like the buffer
+    for (; i + 8 <= end; i += 8) {
+      buffer.putLong(
+          (long) s.charAt(i) << 56
+              | (long) s.charAt(i + 1) << 48
+              | (long) s.charAt(i + 2) << 40
+              | (long) s.charAt(i + 3) << 32
+              | (long) s.charAt(i + 4) << 24
+              | s.charAt(i + 5) << 16
+              | s.charAt(i + 6) << 8
+              | s.charAt(i + 7));
+    }
+    for (; i < end; i++) {
+      buffer.put((byte) s.charAt(i));
+    }
+  }
+
+  private static int utf8Length(String s, int start, int end) {
+    int utf8Length = 0;
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        utf8Length++;
+      } else if (c < 0x800) {
+        utf8Length += 2;
+      } else if (!Character.isSurrogate(c)) {
+        utf8Length += 3;
+      } else if (isSurrogatePair(s, i, end)) {
+        utf8Length += 4;
+        i++;
+      } else {
+        utf8Length++;
+      }
+    }
+    return utf8Length;
+  }
+
+  private static boolean isSurrogatePair(String s, int i, int end) {
+    return Character.isHighSurrogate(s.charAt(i))
+        && i + 1 < end
+        && Character.isLowSurrogate(s.charAt(i + 1));
+  }
+
   void writeStringHeader(int length) {
     if (length < 0x10) {
       buffer.put((byte) (FIXSTR | length));
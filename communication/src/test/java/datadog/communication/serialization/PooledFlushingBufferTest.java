@@ -0,0 +1,69 @@
+package datadog.communication.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PooledFlushingBufferTest {
+
+  @Test
+  public void testChunksArePublishedAndReleased() {
+    BufferPool pool = new BufferPool(8, 2);
+    List<ByteBuffer> published = new ArrayList<>();
+    PooledFlushingBuffer buffer =
+        new PooledFlushingBuffer(
+            pool,
+            64,
+            (messageCount, chunk) -> {
+              published.add(chunk);
+              pool.release(chunk);
+            });
+    buffer.putInt(1);
+    buffer.mark();
+    buffer.putInt(2);
+    buffer.mark();
+    assertThrows(BufferOverflowException.class, () -> buffer.putInt(3));
+    assertTrue(buffer.flush());
+    buffer.putInt(3);
+    buffer.mark();
+    assertTrue(buffer.flush());
+    assertFalse(buffer.flush());
+
+    assertEquals(2, published.size());
+    assertEquals(8, published.get(0).remaining());
+    assertEquals(4, published.get(1).remaining());
+  }
+
+  @Test
+  public void testLargeMessageGrowsBuffer() {
+    BufferPool pool = new BufferPool(8, 2);
+    List<ByteBuffer> published = new ArrayList<>();
+    PooledFlushingBuffer buffer =
+        new PooledFlushingBuffer(pool, 32, (messageCount, chunk) -> published.add(chunk));
+    for (int i = 0; i < 6; ++i) {
+      buffer.putInt(i);
+    }
+    buffer.mark();
+    assertTrue(buffer.flush());
+
+    ByteBuffer chunk = published.get(0);
+    assertEquals(24, chunk.remaining());
+    for (int i = 0; i < 6; ++i) {
+      assertEquals(i, chunk.getInt());
+    }
+    assertThrows(BufferOverflowException.class, () -> buffer.put(new byte[33]));
+  }
+
+  @Test
+  public void testBufferCapacity() {
+    assertEquals(
+        32, new PooledFlushingBuffer(new BufferPool(8, 2), 32, (messageCount, b) -> {}).capacity());
+  }
+}
@@ -1,6 +1,8 @@
 package datadog.communication.serialization;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -12,8 +14,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessageUnpacker;
 
@@ -143,6 +147,74 @@ public class StringWritingTest {
     packer.flush();
   }
 
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "a",
+        "1234567",
+        "12345678",
+        "123456789",
+        "http.request.headers.user-agent",
+        "Straßenschilder",
+        "道可道非常道名可名非常名",
+        "abcdefgh\uD83D\uDC4Dabcdefgh",
+        "lone high \uD83D surrogate",
+        "lone low \uDC4D surrogate",
+        "trailing high surrogate \uD83D",
+        "\uDC4D\uD83D reversed pair"
+      })
+  public void testStringsAreEncodedLikeGetBytes(String string) throws IOException {
+    byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+    for (Object value : new Object[] {string, new StringBuilder(string)}) {
+      GrowableBuffer buffer = new GrowableBuffer(TEN_KB);
+      MsgPackWriter packer = new MsgPackWriter(buffer);
+      packer.format(value, (v, p) -> p.writeString((CharSequence) v, NO_CACHE));
+      packer.format(value, (v, p) -> p.writeObjectString(v, NO_CACHE));
+      MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(buffer.slice());
+      for (int i = 0; i < 2; i++) {
+        int length = unpacker.unpackRawStringHeader();
+        assertArrayEquals(expected, unpacker.readPayload(length));
+      }
+    }
+  }
+
+  @Test
+  public void testChangingSequencesAreEncodedFromOneSnapshot() throws IOException {
+    // characters change on every read, like a builder which is appended to concurrently
+    CharSequence changing =
+        new CharSequence() {
+          private int reads;
+
+          @Override
+          public int length() {
+            return 8;
+          }
+
+          @Override
+          public char charAt(int index) {
+            return (reads++ & 1) == 0 ? 'a' : 'ß';
+          }
+
+          @Override
+          public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+          }
+
+          @Override
+          public String toString() {
+            return "Straßen!";
+          }
+        };
+    GrowableBuffer buffer = new GrowableBuffer(TEN_KB);
+    MsgPackWriter packer = new MsgPackWriter(buffer);
+    packer.format(changing, (v, p) -> p.writeString(v, NO_CACHE));
+    MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(buffer.slice());
+    int length = unpacker.unpackRawStringHeader();
+    assertArrayEquals("Straßen!".getBytes(StandardCharsets.UTF_8), unpacker.readPayload(length));
+    assertFalse(unpacker.hasNext());
+  }
+
   private void testBufferContents(ByteBuffer buffer, List<Map<String, String>> maps) {
     try {
       MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(buffer);
@@ -0,0 +1,71 @@
+package datadog.trace.bootstrap;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Uses the fall-back context store the way executor instrumentations do for tasks that can't be
+ * field-injected: each task gets a context when it is submitted, which is removed when it runs. The
+ * same operations are measured from 1 to 64 threads sharing the store, to show how it behaves under
+ * contention.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class WeakMapContextStoreBenchmark {
+  private static final ContextStore.Factory<Object> CONTEXT_FACTORY = Object::new;
+
+  private WeakMapContextStore<Object, Object> store;
+
+  @Setup(Level.Trial)
+  public void init() {
+    store = new WeakMapContextStore<>();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object submitAndRun_01() {
+    return submitAndRun();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object submitAndRun_04() {
+    return submitAndRun();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Object submitAndRun_16() {
+    return submitAndRun();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Object submitAndRun_64() {
+    return submitAndRun();
+  }
+
+  private Object submitAndRun() {
+    Object task = new Object();
+    store.computeIfAbsent(task, CONTEXT_FACTORY);
+    store.get(task);
+    return store.remove(task);
+  }
+}
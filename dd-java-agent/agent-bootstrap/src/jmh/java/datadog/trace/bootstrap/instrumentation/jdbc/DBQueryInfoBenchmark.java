@@ -0,0 +1,100 @@
+package datadog.trace.bootstrap.instrumentation.jdbc;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.normalize.SQLNormalizer;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Normalizes the statement shapes generated by common data access libraries, each with a number of
+ * literal variants, as happens with dynamic SQL. {@code normalize} measures the normalizer alone,
+ * and {@code ofStatement} the lookup by fingerprint which lets the variants share cached query
+ * info. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class DBQueryInfoBenchmark {
+
+  @Param({"hibernate", "hibernate-in-list", "jooq", "mybatis"})
+  String shape;
+
+  private String[] variants;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void init() {
+    variants = new String[64];
+    for (int i = 0; i < variants.length; i++) {
+      variants[i] = statement(shape, i);
+    }
+  }
+
+  @Benchmark
+  public UTF8BytesString normalize() {
+    return SQLNormalizer.normalize(nextVariant());
+  }
+
+  @Benchmark
+  public DBQueryInfo ofStatement() {
+    return DBQueryInfo.ofStatement(nextVariant());
+  }
+
+  private String nextVariant() {
+    return variants[next++ & (variants.length - 1)];
+  }
+
+  private static String statement(String shape, int variant) {
+    switch (shape) {
+      case "hibernate":
+        return "select user0_.id as id1_0_, user0_.email as email2_0_, user0_.name as name3_0_ "
+            + "from users user0_ where user0_.tenant_id="
+            + variant
+            + " and user0_.status='ACTIVE' order by user0_.name asc limit 20";
+      case "hibernate-in-list":
+        StringBuilder sql =
+            new StringBuilder(
+                "select order0_.id as id1_1_, order0_.total as total2_1_ from orders order0_ "
+                    + "where order0_.id in (");
+        for (int i = 0; i <= variant; i++) {
+          sql.append(i == 0 ? "" : ", ").append(1000 + i);
+        }
+        return sql.append(")").toString();
+      case "jooq":
+        return "select \"public\".\"book\".\"id\", \"public\".\"book\".\"title\" "
+            + "from \"public\".\"book\" join \"public\".\"author\" "
+            + "on \"public\".\"author\".\"id\" = \"public\".\"book\".\"author_id\" "
+            + "where (\"public\".\"book\".\"published_in\" > "
+            + (1900 + variant)
+            + " and \"public\".\"author\".\"last_name\" = 'Author "
+            + variant
+            + "') fetch next 10 rows only";
+      case "mybatis":
+        return "INSERT INTO audit_log (id, user_id, action, created_at) VALUES ("
+            + variant
+            + ", "
+            + (variant * 31)
+            + ", 'LOGIN', '2023-01-"
+            + (10 + variant % 20)
+            + " 12:00:00')";
+      default:
+        throw new IllegalArgumentException(shape);
+    }
+  }
+}
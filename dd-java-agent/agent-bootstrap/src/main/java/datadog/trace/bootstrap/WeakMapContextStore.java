@@ -1,15 +1,24 @@
 package datadog.trace.bootstrap;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Weak {@link ContextStore} that acts as a fall-back when field-injection isn't possible.
  *
- * <p>This class should be created lazily because it uses weak maps with background cleanup.
+ * <p>Keys are compared by identity and weakly referenced. Entries of collected keys are expunged
+ * by the threads that update the store, there is no background cleanup. Factories are called
+ * outside the underlying {@link ConcurrentHashMap}, so they never block other updates; when calls
+ * for the same key race, each may create a context but all of them return the one that was stored.
  */
 final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   private static final int DEFAULT_MAX_SIZE = 50_000;
 
   private final int maxSize;
-  private final WeakMap<Object, Object> map = WeakMap.Supplier.newWeakMap();
+  private final ConcurrentHashMap<Object, V> map = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collectedKeys = new ReferenceQueue<>();
 
   public WeakMapContextStore(int maxSize) {
     this.maxSize = maxSize;
@@ -20,15 +29,17 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public V get(final K key) {
-    return (V) map.get(key);
+    return map.get(new LookupKey(key));
   }
 
   @Override
   public void put(final K key, final V context) {
-    if (map.size() < maxSize) {
-      map.put(key, context);
+    expungeCollectedKeys();
+    if (null == context) {
+      map.remove(new LookupKey(key));
+    } else if (map.size() < maxSize) {
+      map.put(new WeakKey(key, collectedKeys), context);
     }
   }
 
@@ -36,18 +47,12 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   public V putIfAbsent(final K key, final V context) {
     V existingContext = get(key);
     if (null == existingContext) {
-      // This whole part with using synchronized is only because
-      // we want to avoid prematurely calling the factory if
-      // someone else is doing a putIfAbsent at the same time.
-      // There is still the possibility that there is a concurrent
-      // call to put that will win, but that is indistinguishable
-      // from the put happening right after the putIfAbsent.
-      synchronized (map) {
-        existingContext = get(key);
-        if (null == existingContext) {
-          existingContext = context;
-          put(key, existingContext);
-        }
+      expungeCollectedKeys();
+      if (map.size() < maxSize) {
+        existingContext = map.putIfAbsent(new WeakKey(key, collectedKeys), context);
+      }
+      if (null == existingContext) {
+        existingContext = context;
       }
     }
     return existingContext;
@@ -62,31 +67,87 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   public V computeIfAbsent(K key, KeyAwareFactory<? super K, V> contextFactory) {
     V existingContext = get(key);
     if (null == existingContext) {
-      // This whole part with using synchronized is only because
-      // we want to avoid prematurely calling the factory if
-      // someone else is doing a putIfAbsent at the same time.
-      // There is still the possibility that there is a concurrent
-      // call to put that will win, but that is indistinguishable
-      // from the put happening right after the putIfAbsent.
-      synchronized (map) {
-        existingContext = get(key);
-        if (null == existingContext) {
-          existingContext = contextFactory.create(key);
-          put(key, existingContext);
-        }
+      V context = contextFactory.create(key);
+      if (null == context) {
+        return null;
+      }
+      expungeCollectedKeys();
+      if (map.size() < maxSize) {
+        // keep whichever context was stored first
+        existingContext = map.putIfAbsent(new WeakKey(key, collectedKeys), context);
+      }
+      if (null == existingContext) {
+        existingContext = context;
       }
     }
     return existingContext;
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public V remove(final K key) {
-    return (V) map.remove(key);
+    expungeCollectedKeys();
+    return map.remove(new LookupKey(key));
   }
 
   // Package reachable for testing
   int size() {
+    expungeCollectedKeys();
     return map.size();
   }
+
+  private void expungeCollectedKeys() {
+    Reference<?> collectedKey;
+    while ((collectedKey = collectedKeys.poll()) != null) {
+      // matched by identity, the key has been cleared
+      map.remove(collectedKey);
+    }
+  }
+
+  /** Stored key, equal to the other keys referring to the same object. */
+  static final class WeakKey extends WeakReference<Object> {
+    private final int hashCode;
+
+    WeakKey(Object key, ReferenceQueue<Object> queue) {
+      super(key, queue);
+      this.hashCode = System.identityHashCode(key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other == this) {
+        return true;
+      }
+      if (other instanceof WeakKey) {
+        Object key = get();
+        return null != key && key == ((WeakKey) other).get();
+      }
+      return false;
+    }
+  }
+
+  /** Short-lived key used to look up entries without registering a weak reference. */
+  static final class LookupKey {
+    private final Object key;
+    private final int hashCode;
+
+    LookupKey(Object key) {
+      this.key = key;
+      this.hashCode = System.identityHashCode(key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof WeakKey && key == ((WeakKey) other).get();
+    }
+  }
 }
@@ -11,13 +11,19 @@ public final class DBQueryInfo {
 
   private static final int COMBINED_SQL_LIMIT = 2 * 1024 * 1024; // characters
 
+  private static final int FINGERPRINTED_SQL_LIMIT = 8 * 1024; // bytes
+
   private static final ToIntFunction<DBQueryInfo> SQL_WEIGHER = DBQueryInfo::weight;
   private static final DDCache<String, DBQueryInfo> CACHED_PREPARED_STATEMENTS =
       DDCaches.newFixedSizeWeightedCache(512, SQL_WEIGHER, COMBINED_SQL_LIMIT);
-  private static final Function<String, DBQueryInfo> NORMALIZE = DBQueryInfo::new;
+  // statements which only differ by their literals share an entry
+  private static final SQLNormalizer.FingerprintCache<DBQueryInfo> CACHED_STATEMENTS =
+      new SQLNormalizer.FingerprintCache<>(256, FINGERPRINTED_SQL_LIMIT);
+  private static final Function<UTF8BytesString, DBQueryInfo> OF_NORMALIZED = DBQueryInfo::new;
+  private static final Function<String, DBQueryInfo> NORMALIZE = DBQueryInfo::ofStatement;
 
   public static DBQueryInfo ofStatement(String sql) {
-    return NORMALIZE.apply(sql);
+    return CACHED_STATEMENTS.computeIfAbsent(sql, OF_NORMALIZED);
   }
 
   public static DBQueryInfo ofPreparedStatement(String sql) {
@@ -28,7 +34,11 @@ public final class DBQueryInfo {
   private final UTF8BytesString sql;
 
   public DBQueryInfo(String sql) {
-    this.sql = SQLNormalizer.normalize(sql);
+    this(SQLNormalizer.normalize(sql));
+  }
+
+  private DBQueryInfo(UTF8BytesString normalizedSql) {
+    this.sql = normalizedSql;
     this.operation = UTF8BytesString.create(extractOperation(this.sql));
   }
 
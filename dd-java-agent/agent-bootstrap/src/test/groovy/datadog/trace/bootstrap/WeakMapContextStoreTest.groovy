@@ -0,0 +1,128 @@
+package datadog.trace.bootstrap
+
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.test.util.GCUtils
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class WeakMapContextStoreTest extends DDSpecification {
+
+  def "keys are compared by identity"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new String("key")
+    def equalKey = new String("key")
+
+    when:
+    store.put(key, "context")
+
+    then:
+    store.get(key) == "context"
+    store.get(equalKey) == null
+    store.putIfAbsent(equalKey, "other") == "other"
+    store.size() == 2
+  }
+
+  def "existing contexts are not replaced"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+    def created = new AtomicInteger()
+
+    expect:
+    store.putIfAbsent(key, "first") == "first"
+    store.putIfAbsent(key, "second") == "first"
+    store.computeIfAbsent(key, { created.incrementAndGet(); "third" }) == "first"
+    created.get() == 0
+    store.remove(key) == "first"
+    store.get(key) == null
+    store.computeIfAbsent(key, { created.incrementAndGet(); "third" }) == "third"
+    created.get() == 1
+  }
+
+  def "putting null removes the context"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+    store.put(key, "context")
+
+    when:
+    store.put(key, null)
+
+    then:
+    store.get(key) == null
+    store.size() == 0
+  }
+
+  def "contexts are not stored beyond the max size"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>(2)
+    def keys = [new Object(), new Object(), new Object()]
+
+    when:
+    def contexts = keys.collect { key -> store.computeIfAbsent(key, { "context" }) }
+
+    then:
+    contexts == ["context"] * 3
+    store.size() == 2
+    store.get(keys[2]) == null
+  }
+
+  def "factories returning null store nothing"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+
+    expect:
+    store.computeIfAbsent(key, { null }) == null
+    store.size() == 0
+  }
+
+  def "entries of collected keys are expunged"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def holder = [new Object()]
+    def ref = new WeakReference(holder[0])
+    store.put(holder[0], "context")
+
+    when:
+    holder[0] = null
+    GCUtils.awaitGC(ref)
+
+    then:
+    store.size() == 0
+  }
+
+  def "concurrent callers get the same context per key"() {
+    setup:
+    def store = new WeakMapContextStore<Object, Object>()
+    def keys = (1..100).collect { new Object() }
+    def created = new AtomicInteger()
+    def threads = 8
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+
+    when:
+    def futures = (1..threads).collect {
+      executor.submit({
+        start.await()
+        keys.collect { key -> store.computeIfAbsent(key, { created.incrementAndGet(); new Object() }) }
+      } as Callable)
+    }
+    start.countDown()
+    def results = futures.collect { it.get(10, TimeUnit.SECONDS) }
+
+    then:
+    created.get() >= keys.size()
+    results.every { it == results[0] }
+    keys.every { key -> store.get(key).is(results[0][keys.indexOf(key)]) }
+
+    cleanup:
+    executor.shutdownNow()
+  }
+}
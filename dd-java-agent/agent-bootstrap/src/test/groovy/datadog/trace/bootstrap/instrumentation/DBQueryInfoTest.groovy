@@ -25,4 +25,15 @@ class DBQueryInfoTest extends DDSpecification {
     "CALL"    | "{CALL /*my-customer-comment*/ STORED_PROC()}"
     "CALL"    | "/*ddps='SqlCommenter',dddbs='my-service'*/ {CALL STORED_PROC()}"
   }
+
+  def "statements which only differ by literals share query info"() {
+    when:
+    DBQueryInfo first = DBQueryInfo.ofStatement("SELECT * FROM users WHERE id IN (1, 2) AND name = 'a'")
+    DBQueryInfo second = DBQueryInfo.ofStatement("SELECT * FROM users WHERE id IN (3, 4, 5) AND name = 'b'")
+
+    then:
+    first.getSql() as String == "SELECT * FROM users WHERE id IN (?) AND name = ?"
+    first.getOperation() as String == "SELECT"
+    second.is(first)
+  }
 }
@@ -93,7 +93,8 @@ public class CiVisibilityServices {
           new ConventionBasedResourceResolver(
               fileSystem, config.getCiVisibilityResourceFolderNames());
       this.repoIndexProviderFactory =
-          new CachingRepoIndexBuilderFactory(config, packageResolver, resourceResolver, fileSystem);
+          new CachingRepoIndexBuilderFactory(
+              config, gitInfoProvider, packageResolver, resourceResolver, fileSystem);
     }
   }
 
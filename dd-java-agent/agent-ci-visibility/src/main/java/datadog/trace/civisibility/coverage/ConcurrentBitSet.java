@@ -0,0 +1,104 @@
+package datadog.trace.civisibility.coverage;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Bit set that can be updated from multiple threads without locking.
+ *
+ * <p>Bits are held in fixed-size pages that are allocated on first use. Growing the set only copies
+ * references to pages, so bits set concurrently are never lost.
+ */
+final class ConcurrentBitSet {
+
+  private static final LongBinaryOperator OR = (word, mask) -> word | mask;
+
+  private final int pageShift; // log2 of the number of bits in a page
+  private final int wordMask; // masks the index of a word in its page
+
+  private volatile AtomicLongArray[] pages;
+
+  /**
+   * @param wordsPerPage number of 64-bit words in each page, rounded up to a power of two
+   * @param expectedBits number of bits to allocate pages for upfront
+   */
+  ConcurrentBitSet(int wordsPerPage, int expectedBits) {
+    int pageWords = wordsPerPage > 1 ? Integer.highestOneBit(wordsPerPage - 1) << 1 : 1;
+    this.pageShift = Integer.numberOfTrailingZeros(pageWords) + 6;
+    this.wordMask = pageWords - 1;
+    int pageCount = expectedBits > 0 ? ((expectedBits - 1) >>> pageShift) + 1 : 0;
+    AtomicLongArray[] pages = new AtomicLongArray[Math.max(pageCount, 1)];
+    for (int i = 0; i < pageCount; i++) {
+      pages[i] = new AtomicLongArray(pageWords);
+    }
+    this.pages = pages;
+  }
+
+  /** Sets the bit; returns {@code true} if it was not already set. */
+  boolean set(int bitIndex) {
+    AtomicLongArray page = page(bitIndex >>> pageShift);
+    int wordIndex = (bitIndex >>> 6) & wordMask;
+    long mask = 1L << bitIndex;
+    // avoid the atomic update when the bit is already set, as is the case for most hits
+    return (page.get(wordIndex) & mask) == 0
+        && (page.getAndAccumulate(wordIndex, mask, OR) & mask) == 0;
+  }
+
+  boolean get(int bitIndex) {
+    AtomicLongArray[] pages = this.pages;
+    int pageIndex = bitIndex >>> pageShift;
+    AtomicLongArray page = pageIndex < pages.length ? pages[pageIndex] : null;
+    return null != page && (page.get((bitIndex >>> 6) & wordMask) & (1L << bitIndex)) != 0;
+  }
+
+  /** Returns the index of the first bit set at or after the given index; {@code -1} if none. */
+  int nextSetBit(int fromIndex) {
+    AtomicLongArray[] pages = this.pages;
+    int pageIndex = fromIndex >>> pageShift;
+    int wordIndex = (fromIndex >>> 6) & wordMask;
+    long firstWordMask = -1L << fromIndex;
+    for (; pageIndex < pages.length; pageIndex++, wordIndex = 0, firstWordMask = -1L) {
+      AtomicLongArray page = pages[pageIndex];
+      if (null == page) {
+        continue;
+      }
+      for (; wordIndex <= wordMask; wordIndex++, firstWordMask = -1L) {
+        long word = page.get(wordIndex) & firstWordMask;
+        if (word != 0) {
+          return (pageIndex << pageShift) + (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+        }
+      }
+    }
+    return -1;
+  }
+
+  boolean isEmpty() {
+    return nextSetBit(0) < 0;
+  }
+
+  private AtomicLongArray page(int pageIndex) {
+    AtomicLongArray[] pages = this.pages;
+    if (pageIndex < pages.length) {
+      AtomicLongArray page = pages[pageIndex];
+      if (null != page) {
+        return page;
+      }
+    }
+    return allocatePage(pageIndex);
+  }
+
+  private synchronized AtomicLongArray allocatePage(int pageIndex) {
+    AtomicLongArray[] pages = this.pages;
+    if (pageIndex >= pages.length) {
+      pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+    }
+    AtomicLongArray page = pages[pageIndex];
+    if (null == page) {
+      page = new AtomicLongArray(wordMask + 1);
+      pages[pageIndex] = page;
+    }
+    this.pages = pages;
+    return page;
+  }
+}
@@ -0,0 +1,74 @@
+package datadog.trace.civisibility.coverage;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Array of values that can be updated from multiple threads without locking.
+ *
+ * <p>Values are held in fixed-size pages that are allocated on first use. Growing the array only
+ * copies references to pages, so values set concurrently are never lost.
+ */
+final class ConcurrentPagedArray<T> {
+
+  private static final int PAGE_SHIFT = 8;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private volatile AtomicReferenceArray<T>[] pages = newPageArray(1);
+
+  T get(int index) {
+    AtomicReferenceArray<T>[] pages = this.pages;
+    int pageIndex = index >>> PAGE_SHIFT;
+    AtomicReferenceArray<T> page = pageIndex < pages.length ? pages[pageIndex] : null;
+    return null != page ? page.get(index & PAGE_MASK) : null;
+  }
+
+  /** Returns the value at the index, storing the computed value if there was none. */
+  T computeIfAbsent(int index, IntFunction<? extends T> mappingFunction) {
+    AtomicReferenceArray<T> page = page(index >>> PAGE_SHIFT);
+    int pageOffset = index & PAGE_MASK;
+    T value = page.get(pageOffset);
+    if (null == value) {
+      T newValue = mappingFunction.apply(index);
+      value = page.compareAndSet(pageOffset, null, newValue) ? newValue : page.get(pageOffset);
+    }
+    return value;
+  }
+
+  /** Upper bound of the indices holding values. */
+  int length() {
+    return pages.length << PAGE_SHIFT;
+  }
+
+  private AtomicReferenceArray<T> page(int pageIndex) {
+    AtomicReferenceArray<T>[] pages = this.pages;
+    if (pageIndex < pages.length) {
+      AtomicReferenceArray<T> page = pages[pageIndex];
+      if (null != page) {
+        return page;
+      }
+    }
+    return allocatePage(pageIndex);
+  }
+
+  private synchronized AtomicReferenceArray<T> allocatePage(int pageIndex) {
+    AtomicReferenceArray<T>[] pages = this.pages;
+    if (pageIndex >= pages.length) {
+      pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+    }
+    AtomicReferenceArray<T> page = pages[pageIndex];
+    if (null == page) {
+      page = new AtomicReferenceArray<>(PAGE_SIZE);
+      pages[pageIndex] = page;
+    }
+    this.pages = pages;
+    return page;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> AtomicReferenceArray<T>[] newPageArray(int length) {
+    return new AtomicReferenceArray[length];
+  }
+}
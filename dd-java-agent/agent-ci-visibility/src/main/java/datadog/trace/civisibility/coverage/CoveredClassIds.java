@@ -0,0 +1,58 @@
+package datadog.trace.civisibility.coverage;
+
+import datadog.trace.api.GenericClassValue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Allocates dense ids to covered classes, so that coverage can be recorded in arrays indexed by
+ * class id rather than in maps keyed by class.
+ *
+ * <p>Ids are global and never reused. Classes are weakly referenced, so that the class-loaders of
+ * finished tests can still be unloaded.
+ */
+final class CoveredClassIds {
+
+  private static final ClassValue<Integer> ids = GenericClassValue.of(CoveredClassIds::allocate);
+
+  private static volatile WeakReference<Class<?>>[] classes = newClassArray(1024);
+
+  private static volatile int count;
+
+  private CoveredClassIds() {}
+
+  static int idOf(Class<?> clazz) {
+    return ids.get(clazz);
+  }
+
+  /** Returns the class allocated to the id; {@code null} if it has been unloaded. */
+  @Nullable
+  static Class<?> classOf(int id) {
+    WeakReference<Class<?>>[] classes = CoveredClassIds.classes;
+    WeakReference<Class<?>> ref = id < classes.length ? classes[id] : null;
+    return null != ref ? ref.get() : null;
+  }
+
+  /** Number of ids allocated so far. */
+  static int count() {
+    return count;
+  }
+
+  private static synchronized Integer allocate(Class<?> clazz) {
+    int id = count;
+    WeakReference<Class<?>>[] classes = CoveredClassIds.classes;
+    if (id == classes.length) {
+      classes = Arrays.copyOf(classes, id * 2);
+    }
+    classes[id] = new WeakReference<>(clazz);
+    CoveredClassIds.classes = classes;
+    count = id + 1;
+    return id;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static WeakReference<Class<?>>[] newClassArray(int length) {
+    return new WeakReference[length];
+  }
+}
@@ -1,17 +1,19 @@
 package datadog.trace.civisibility.coverage;
 
-import java.util.BitSet;
 import org.jacoco.core.data.ExecutionData;
 
 public class ExecutionDataAdapter {
   private final long classId;
   private final String className;
-  // Unbounded data structure that only exists within a single test span
-  private final BitSet probeActivations = new BitSet();
+  // Only exists within a single test span, updated by any thread running code of the test
+  private final ConcurrentBitSet probeActivations;
 
-  public ExecutionDataAdapter(long classId, String className) {
+  public ExecutionDataAdapter(long classId, String className, int expectedProbeCount) {
     this.classId = classId;
     this.className = className;
+    // a single page holds all the probes when their count is known
+    this.probeActivations =
+        new ConcurrentBitSet((expectedProbeCount + 63) >>> 6, expectedProbeCount);
   }
 
   public String getClassName() {
@@ -19,17 +21,16 @@ public class ExecutionDataAdapter {
   }
 
   void record(int probeId) {
-    probeActivations.set(probeId, true);
-  }
-
-  ExecutionDataAdapter merge(ExecutionDataAdapter other) {
-    probeActivations.or(other.probeActivations);
-    return this;
+    probeActivations.set(probeId);
   }
 
   ExecutionData toExecutionData(int totalProbeCount) {
     boolean[] probes = new boolean[totalProbeCount];
-    probeActivations.stream().forEach(p -> probes[p] = true);
+    for (int p = probeActivations.nextSetBit(0);
+        p >= 0 && p < totalProbeCount;
+        p = probeActivations.nextSetBit(p + 1)) {
+      probes[p] = true;
+    }
     return new ExecutionData(classId, className, probes);
   }
 }
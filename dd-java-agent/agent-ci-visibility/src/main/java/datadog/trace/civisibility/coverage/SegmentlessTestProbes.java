@@ -14,11 +14,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -28,14 +25,15 @@ public class SegmentlessTestProbes implements CoverageProbeStore {
 
   private static final Logger log = LoggerFactory.getLogger(SegmentlessTestProbes.class);
 
+  private static final int WORDS_PER_PAGE = 64;
+
   // test starts and finishes in the same thread,
   // and in this thread we do not need to synchronize access
   private final Thread testThread = Thread.currentThread();
   // confined to testThread
   private boolean started;
-  private volatile Class<?> lastCoveredClass;
-  private final Map<Class<?>, Class<?>> coveredClasses;
-  private final Map<Thread, Map<Class<?>, Class<?>>> concurrentCoveredClasses;
+  // indexed by covered class id, shared by all threads running code of the test
+  private final ConcurrentBitSet coveredClasses;
   private final Collection<String> nonCodeResources;
   private final SourcePathResolver sourcePathResolver;
   private final CiVisibilityMetricCollector metricCollector;
@@ -45,8 +43,8 @@ public class SegmentlessTestProbes implements CoverageProbeStore {
       SourcePathResolver sourcePathResolver, CiVisibilityMetricCollector metricCollector) {
     this.sourcePathResolver = sourcePathResolver;
     this.metricCollector = metricCollector;
-    coveredClasses = new IdentityHashMap<>();
-    concurrentCoveredClasses = new ConcurrentHashMap<>();
+    // preallocate enough space for the classes covered so far, more pages are added if needed
+    coveredClasses = new ConcurrentBitSet(WORDS_PER_PAGE, CoveredClassIds.count());
     nonCodeResources = new ConcurrentLinkedQueue<>();
   }
 
@@ -58,21 +56,11 @@ public class SegmentlessTestProbes implements CoverageProbeStore {
   @Override
   public void record(Class<?> clazz) {
     try {
-      if (clazz != lastCoveredClass) {
-        Thread currentThread = Thread.currentThread();
-        if (currentThread == testThread) {
-          coveredClasses.put(lastCoveredClass, null);
-          lastCoveredClass = clazz;
-
-          if (!started) {
-            started = true;
-            metricCollector.add(CiVisibilityCountMetric.CODE_COVERAGE_STARTED, 1, Library.CUSTOM);
-          }
-        } else {
-          concurrentCoveredClasses
-              .computeIfAbsent(currentThread, t -> new IdentityHashMap<>())
-              .put(clazz, null);
-        }
+      coveredClasses.set(CoveredClassIds.idOf(clazz));
+
+      if (Thread.currentThread() == testThread && !started) {
+        started = true;
+        metricCollector.add(CiVisibilityCountMetric.CODE_COVERAGE_STARTED, 1, Library.CUSTOM);
       }
 
     } catch (Exception e) {
@@ -90,23 +78,22 @@ public class SegmentlessTestProbes implements CoverageProbeStore {
   @Override
   public boolean report(Long testSessionId, Long testSuiteId, long spanId) {
     try {
-      Map<Class<?>, Class<?>> classes =
-          map(coveredClasses.size() + concurrentCoveredClasses.size());
-      classes.putAll(coveredClasses);
-
-      for (Map<Class<?>, Class<?>> threadCoveredClasses : concurrentCoveredClasses.values()) {
-        classes.putAll(threadCoveredClasses);
+      List<Class<?>> classes = new ArrayList<>();
+      for (int coveredClassId = coveredClasses.nextSetBit(0);
+          coveredClassId >= 0;
+          coveredClassId = coveredClasses.nextSetBit(coveredClassId + 1)) {
+        Class<?> clazz = CoveredClassIds.classOf(coveredClassId);
+        if (clazz != null) {
+          classes.add(clazz);
+        }
       }
 
-      classes.put(lastCoveredClass, null);
-      classes.remove(null);
-
       if (classes.isEmpty() && nonCodeResources.isEmpty()) {
         return false;
       }
 
-      Set<String> coveredPaths = set(coveredClasses.size() + nonCodeResources.size());
-      for (Class<?> clazz : classes.keySet()) {
+      Set<String> coveredPaths = set(classes.size() + nonCodeResources.size());
+      for (Class<?> clazz : classes) {
         String sourcePath = sourcePathResolver.getSourcePath(clazz);
         if (sourcePath == null) {
           log.debug(
@@ -151,10 +138,6 @@ public class SegmentlessTestProbes implements CoverageProbeStore {
     }
   }
 
-  private static <K, V> Map<K, V> map(int size) {
-    return new IdentityHashMap<>(Math.max((int) (size / .75f) + 1, 16));
-  }
-
   private static <T> Set<T> set(int size) {
     return new HashSet<>(Math.max((int) (size / .75f) + 1, 16));
   }
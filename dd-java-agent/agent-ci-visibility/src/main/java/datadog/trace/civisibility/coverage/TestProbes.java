@@ -32,15 +32,15 @@ public class TestProbes implements CoverageProbeStore {
 
   private static final Logger log = LoggerFactory.getLogger(TestProbes.class);
 
-  private static final Map<String, Integer> totalProbeCounts = new HashMap<>();
+  private static final Map<String, Integer> totalProbeCounts = new ConcurrentHashMap<>();
 
   // test starts and finishes in the same thread,
   // and in this thread we do not need to synchronize access
   private final Thread testThread = Thread.currentThread();
   // confined to testThread
   private boolean started;
-  private final Map<Class<?>, ExecutionDataAdapter> probeActivations;
-  private final Map<Thread, Map<Class<?>, ExecutionDataAdapter>> concurrentProbeActivations;
+  // indexed by covered class id, shared by all threads running code of the test
+  private final ConcurrentPagedArray<ExecutionDataAdapter> probeActivations;
   private final Collection<String> nonCodeResources;
   private final SourcePathResolver sourcePathResolver;
   private final CiVisibilityMetricCollector metricCollector;
@@ -49,8 +49,7 @@ public class TestProbes implements CoverageProbeStore {
   TestProbes(SourcePathResolver sourcePathResolver, CiVisibilityMetricCollector metricCollector) {
     this.sourcePathResolver = sourcePathResolver;
     this.metricCollector = metricCollector;
-    probeActivations = new IdentityHashMap<>();
-    concurrentProbeActivations = new ConcurrentHashMap<>();
+    probeActivations = new ConcurrentPagedArray<>();
     nonCodeResources = new ConcurrentLinkedQueue<>();
   }
 
@@ -62,21 +61,18 @@ public class TestProbes implements CoverageProbeStore {
   @Override
   public void record(Class<?> clazz, long classId, int probeId) {
     try {
-      Thread currentThread = Thread.currentThread();
-      if (currentThread == testThread) {
-        probeActivations
-            .computeIfAbsent(clazz, (ignored) -> new ExecutionDataAdapter(classId, clazz.getName()))
-            .record(probeId);
-
-        if (!started) {
-          started = true;
-          metricCollector.add(CiVisibilityCountMetric.CODE_COVERAGE_STARTED, 1, Library.JACOCO);
-        }
-      } else {
-        concurrentProbeActivations
-            .computeIfAbsent(currentThread, t -> new IdentityHashMap<>())
-            .computeIfAbsent(clazz, (ignored) -> new ExecutionDataAdapter(classId, clazz.getName()))
-            .record(probeId);
+      int coveredClassId = CoveredClassIds.idOf(clazz);
+      ExecutionDataAdapter executionDataAdapter = probeActivations.get(coveredClassId);
+      if (executionDataAdapter == null) {
+        executionDataAdapter =
+            probeActivations.computeIfAbsent(
+                coveredClassId, (ignored) -> newExecutionDataAdapter(clazz, classId));
+      }
+      executionDataAdapter.record(probeId);
+
+      if (Thread.currentThread() == testThread && !started) {
+        started = true;
+        metricCollector.add(CiVisibilityCountMetric.CODE_COVERAGE_STARTED, 1, Library.JACOCO);
       }
 
     } catch (Exception e) {
@@ -86,6 +82,13 @@ public class TestProbes implements CoverageProbeStore {
     }
   }
 
+  private static ExecutionDataAdapter newExecutionDataAdapter(Class<?> clazz, long classId) {
+    String className = clazz.getName();
+    Integer totalProbeCount = totalProbeCounts.get(className);
+    return new ExecutionDataAdapter(
+        classId, className, totalProbeCount != null ? totalProbeCount : 0);
+  }
+
   @Override
   public void recordNonCodeResource(String absolutePath) {
     nonCodeResources.add(absolutePath);
@@ -94,21 +97,23 @@ public class TestProbes implements CoverageProbeStore {
   @Override
   public boolean report(Long testSessionId, Long testSuiteId, long spanId) {
     try {
-      for (Map<Class<?>, ExecutionDataAdapter> threadProbeActivations :
-          concurrentProbeActivations.values()) {
-        for (Map.Entry<Class<?>, ExecutionDataAdapter> e : threadProbeActivations.entrySet()) {
-          Class<?> clazz = e.getKey();
-          ExecutionDataAdapter dataAdapter = e.getValue();
-          probeActivations.merge(clazz, dataAdapter, ExecutionDataAdapter::merge);
+      Map<Class<?>, ExecutionDataAdapter> coveredClasses = new IdentityHashMap<>();
+      for (int coveredClassId = 0; coveredClassId < probeActivations.length(); coveredClassId++) {
+        ExecutionDataAdapter executionDataAdapter = probeActivations.get(coveredClassId);
+        if (executionDataAdapter != null) {
+          Class<?> clazz = CoveredClassIds.classOf(coveredClassId);
+          if (clazz != null) {
+            coveredClasses.put(clazz, executionDataAdapter);
+          }
         }
       }
 
-      if (probeActivations.isEmpty() && nonCodeResources.isEmpty()) {
+      if (coveredClasses.isEmpty() && nonCodeResources.isEmpty()) {
         return false;
       }
 
       Map<String, List<TestReportFileEntry.Segment>> segmentsBySourcePath = new HashMap<>();
-      for (Map.Entry<Class<?>, ExecutionDataAdapter> e : probeActivations.entrySet()) {
+      for (Map.Entry<Class<?>, ExecutionDataAdapter> e : coveredClasses.entrySet()) {
         ExecutionDataAdapter executionDataAdapter = e.getValue();
         String className = executionDataAdapter.getClassName();
         Integer totalProbeCount = totalProbeCounts.get(className);
@@ -4,6 +4,8 @@ import datadog.trace.api.Config;
 import datadog.trace.api.Pair;
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.git.GitInfoProvider;
+import datadog.trace.util.Strings;
 import java.nio.file.FileSystem;
 
 public class CachingRepoIndexBuilderFactory implements RepoIndexProvider.Factory {
@@ -11,16 +13,19 @@ public class CachingRepoIndexBuilderFactory implements RepoIndexProvider.Factory
   private final DDCache<Pair<String, String>, RepoIndexProvider> cache =
       DDCaches.newFixedSizeCache(8);
   private final Config config;
+  private final GitInfoProvider gitInfoProvider;
   private final PackageResolver packageResolver;
   private final ResourceResolver resourceResolver;
   private final FileSystem fileSystem;
 
   public CachingRepoIndexBuilderFactory(
       Config config,
+      GitInfoProvider gitInfoProvider,
       PackageResolver packageResolver,
       ResourceResolver resourceResolver,
       FileSystem fileSystem) {
     this.config = config;
+    this.gitInfoProvider = gitInfoProvider;
     this.packageResolver = packageResolver;
     this.resourceResolver = resourceResolver;
     this.fileSystem = fileSystem;
@@ -36,6 +41,25 @@ public class CachingRepoIndexBuilderFactory implements RepoIndexProvider.Factory
     String repoRoot = key.getLeft();
     String scanRoot = key.getRight();
     return new RepoIndexBuilder(
-        config, repoRoot, scanRoot, packageResolver, resourceResolver, fileSystem);
+        config,
+        repoRoot,
+        scanRoot,
+        packageResolver,
+        resourceResolver,
+        fileSystem,
+        createCache(repoRoot, scanRoot));
+  }
+
+  private RepoIndexCache createCache(String repoRoot, String scanRoot) {
+    String cacheDir = config.getCiVisibilityRepoIndexCacheDir();
+    if (cacheDir == null) {
+      return null;
+    }
+    // the index is only reused for the commit it was built for
+    String commitSha = gitInfoProvider.getGitInfo(repoRoot).getCommit().getSha();
+    if (!Strings.isNotBlank(commitSha)) {
+      return null;
+    }
+    return RepoIndexCache.create(fileSystem, cacheDir, commitSha, scanRoot);
   }
 }
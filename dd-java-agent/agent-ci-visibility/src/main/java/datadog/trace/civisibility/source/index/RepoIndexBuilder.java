@@ -3,30 +3,62 @@ package datadog.trace.civisibility.source.index;
 import datadog.trace.api.Config;
 import datadog.trace.util.ClassNameTrie;
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Builds the index of a repository by walking its directories in parallel: every directory is
+ * listed by a fork/join task, which reads its files and forks a task per subdirectory. The results
+ * are then merged in a single thread, in depth-first order with directory entries sorted by name.
+ *
+ * <p>If a {@link RepoIndexCache} is provided, the directories that did not change since it was
+ * written are taken from it instead of being listed and read again.
+ */
 public class RepoIndexBuilder implements RepoIndexProvider {
 
   private static final Logger log = LoggerFactory.getLogger(RepoIndexBuilder.class);
 
+  /** Last modified time of directories that could not be listed, so that they are never reused */
+  private static final long UNKNOWN_LAST_MODIFIED = Long.MIN_VALUE;
+
+  private static final String[] NO_STRINGS = new String[0];
+  private static final Directory[] NO_DIRECTORIES = new Directory[0];
+
+  private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKER_THREAD_FACTORY =
+      pool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("dd-repo-indexer-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+      };
+
   private final Config config;
   private final String repoRoot;
   private final String scanRoot;
   private final PackageResolver packageResolver;
   private final ResourceResolver resourceResolver;
   private final FileSystem fileSystem;
+  @Nullable private final RepoIndexCache cache;
 
   private final Object indexInitializationLock = new Object();
   private volatile RepoIndex index;
@@ -38,12 +70,24 @@ public class RepoIndexBuilder implements RepoIndexProvider {
       PackageResolver packageResolver,
       ResourceResolver resourceResolver,
       FileSystem fileSystem) {
+    this(config, repoRoot, scanRoot, packageResolver, resourceResolver, fileSystem, null);
+  }
+
+  RepoIndexBuilder(
+      Config config,
+      String repoRoot,
+      String scanRoot,
+      PackageResolver packageResolver,
+      ResourceResolver resourceResolver,
+      FileSystem fileSystem,
+      @Nullable RepoIndexCache cache) {
     this.config = config;
     this.repoRoot = repoRoot;
     this.scanRoot = scanRoot;
     this.packageResolver = packageResolver;
     this.resourceResolver = resourceResolver;
     this.fileSystem = fileSystem;
+    this.cache = cache;
   }
 
   @Override
@@ -63,34 +107,79 @@ public class RepoIndexBuilder implements RepoIndexProvider {
 
     Path repoRootPath = toRealPath(fileSystem.getPath(repoRoot));
     Path scanRootPath = toRealPath(fileSystem.getPath(scanRoot));
-    RepoIndexingFileVisitor repoIndexingFileVisitor =
-        new RepoIndexingFileVisitor(config, packageResolver, resourceResolver, repoRootPath);
 
     long startTime = System.currentTimeMillis();
+    Map<String, Directory> cachedDirectories =
+        cache != null ? cache.load() : Collections.emptyMap();
+    DirectoryIndexer indexer = new DirectoryIndexer(repoRootPath, cachedDirectories);
+
+    Directory root = null;
+    ForkJoinPool pool =
+        new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(), WORKER_THREAD_FACTORY, null, false);
     try {
-      Files.walkFileTree(
-          scanRootPath,
-          EnumSet.of(FileVisitOption.FOLLOW_LINKS),
-          Integer.MAX_VALUE,
-          repoIndexingFileVisitor);
+      root = pool.invoke(indexer.new DirectoryIndexingTask(scanRootPath, "", null));
     } catch (Exception e) {
       log.debug("Failed to build index of {}", scanRootPath, e);
+    } finally {
+      pool.shutdown();
+    }
+
+    RepoIndexingStats stats = new RepoIndexingStats();
+    RepoIndex index = buildIndex(root, stats);
+    if (cache != null && root != null && indexer.listedDirectories.get() > 0) {
+      cache.save(root);
     }
 
     long duration = System.currentTimeMillis() - startTime;
-    RepoIndexingStats stats = repoIndexingFileVisitor.indexingStats;
-    RepoIndex index = repoIndexingFileVisitor.getIndex();
     log.debug(
-        "Indexing took {} ms. Files visited: {}, source files visited: {}, resource files visited: {}, source roots found: {}, root packages found: {}",
+        "Indexing took {} ms. Directories listed: {}, directories reused: {}, files visited: {}, source files visited: {}, resource files visited: {}, source roots found: {}, root packages found: {}",
         duration,
+        indexer.listedDirectories.get(),
+        indexer.reusedDirectories.get(),
         stats.filesVisited,
         stats.sourceFilesVisited,
         stats.resourceFilesVisited,
-        repoIndexingFileVisitor.sourceRoots.size(),
+        stats.sourceRootsFound,
         index.getRootPackages());
     return index;
   }
 
+  private RepoIndex buildIndex(@Nullable Directory root, RepoIndexingStats stats) {
+    ClassNameTrie.Builder trieBuilder = new ClassNameTrie.Builder();
+    Map<String, Integer> sourceRoots = new LinkedHashMap<>();
+    PackageTree packageTree = new PackageTree(config);
+
+    Deque<Directory> pending = new ArrayDeque<>();
+    if (root != null) {
+      pending.push(root);
+    }
+    while (!pending.isEmpty()) {
+      Directory directory = pending.pop();
+      for (int i = 0; i < directory.classNames.length; i++) {
+        Integer sourceRootIdx =
+            sourceRoots.computeIfAbsent(directory.sourceRoots[i], k -> sourceRoots.size());
+        trieBuilder.put(directory.classNames[i], sourceRootIdx);
+      }
+      for (String packagePath : directory.packages) {
+        packageTree.add(fileSystem.getPath(packagePath));
+      }
+      stats.sourceFilesVisited += directory.sourceFilesVisited;
+      stats.resourceFilesVisited += directory.resourceFilesVisited;
+      stats.filesVisited +=
+          directory.sourceFilesVisited
+              + directory.resourceFilesVisited
+              + directory.otherFilesVisited;
+      for (int i = directory.children.length - 1; i >= 0; i--) {
+        pending.push(directory.children[i]);
+      }
+    }
+    stats.sourceRootsFound = sourceRoots.size();
+
+    return new RepoIndex(
+        trieBuilder.buildTrie(), new ArrayList<>(sourceRoots.keySet()), packageTree.asList());
+  }
+
   private Path toRealPath(Path path) {
     try {
       return path.toRealPath();
@@ -100,123 +189,239 @@ public class RepoIndexBuilder implements RepoIndexProvider {
     }
   }
 
-  private static final class RepoIndexingFileVisitor implements FileVisitor<Path> {
-
-    private static final Logger log = LoggerFactory.getLogger(RepoIndexingFileVisitor.class);
-
-    private final PackageResolver packageResolver;
-    private final ResourceResolver resourceResolver;
-    private final ClassNameTrie.Builder trieBuilder;
-    private final LinkedHashSet<String> sourceRoots;
-    private final PackageTree packageTree;
-    private final RepoIndexingStats indexingStats;
-    private final Path repoRoot;
-
-    private RepoIndexingFileVisitor(
-        Config config,
-        PackageResolver packageResolver,
-        ResourceResolver resourceResolver,
-        Path repoRoot) {
-      this.packageResolver = packageResolver;
-      this.resourceResolver = resourceResolver;
-      this.repoRoot = repoRoot;
-      trieBuilder = new ClassNameTrie.Builder();
-      sourceRoots = new LinkedHashSet<>();
-      packageTree = new PackageTree(config);
-      indexingStats = new RepoIndexingStats();
+  /**
+   * Sources and resources found directly in a directory, and the directories it contains. Indexed
+   * files are stored as class names with extension (e.g. "com.example.Foo.java") and their source
+   * roots relative to the repository root.
+   */
+  static final class Directory {
+    final long lastModified;
+    final String[] classNames;
+    final String[] sourceRoots;
+    final String[] packages;
+    final int sourceFilesVisited;
+    final int resourceFilesVisited;
+    final int otherFilesVisited;
+    final String[] subdirectories;
+    /** Indexed subdirectories, {@code null} for directories loaded from a cache */
+    final Directory[] children;
+
+    Directory(
+        long lastModified,
+        String[] classNames,
+        String[] sourceRoots,
+        String[] packages,
+        int sourceFilesVisited,
+        int resourceFilesVisited,
+        int otherFilesVisited,
+        String[] subdirectories,
+        Directory[] children) {
+      this.lastModified = lastModified;
+      this.classNames = classNames;
+      this.sourceRoots = sourceRoots;
+      this.packages = packages;
+      this.sourceFilesVisited = sourceFilesVisited;
+      this.resourceFilesVisited = resourceFilesVisited;
+      this.otherFilesVisited = otherFilesVisited;
+      this.subdirectories = subdirectories;
+      this.children = children;
     }
+  }
 
-    @Override
-    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-      if (Files.isSymbolicLink(dir) && readSymbolicLink(dir).startsWith(repoRoot)) {
-        // The path is a symlink that points inside the repo.
-        // We'll visit the folder that it points to anyway,
-        // moreover, we don't want two different results for one file
-        // (one containing the symlink, the other - the actual folder).
-        return FileVisitResult.SKIP_SUBTREE;
-      }
-      return FileVisitResult.CONTINUE;
+  private final class DirectoryIndexer {
+
+    private final Path repoRootPath;
+    private final Map<String, Directory> cachedDirectories;
+    private final AtomicInteger listedDirectories = new AtomicInteger();
+    private final AtomicInteger reusedDirectories = new AtomicInteger();
+
+    private DirectoryIndexer(Path repoRootPath, Map<String, Directory> cachedDirectories) {
+      this.repoRootPath = repoRootPath;
+      this.cachedDirectories = cachedDirectories;
     }
 
-    private static Path readSymbolicLink(Path path) {
-      try {
-        return Files.readSymbolicLink(path);
-      } catch (Exception e) {
-        log.debug("Could not read symbolic link {}", path, e);
-        return path;
+    private final class DirectoryIndexingTask extends RecursiveTask<Directory> {
+
+      private final Path dir;
+      private final String path;
+      @Nullable private final Path parentRealPath;
+
+      private DirectoryIndexingTask(Path dir, String path, @Nullable Path parentRealPath) {
+        this.dir = dir;
+        this.path = path;
+        this.parentRealPath = parentRealPath;
       }
-    }
 
-    @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-      indexingStats.filesVisited++;
+      @Override
+      protected Directory compute() {
+        Path realPath;
+        if (parentRealPath == null) {
+          realPath = dir; // scan root, already resolved
+        } else if (Files.isSymbolicLink(dir)) {
+          if (readSymbolicLink(dir).startsWith(repoRootPath)) {
+            // The path is a symlink that points inside the repo.
+            // We'll visit the folder that it points to anyway,
+            // moreover, we don't want two different results for one file
+            // (one containing the symlink, the other - the actual folder).
+            return null;
+          }
+          realPath = toRealPath(dir);
+          if (parentRealPath.startsWith(realPath)) {
+            log.debug("Skipping directory {}, it links to one of its parents", dir);
+            return null;
+          }
+        } else {
+          realPath = parentRealPath.resolve(dir.getFileName().toString());
+        }
 
-      try {
-        Path sourceRoot = getSourceRoot(file);
-        if (sourceRoot != null) {
-          sourceRoots.add(repoRoot.relativize(sourceRoot).toString());
-
-          Path relativePath = sourceRoot.relativize(file);
-          String classNameWithExtension = relativePath.toString().replace(File.separatorChar, '.');
-          if (!classNameWithExtension.isEmpty()) {
-            trieBuilder.put(classNameWithExtension, sourceRoots.size() - 1);
+        long lastModified;
+        try {
+          lastModified = Files.getLastModifiedTime(dir).toMillis();
+        } catch (Exception e) {
+          log.debug("Failed to visit directory: {}", dir, e);
+          return null;
+        }
+
+        Directory cached = cachedDirectories.get(path);
+        if (cached != null && cached.lastModified == lastModified) {
+          reusedDirectories.incrementAndGet();
+          List<DirectoryIndexingTask> subtasks = new ArrayList<>(cached.subdirectories.length);
+          for (String subdirectory : cached.subdirectories) {
+            subtasks.add(subtask(dir.resolve(subdirectory), realPath));
           }
+          ForkJoinTask.invokeAll(subtasks);
+          return withSubdirectories(cached, subtasks);
         }
-      } catch (Exception e) {
-        log.debug("Failed to index file {}", file, e);
-      }
-      return FileVisitResult.CONTINUE;
-    }
 
-    private Path getSourceRoot(Path file) throws IOException {
-      String fileName = file.getFileName().toString();
-      SourceType sourceType = SourceType.getByFileName(fileName);
-      if (sourceType == null) {
-        return null;
-
-      } else if (!sourceType.isResource()) {
-        indexingStats.sourceFilesVisited++;
-        Path packagePath = packageResolver.getPackage(file);
-        if (packagePath != null) {
-          packageTree.add(packagePath);
-          return getSourceRoot(file, packagePath);
-        } else {
-          return file.getParent();
+        listedDirectories.incrementAndGet();
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+          for (Path entry : stream) {
+            entries.add(entry);
+          }
+        } catch (Exception e) {
+          log.debug("Failed to visit directory: {}", dir, e);
+          lastModified = UNKNOWN_LAST_MODIFIED;
         }
+        Collections.sort(entries);
 
-      } else {
-        indexingStats.resourceFilesVisited++;
-        return resourceResolver.getResourceRoot(file);
+        List<DirectoryIndexingTask> subtasks = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        for (Path entry : entries) {
+          if (Files.isDirectory(entry)) {
+            subtasks.add(subtask(entry, realPath));
+          } else {
+            files.add(entry);
+          }
+        }
+        // subdirectories are listed by other workers while the files are read
+        ForkJoinTask.invokeAll(subtasks);
+        return withSubdirectories(indexFiles(lastModified, files), subtasks);
       }
-    }
 
-    private Path getSourceRoot(Path file, Path packagePath) {
-      Path folder = file.getParent();
-      // remove package path suffix from folder path to get source root
-      return folder
-          .getRoot()
-          .resolve(folder.subpath(0, folder.getNameCount() - packagePath.getNameCount()));
-    }
+      private DirectoryIndexingTask subtask(Path subdirectory, Path realPath) {
+        return new DirectoryIndexingTask(
+            subdirectory,
+            RepoIndexCache.child(path, subdirectory.getFileName().toString()),
+            realPath);
+      }
+
+      private Directory indexFiles(long lastModified, List<Path> files) {
+        List<String> classNames = new ArrayList<>();
+        List<String> sourceRoots = new ArrayList<>();
+        Set<String> packages = new LinkedHashSet<>();
+        int sourceFilesVisited = 0;
+        int resourceFilesVisited = 0;
+        int otherFilesVisited = 0;
+
+        for (Path file : files) {
+          SourceType sourceType = SourceType.getByFileName(file.getFileName().toString());
+          if (sourceType == null) {
+            otherFilesVisited++;
+            continue;
+          }
+          try {
+            Path sourceRoot;
+            if (!sourceType.isResource()) {
+              sourceFilesVisited++;
+              Path packagePath = packageResolver.getPackage(file);
+              if (packagePath != null) {
+                packages.add(packagePath.toString());
+                sourceRoot = getSourceRoot(file, packagePath);
+              } else {
+                sourceRoot = file.getParent();
+              }
+            } else {
+              resourceFilesVisited++;
+              sourceRoot = resourceResolver.getResourceRoot(file);
+            }
+
+            if (sourceRoot != null) {
+              Path relativePath = sourceRoot.relativize(file);
+              String classNameWithExtension =
+                  relativePath.toString().replace(File.separatorChar, '.');
+              if (!classNameWithExtension.isEmpty()) {
+                classNames.add(classNameWithExtension);
+                sourceRoots.add(repoRootPath.relativize(sourceRoot).toString());
+              }
+            }
+          } catch (Exception e) {
+            log.debug("Failed to index file {}", file, e);
+          }
+        }
+
+        return new Directory(
+            lastModified,
+            classNames.toArray(NO_STRINGS),
+            sourceRoots.toArray(NO_STRINGS),
+            packages.toArray(NO_STRINGS),
+            sourceFilesVisited,
+            resourceFilesVisited,
+            otherFilesVisited,
+            NO_STRINGS,
+            NO_DIRECTORIES);
+      }
 
-    @Override
-    public FileVisitResult visitFileFailed(Path file, IOException exc) {
-      if (exc != null) {
-        log.debug("Failed to visit file: {}", file, exc);
+      private Path getSourceRoot(Path file, Path packagePath) {
+        Path folder = file.getParent();
+        // remove package path suffix from folder path to get source root
+        return folder
+            .getRoot()
+            .resolve(folder.subpath(0, folder.getNameCount() - packagePath.getNameCount()));
       }
-      return FileVisitResult.CONTINUE;
     }
 
-    @Override
-    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-      if (exc != null) {
-        log.debug("Failed to visit directory: {}", dir, exc);
+    private Path readSymbolicLink(Path path) {
+      try {
+        return Files.readSymbolicLink(path);
+      } catch (Exception e) {
+        log.debug("Could not read symbolic link {}", path, e);
+        return path;
       }
-      return FileVisitResult.CONTINUE;
     }
 
-    public RepoIndex getIndex() {
-      return new RepoIndex(
-          trieBuilder.buildTrie(), new ArrayList<>(sourceRoots), packageTree.asList());
+    /** Joins the subdirectory tasks, leaving out the directories that were skipped. */
+    private Directory withSubdirectories(
+        Directory directory, List<DirectoryIndexingTask> subtasks) {
+      List<String> subdirectories = new ArrayList<>(subtasks.size());
+      List<Directory> children = new ArrayList<>(subtasks.size());
+      for (DirectoryIndexingTask subtask : subtasks) {
+        Directory child = subtask.join();
+        if (child != null) {
+          subdirectories.add(subtask.dir.getFileName().toString());
+          children.add(child);
+        }
+      }
+      return new Directory(
+          directory.lastModified,
+          directory.classNames,
+          directory.sourceRoots,
+          directory.packages,
+          directory.sourceFilesVisited,
+          directory.resourceFilesVisited,
+          directory.otherFilesVisited,
+          subdirectories.toArray(NO_STRINGS),
+          children.toArray(NO_DIRECTORIES));
     }
   }
 
@@ -224,5 +429,6 @@ public class RepoIndexBuilder implements RepoIndexProvider {
     int filesVisited;
     int sourceFilesVisited;
     int resourceFilesVisited;
+    int sourceRootsFound;
   }
 }
@@ -0,0 +1,215 @@
+package datadog.trace.civisibility.source.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexed directories of a scan root, persisted in a file so that the directories that did not
+ * change are neither listed nor have their files read again on the next run. The file is only used
+ * while the repository is at the same commit, and each directory only while its last modified time
+ * is unchanged. Edits that do not add, remove or rename files (e.g. changing the package declared
+ * by a source file) are not detected within a commit.
+ *
+ * <p>The file is made of a header (magic, version, commit and scan root), the table of source
+ * roots, then the directories in depth-first order. Files reference their source root by its index
+ * in the table.
+ */
+final class RepoIndexCache {
+
+  private static final Logger log = LoggerFactory.getLogger(RepoIndexCache.class);
+
+  private static final int MAGIC = 0x44445249; // "DDRI"
+  private static final int VERSION = 1;
+
+  private final Path file;
+  private final String commitSha;
+  private final String scanRoot;
+
+  RepoIndexCache(Path file, String commitSha, String scanRoot) {
+    this.file = file;
+    this.commitSha = commitSha;
+    this.scanRoot = scanRoot;
+  }
+
+  static RepoIndexCache create(
+      FileSystem fileSystem, String cacheDir, String commitSha, String scanRoot) {
+    String fileName = "repo-index-" + Integer.toHexString(scanRoot.hashCode()) + ".bin";
+    return new RepoIndexCache(fileSystem.getPath(cacheDir, fileName), commitSha, scanRoot);
+  }
+
+  /** @return the cached directories by path relative to the scan root, empty if there are none */
+  Map<String, RepoIndexBuilder.Directory> load() {
+    if (!Files.isRegularFile(file)) {
+      return Collections.emptyMap();
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.debug("Ignoring {}, written by another version", file);
+        return Collections.emptyMap();
+      }
+      String cachedCommitSha = in.readUTF();
+      String cachedScanRoot = in.readUTF();
+      if (!commitSha.equals(cachedCommitSha) || !scanRoot.equals(cachedScanRoot)) {
+        log.debug(
+            "Ignoring {}, written for commit {} of {}", file, cachedCommitSha, cachedScanRoot);
+        return Collections.emptyMap();
+      }
+
+      String[] sourceRoots = readStrings(in);
+
+      int directoryCount = in.readInt();
+      Map<String, RepoIndexBuilder.Directory> directories =
+          new HashMap<>(directoryCount * 4 / 3 + 1);
+      for (int i = 0; i < directoryCount; i++) {
+        String path = in.readUTF();
+        long lastModified = in.readLong();
+        int sourceFilesVisited = in.readInt();
+        int resourceFilesVisited = in.readInt();
+        int otherFilesVisited = in.readInt();
+
+        String[] classNames = new String[in.readInt()];
+        String[] fileSourceRoots = new String[classNames.length];
+        for (int j = 0; j < classNames.length; j++) {
+          classNames[j] = in.readUTF();
+          fileSourceRoots[j] = sourceRoots[in.readInt()];
+        }
+        String[] packages = readStrings(in);
+        String[] subdirectories = readStrings(in);
+
+        directories.put(
+            path,
+            new RepoIndexBuilder.Directory(
+                lastModified,
+                classNames,
+                fileSourceRoots,
+                packages,
+                sourceFilesVisited,
+                resourceFilesVisited,
+                otherFilesVisited,
+                subdirectories,
+                null));
+      }
+      log.debug("Loaded {} indexed directories from {}", directories.size(), file);
+      return directories;
+
+    } catch (IOException | RuntimeException e) {
+      log.debug("Unable to load the indexed directories from {}", file, e);
+      return Collections.emptyMap();
+    }
+  }
+
+  /** Writes the directory tree to the file, replacing the directories it held. */
+  void save(RepoIndexBuilder.Directory root) {
+    Path tmp = null;
+    try {
+      Path dir = Files.createDirectories(file.toAbsolutePath().getParent());
+      tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+
+      Map<String, Integer> sourceRoots = new LinkedHashMap<>();
+      Map<String, RepoIndexBuilder.Directory> directories = new LinkedHashMap<>();
+      Deque<String> paths = new ArrayDeque<>();
+      Deque<RepoIndexBuilder.Directory> pending = new ArrayDeque<>();
+      paths.push("");
+      pending.push(root);
+      while (!pending.isEmpty()) {
+        String path = paths.pop();
+        RepoIndexBuilder.Directory directory = pending.pop();
+        directories.put(path, directory);
+        for (String sourceRoot : directory.sourceRoots) {
+          sourceRoots.putIfAbsent(sourceRoot, sourceRoots.size());
+        }
+        for (int i = directory.children.length - 1; i >= 0; i--) {
+          paths.push(child(path, directory.subdirectories[i]));
+          pending.push(directory.children[i]);
+        }
+      }
+
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(commitSha);
+        out.writeUTF(scanRoot);
+
+        out.writeInt(sourceRoots.size());
+        for (String sourceRoot : sourceRoots.keySet()) {
+          out.writeUTF(sourceRoot);
+        }
+
+        out.writeInt(directories.size());
+        for (Map.Entry<String, RepoIndexBuilder.Directory> e : directories.entrySet()) {
+          RepoIndexBuilder.Directory directory = e.getValue();
+          out.writeUTF(e.getKey());
+          out.writeLong(directory.lastModified);
+          out.writeInt(directory.sourceFilesVisited);
+          out.writeInt(directory.resourceFilesVisited);
+          out.writeInt(directory.otherFilesVisited);
+
+          out.writeInt(directory.classNames.length);
+          for (int i = 0; i < directory.classNames.length; i++) {
+            out.writeUTF(directory.classNames[i]);
+            out.writeInt(sourceRoots.get(directory.sourceRoots[i]));
+          }
+          writeStrings(out, directory.packages);
+          writeStrings(out, directory.subdirectories);
+        }
+      }
+
+      // another process sharing the file sees either the previous or the new content
+      try {
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      tmp = null;
+      log.debug("Saved {} indexed directories to {}", directories.size(), file);
+
+    } catch (IOException | RuntimeException e) {
+      log.debug("Unable to save the indexed directories to {}", file, e);
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          log.debug("Unable to delete {}", tmp, e);
+        }
+      }
+    }
+  }
+
+  static String child(String path, String name) {
+    return path.isEmpty() ? name : path + '/' + name;
+  }
+
+  private static String[] readStrings(DataInputStream in) throws IOException {
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    return strings;
+  }
+
+  private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+    out.writeInt(strings.length);
+    for (String string : strings) {
+      out.writeUTF(string);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package datadog.trace.civisibility.coverage
+
+import datadog.trace.api.civisibility.telemetry.CiVisibilityMetricCollector
+import datadog.trace.civisibility.source.SourcePathResolver
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class SegmentlessTestProbesTest extends Specification {
+
+  def "test classes covered by the test thread and other threads are reported"() {
+    setup:
+    def sourcePathResolver = Stub(SourcePathResolver)
+    sourcePathResolver.getSourcePath(_ as Class) >> { Class c -> c.simpleName + ".java" }
+    def probes = new SegmentlessTestProbes(sourcePathResolver, Mock(CiVisibilityMetricCollector))
+    def executor = Executors.newFixedThreadPool(4)
+
+    when:
+    probes.record(String)
+    probes.record(String)
+    executor.invokeAll((1..8).collect { { -> probes.record(Integer); probes.record(Long) } as Callable })
+    probes.record(String)
+    def reported = probes.report(1L, 2L, 3L)
+
+    then:
+    reported
+    probes.report.testReportFileEntries*.sourceFileName.toSet() == ["String.java", "Integer.java", "Long.java"].toSet()
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def "test nothing is reported when nothing is covered"() {
+    setup:
+    def probes = new SegmentlessTestProbes(Stub(SourcePathResolver), Mock(CiVisibilityMetricCollector))
+
+    expect:
+    !probes.report(1L, 2L, 3L)
+  }
+
+  def "test bits set concurrently are all kept"() {
+    setup:
+    def bits = new ConcurrentBitSet(wordsPerPage, 0)
+    def executor = Executors.newFixedThreadPool(8)
+
+    when:
+    executor.invokeAll((0..<8).collect { int t ->
+      { ->
+        for (int i = t; i < 100_000; i += 8) {
+          bits.set(i * 3)
+        }
+      } as Callable
+    })
+    def indices = []
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+      indices << i
+    }
+
+    then:
+    indices == (0..<100_000).collect { it * 3 }
+    !bits.get(1)
+    bits.get(299_997)
+    !bits.set(299_997)
+
+    cleanup:
+    executor.shutdownNow()
+
+    where:
+    wordsPerPage << [1, 3, 64]
+  }
+}
@@ -0,0 +1,113 @@
+package datadog.trace.civisibility.source.index
+
+import com.google.common.jimfs.Configuration
+import com.google.common.jimfs.Jimfs
+import datadog.trace.api.Config
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.atomic.AtomicInteger
+
+class RepoIndexBuilderTest extends Specification {
+
+  def config = Stub(Config)
+  def resourceResolver = Stub(ResourceResolver)
+  def fileSystem = Jimfs.newFileSystem(Configuration.unix())
+  def repoRoot = "/repo"
+  def sourceRoot = "/repo/src"
+  def packageLookups = new AtomicInteger()
+  def packageResolver = { Path file ->
+    packageLookups.incrementAndGet()
+    return fileSystem.getPath(sourceRoot).relativize(file).getParent()
+  } as PackageResolver
+
+  def "test index is built from nested directories"() {
+    setup:
+    def expectedSourcePathOne = givenSourceFile(RepoIndexBuilderTest, SourceType.GROOVY)
+    def expectedSourcePathTwo = givenSourceFile(RepoIndexTest, SourceType.GROOVY)
+    givenRepoFile(fileSystem.getPath(repoRoot, "README.md"))
+
+    when:
+    def index = new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem).getIndex()
+
+    then:
+    index.getSourcePath(RepoIndexBuilderTest) == expectedSourcePathOne
+    index.getSourcePath(RepoIndexTest) == expectedSourcePathTwo
+    packageLookups.get() == 2
+  }
+
+  def "test unchanged directories are taken from the cache"() {
+    setup:
+    def expectedSourcePath = givenSourceFile(RepoIndexBuilderTest, SourceType.GROOVY)
+    new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("commit")).getIndex()
+
+    when:
+    def index = new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("commit")).getIndex()
+
+    then:
+    index.getSourcePath(RepoIndexBuilderTest) == expectedSourcePath
+    packageLookups.get() == 1
+  }
+
+  def "test changed directories are indexed again"() {
+    setup:
+    def expectedSourcePathOne = givenSourceFile(RepoIndexBuilderTest, SourceType.GROOVY)
+    new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("commit")).getIndex()
+    def expectedSourcePathTwo = givenSourceFile(RepoIndexBuilder, SourceType.JAVA)
+
+    when:
+    def index = new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("commit")).getIndex()
+
+    then:
+    index.getSourcePath(RepoIndexBuilderTest) == expectedSourcePathOne
+    index.getSourcePath(RepoIndexBuilder) == expectedSourcePathTwo
+    packageLookups.get() == 3
+  }
+
+  def "test cache is not used for another commit"() {
+    setup:
+    def expectedSourcePath = givenSourceFile(RepoIndexBuilderTest, SourceType.GROOVY)
+    new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("commit")).getIndex()
+
+    when:
+    def index = new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem, givenCache("another-commit")).getIndex()
+
+    then:
+    index.getSourcePath(RepoIndexBuilderTest) == expectedSourcePath
+    packageLookups.get() == 2
+  }
+
+  def "test symlinks to directories inside the repo are skipped"() {
+    setup:
+    def expectedSourcePath = givenSourceFile(RepoIndexBuilderTest, SourceType.GROOVY)
+    Files.createSymbolicLink(fileSystem.getPath(repoRoot, "link"), fileSystem.getPath(sourceRoot))
+
+    when:
+    def index = new RepoIndexBuilder(config, repoRoot, repoRoot, packageResolver, resourceResolver, fileSystem).getIndex()
+
+    then:
+    index.getSourcePath(RepoIndexBuilderTest) == expectedSourcePath
+    packageLookups.get() == 1
+  }
+
+  private RepoIndexCache givenCache(String commitSha) {
+    return RepoIndexCache.create(fileSystem, "/cache", commitSha, repoRoot)
+  }
+
+  private String givenSourceFile(Class c, SourceType sourceType) {
+    def classPath = fileSystem.getPath(sourceRoot, c.getName().replace(".", "/") + sourceType.extension)
+    givenRepoFile(classPath)
+    return fileSystem.getPath(repoRoot).relativize(classPath).toString()
+  }
+
+  private static void givenRepoFile(Path file) {
+    Files.createDirectories(file.getParent())
+    Files.write(file, "STUB FILE BODY".getBytes())
+    // directories modified within the same millisecond would look unchanged
+    def directory = file.getParent()
+    def lastModified = Files.getLastModifiedTime(directory).toMillis()
+    Files.setLastModifiedTime(directory, FileTime.fromMillis(lastModified + 1000))
+  }
+}
@@ -8,7 +8,9 @@ import com.squareup.moshi.JsonAdapter;
 import datadog.trace.api.Config;
 import datadog.trace.bootstrap.debugger.CapturedContext;
 import datadog.trace.bootstrap.debugger.DebuggerContext;
+import java.io.IOException;
 import java.util.Map;
+import okio.BufferedSink;
 
 /** Serializes snapshots in Json using Moshi */
 public class JsonSnapshotSerializer implements DebuggerContext.ValueSerializer {
@@ -20,11 +22,21 @@ public class JsonSnapshotSerializer implements DebuggerContext.ValueSerializer {
       new MoshiSnapshotHelper.CapturedValueAdapter();
 
   public String serializeSnapshot(String serviceName, Snapshot snapshot) {
+    return ADAPTER.toJson(createIntakeRequest(serviceName, snapshot));
+  }
+
+  /** Serializes the snapshot as UTF-8 encoded Json directly into the sink */
+  public void serializeSnapshot(String serviceName, Snapshot snapshot, BufferedSink sink)
+      throws IOException {
+    ADAPTER.toJson(sink, createIntakeRequest(serviceName, snapshot));
+  }
+
+  private IntakeRequest createIntakeRequest(String serviceName, Snapshot snapshot) {
     IntakeRequest request = new IntakeRequest(serviceName, new DebuggerIntakeRequestData(snapshot));
     handleCorrelationFields(snapshot, request);
     handleDuration(snapshot, request);
     handlerLogger(snapshot, request);
-    return ADAPTER.toJson(request);
+    return request;
   }
 
   @Override
@@ -13,6 +13,7 @@ import datadog.trace.util.TagsHelper;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import okio.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -169,7 +170,7 @@ public class DebuggerSink {
   void flush(DebuggerSink ignored) {
     symbolSink.flush();
     probeStatusSink.flush(tags);
-    List<String> snapshots = snapshotSink.getSerializedSnapshots();
+    List<Buffer> snapshots = snapshotSink.getSerializedSnapshots();
     if (snapshots.isEmpty()) {
       return;
     }
@@ -178,8 +179,8 @@ public class DebuggerSink {
     }
   }
 
-  private void uploadPayloads(List<String> payloads) {
-    List<byte[]> batches = IntakeBatchHelper.createBatches(payloads);
+  private void uploadPayloads(List<Buffer> payloads) {
+    List<byte[]> batches = IntakeBatchHelper.createBatchesFromBuffers(payloads);
     for (byte[] batch : batches) {
       snapshotUploader.upload(batch, tags);
     }
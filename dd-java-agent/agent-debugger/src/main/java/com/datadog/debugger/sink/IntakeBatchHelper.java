@@ -3,6 +3,7 @@ package com.datadog.debugger.sink;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import okio.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,10 +12,54 @@ public class IntakeBatchHelper {
 
   private static final Logger log = LoggerFactory.getLogger(IntakeBatchHelper.class);
 
-  private static final int MAX_PAYLOAD_SIZE = 5 * 1024 * 1024;
+  static final int MAX_PAYLOAD_SIZE = 5 * 1024 * 1024;
 
   private IntakeBatchHelper() {}
 
+  /**
+   * Batches payloads already encoded in UTF-8. The size of each payload is known, so the payloads
+   * are moved into the batches without being decoded or copied again. The payload buffers are
+   * consumed.
+   *
+   * @param payloads the Json payloads to batch
+   * @return the batches, as Json arrays
+   */
+  public static List<byte[]> createBatchesFromBuffers(List<Buffer> payloads) {
+    List<byte[]> batches = new ArrayList<>();
+    Buffer batch = new Buffer();
+    for (Buffer payload : payloads) {
+      long size = payload.size();
+      if (!fitsInBatch(size)) {
+        log.warn(
+            "Payload ({}mb) exceeding max payload size {}mb, skipping.",
+            size / 1024 / 1024,
+            MAX_PAYLOAD_SIZE / 1024 / 1024);
+        payload.clear();
+        continue;
+      }
+      // the separating comma and the closing bracket follow the payload
+      if (batch.size() + size + 2 >= MAX_PAYLOAD_SIZE) {
+        batches.add(closeBatch(batch));
+      }
+      batch.writeByte(batch.size() == 0 ? '[' : ',');
+      batch.write(payload, size);
+    }
+    if (batch.size() > 0) {
+      batches.add(closeBatch(batch));
+    }
+    return batches;
+  }
+
+  /** @return whether a payload of this size can be sent in a batch on its own */
+  static boolean fitsInBatch(long payloadSize) {
+    return payloadSize + 2 < MAX_PAYLOAD_SIZE;
+  }
+
+  private static byte[] closeBatch(Buffer batch) {
+    batch.writeByte(']');
+    return batch.readByteArray();
+  }
+
   public static List<byte[]> createBatches(List<String> payloads) {
     List<byte[]> batches = new ArrayList<>();
     int start = 0;
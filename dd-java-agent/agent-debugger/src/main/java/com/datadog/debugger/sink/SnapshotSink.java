@@ -6,22 +6,32 @@ import com.datadog.debugger.util.SnapshotPruner;
 import datadog.trace.api.Config;
 import datadog.trace.relocate.api.RatelimitedLogger;
 import datadog.trace.util.TagsHelper;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okio.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Collects snapshots that needs to be sent to the backend */
+/**
+ * Collects snapshots that needs to be sent to the backend. Snapshots are serialized when they are
+ * offered, so the captured values are not retained until the next flush, and are queued as UTF-8
+ * encoded Json in okio buffers, whose segments are pooled. The queue is bounded both in number of
+ * snapshots and in bytes.
+ */
 public class SnapshotSink {
   private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotSink.class);
   private static final int CAPACITY = 1000;
   public static final int MAX_SNAPSHOT_SIZE = 1024 * 1024;
+  static final long MAX_QUEUED_BYTES = 16 * 1024 * 1024;
   private static final int MINUTES_BETWEEN_ERROR_LOG = 5;
 
-  private final BlockingQueue<Snapshot> snapshots = new ArrayBlockingQueue<>(CAPACITY);
+  private final BlockingQueue<Buffer> snapshots = new ArrayBlockingQueue<>(CAPACITY);
+  private final AtomicLong queuedBytes = new AtomicLong();
   private final String serviceName;
   private final int batchSize;
   private final RatelimitedLogger ratelimitedLogger =
@@ -32,45 +42,65 @@ public class SnapshotSink {
     this.batchSize = config.getDebuggerUploadBatchSize();
   }
 
-  public List<String> getSerializedSnapshots() {
-    List<Snapshot> snapshots = new ArrayList<>();
-    this.snapshots.drainTo(snapshots, batchSize);
-    List<String> serializedSnapshots = new ArrayList<>();
-    for (Snapshot snapshot : snapshots) {
-      try {
-        String strSnapshot = serializeSnapshot(serviceName, snapshot);
-        serializedSnapshots.add(strSnapshot);
-        LOGGER.debug("Sending snapshot for probe: {}", snapshot.getProbe().getId());
-      } catch (Exception e) {
-        ExceptionHelper.logException(LOGGER, e, "Error during snapshot serialization:");
-      }
+  /** @return the serialized snapshots, which the caller must consume or clear */
+  public List<Buffer> getSerializedSnapshots() {
+    List<Buffer> serializedSnapshots = new ArrayList<>();
+    this.snapshots.drainTo(serializedSnapshots, batchSize);
+    long drainedBytes = 0;
+    for (Buffer serializedSnapshot : serializedSnapshots) {
+      drainedBytes += serializedSnapshot.size();
     }
+    queuedBytes.addAndGet(-drainedBytes);
     return serializedSnapshots;
   }
 
-  public List<Snapshot> getSnapshots() {
-    List<Snapshot> snapshots = new ArrayList<>();
-    this.snapshots.drainTo(snapshots, batchSize);
-    return snapshots;
-  }
-
   public long remainingCapacity() {
     return snapshots.remainingCapacity();
   }
 
   public boolean offer(Snapshot snapshot) {
-    return snapshots.offer(snapshot);
+    Buffer serializedSnapshot;
+    try {
+      serializedSnapshot = serializeSnapshot(serviceName, snapshot);
+    } catch (Exception e) {
+      ExceptionHelper.rateLimitedLogException(
+          ratelimitedLogger, LOGGER, e, "Error during snapshot serialization:");
+      return false;
+    }
+    long size = serializedSnapshot.size();
+    if (!IntakeBatchHelper.fitsInBatch(size)) {
+      ratelimitedLogger.warn(
+          "Snapshot ({}mb) for probe {} exceeding max payload size {}mb, skipping.",
+          size / 1024 / 1024,
+          snapshot.getProbe().getId(),
+          IntakeBatchHelper.MAX_PAYLOAD_SIZE / 1024 / 1024);
+      serializedSnapshot.clear();
+      return false;
+    }
+    if (queuedBytes.addAndGet(size) > MAX_QUEUED_BYTES || !snapshots.offer(serializedSnapshot)) {
+      queuedBytes.addAndGet(-size);
+      serializedSnapshot.clear();
+      return false;
+    }
+    LOGGER.debug("Queued snapshot for probe: {}", snapshot.getProbe().getId());
+    return true;
   }
 
-  String serializeSnapshot(String serviceName, Snapshot snapshot) {
-    String str = DebuggerAgent.getSnapshotSerializer().serializeSnapshot(serviceName, snapshot);
-    String prunedStr = SnapshotPruner.prune(str, MAX_SNAPSHOT_SIZE, 4);
-    if (prunedStr.length() != str.length()) {
-      LOGGER.debug(
-          "serializing snapshot breached 1MB limit, reducing size from {} -> {}",
-          str.length(),
-          prunedStr.length());
+  Buffer serializeSnapshot(String serviceName, Snapshot snapshot) throws IOException {
+    Buffer buffer = new Buffer();
+    DebuggerAgent.getSnapshotSerializer().serializeSnapshot(serviceName, snapshot, buffer);
+    if (buffer.size() > MAX_SNAPSHOT_SIZE) {
+      // the pruner works on the Json string, only decode the snapshot when it's too large
+      String str = buffer.readUtf8();
+      String prunedStr = SnapshotPruner.prune(str, MAX_SNAPSHOT_SIZE, 4);
+      if (prunedStr.length() != str.length()) {
+        LOGGER.debug(
+            "serializing snapshot breached 1MB limit, reducing size from {} -> {}",
+            str.length(),
+            prunedStr.length());
+      }
+      buffer.writeUtf8(prunedStr);
     }
-    return prunedStr;
+    return buffer;
   }
 }
@@ -1,6 +1,7 @@
 package com.datadog.debugger.sink;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -40,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import okio.Buffer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -171,6 +173,63 @@ public class DebuggerSinkTest {
     verifyNoInteractions(batchUploader);
   }
 
+  @Test
+  public void snapshotSerializedWhenAdded() throws IOException {
+    DebuggerSink sink = createDefaultDebuggerSink();
+    List<String> captured = new ArrayList<>(Collections.singletonList("before"));
+    CapturedValue local =
+        CapturedValue.of(
+            "list",
+            List.class.getTypeName(),
+            captured,
+            Limits.DEFAULT_REFERENCE_DEPTH,
+            Limits.DEFAULT_COLLECTION_SIZE,
+            Limits.DEFAULT_LENGTH,
+            Limits.DEFAULT_FIELD_COUNT);
+    CapturedContext context = new CapturedContext();
+    context.addLocals(new CapturedValue[] {local});
+    Snapshot snapshot = createSnapshot();
+    snapshot.setEntry(context);
+    sink.addSnapshot(snapshot);
+    captured.add("after");
+    sink.flush(sink);
+    verify(batchUploader).upload(payloadCaptor.capture(), matches(EXPECTED_SNAPSHOT_TAGS));
+    String strPayload = new String(payloadCaptor.getValue(), StandardCharsets.UTF_8);
+    assertOneIntakeRequest(strPayload);
+    assertTrue(strPayload.contains("before"));
+    assertFalse(strPayload.contains("after"));
+  }
+
+  @Test
+  public void snapshotQueueBoundedInBytes() throws IOException {
+    DebuggerMetrics debuggerMetrics = mock(DebuggerMetrics.class);
+    SnapshotSink snapshotSink = new SnapshotSink(config);
+    DebuggerSink sink =
+        new DebuggerSink(
+            config,
+            batchUploader,
+            debuggerMetrics,
+            probeStatusSink,
+            snapshotSink,
+            new SymbolSink(config));
+    Snapshot largeSnapshot = createSnapshot();
+    for (int i = 0; i < 15_000; i++) {
+      largeSnapshot.getStack().add(new CapturedStackFrame("f" + i, i));
+    }
+    Buffer serialized = snapshotSink.serializeSnapshot("service-name", largeSnapshot);
+    int expectedQueued = (int) (SnapshotSink.MAX_QUEUED_BYTES / serialized.size());
+    serialized.clear();
+    for (int i = 0; i < expectedQueued + 5; i++) {
+      sink.addSnapshot(largeSnapshot);
+    }
+    verify(debuggerMetrics, times(5)).count("debugger.sink.dropped.requests", 1);
+    // a flush frees the bytes of the uploaded snapshots
+    sink.flush(sink);
+    verify(batchUploader).upload(payloadCaptor.capture(), matches(EXPECTED_SNAPSHOT_TAGS));
+    assertTrue(snapshotSink.offer(largeSnapshot));
+    assertFalse(snapshotSink.offer(largeSnapshot));
+  }
+
   static class Node {
     String name;
     List<Node> children;
@@ -0,0 +1,89 @@
+package com.datadog.iast.taint;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.datadog.iast.model.Range;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares put/get throughput and the rate of lost taints of the map implementations when shared
+ * by concurrent threads. Each operation taints a new object and reads it back, mimicking a request
+ * propagating taint from a source. Run with {@code -t 1}, {@code -t 8}, {@code -t 64} etc. to cover
+ * the thread counts of interest; {@code lost} reports the taints that could not be read back.
+ */
+@Warmup(iterations = 3, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = MILLISECONDS)
+@Fork(3)
+@OutputTimeUnit(MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Threads(8)
+public class TaintedMapConcurrencyBenchmark {
+
+  private static final int OP_COUNT = 1024;
+
+  private static final Range[] EMPTY_RANGES = new Range[0];
+
+  @State(Scope.Benchmark)
+  public static class SharedMap {
+
+    @Param({"impl", "concurrent"})
+    String implementation;
+
+    TaintedMap map;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      map =
+          "concurrent".equals(implementation)
+              ? new ConcurrentTaintedMap(
+                  TaintedMap.DEFAULT_CAPACITY * 4, TaintedMap.DEFAULT_CAPACITY * 64)
+              : new TaintedMap.TaintedMapImpl(TaintedMap.DEFAULT_CAPACITY * 4);
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Taints {
+    public long lost;
+
+    // keeps the objects tainted in the last invocation reachable
+    final Object[] objects = new Object[OP_COUNT];
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      lost = 0;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OP_COUNT)
+  public void putAndGet(final SharedMap shared, final Taints taints) {
+    final TaintedMap map = shared.map;
+    final Object[] objects = taints.objects;
+    for (int i = 0; i < OP_COUNT; i++) {
+      final Object o = new Object();
+      objects[i] = o;
+      map.put(new TaintedObject(o, EMPTY_RANGES));
+    }
+    for (int i = 0; i < OP_COUNT; i++) {
+      if (map.get(objects[i]) == null) {
+        taints.lost++;
+      }
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.datadog.iast;
 
 import com.datadog.iast.taint.TaintedMap;
 import com.datadog.iast.taint.TaintedObjects;
+import datadog.trace.api.Config;
 import datadog.trace.api.iast.IastContext;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
@@ -29,10 +30,18 @@ public class IastGlobalContext implements IastContext {
     static final int MAX_AGE = TaintedMap.DEFAULT_MAX_AGE;
     static final TimeUnit MAX_AGE_UNIT = TaintedMap.DEFAULT_MAX_AGE_UNIT;
 
+    // (16384 * 64) buckets: approx 4M
+    static final int MAX_MAP_SIZE = TaintedMap.DEFAULT_CAPACITY * (1 << 6);
+
     // Map that with purge option
-    final IastContext globalContext =
-        new IastGlobalContext(
-            TaintedObjects.build(TaintedMap.buildWithPurge(MAP_SIZE, MAX_AGE, MAX_AGE_UNIT)));
+    final IastContext globalContext = new IastGlobalContext(TaintedObjects.build(buildMap()));
+
+    private static TaintedMap buildMap() {
+      if (Config.get().isIastConcurrentTaintedMapEnabled()) {
+        return TaintedMap.buildConcurrentWithPurge(MAP_SIZE, MAX_MAP_SIZE, MAX_AGE, MAX_AGE_UNIT);
+      }
+      return TaintedMap.buildWithPurge(MAP_SIZE, MAX_AGE, MAX_AGE_UNIT);
+    }
 
     @Nullable
     @Override
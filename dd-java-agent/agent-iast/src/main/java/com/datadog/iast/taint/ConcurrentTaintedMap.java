@@ -0,0 +1,318 @@
+package com.datadog.iast.taint;
+
+import static com.datadog.iast.taint.TaintedMap.POSITIVE_MASK;
+
+import datadog.trace.util.AgentTaskScheduler;
+import datadog.trace.util.UnsafeUtils;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link TaintedMap} suited to be shared by many concurrent requests.
+ *
+ * <p>Unlike {@link TaintedMap.TaintedMapImpl} puts are not lost while there is room. The map is
+ * split into segments, each one guarded by its own monitor for writes, which grow independently up
+ * to a max capacity. A segment at max capacity holds at most as many entries as buckets: once full,
+ * a put drops the entries of its bucket (or of the next non empty one) like the flat mode of {@link
+ * TaintedMap.TaintedMapImpl}. Reads don't lock unless they race with the resizing of their segment.
+ *
+ * <p>Entries are not removed when a request ends, they expire by epoch: the scheduled purge moves
+ * the map to a new epoch, then removes the entries from previous epochs one segment at a time, so
+ * the purge never blocks the whole map. Entries live between {@code maxAge} and {@code 2 * maxAge},
+ * same as {@link TaintedMap.TaintedMapImpl}.
+ */
+public final class ConcurrentTaintedMap implements TaintedMap, Runnable {
+
+  /** Default number of segments. It MUST be a power of 2. */
+  static final int DEFAULT_SEGMENTS = 64;
+
+  private static final int MIN_SEGMENT_CAPACITY = 1 << 4;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final int segmentBits;
+  private final int initialSegmentCapacity;
+  private final int maxSegmentCapacity;
+
+  /** Current epoch, only advanced by the purge. */
+  private volatile int epoch;
+
+  ConcurrentTaintedMap(final int initialCapacity, final int maxCapacity) {
+    this(initialCapacity, maxCapacity, DEFAULT_SEGMENTS, -1, null, null);
+  }
+
+  /**
+   * @param initialCapacity initial number of buckets across all segments. It must be a power of 2.
+   * @param maxCapacity max number of buckets across all segments. It must be a power of 2.
+   * @param segments number of segments. It must be a power of 2.
+   * @param maxAge max time an entry can stay in the map (can take up to {@code 2 * maxAge} in the
+   *     worst case)
+   * @param maxAgeUnit unit for the max age
+   * @param scheduler scheduler for the purge, entries never expire if {@code null}
+   */
+  ConcurrentTaintedMap(
+      final int initialCapacity,
+      final int maxCapacity,
+      final int segments,
+      final int maxAge,
+      @Nullable final TimeUnit maxAgeUnit,
+      @Nullable final AgentTaskScheduler scheduler) {
+    this.segments = new Segment[segments];
+    this.segmentMask = segments - 1;
+    this.segmentBits = Integer.numberOfTrailingZeros(segments);
+    this.initialSegmentCapacity = Math.max(MIN_SEGMENT_CAPACITY, initialCapacity / segments);
+    this.maxSegmentCapacity = Math.max(initialSegmentCapacity, maxCapacity / segments);
+    for (int i = 0; i < segments; i++) {
+      this.segments[i] = new Segment(initialSegmentCapacity, threshold(initialSegmentCapacity));
+    }
+    if (scheduler != null) {
+      scheduler.weakScheduleAtFixedRate(this, maxAge, maxAge, maxAgeUnit);
+    }
+  }
+
+  @Nullable
+  @Override
+  public TaintedObject get(@Nonnull final Object key) {
+    final int hash = System.identityHashCode(key) & POSITIVE_MASK;
+    final Segment segment = segments[hash & segmentMask];
+    final int resizes = segment.resizes;
+    if ((resizes & 1) == 0) {
+      final TaintedObject entry = find(segment.table, hash, key);
+      if (entry != null) {
+        return entry;
+      }
+      // the chain must be read before checking that no resize relinked it meanwhile
+      if (UnsafeUtils.loadFence() && resizes == segment.resizes) {
+        return null;
+      }
+    }
+    // the segment was resized while looking for the key, so entries might have been missed
+    synchronized (segment) {
+      return find(segment.table, hash, key);
+    }
+  }
+
+  @Nullable
+  private TaintedObject find(
+      final AtomicReferenceArray<TaintedObject> table, final int hash, final Object key) {
+    TaintedObject entry = table.get(bucket(table, hash));
+    while (entry != null) {
+      if (entry.positiveHashCode == hash && entry.get() == key) {
+        return entry;
+      }
+      entry = entry.next;
+    }
+    return null;
+  }
+
+  /**
+   * Put a new {@link TaintedObject} in the hash table. It will not insert the element if it is
+   * already present in the map. Stale entries found in the same bucket are removed.
+   */
+  @Override
+  public void put(@Nonnull final TaintedObject entry) {
+    final int hash = entry.positiveHashCode;
+    final Object key = entry.get();
+    if (key == null) {
+      return;
+    }
+    final Segment segment = segments[hash & segmentMask];
+    synchronized (segment) {
+      final AtomicReferenceArray<TaintedObject> table = segment.table;
+      final int index = bucket(table, hash);
+      final TaintedObject head = table.get(index);
+      for (TaintedObject cur = head, prev = null; cur != null; cur = cur.next) {
+        if (cur.positiveHashCode == hash && cur.get() == key) {
+          return; // Duplicate, exit early.
+        }
+        if (cur.get() == null) {
+          if (prev == null) {
+            table.set(index, cur.next);
+          } else {
+            prev.next = cur.next;
+          }
+          segment.count--;
+        } else {
+          prev = cur;
+        }
+      }
+      if (segment.count >= maxSegmentCapacity) {
+        evict(segment, table, index);
+      }
+      entry.epoch = epoch;
+      entry.next = table.get(index);
+      table.set(index, entry);
+      if (++segment.count > segment.threshold) {
+        resize(segment);
+      }
+    }
+  }
+
+  /** Drops the entries of the bucket, or of the next non empty one, to make room for an entry. */
+  private static void evict(
+      final Segment segment, final AtomicReferenceArray<TaintedObject> table, final int index) {
+    final int mask = table.length() - 1;
+    for (int i = 0; i <= mask; i++) {
+      final int bucket = (index + i) & mask;
+      TaintedObject entry = table.get(bucket);
+      if (entry != null) {
+        table.set(bucket, null);
+        for (; entry != null; entry = entry.next) {
+          segment.count--;
+        }
+        return;
+      }
+    }
+  }
+
+  /** Doubles the size of the segment, dropping stale entries. */
+  private void resize(final Segment segment) {
+    final AtomicReferenceArray<TaintedObject> oldTable = segment.table;
+    final int oldCapacity = oldTable.length();
+    final int newCapacity = oldCapacity << 1;
+    final AtomicReferenceArray<TaintedObject> newTable = new AtomicReferenceArray<>(newCapacity);
+    final int resizes = segment.resizes;
+    segment.resizes = resizes + 1; // odd while entries are being moved, so readers will lock
+    int count = 0;
+    for (int i = 0; i < oldCapacity; i++) {
+      TaintedObject entry = oldTable.get(i);
+      while (entry != null) {
+        final TaintedObject next = entry.next;
+        if (entry.get() != null) {
+          final int index = bucket(newTable, entry.positiveHashCode);
+          entry.next = newTable.get(index);
+          newTable.set(index, entry);
+          count++;
+        }
+        entry = next;
+      }
+    }
+    segment.table = newTable;
+    segment.count = count;
+    segment.threshold = threshold(newCapacity);
+    segment.resizes = resizes + 2;
+  }
+
+  private int threshold(final int capacity) {
+    if (capacity < maxSegmentCapacity) {
+      return capacity - (capacity >>> 2); // 0.75 load factor
+    }
+    // at max capacity, puts evict entries instead
+    return Integer.MAX_VALUE;
+  }
+
+  private int bucket(final AtomicReferenceArray<TaintedObject> table, final int hash) {
+    return (hash >>> segmentBits) & (table.length() - 1);
+  }
+
+  @Override
+  public int count() {
+    int count = 0;
+    for (final Segment segment : segments) {
+      count += segment.count;
+    }
+    return count;
+  }
+
+  @Override
+  public void clear() {
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        segment.reset(initialSegmentCapacity, threshold(initialSegmentCapacity));
+      }
+    }
+  }
+
+  /** Runnable used to purge entries from previous epochs after max age */
+  @Override
+  public void run() {
+    final int current = epoch + 1;
+    epoch = current;
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        purge(segment, current);
+      }
+    }
+  }
+
+  private static void purge(final Segment segment, final int current) {
+    final AtomicReferenceArray<TaintedObject> table = segment.table;
+    for (int index = 0; index < table.length(); index++) {
+      for (TaintedObject cur = table.get(index), prev = null; cur != null; cur = cur.next) {
+        // keep alive entries added in the previous epoch, drop the rest
+        if (cur.get() == null || current - cur.epoch > 1) {
+          if (prev == null) {
+            table.set(index, cur.next);
+          } else {
+            prev.next = cur.next;
+          }
+          segment.count--;
+        } else {
+          prev = cur;
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<TaintedObject> iterator() {
+    return new Iterator<TaintedObject>() {
+      int segmentIndex = 0;
+      int bucketIndex = 0;
+      AtomicReferenceArray<TaintedObject> table = segments[0].table;
+      @Nullable TaintedObject nextEntry;
+
+      @Override
+      public boolean hasNext() {
+        while (nextEntry == null) {
+          if (bucketIndex < table.length()) {
+            nextEntry = table.get(bucketIndex++);
+          } else if (segmentIndex < segmentMask) {
+            table = segments[++segmentIndex].table;
+            bucketIndex = 0;
+          } else {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public TaintedObject next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final TaintedObject entry = nextEntry;
+        nextEntry = entry.next;
+        return entry;
+      }
+    };
+  }
+
+  private static final class Segment {
+    volatile AtomicReferenceArray<TaintedObject> table;
+
+    /** Number of times entries have been moved to a new table, odd while moving entries. */
+    volatile int resizes;
+
+    /** Number of entries in the segment, including any stale entries. */
+    int count;
+
+    int threshold;
+
+    Segment(final int capacity, final int threshold) {
+      reset(capacity, threshold);
+    }
+
+    void reset(final int capacity, final int threshold) {
+      table = new AtomicReferenceArray<>(capacity);
+      count = 0;
+      this.threshold = threshold;
+    }
+  }
+}
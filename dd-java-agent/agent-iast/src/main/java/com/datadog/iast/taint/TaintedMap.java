@@ -80,6 +80,22 @@ public interface TaintedMap extends Iterable<TaintedObject> {
     return IastSystem.DEBUG ? new Debug(map) : map;
   }
 
+  /**
+   * Builds an instance suitable to be shared by many concurrent requests (e.g. a global instance),
+   * which grows up to {@code maxCapacity} instead of losing entries, and purges stale entries
+   * according to the scheduled interval.
+   */
+  static TaintedMap buildConcurrentWithPurge(
+      final int capacity, final int maxCapacity, int maxAge, TimeUnit maxAgeUnit) {
+    return new ConcurrentTaintedMap(
+        capacity,
+        maxCapacity,
+        ConcurrentTaintedMap.DEFAULT_SEGMENTS,
+        maxAge,
+        maxAgeUnit,
+        AgentTaskScheduler.INSTANCE);
+  }
+
   @Nullable
   TaintedObject get(@Nonnull Object key);
 
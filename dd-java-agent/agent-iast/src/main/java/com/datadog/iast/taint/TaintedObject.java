@@ -19,6 +19,9 @@ public class TaintedObject extends WeakReference<Object> {
   /** generation of the tainted for max age purging purposes */
   boolean generation;
 
+  /** epoch of the tainted for max age purging purposes in {@link ConcurrentTaintedMap} */
+  int epoch;
+
   public TaintedObject(final @Nonnull Object obj, final @Nonnull Range[] ranges) {
     super(obj);
     this.positiveHashCode = System.identityHashCode(obj) & POSITIVE_MASK;
@@ -0,0 +1,147 @@
+package com.datadog.iast.taint
+
+import com.datadog.iast.model.Range
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.util.AgentTaskScheduler
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ConcurrentTaintedMapTest extends DDSpecification {
+
+  def 'simple workflow'() {
+    given:
+    final map = new ConcurrentTaintedMap(64, 1024)
+    final o = new Object()
+    final to = new TaintedObject(o, [] as Range[])
+
+    expect:
+    map.size() == 0
+    map.count() == 0
+
+    when:
+    map.put(to)
+
+    then:
+    map.size() == 1
+    map.count() == 1
+    map.get(o).is(to)
+
+    when: 'the same object is put again'
+    map.put(new TaintedObject(o, [] as Range[]))
+
+    then: 'the first entry is kept'
+    map.count() == 1
+    map.get(o).is(to)
+
+    when:
+    map.clear()
+
+    then:
+    map.size() == 0
+    map.count() == 0
+    map.get(o) == null
+  }
+
+  def 'segments grow instead of losing entries'() {
+    given:
+    final map = new ConcurrentTaintedMap(16, 1 << 16, 4, -1, null, null)
+    final objects = (1..10000).collect { new Object() }
+
+    when:
+    objects.each { map.put(new TaintedObject(it, [] as Range[])) }
+
+    then:
+    map.count() == objects.size()
+    map.size() == objects.size()
+    objects.every { map.get(it)?.get().is(it) }
+  }
+
+  def 'segments at max capacity are capped'() {
+    given:
+    final map = new ConcurrentTaintedMap(16, 64, 4, -1, null, null)
+    final objects = (1..10000).collect { new Object() }
+
+    when:
+    objects.each { map.put(new TaintedObject(it, [] as Range[])) }
+
+    then: 'each segment holds at most as many entries as buckets'
+    map.count() <= 64
+    map.count() == map.size()
+
+    and: 'the last put is kept'
+    map.get(objects.last()) != null
+  }
+
+  def 'no puts are lost when putting from many threads'() {
+    given:
+    int nThreads = 16
+    int nObjectsPerThread = 5000
+    final map = new ConcurrentTaintedMap(16, 1 << 17, 8, -1, null, null)
+    final executorService = Executors.newFixedThreadPool(nThreads)
+    final latch = new CountDownLatch(nThreads)
+    final objects = (1..nThreads).collect { (1..nObjectsPerThread).collect { new Object() } }
+
+    when:
+    def futures = objects.collect { thread ->
+      executorService.submit({
+        ->
+        latch.countDown()
+        latch.await()
+        thread.each { o ->
+          map.put(new TaintedObject(o, [] as Range[]))
+          assert map.get(o) != null
+        }
+      } as Runnable)
+    }
+    futures*.get()
+
+    then:
+    map.count() == nThreads * nObjectsPerThread
+    objects.every { thread -> thread.every { map.get(it) != null } }
+
+    cleanup:
+    executorService?.shutdown()
+  }
+
+  void 'entries from previous epochs are purged'() {
+    setup:
+    final purge = new MockAgentTaskScheduler()
+    final map = new ConcurrentTaintedMap(16, 64, 4, 0, TimeUnit.MILLISECONDS, purge)
+    final items = (0..10).collect { it.toString() }
+    items.each { map.put(new TaintedObject(it, [] as Range[])) }
+
+    when: 'first purge is called'
+    purge.triggerAll()
+
+    then: 'all the items remain in the map'
+    map.count() == items.size()
+
+    when: 'an item is put in the new epoch and the second purge is called'
+    map.put(new TaintedObject('new', [] as Range[]))
+    purge.triggerAll()
+
+    then: 'only the item from the previous epoch remains'
+    map.count() == 1
+    map.get('new') != null
+  }
+
+  private static class MockAgentTaskScheduler extends AgentTaskScheduler {
+
+    private WeakHashMap<Object, Task<?>> tasks = new WeakHashMap<>()
+
+    MockAgentTaskScheduler() {
+      super(null)
+    }
+
+    void triggerAll() {
+      tasks.each { it.value.run(it.key) }
+    }
+
+    @Override
+    <T> void weakScheduleAtFixedRate(Task<T> task, T target, long initialDelay, long period, TimeUnit unit) {
+      tasks.put(target, task)
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.datadog.profiling.uploader;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compresses the test recording with each of the upload compression types. The compressed size is
+ * reported alongside the time taken. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(value = 1)
+public class CompressionBenchmark {
+
+  private byte[] recording;
+  private ByteArrayOutputStream out;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class CompressedSize {
+    public long compressedBytes;
+  }
+
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    try (InputStream is = CompressionBenchmark.class.getResourceAsStream("/test-recording.jfr")) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        baos.write(buffer, 0, read);
+      }
+      recording = baos.toByteArray();
+    }
+    out = new ByteArrayOutputStream(recording.length);
+  }
+
+  @Benchmark
+  public int lz4(CompressedSize size) throws IOException {
+    return compress(new LZ4FrameOutputStream(reset()), size);
+  }
+
+  @Benchmark
+  public int gzip(CompressedSize size) throws IOException {
+    return compress(new GZIPOutputStream(reset()), size);
+  }
+
+  @Benchmark
+  public int zstd(CompressedSize size) throws IOException {
+    return compress(ZstdCompression.compress(reset()), size);
+  }
+
+  private OutputStream reset() {
+    out.reset();
+    return out;
+  }
+
+  private int compress(OutputStream os, CompressedSize size) throws IOException {
+    try (OutputStream compressed = os) {
+      compressed.write(recording);
+    }
+    size.compressedBytes += out.size();
+    return out.size();
+  }
+}
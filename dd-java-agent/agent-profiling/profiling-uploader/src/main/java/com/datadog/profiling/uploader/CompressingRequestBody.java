@@ -86,6 +86,8 @@ final class CompressingRequestBody extends RequestBody {
   private static final int[] LZ4_MAGIC = new int[] {0x04, 0x22, 0x4D, 0x18};
   private static final int ZIP_MAGIC[] = new int[] {80, 75, 3, 4};
   private static final int GZ_MAGIC[] = new int[] {31, 139};
+  // https://github.com/facebook/zstd/blob/dev/doc/zstd_compression_format.md#zstandard-frames
+  private static final int[] ZSTD_MAGIC = new int[] {0x28, 0xB5, 0x2F, 0xFD};
 
   private final InputStreamSupplier inputStreamSupplier;
   private final OutputStreamMappingFunction outputStreamMapper;
@@ -269,7 +271,7 @@ final class CompressingRequestBody extends RequestBody {
    */
   static boolean isCompressed(@Nonnull final InputStream is) throws IOException {
     checkMarkSupported(is);
-    return isGzip(is) || isLz4(is) || isZip(is);
+    return isGzip(is) || isLz4(is) || isZstd(is) || isZip(is);
   }
 
   /**
@@ -323,6 +325,23 @@ final class CompressingRequestBody extends RequestBody {
     }
   }
 
+  /**
+   * Check whether the stream represents Zstandard data
+   *
+   * @param is input stream; must support {@linkplain InputStream#mark(int)}
+   * @return {@literal true} if the stream represents Zstandard data
+   * @throws IOException
+   */
+  static boolean isZstd(@Nonnull final InputStream is) throws IOException {
+    checkMarkSupported(is);
+    is.mark(ZSTD_MAGIC.length);
+    try {
+      return hasMagic(is, ZSTD_MAGIC);
+    } finally {
+      is.reset();
+    }
+  }
+
   private static void checkMarkSupported(@Nonnull final InputStream is) throws IOException {
     if (!is.markSupported()) {
       throw new IOException("Can not check headers on streams not supporting mark() method");
@@ -346,6 +365,14 @@ final class CompressingRequestBody extends RequestBody {
         {
           return out -> out;
         }
+      case ZSTD:
+        {
+          if (ZstdCompression.isAvailable()) {
+            return ZstdCompression::compress;
+          }
+          // the encoder is not supported on this platform, fall back to the default
+          return CompressingRequestBody::toLz4Stream;
+        }
       case ON:
       case LZ4:
       default:
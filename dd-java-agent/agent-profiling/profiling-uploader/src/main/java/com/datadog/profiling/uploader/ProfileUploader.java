@@ -205,6 +205,9 @@ public final class ProfileUploader {
             uploadTimeout.toMillis());
 
     compressionType = CompressionType.of(config.getProfilingUploadCompression());
+    if (compressionType == CompressionType.ZSTD && !ZstdCompression.isAvailable()) {
+      log.warn("zstd compression is not available on this platform. Defaulting to 'on'.");
+    }
   }
 
   /**
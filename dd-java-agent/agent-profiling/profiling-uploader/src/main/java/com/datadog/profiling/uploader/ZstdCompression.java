@@ -0,0 +1,44 @@
+package com.datadog.profiling.uploader;
+
+import io.airlift.compress.zstd.ZstdOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Zstandard compression of the uploaded recordings.
+ *
+ * <p>Uses the pure-Java encoder of aircompressor, so no native library has to be shipped with the
+ * agent. The encoder always compresses at zstd's default level 3. It relies on {@code Unsafe} and
+ * little-endian memory access, which is why its availability is checked before use.
+ */
+final class ZstdCompression {
+  private static final Logger log = LoggerFactory.getLogger(ZstdCompression.class);
+
+  private static volatile Boolean available;
+
+  private ZstdCompression() {}
+
+  /** @return {@literal true} if the zstd encoder can be used on this platform */
+  static boolean isAvailable() {
+    Boolean supported = available;
+    if (supported == null) {
+      supported = false;
+      try (OutputStream probe = new ZstdOutputStream(new ByteArrayOutputStream())) {
+        probe.write(0);
+        supported = true;
+      } catch (Throwable t) {
+        log.debug("zstd is not available", t);
+      }
+      available = supported;
+    }
+    return supported;
+  }
+
+  static OutputStream compress(@Nonnull OutputStream os) throws IOException {
+    return new ZstdOutputStream(os);
+  }
+}
@@ -0,0 +1,44 @@
+package com.datadog.profiling.uploader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ZstdCompressionTest {
+  private static byte[] recordingData;
+
+  @BeforeAll
+  static void setupAll() throws Exception {
+    try (InputStream dataStream =
+        ZstdCompressionTest.class.getResourceAsStream("/test-recording.jfr")) {
+      recordingData = IOUtils.toByteArray(dataStream);
+    }
+  }
+
+  @Test
+  void available() {
+    assertTrue(ZstdCompression.isAvailable());
+  }
+
+  @Test
+  void roundTrip() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (OutputStream os = ZstdCompression.compress(baos)) {
+      os.write(recordingData);
+    }
+    byte[] compressed = baos.toByteArray();
+    assertTrue(compressed.length < recordingData.length);
+    assertTrue(CompressingRequestBody.isZstd(new ByteArrayInputStream(compressed)));
+    assertArrayEquals(
+        recordingData,
+        IOUtils.toByteArray(new ZstdInputStream(new ByteArrayInputStream(compressed))));
+  }
+}
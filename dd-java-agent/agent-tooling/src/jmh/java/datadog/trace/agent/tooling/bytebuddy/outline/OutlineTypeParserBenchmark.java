@@ -0,0 +1,71 @@
+package datadog.trace.agent.tooling.bytebuddy.outline;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses outlines of a set of related types and walks their super-types and interfaces, like
+ * hierarchy matching does. Run with {@code -prof gc} to compare the memory allocated per outline.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class OutlineTypeParserBenchmark {
+
+  private static final Class<?>[] TYPES = {
+    java.util.ArrayList.class,
+    java.util.LinkedList.class,
+    java.util.Vector.class,
+    java.util.Stack.class,
+    java.util.HashMap.class,
+    java.util.LinkedHashMap.class,
+    java.util.TreeMap.class,
+    java.util.HashSet.class,
+    java.util.LinkedHashSet.class,
+    java.util.TreeSet.class,
+    java.util.concurrent.ConcurrentHashMap.class,
+    java.util.concurrent.CopyOnWriteArrayList.class
+  };
+
+  private final OutlineTypeParser parser = new OutlineTypeParser();
+
+  private final List<byte[]> classFiles = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    for (Class<?> type : TYPES) {
+      classFiles.add(ClassFileLocator.ForClassLoader.read(type));
+    }
+  }
+
+  @Benchmark
+  public void parseAndWalkOutlines(Blackhole blackhole) {
+    for (byte[] classFile : classFiles) {
+      TypeDescription outline = parser.parse(classFile);
+      blackhole.consume(outline.getSuperClass());
+      blackhole.consume(outline.getInterfaces());
+      blackhole.consume(outline.getDeclaredMethods());
+    }
+  }
+}
@@ -6,6 +6,7 @@ import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /** Shares type information using a single cache across multiple classloaders. */
 public final class TypeInfoCache<T> {
@@ -96,6 +97,15 @@ public final class TypeInfoCache<T> {
     }
   }
 
+  /** Visits the type information currently shared in the cache. */
+  public void forEach(Consumer<SharedTypeInfo<T>> consumer) {
+    for (SharedTypeInfo<T> value : sharedTypeInfo) {
+      if (null != value) {
+        consumer.accept(value);
+      }
+    }
+  }
+
   /** Clears all type information from the shared cache. */
   public void clear() {
     Arrays.fill(sharedTypeInfo, null);
@@ -125,6 +135,14 @@ public final class TypeInfoCache<T> {
       return true;
     }
 
+    public final String getClassName() {
+      return className;
+    }
+
+    public URL getClassFile() {
+      return UNKNOWN_CLASS_FILE;
+    }
+
     public final T get() {
       return typeInfo;
     }
@@ -153,6 +171,10 @@ public final class TypeInfoCache<T> {
           : loaderId.sameClassLoader(loader);
     }
 
+    public URL getClassFile() {
+      return classFile;
+    }
+
     public boolean sameClassFile(URL classFile) {
       return UNKNOWN_CLASS_FILE != classFile
           && UNKNOWN_CLASS_FILE != this.classFile
@@ -11,6 +11,8 @@ import datadog.trace.api.InstrumenterConfig;
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
 import de.thetaphi.forbiddenapis.SuppressForbidden;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
@@ -67,6 +69,12 @@ public final class Memoizer {
   private static final TypeInfoCache<BitSet> memos =
       new TypeInfoCache<>(InstrumenterConfig.get().getResolverMemoPoolSize(), namesAreUnique);
 
+  // memoized matches persisted by a previous run, cleared if the matchers are not the same
+  private static volatile PersistedMemos persistedMemos = loadPersistedMemos();
+  private static volatile boolean persistedMemosChecked;
+  // whether memos were computed that are missing from the persisted memos
+  private static volatile boolean newMemos;
+
   // local memoized results, used to detect circular references
   static final ThreadLocal<Map<String, BitSet>> localMemosHolder =
       ThreadLocal.withInitial(HashMap::new);
@@ -95,6 +103,73 @@ public final class Memoizer {
     memos.clear();
   }
 
+  private static PersistedMemos loadPersistedMemos() {
+    Path memoFile = NoMatchFilter.discoverCacheFile("-memos.bin");
+    return null != memoFile ? PersistedMemos.loadOrPersistOnExit(memoFile) : null;
+  }
+
+  static void persistMemos(Path memoFile) throws IOException {
+    if (null != persistedMemos && !newMemos) {
+      log.debug("Persisted memos in {} are up to date", memoFile);
+      return;
+    }
+    PersistedMemos.Writer writer = new PersistedMemos.Writer();
+    memos.forEach(
+        sharedMemo -> {
+          BitSet memo = sharedMemo.get();
+          // partial results depend on which types happened to be missing, so don't keep them;
+          // negative results are already recorded by the no-match filter
+          if (!memo.get(isPartial.matcherId) && memo.nextSetBit(INTERNAL_MATCHERS) >= 0) {
+            String name = sharedMemo.getClassName();
+            long locationKey =
+                name.startsWith("java.")
+                    ? PersistedMemos.jdkLocationKey()
+                    : PersistedMemos.locationKey(sharedMemo.getClassFile());
+            if (locationKey != PersistedMemos.UNKNOWN_LOCATION) {
+              writer.add(name, locationKey, memo);
+            }
+          }
+        });
+    writer.writeTo(memoFile, matchers.size(), matcherDigest());
+  }
+
+  /** Matcher ids depend on the order matchers are prepared, which is captured by this digest. */
+  private static byte[] matcherDigest() {
+    return PersistedMemos.matcherDigest(
+        matchers,
+        annotationMatcherIds,
+        fieldMatcherIds,
+        methodMatcherIds,
+        classMatcherIds,
+        interfaceMatcherIds,
+        inheritedMatcherIds);
+  }
+
+  private static BitSet findPersistedMemo(String name, TypeDescription type) {
+    PersistedMemos persisted = persistedMemos;
+    if (null == persisted) {
+      return null;
+    }
+    if (!persistedMemosChecked) {
+      // all matchers have been prepared by the time types are matched
+      if (!persisted.matches(matchers.size(), matcherDigest())) {
+        log.debug("Ignoring persisted memos recorded for different matchers");
+        persistedMemos = null;
+        return null;
+      }
+      persistedMemosChecked = true;
+    }
+    if (name.startsWith("java.")) {
+      return persisted.find(name, PersistedMemos.jdkLocationKey());
+    } else if (type instanceof WithLocation) {
+      long locationKey = PersistedMemos.locationKey(((WithLocation) type).getClassFile());
+      if (locationKey != PersistedMemos.UNKNOWN_LOCATION) {
+        return persisted.find(name, locationKey);
+      }
+    }
+    return null;
+  }
+
   static MemoizingMatcher withMatcherId(ElementMatcher matcher) {
     return new MemoizingMatcher(matchers.size());
   }
@@ -189,6 +264,13 @@ public final class Memoizer {
       }
     }
 
+    memo = findPersistedMemo(name, type);
+    if (null != memo) {
+      InstrumenterMetrics.reuseTypeMemo(fromTick);
+      share(name, type, memo);
+      return memo;
+    }
+
     localMemos.put(name, memo = new BitSet(matchers.size()));
     boolean wasFullParsing = TypePoolFacade.disableFullDescriptions(); // only need outlines here
     try {
@@ -237,14 +319,21 @@ public final class Memoizer {
     }
 
     // otherwise share result for this location (other locations may have different results)
+    share(name, type, memo);
+    if (!newMemos && !memo.get(isPartial.matcherId)) {
+      newMemos = true;
+    }
+
+    return memo;
+  }
+
+  private static void share(String name, TypeDescription type, BitSet memo) {
     if (namesAreUnique || name.startsWith("java.") || !(type instanceof WithLocation)) {
       memos.share(name, null, null, memo);
     } else {
       WithLocation origin = (WithLocation) type;
       memos.share(name, origin.getClassLoader(), origin.getClassFile(), memo);
     }
-
-    return memo;
   }
 
   /** Any type not recorded as a definite "no-match" is a potential match. */
@@ -34,23 +34,27 @@ final class NoMatchFilter extends ClassCodeFilter {
   }
 
   static Path discoverNoMatchFile() {
+    return discoverCacheFile("-nomatch.filter");
+  }
+
+  static Path discoverCacheFile(String suffix) {
     String cacheDir = InstrumenterConfig.get().getResolverCacheDir();
     if (null == cacheDir) {
       return null;
     }
 
     // use different file for each tracer + service combination
-    String filterKey =
+    String cacheKey =
         DDTraceApiInfo.VERSION
             + "/"
             + Config.get().getServiceName()
             + "/"
             + Config.get().getVersion();
 
-    String noMatchFilterName =
-        UUID.nameUUIDFromBytes(filterKey.getBytes(StandardCharsets.UTF_8)) + "-nomatch.filter";
+    String cacheFileName =
+        UUID.nameUUIDFromBytes(cacheKey.getBytes(StandardCharsets.UTF_8)) + suffix;
 
-    return Paths.get(cacheDir, noMatchFilterName);
+    return Paths.get(cacheDir, cacheFileName);
   }
 
   void seedNoMatchFilter(Path noMatchFile) {
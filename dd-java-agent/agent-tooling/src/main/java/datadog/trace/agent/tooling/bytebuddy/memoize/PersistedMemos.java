@@ -0,0 +1,377 @@
+package datadog.trace.agent.tooling.bytebuddy.memoize;
+
+import static datadog.trace.util.AgentThreadFactory.AGENT_THREAD_GROUP;
+
+import datadog.trace.api.DDTraceApiInfo;
+import datadog.trace.api.Platform;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memoized matches persisted by a previous run, memory-mapped so they can be consulted without
+ * reading the whole file up-front.
+ *
+ * <p>The file starts with a header recording the agent version and a digest of the matchers that
+ * were registered, since memos are only meaningful when matcher ids are assigned the same way. This
+ * is followed by an open-addressed table of entry offsets, indexed by class-name hash. Each entry
+ * records the class-name, a key identifying the content of the class file location, and the
+ * memoized matches.
+ */
+final class PersistedMemos {
+  private static final Logger log = LoggerFactory.getLogger(PersistedMemos.class);
+
+  private static final int MAGIC = 0xDD0CAC7E;
+  private static final int FORMAT = 2;
+
+  private static final int MAX_ENTRIES = 1 << 20;
+
+  private static final int DIGEST_LENGTH = 32; // SHA-256
+
+  /** Key of class files whose content cannot be identified, memos for them are not persisted. */
+  static final long UNKNOWN_LOCATION = 0;
+
+  // JDK types are not located, their content is identified by the runtime instead
+  private static final long JDK_LOCATION =
+      fnv1a(Platform.getRuntimeVendor() + '/' + Platform.getRuntimeVersion());
+
+  // default descriptions embed identity hash codes and lambda names, which change from run to run
+  private static final Pattern RUN_SPECIFIC =
+      Pattern.compile("@\\p{XDigit}+\\b|\\$\\$Lambda[^\\s,()]*");
+
+  // size and last modified time of recently seen containers (jars or class files) by URL
+  private static final DDCache<String, long[]> containerStats = DDCaches.newFixedSizeCache(64);
+
+  private final ByteBuffer buffer;
+  private final int matcherCount;
+  private final byte[] matcherDigest;
+  private final int tableStart;
+  private final int tableMask;
+
+  private PersistedMemos(
+      ByteBuffer buffer, int matcherCount, byte[] matcherDigest, int tableStart, int tableSize) {
+    this.buffer = buffer;
+    this.matcherCount = matcherCount;
+    this.matcherDigest = matcherDigest;
+    this.tableStart = tableStart;
+    this.tableMask = tableSize - 1;
+  }
+
+  /**
+   * Loads persisted memos from the given file, and registers a hook to refresh the file when the
+   * JVM exits.
+   *
+   * @return the persisted memos; {@code null} if they don't exist yet or can't be used
+   */
+  static PersistedMemos loadOrPersistOnExit(Path memoFile) {
+    Runtime.getRuntime().addShutdownHook(new ShutdownHook(memoFile));
+    if (!Files.exists(memoFile)) {
+      return null;
+    }
+    log.debug("Loading persisted memos from {}", memoFile);
+    try {
+      return load(memoFile);
+    } catch (IOException | RuntimeException e) {
+      if (log.isDebugEnabled()) {
+        log.info("Unable to load persisted memos from {}", memoFile, e);
+      } else {
+        log.info("Unable to load persisted memos from {}: {}", memoFile, e.getMessage());
+      }
+      return null;
+    }
+  }
+
+  static PersistedMemos load(Path memoFile) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(memoFile, StandardOpenOption.READ)) {
+      // mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+      throw new IOException("unexpected content");
+    }
+    byte[] version = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(version);
+    if (!DDTraceApiInfo.VERSION.equals(new String(version, StandardCharsets.UTF_8))) {
+      throw new IOException("version mismatch");
+    }
+    int matcherCount = buffer.getInt();
+    byte[] matcherDigest = new byte[DIGEST_LENGTH];
+    buffer.get(matcherDigest);
+    int tableSize = buffer.getInt();
+    if (Integer.bitCount(tableSize) != 1
+        || tableSize > MAX_ENTRIES << 2
+        || buffer.remaining() < tableSize * 4) {
+      throw new IOException("invalid table size");
+    }
+    // check every entry up-front, so find can trust the offsets and lengths it reads
+    int tableStart = buffer.position();
+    int entriesStart = tableStart + tableSize * 4;
+    for (int slot = 0; slot < tableSize; slot++) {
+      int offset = buffer.getInt(tableStart + (slot << 2));
+      if (offset != 0 && !isValidEntry(buffer, offset, entriesStart)) {
+        throw new IOException("invalid entry at offset " + offset);
+      }
+    }
+    return new PersistedMemos(buffer, matcherCount, matcherDigest, tableStart, tableSize);
+  }
+
+  /** Checks the entry at the given offset, including its name and words, is within the buffer. */
+  private static boolean isValidEntry(ByteBuffer buffer, int offset, int entriesStart) {
+    long limit = buffer.limit();
+    if (offset < entriesStart || offset + 16L > limit) {
+      return false;
+    }
+    int nameLength = buffer.getInt(offset + 12);
+    long wordsStart = offset + 16L + ((long) nameLength << 1);
+    if (nameLength < 0 || wordsStart + 4 > limit) {
+      return false;
+    }
+    int wordCount = buffer.getInt((int) wordsStart);
+    return wordCount >= 0 && wordsStart + 4 + ((long) wordCount << 3) <= limit;
+  }
+
+  /** Persisted memos can only be used when the same matchers were registered in the same order. */
+  boolean matches(int matcherCount, byte[] matcherDigest) {
+    return this.matcherCount == matcherCount && Arrays.equals(this.matcherDigest, matcherDigest);
+  }
+
+  /** Finds the persisted memo for the named type from the location with the given key. */
+  BitSet find(String name, long locationKey) {
+    int nameHash = name.hashCode();
+    for (int i = 0; i <= tableMask; i++) {
+      int offset = buffer.getInt(tableStart + (((nameHash + i) & tableMask) << 2));
+      if (offset == 0) {
+        return null;
+      }
+      if (buffer.getInt(offset) == nameHash
+          && buffer.getLong(offset + 4) == locationKey
+          && sameName(name, offset + 12)) {
+        int wordsStart = offset + 16 + (name.length() << 1);
+        long[] words = new long[buffer.getInt(wordsStart)];
+        for (int w = 0; w < words.length; w++) {
+          words[w] = buffer.getLong(wordsStart + 4 + (w << 3));
+        }
+        return BitSet.valueOf(words);
+      }
+    }
+    return null;
+  }
+
+  private boolean sameName(String name, int nameStart) {
+    if (buffer.getInt(nameStart) != name.length()) {
+      return false;
+    }
+    for (int i = 0, pos = nameStart + 4; i < name.length(); i++, pos += 2) {
+      if (buffer.getChar(pos) != name.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Digests the description and kinds of each matcher in the order they were registered.
+   *
+   * @param matcherKinds the ids of the matchers of each kind
+   */
+  static byte[] matcherDigest(List<?> matchers, BitSet... matcherKinds) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM supports SHA-256
+    }
+    digest.update(DDTraceApiInfo.VERSION.getBytes(StandardCharsets.UTF_8));
+    for (int matcherId = 0; matcherId < matchers.size(); matcherId++) {
+      int kinds = 0;
+      for (int k = 0; k < matcherKinds.length; k++) {
+        if (matcherKinds[k].get(matcherId)) {
+          kinds |= 1 << k;
+        }
+      }
+      digest.update((byte) 0);
+      digest.update((byte) kinds);
+      String description = String.valueOf(matchers.get(matcherId));
+      digest.update(
+          RUN_SPECIFIC.matcher(description).replaceAll("").getBytes(StandardCharsets.UTF_8));
+    }
+    return digest.digest();
+  }
+
+  /** Key for types from the JDK, which is only the same when running on the same JDK. */
+  static long jdkLocationKey() {
+    return JDK_LOCATION;
+  }
+
+  /**
+   * Identifies the content of a class file by its location together with the size and last
+   * modified time of the jar or file containing it.
+   *
+   * @return the location key; {@link #UNKNOWN_LOCATION} if the content cannot be identified
+   */
+  static long locationKey(URL classFile) {
+    if (null == classFile) {
+      return UNKNOWN_LOCATION;
+    }
+    String location = classFile.toExternalForm();
+    long[] stats = containerStats.computeIfAbsent(containerOf(location), PersistedMemos::stat);
+    if (null == stats) {
+      return UNKNOWN_LOCATION;
+    }
+    long key = fnv1a(location);
+    key = (key ^ stats[0]) * 0x100000001b3L;
+    key = (key ^ stats[1]) * 0x100000001b3L;
+    return key != UNKNOWN_LOCATION ? key : 1;
+  }
+
+  /** The outermost file URL of a class file location, i.e. its jar or the class file itself. */
+  private static String containerOf(String location) {
+    if (location.startsWith("jar:")) {
+      int separator = location.indexOf("!/");
+      return separator > 0 ? location.substring(4, separator) : location.substring(4);
+    }
+    return location;
+  }
+
+  private static long[] stat(String container) {
+    if (!container.startsWith("file:")) {
+      return null; // only local files can be checked for changes
+    }
+    try {
+      File file = new File(new URI(container));
+      long lastModified = file.lastModified();
+      return lastModified != 0 ? new long[] {file.length(), lastModified} : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static long fnv1a(String string) {
+    // FNV-1a, avoiding any lookups that could be triggered by URL.hashCode
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < string.length(); i++) {
+      hash ^= string.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /** Collects memos and writes them in the format expected by {@link #load}. */
+  static final class Writer {
+    private final List<String> names = new ArrayList<>();
+    private final List<long[]> entries = new ArrayList<>();
+
+    void add(String name, long locationKey, BitSet memo) {
+      if (names.size() < MAX_ENTRIES) {
+        names.add(name);
+        long[] words = memo.toLongArray();
+        long[] entry = new long[words.length + 1];
+        entry[0] = locationKey;
+        System.arraycopy(words, 0, entry, 1, words.length);
+        entries.add(entry);
+      }
+    }
+
+    void writeTo(Path memoFile, int matcherCount, byte[] matcherDigest) throws IOException {
+      // keep the table at most half full, so probing stays short
+      int tableSize = Integer.highestOneBit(Math.max(1, names.size())) << 2;
+      byte[] version = DDTraceApiInfo.VERSION.getBytes(StandardCharsets.UTF_8);
+      int entriesStart = 4 + 4 + 2 + version.length + 4 + DIGEST_LENGTH + 4 + tableSize * 4;
+
+      int[] table = new int[tableSize];
+      ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+      DataOutputStream entryOut = new DataOutputStream(entryBytes);
+      for (int i = 0; i < names.size(); i++) {
+        String name = names.get(i);
+        long[] entry = entries.get(i);
+        int nameHash = name.hashCode();
+        int slot = nameHash & (tableSize - 1);
+        while (table[slot] != 0) {
+          slot = (slot + 1) & (tableSize - 1);
+        }
+        table[slot] = entriesStart + entryOut.size();
+        entryOut.writeInt(nameHash);
+        entryOut.writeLong(entry[0]);
+        entryOut.writeInt(name.length());
+        entryOut.writeChars(name);
+        entryOut.writeInt(entry.length - 1);
+        for (int w = 1; w < entry.length; w++) {
+          entryOut.writeLong(entry[w]);
+        }
+      }
+
+      // the previous file may still be mapped, so replace it rather than write over it
+      Path tmp = Files.createTempFile(memoFile.toAbsolutePath().getParent(), "memos", ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(MAGIC);
+          out.writeInt(FORMAT);
+          out.writeShort(version.length);
+          out.write(version);
+          out.writeInt(matcherCount);
+          out.write(matcherDigest, 0, DIGEST_LENGTH);
+          out.writeInt(tableSize);
+          for (int offset : table) {
+            out.writeInt(offset);
+          }
+          entryBytes.writeTo(out);
+        }
+        try {
+          Files.move(tmp, memoFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmp, memoFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+  }
+
+  static final class ShutdownHook extends Thread {
+    private final Path memoFile;
+
+    ShutdownHook(Path memoFile) {
+      super(AGENT_THREAD_GROUP, "dd-Memoizer-persist-hook");
+      this.memoFile = memoFile;
+    }
+
+    @Override
+    public void run() {
+      log.debug("Persisting memos to {}", memoFile);
+      try {
+        Memoizer.persistMemos(memoFile);
+      } catch (IOException e) {
+        if (log.isDebugEnabled()) {
+          log.info("Unable to persist memos to {}", memoFile, e);
+        } else {
+          log.info("Unable to persist memos to {}: {}", memoFile, e.getMessage());
+        }
+      }
+    }
+  }
+}
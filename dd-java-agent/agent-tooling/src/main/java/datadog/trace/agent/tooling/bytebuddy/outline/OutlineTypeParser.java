@@ -4,9 +4,12 @@ import static datadog.trace.agent.tooling.bytebuddy.outline.AnnotationOutline.an
 import static net.bytebuddy.jar.asm.ClassReader.SKIP_CODE;
 import static net.bytebuddy.jar.asm.ClassReader.SKIP_DEBUG;
 
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.function.Function;
 import net.bytebuddy.ClassFileVersion;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.jar.asm.AnnotationVisitor;
@@ -20,6 +23,19 @@ import net.bytebuddy.utility.OpenedClassReader;
 /** Attempts a minimal parse of just the named elements we need for matching. */
 final class OutlineTypeParser implements TypeParser {
 
+  /**
+   * Shares type names across outlines; mainly super-types, interfaces, and outer types which are
+   * otherwise re-allocated each time a class-file is parsed. Keyed by internal name.
+   */
+  private static final DDCache<String, String> sharedTypeNames = DDCaches.newFixedSizeCache(4096);
+
+  /** Shares member names and descriptors across outlines, such as {@code ()V} for methods. */
+  private static final DDCache<String, String> sharedMemberNames = DDCaches.newFixedSizeCache(4096);
+
+  private static final String[] NO_NAMES = {};
+
+  private static final Function<String, String> toTypeName = name -> name.replace('/', '.');
+
   @Override
   public TypeDescription parse(byte[] bytecode) {
     ClassReader classReader = OpenedClassReader.of(bytecode);
@@ -86,6 +102,26 @@ final class OutlineTypeParser implements TypeParser {
     return typeNames;
   }
 
+  /** Converts the internal name to a shared type name, using '.' as the package separator. */
+  private static String typeName(String internalName) {
+    return null != internalName ? sharedTypeNames.computeIfAbsent(internalName, toTypeName) : null;
+  }
+
+  private static String[] sharedTypeNames(String[] internalNames) {
+    if (null == internalNames || internalNames.length == 0) {
+      return NO_NAMES;
+    }
+    String[] names = new String[internalNames.length];
+    for (int i = 0; i < internalNames.length; i++) {
+      names[i] = typeName(internalNames[i]);
+    }
+    return names;
+  }
+
+  private static String memberName(String name) {
+    return sharedMemberNames.computeIfAbsent(name, Function.identity());
+  }
+
   static final class OutlineTypeExtractor extends ClassVisitor {
 
     TypeOutline typeOutline;
@@ -105,7 +141,14 @@ final class OutlineTypeParser implements TypeParser {
         String signature,
         String superName,
         String[] interfaces) {
-      typeOutline = new TypeOutline(version, access, name, superName, interfaces);
+      // no need to share the name of the outlined type, unlike the names of its super-types
+      typeOutline =
+          new TypeOutline(
+              version,
+              access,
+              toTypeName.apply(name),
+              typeName(superName),
+              sharedTypeNames(interfaces));
     }
 
     @Override
@@ -117,7 +160,7 @@ final class OutlineTypeParser implements TypeParser {
     public void visitInnerClass(String name, String outerName, String innerName, int access) {
       if (typeOutline.getInternalName().equals(name)) {
         if (null != outerName) {
-          typeOutline.declaredBy(outerName);
+          typeOutline.declaredBy(typeName(outerName));
         } else if (null == innerName && !selfContained) {
           typeOutline.anonymousType();
         }
@@ -133,7 +176,8 @@ final class OutlineTypeParser implements TypeParser {
     @Override
     public FieldVisitor visitField(
         int access, String name, String descriptor, String signature, Object value) {
-      fieldOutline = new FieldOutline(typeOutline, access, name, descriptor);
+      fieldOutline =
+          new FieldOutline(typeOutline, access, memberName(name), memberName(descriptor));
       typeOutline.declare(fieldOutline);
       return fieldAnnotationExtractor;
     }
@@ -141,7 +185,8 @@ final class OutlineTypeParser implements TypeParser {
     @Override
     public MethodVisitor visitMethod(
         int access, String name, String descriptor, String signature, String[] exceptions) {
-      methodOutline = new MethodOutline(typeOutline, access, name, descriptor);
+      methodOutline =
+          new MethodOutline(typeOutline, access, memberName(name), memberName(descriptor));
       typeOutline.declare(methodOutline);
       return methodAnnotationExtractor;
     }
@@ -33,13 +33,14 @@ final class TypeOutline extends WithName {
   private String declaringName;
   private boolean anonymousType;
 
+  // lists are only allocated when the type declares such elements
   private List<AnnotationDescription> declaredAnnotations;
+  private List<FieldDescription.InDefinedShape> declaredFields;
+  private List<MethodDescription.InDefinedShape> declaredMethods;
 
-  private final List<FieldDescription.InDefinedShape> declaredFields = new ArrayList<>();
-  private final List<MethodDescription.InDefinedShape> declaredMethods = new ArrayList<>();
-
-  TypeOutline(int version, int access, String internalName, String superName, String[] interfaces) {
-    super(internalName.replace('/', '.'));
+  /** Type, super-type, and interface names are expected to use '.' as the package separator. */
+  TypeOutline(int version, int access, String name, String superName, String[] interfaces) {
+    super(name);
     this.classFileVersion = version;
     this.modifiers = access & ALLOWED_TYPE_MODIFIERS;
     this.superName = superName;
@@ -54,7 +55,7 @@ final class TypeOutline extends WithName {
   @Override
   public Generic getSuperClass() {
     if (null != superName) {
-      return findType(superName.replace('/', '.')).asGenericType();
+      return findType(superName).asGenericType();
     }
     return null;
   }
@@ -66,7 +67,7 @@ final class TypeOutline extends WithName {
     }
     List<Generic> outlines = new ArrayList<>(interfaces.length);
     for (final String iface : interfaces) {
-      outlines.add(findType(iface.replace('/', '.')).asGenericType());
+      outlines.add(findType(iface).asGenericType());
     }
     return new TypeList.Generic.Explicit(outlines);
   }
@@ -74,7 +75,7 @@ final class TypeOutline extends WithName {
   @Override
   public TypeDescription getDeclaringType() {
     if (null != declaringName) {
-      return findType(declaringName.replace('/', '.'));
+      return findType(declaringName);
     }
     return null;
   }
@@ -103,12 +104,12 @@ final class TypeOutline extends WithName {
 
   @Override
   public FieldList<FieldDescription.InDefinedShape> getDeclaredFields() {
-    return declaredFields.isEmpty() ? NO_FIELDS : new FieldList.Explicit<>(declaredFields);
+    return null == declaredFields ? NO_FIELDS : new FieldList.Explicit<>(declaredFields);
   }
 
   @Override
   public MethodList<MethodDescription.InDefinedShape> getDeclaredMethods() {
-    return declaredMethods.isEmpty() ? NO_METHODS : new MethodList.Explicit<>(declaredMethods);
+    return null == declaredMethods ? NO_METHODS : new MethodList.Explicit<>(declaredMethods);
   }
 
   @Override
@@ -131,12 +132,18 @@ final class TypeOutline extends WithName {
 
   void declare(FieldDescription.InDefinedShape field) {
     if (null != field) {
+      if (null == declaredFields) {
+        declaredFields = new ArrayList<>();
+      }
       declaredFields.add(field);
     }
   }
 
   void declare(MethodDescription.InDefinedShape method) {
     if (null != method) {
+      if (null == declaredMethods) {
+        declaredMethods = new ArrayList<>();
+      }
       declaredMethods.add(method);
     }
   }
@@ -0,0 +1,148 @@
+package datadog.trace.agent.tooling.bytebuddy.memoize
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import static net.bytebuddy.matcher.ElementMatchers.named
+
+class PersistedMemosTest extends Specification {
+
+  @TempDir
+  Path tempDir
+
+  void 'persisted memos can be found by name and location'() {
+    setup:
+    def memoFile = tempDir.resolve('test-memos.bin')
+    def jarA = PersistedMemos.locationKey(classInJar(givenJar('a.jar'), 'com/example/Foo.class'))
+    def jarB = PersistedMemos.locationKey(classInJar(givenJar('b.jar'), 'com/example/Foo.class'))
+    def jdk = PersistedMemos.jdkLocationKey()
+    def digest = PersistedMemos.matcherDigest([named('foo')], BitSet.valueOf([1L] as long[]))
+    def writer = new PersistedMemos.Writer()
+    writer.add('com.example.Foo', jarA, BitSet.valueOf([0b101L] as long[]))
+    writer.add('com.example.Foo', jarB, BitSet.valueOf([0b010L] as long[]))
+    writer.add('java.lang.Runnable', jdk, BitSet.valueOf([0L, 1L] as long[]))
+    writer.writeTo(memoFile, 42, digest)
+
+    when:
+    def memos = PersistedMemos.load(memoFile)
+
+    then:
+    memos.matches(42, digest)
+    !memos.matches(43, digest)
+    !memos.matches(42, PersistedMemos.matcherDigest([named('bar')], BitSet.valueOf([1L] as long[])))
+    memos.find('com.example.Foo', jarA) == BitSet.valueOf([0b101L] as long[])
+    memos.find('com.example.Foo', jarB) == BitSet.valueOf([0b010L] as long[])
+    memos.find('com.example.Foo', jdk) == null
+    memos.find('com.example.Bar', jarA) == null
+    memos.find('java.lang.Runnable', jdk).get(64)
+  }
+
+  void 'location keys change with the content of the jar'() {
+    setup:
+    def jar = givenJar('app.jar')
+    def before = PersistedMemos.locationKey(classInJar(jar, 'com/example/Foo.class'))
+    Files.write(jar, 'changed content'.bytes)
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 1000))
+    PersistedMemos.containerStats.clear()
+
+    expect:
+    before != PersistedMemos.UNKNOWN_LOCATION
+    PersistedMemos.locationKey(classInJar(jar, 'com/example/Foo.class')) != before
+    PersistedMemos.locationKey(classInJar(jar, 'com/example/Bar.class')) != before
+  }
+
+  void 'content of missing or remote locations is unknown'() {
+    expect:
+    PersistedMemos.locationKey(null) == PersistedMemos.UNKNOWN_LOCATION
+    PersistedMemos.locationKey(classInJar(tempDir.resolve('missing.jar'), 'Foo.class')) == PersistedMemos.UNKNOWN_LOCATION
+    PersistedMemos.locationKey(new URL('jar:http://example.com/app.jar!/Foo.class')) == PersistedMemos.UNKNOWN_LOCATION
+  }
+
+  void 'matcher digest ignores identity hash codes'() {
+    setup:
+    def kinds = BitSet.valueOf([1L] as long[])
+
+    expect:
+    PersistedMemos.matcherDigest([new Object()], kinds) == PersistedMemos.matcherDigest([new Object()], kinds)
+    PersistedMemos.matcherDigest([new Object()], kinds) != PersistedMemos.matcherDigest([named('foo')], kinds)
+    PersistedMemos.matcherDigest([named('foo')], kinds) != PersistedMemos.matcherDigest([named('foo')], new BitSet())
+  }
+
+  void 'files with unexpected content are rejected'() {
+    setup:
+    def memoFile = tempDir.resolve('corrupt-memos.bin')
+    new PersistedMemos.Writer().writeTo(memoFile, 1, new byte[32])
+    def bytes = Files.readAllBytes(memoFile)
+    bytes[0] = (byte) (bytes[0] + 1)
+    Files.write(memoFile, bytes)
+
+    when:
+    PersistedMemos.load(memoFile)
+
+    then:
+    thrown(IOException)
+  }
+
+  void 'files with entries beyond their end are rejected'() {
+    setup:
+    def memoFile = tempDir.resolve('truncated-memos.bin')
+    def writer = new PersistedMemos.Writer()
+    writer.add('java.lang.Runnable', PersistedMemos.jdkLocationKey(), BitSet.valueOf([1L, 2L] as long[]))
+    writer.writeTo(memoFile, 1, new byte[32])
+    def bytes = Files.readAllBytes(memoFile)
+    Files.write(memoFile, Arrays.copyOf(bytes, bytes.length - 4))
+
+    when:
+    PersistedMemos.load(memoFile)
+
+    then:
+    thrown(IOException)
+  }
+
+  void 'files with negative word counts are rejected'() {
+    setup:
+    def memoFile = tempDir.resolve('negative-memos.bin')
+    def writer = new PersistedMemos.Writer()
+    writer.add('java.lang.Runnable', PersistedMemos.jdkLocationKey(), BitSet.valueOf([1L] as long[]))
+    writer.writeTo(memoFile, 1, new byte[32])
+    def bytes = Files.readAllBytes(memoFile)
+    // the word count precedes the single word at the end of the only entry
+    bytes[bytes.length - 12] = (byte) 0x80
+    Files.write(memoFile, bytes)
+
+    when:
+    PersistedMemos.load(memoFile)
+
+    then:
+    thrown(IOException)
+  }
+
+  void 'persisted memos are replaced when written again'() {
+    setup:
+    def memoFile = tempDir.resolve('replaced-memos.bin')
+    def writer = new PersistedMemos.Writer()
+    writer.add('java.lang.Runnable', PersistedMemos.jdkLocationKey(), BitSet.valueOf([1L] as long[]))
+    writer.writeTo(memoFile, 1, new byte[32])
+    def previous = PersistedMemos.load(memoFile)
+
+    when:
+    new PersistedMemos.Writer().writeTo(memoFile, 1, new byte[32])
+
+    then:
+    previous.find('java.lang.Runnable', PersistedMemos.jdkLocationKey()) != null
+    PersistedMemos.load(memoFile).find('java.lang.Runnable', PersistedMemos.jdkLocationKey()) == null
+    Files.list(tempDir).count() == 1
+  }
+
+  private Path givenJar(String name) {
+    return Files.write(tempDir.resolve(name), name.bytes)
+  }
+
+  private static URL classInJar(Path jar, String classFile) {
+    return new URL("jar:${jar.toUri()}!/${classFile}")
+  }
+}
@@ -27,4 +27,20 @@ class OutlineTypeParserTest extends Specification {
     'datadog.trace.agent.test.EnclosedClasses$Inner$1'       | true
     'datadog.trace.agent.test.EnclosedClasses$InnerStatic$1' | true
   }
+
+  void 'test names are shared between outlines'() {
+    setup:
+    final parser = new OutlineTypeParser()
+    final locator = ClassFileLocators.classFileLocator(Thread.currentThread().contextClassLoader)
+
+    when:
+    final inner = parser.parse(locator.locate('datadog.trace.agent.test.EnclosedClasses$Inner').resolve())
+    final innerStatic = parser.parse(locator.locate('datadog.trace.agent.test.EnclosedClasses$InnerStatic').resolve())
+
+    then:
+    inner.@superName == 'java.lang.Object'
+    inner.@superName.is(innerStatic.@superName)
+    inner.@declaringName == 'datadog.trace.agent.test.EnclosedClasses'
+    inner.@declaringName.is(innerStatic.@declaringName)
+  }
 }
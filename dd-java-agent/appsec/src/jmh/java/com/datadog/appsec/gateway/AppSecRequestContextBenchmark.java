@@ -0,0 +1,85 @@
+package com.datadog.appsec.gateway;
+
+import static com.datadog.appsec.event.data.MapDataBundle.Builder.CAPACITY_6_10;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.datadog.appsec.event.data.Address;
+import com.datadog.appsec.event.data.KnownAddresses;
+import com.datadog.appsec.event.data.MapDataBundle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Records the data of a request in a request context the way the gateway bridge does, and reads it
+ * back the way the WAF input adapter does. The baseline stores the same data in a {@link
+ * ConcurrentHashMap}, as the request context used to. Run with {@code -prof gc} to compare the
+ * allocation per request.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class AppSecRequestContextBenchmark {
+
+  @Benchmark
+  public void requestContext(Blackhole blackhole) {
+    AppSecRequestContext ctx = new AppSecRequestContext();
+    MapDataBundle bundle = recordRequest(ctx);
+    ctx.addAll(bundle);
+    for (Map.Entry<Address<?>, Object> entry : ctx) {
+      blackhole.consume(entry.getKey().getKey());
+      blackhole.consume(entry.getValue());
+    }
+    ctx.close();
+  }
+
+  @Benchmark
+  public void concurrentHashMapBaseline(Blackhole blackhole) {
+    AppSecRequestContext ctx = new AppSecRequestContext();
+    MapDataBundle bundle = recordRequest(ctx);
+    Map<Address<?>, Object> persistentData = new ConcurrentHashMap<>();
+    for (Map.Entry<Address<?>, Object> entry : bundle) {
+      persistentData.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Address<?>, Object> entry : persistentData.entrySet()) {
+      blackhole.consume(entry.getKey().getKey());
+      blackhole.consume(entry.getValue());
+    }
+    ctx.close();
+  }
+
+  private static MapDataBundle recordRequest(AppSecRequestContext ctx) {
+    ctx.setScheme("https");
+    ctx.setMethod("GET");
+    ctx.setRawURI("/api/orders?page=2");
+    ctx.setPeerAddress("10.0.0.1");
+    ctx.setPeerPort(54321);
+    ctx.addRequestHeader("Host", "example.com");
+    ctx.addRequestHeader("User-Agent", "Mozilla/5.0");
+    ctx.addRequestHeader("Accept", "application/json");
+    ctx.addRequestHeader("Accept-Encoding", "gzip, deflate");
+    ctx.addRequestHeader("X-Forwarded-For", "192.168.1.1");
+    ctx.finishRequestHeaders();
+    return new MapDataBundle.Builder(CAPACITY_6_10)
+        .add(KnownAddresses.HEADERS_NO_COOKIES, ctx.getRequestHeaders())
+        .add(KnownAddresses.REQUEST_SCHEME, ctx.getScheme())
+        .add(KnownAddresses.REQUEST_METHOD, ctx.getMethod())
+        .add(KnownAddresses.REQUEST_URI_RAW, ctx.getSavedRawURI())
+        .add(KnownAddresses.REQUEST_CLIENT_IP, ctx.getPeerAddress())
+        .add(KnownAddresses.REQUEST_CLIENT_PORT, ctx.getPeerPort())
+        .build();
+  }
+}
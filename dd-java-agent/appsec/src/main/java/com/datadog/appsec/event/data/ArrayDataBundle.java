@@ -0,0 +1,113 @@
+package com.datadog.appsec.event.data;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe data bundle indexed by the serial of the addresses. Values can be added but never
+ * replaced or removed. Iteration follows the order of the serials. Only the addresses declared in
+ * {@link KnownAddresses} can be stored.
+ */
+public final class ArrayDataBundle implements DataBundle {
+  private static final int ADDRESS_COUNT;
+
+  static {
+    KnownAddresses.HEADERS_NO_COOKIES.getKey(); // force class initialization
+    ADDRESS_COUNT = Address.instanceCount();
+  }
+
+  private static final AtomicIntegerFieldUpdater<ArrayDataBundle> SIZE_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(ArrayDataBundle.class, "size");
+
+  // index: address.serial
+  private final AtomicReferenceArray<Map.Entry<Address<?>, Object>> entries =
+      new AtomicReferenceArray<>(ADDRESS_COUNT);
+  private volatile int size;
+
+  /**
+   * @return the value already associated with the address, or {@code null} if the value was added
+   */
+  public Object putIfAbsent(Address<?> addr, Object value) {
+    int serial = addr.getSerial();
+    if (serial >= ADDRESS_COUNT) {
+      throw new IllegalArgumentException("Unknown address " + addr);
+    }
+    Map.Entry<Address<?>, Object> entry = entries.get(serial);
+    if (entry == null) {
+      entry = new AbstractMap.SimpleImmutableEntry<>(addr, value);
+      if (entries.compareAndSet(serial, null, entry)) {
+        SIZE_UPDATER.incrementAndGet(this);
+        return null;
+      }
+      entry = entries.get(serial);
+    }
+    return entry.getValue();
+  }
+
+  @Override
+  public boolean hasAddress(Address<?> addr) {
+    int serial = addr.getSerial();
+    return serial < ADDRESS_COUNT && entries.get(serial) != null;
+  }
+
+  @Override
+  public Collection<Address<?>> getAllAddresses() {
+    List<Address<?>> addresses = new ArrayList<>(size);
+    for (Map.Entry<Address<?>, Object> entry : this) {
+      addresses.add(entry.getKey());
+    }
+    return addresses;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Address<T> addr) {
+    int serial = addr.getSerial();
+    if (serial >= ADDRESS_COUNT) {
+      return null;
+    }
+    Map.Entry<Address<?>, Object> entry = entries.get(serial);
+    return entry != null ? (T) entry.getValue() : null;
+  }
+
+  @Override
+  public Iterator<Map.Entry<Address<?>, Object>> iterator() {
+    return new Iterator<Map.Entry<Address<?>, Object>>() {
+      private int next = advance(0);
+
+      private int advance(int serial) {
+        while (serial < ADDRESS_COUNT && entries.get(serial) == null) {
+          serial++;
+        }
+        return serial;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < ADDRESS_COUNT;
+      }
+
+      @Override
+      public Map.Entry<Address<?>, Object> next() {
+        if (next >= ADDRESS_COUNT) {
+          throw new NoSuchElementException();
+        }
+        Map.Entry<Address<?>, Object> entry = entries.get(next);
+        next = advance(next + 1);
+        return entry;
+      }
+    };
+  }
+}
@@ -1,6 +1,7 @@
 package com.datadog.appsec.gateway;
 
 import com.datadog.appsec.event.data.Address;
+import com.datadog.appsec.event.data.ArrayDataBundle;
 import com.datadog.appsec.event.data.DataBundle;
 import com.datadog.appsec.report.AppSecEvent;
 import com.datadog.appsec.stack_trace.StackTraceCollection;
@@ -14,7 +15,6 @@ import io.sqreen.powerwaf.PowerwafContext;
 import io.sqreen.powerwaf.PowerwafMetrics;
 import java.io.Closeable;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -76,7 +76,7 @@ public class AppSecRequestContext implements DataBundle, Closeable {
     REQUEST_HEADERS_ALLOW_LIST.addAll(DEFAULT_REQUEST_HEADERS_ALLOW_LIST);
   }
 
-  private final ConcurrentHashMap<Address<?>, Object> persistentData = new ConcurrentHashMap<>();
+  private final ArrayDataBundle persistentData = new ArrayDataBundle();
   private volatile Queue<AppSecEvent> appSecEvents;
   private volatile Queue<StackTraceEvent> stackTraceEvents;
 
@@ -192,12 +192,12 @@ public class AppSecRequestContext implements DataBundle, Closeable {
 
   @Override
   public boolean hasAddress(Address<?> addr) {
-    return persistentData.containsKey(addr);
+    return persistentData.hasAddress(addr);
   }
 
   @Override
   public Collection<Address<?>> getAllAddresses() {
-    return persistentData.keySet();
+    return persistentData.getAllAddresses();
   }
 
   @Override
@@ -206,14 +206,13 @@ public class AppSecRequestContext implements DataBundle, Closeable {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public <T> T get(Address<T> addr) {
-    return (T) persistentData.get(addr);
+    return persistentData.get(addr);
   }
 
   @Override
   public Iterator<Map.Entry<Address<?>, Object>> iterator() {
-    return persistentData.entrySet().iterator();
+    return persistentData.iterator();
   }
 
   /* Interface for use of GatewayBridge */
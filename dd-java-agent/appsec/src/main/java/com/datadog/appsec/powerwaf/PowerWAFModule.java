@@ -44,12 +44,8 @@ import io.sqreen.powerwaf.exception.AbstractPowerwafException;
 import io.sqreen.powerwaf.exception.InvalidRuleSetException;
 import io.sqreen.powerwaf.exception.TimeoutPowerwafException;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -58,7 +54,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -77,9 +72,6 @@ public class PowerWAFModule implements AppSecModule {
   private static final int MAX_ELEMENTS = 150;
   private static final int MAX_STRING_SIZE = 4096;
   private static volatile Powerwaf.Limits LIMITS;
-  private static final Class<?> PROXY_CLASS =
-      Proxy.getProxyClass(PowerWAFModule.class.getClassLoader(), Set.class);
-  private static final Constructor<?> PROXY_CLASS_CONSTRUCTOR;
 
   private static final JsonAdapter<List<PowerWAFResultData>> RES_JSON_ADAPTER;
 
@@ -113,11 +105,6 @@ public class PowerWAFModule implements AppSecModule {
   }
 
   static {
-    try {
-      PROXY_CLASS_CONSTRUCTOR = PROXY_CLASS.getConstructor(InvocationHandler.class);
-    } catch (NoSuchMethodException e) {
-      throw new UndeclaredThrowableException(e);
-    }
 
     Moshi moshi = new Moshi.Builder().build();
     RES_JSON_ADAPTER =
@@ -663,51 +650,38 @@ public class PowerWAFModule implements AppSecModule {
     @Nonnull
     @Override
     public Set<Entry<String, Object>> entrySet() {
-      try {
-        return (Set<Entry<String, Object>>)
-            PROXY_CLASS_CONSTRUCTOR.newInstance(new SetIteratorInvocationHandler());
-      } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-        throw new UndeclaredThrowableException(e);
-      }
+      return new EntrySet();
     }
 
-    private class SetIteratorInvocationHandler implements InvocationHandler {
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
       @Override
-      public Object invoke(Object proxy, Method method, Object[] args) {
-        if (!method.getName().equals("iterator")) {
-          throw new UnsupportedOperationException(
-              "Only supported method is 'iterator'; got " + method.getName());
-        }
-
-        final Iterator<Address<?>> addrIterator = dataBundle.getAllAddresses().iterator();
+      public Iterator<Entry<String, Object>> iterator() {
+        final Iterator<Entry<Address<?>, Object>> bundleIterator = dataBundle.iterator();
         final MutableEntry entry = new MutableEntry();
 
         return new Iterator<Entry<String, Object>>() {
-          private Address<?> next = computeNextAddress();
-
-          private Address<?> computeNextAddress() {
-            return addrIterator.hasNext() ? addrIterator.next() : null;
-          }
-
           @Override
           public boolean hasNext() {
-            return next != null;
+            return bundleIterator.hasNext();
           }
 
           @Override
           public Entry<String, Object> next() {
-            if (next == null) {
-              throw new NoSuchElementException();
-            }
+            Entry<Address<?>, Object> next = bundleIterator.next();
             // the usage pattern in powerwaf allows object recycling here
-            entry.key = next.getKey();
+            Address<?> address = next.getKey();
+            entry.key = address.getKey();
             entry.value =
-                addressesOfInterest.contains(next) ? dataBundle.get(next) : Collections.emptyMap();
-            next = computeNextAddress();
+                addressesOfInterest.contains(address) ? next.getValue() : Collections.emptyMap();
             return entry;
           }
         };
       }
+
+      @Override
+      public int size() {
+        return dataBundle.size();
+      }
     }
 
     @Override
@@ -0,0 +1,63 @@
+package com.datadog.appsec.event.data
+
+import datadog.trace.test.util.DDSpecification
+
+class ArrayDataBundleSpecification extends DDSpecification {
+
+  void 'values are indexed by address'() {
+    def bundle = new ArrayDataBundle()
+
+    when:
+    bundle.putIfAbsent(KnownAddresses.REQUEST_URI_RAW, '/a')
+    bundle.putIfAbsent(KnownAddresses.REQUEST_CLIENT_IP, '::1')
+
+    then:
+    bundle.size() == 2
+    bundle.get(KnownAddresses.REQUEST_URI_RAW) == '/a'
+    bundle.get(KnownAddresses.REQUEST_CLIENT_IP) == '::1'
+    bundle.get(KnownAddresses.REQUEST_BODY_RAW) == null
+    bundle.hasAddress(KnownAddresses.REQUEST_URI_RAW)
+    !bundle.hasAddress(KnownAddresses.REQUEST_BODY_RAW)
+  }
+
+  void 'values are never replaced'() {
+    def bundle = new ArrayDataBundle()
+
+    expect:
+    bundle.putIfAbsent(KnownAddresses.REQUEST_URI_RAW, '/a') == null
+    bundle.putIfAbsent(KnownAddresses.REQUEST_URI_RAW, '/b') == '/a'
+    bundle.get(KnownAddresses.REQUEST_URI_RAW) == '/a'
+    bundle.size() == 1
+  }
+
+  void 'iterates in the order of the serials'() {
+    def bundle = new ArrayDataBundle()
+
+    when:
+    bundle.putIfAbsent(KnownAddresses.REQUEST_CLIENT_IP, '::1')
+    bundle.putIfAbsent(KnownAddresses.REQUEST_BODY_OBJECT, [a: 'b'])
+    bundle.putIfAbsent(KnownAddresses.REQUEST_URI_RAW, '/a')
+
+    then:
+    def entries = bundle.collect { [it.key, it.value] }
+    entries == [
+      [KnownAddresses.REQUEST_BODY_OBJECT, [a: 'b']],
+      [KnownAddresses.REQUEST_URI_RAW, '/a'],
+      [KnownAddresses.REQUEST_CLIENT_IP, '::1']
+    ]
+    bundle.allAddresses as List == [
+      KnownAddresses.REQUEST_BODY_OBJECT,
+      KnownAddresses.REQUEST_URI_RAW,
+      KnownAddresses.REQUEST_CLIENT_IP
+    ]
+  }
+
+  void 'empty bundle'() {
+    def bundle = new ArrayDataBundle()
+
+    expect:
+    bundle.size() == 0
+    !bundle.iterator().hasNext()
+    bundle.allAddresses.empty
+  }
+}
@@ -127,6 +127,7 @@ public final class ConfigDefaults {
   static final int DEFAULT_IAST_TRUNCATION_MAX_VALUE_LENGTH = 250;
   public static final boolean DEFAULT_IAST_DEDUPLICATION_ENABLED = true;
   static final boolean DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED = true;
+  static final boolean DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED = false;
 
   static final boolean DEFAULT_USM_ENABLED = false;
 
@@ -227,6 +228,12 @@ public final class ConfigDefaults {
 
   static final long DEFAULT_TRACE_POST_PROCESSING_TIMEOUT = 1000; // 1 second
 
+  static final int DEFAULT_TRACE_PROCESSING_SHARDS = 1;
+  static final boolean DEFAULT_TRACE_SPAN_PRE_ENCODING_ENABLED = false;
+  static final long DEFAULT_TRACE_PENDING_BUFFER_MAX_BYTES = 0; // unbounded
+  static final int DEFAULT_TRACE_DISPATCH_IN_FLIGHT_PAYLOADS = 0; // send from serializing thread
+  static final int DEFAULT_TRACE_DISPATCH_CHUNK_SIZE = 1 << 20; // 1MB
+
   static final boolean DEFAULT_COUCHBASE_INTERNAL_SPANS_ENABLED = true;
   static final boolean DEFAULT_ELASTICSEARCH_BODY_ENABLED = false;
   static final boolean DEFAULT_ELASTICSEARCH_PARAMS_ENABLED = true;
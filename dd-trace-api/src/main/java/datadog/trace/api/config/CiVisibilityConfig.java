@@ -47,6 +47,8 @@ public final class CiVisibilityConfig {
       "civisibility.ciprovider.integration.enabled";
   public static final String CIVISIBILITY_REPO_INDEX_SHARING_ENABLED =
       "civisibility.repo.index.sharing.enabled";
+  public static final String CIVISIBILITY_REPO_INDEX_CACHE_DIR =
+      "civisibility.repo.index.cache.dir";
   public static final String CIVISIBILITY_MODULE_EXECUTION_SETTINGS_CACHE_SIZE =
       "civisibility.module.execution.settings.cache.size";
   public static final String CIVISIBILITY_JVM_INFO_CACHE_SIZE = "civisibility.jvm.info.cache.size";
@@ -23,6 +23,8 @@ public final class IastConfig {
   public static final String IAST_TRUNCATION_MAX_VALUE_LENGTH = "iast.truncation.max.value.length";
   public static final String IAST_CONTEXT_MODE = "iast.context.mode";
   public static final String IAST_ANONYMOUS_CLASSES_ENABLED = "iast.anonymous-classes.enabled";
+  public static final String IAST_CONCURRENT_TAINTED_MAP_ENABLED =
+      "iast.experimental.concurrent-tainted-map.enabled";
 
   private IastConfig() {}
 }
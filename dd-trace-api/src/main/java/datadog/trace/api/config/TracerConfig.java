@@ -75,6 +75,7 @@ public final class TracerConfig {
   public static final String SCOPE_INHERIT_ASYNC_PROPAGATION =
       "trace.scope.inherit.async.propagation";
   public static final String SCOPE_ITERATION_KEEP_ALIVE = "trace.scope.iteration.keep.alive";
+  public static final String SCOPE_LAZY_STACKS_ENABLED = "trace.scope.lazy.stacks.enabled";
   public static final String PARTIAL_FLUSH_ENABLED = "trace.partial.flush.enabled";
   public static final String PARTIAL_FLUSH_MIN_SPANS = "trace.partial.flush.min.spans";
   public static final String TRACE_STRICT_WRITES_ENABLED = "trace.strict.writes.enabled";
@@ -135,5 +136,17 @@ public final class TracerConfig {
 
   public static final String TRACE_POST_PROCESSING_TIMEOUT = "trace.post-processing.timeout";
 
+  public static final String TRACE_PROCESSING_SHARDS = "trace.experimental.processing.shards";
+
+  public static final String TRACE_SPAN_PRE_ENCODING_ENABLED =
+      "trace.experimental.span.pre-encoding.enabled";
+
+  public static final String TRACE_PENDING_BUFFER_MAX_BYTES =
+      "trace.experimental.pending.buffer.max.bytes";
+
+  public static final String TRACE_DISPATCH_IN_FLIGHT_PAYLOADS =
+      "trace.experimental.dispatch.in-flight.payloads";
+  public static final String TRACE_DISPATCH_CHUNK_SIZE = "trace.experimental.dispatch.chunk.size";
+
   private TracerConfig() {}
 }
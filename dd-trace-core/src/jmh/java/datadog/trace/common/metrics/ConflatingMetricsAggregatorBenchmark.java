@@ -0,0 +1,139 @@
+package datadog.trace.common.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares publishing through batches handed to the aggregator thread ({@code stripes=0}) with
+ * striped pre-aggregation. Run with {@code -prof gc} to see the allocation per published trace.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Threads(8)
+@Fork(value = 1)
+public class ConflatingMetricsAggregatorBenchmark {
+
+  @Param({"0", "8"})
+  int stripes;
+
+  private CoreTracer tracer;
+  private ConflatingMetricsAggregator aggregator;
+  private List<DDSpan> trace;
+
+  @Setup(Level.Trial)
+  public void init() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    trace = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      DDSpan span =
+          (DDSpan)
+              tracer
+                  .buildSpan("benchmark", "operation" + (i % 3))
+                  .withServiceName("service")
+                  .withResourceName("resource" + i)
+                  .withSpanType("web")
+                  .start();
+      span.setMeasured(true);
+      span.setHttpStatusCode(200);
+      span.finish();
+      trace.add(span);
+    }
+    aggregator =
+        new ConflatingMetricsAggregator(
+            Collections.<String>emptySet(),
+            new FixedFeaturesDiscovery(),
+            new NullSink(),
+            new NullMetricWriter(),
+            2048,
+            2048,
+            stripes,
+            1,
+            SECONDS);
+    aggregator.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    aggregator.close();
+    tracer.close();
+  }
+
+  @Benchmark
+  public void publish(Blackhole blackhole) {
+    blackhole.consume(aggregator.publish(trace));
+  }
+
+  /** Reports the metrics endpoint as supported, without talking to an agent. */
+  static final class FixedFeaturesDiscovery extends DDAgentFeaturesDiscovery {
+    FixedFeaturesDiscovery() {
+      super(null, Monitoring.DISABLED, HttpUrl.get("http://localhost:8126"), false, true);
+    }
+
+    @Override
+    public void discover() {}
+
+    @Override
+    public void discoverIfOutdated() {}
+
+    @Override
+    public String getMetricsEndpoint() {
+      return V6_METRICS_ENDPOINT;
+    }
+
+    @Override
+    public boolean supportsMetrics() {
+      return true;
+    }
+  }
+
+  static final class NullSink implements Sink {
+    @Override
+    public void register(EventListener listener) {}
+
+    @Override
+    public void accept(int messageCount, ByteBuffer buffer) {}
+  }
+
+  static final class NullMetricWriter implements MetricWriter {
+    @Override
+    public void startBucket(int metricCount, long start, long duration) {}
+
+    @Override
+    public void add(MetricKey key, AggregateMetric aggregate) {}
+
+    @Override
+    public void finishBucket() {}
+
+    @Override
+    public void reset() {}
+  }
+}
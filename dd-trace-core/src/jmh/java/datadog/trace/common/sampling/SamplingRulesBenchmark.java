@@ -0,0 +1,105 @@
+package datadog.trace.common.sampling;
+
+import static datadog.trace.api.sampling.SamplingMechanism.LOCAL_USER_RULE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finds the first matching rule for spans from a mix of services, comparing the linear scan the
+ * sampler used to do with the {@link SamplingRuleIndex}. Every tenth rule uses an operation
+ * wildcard so can't be indexed, and a quarter of the spans match no rule at all.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class SamplingRulesBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  int ruleCount;
+
+  private CoreTracer tracer;
+  private List<RateSamplingRule> rules;
+  private SamplingRuleIndex index;
+  private DDSpan[] spans;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void init() {
+    rules = new ArrayList<>(ruleCount);
+    for (int i = 0; i < ruleCount; i++) {
+      String service = i % 10 == 9 ? "*" : "service-" + i;
+      String operation = i % 10 == 9 ? "operation-" + i + "-*" : "*";
+      rules.add(
+          new RateSamplingRule.TraceSamplingRule(
+              service,
+              operation,
+              "*",
+              Collections.<String, String>emptyMap(),
+              new DeterministicSampler.TraceSampler(0.5),
+              LOCAL_USER_RULE));
+    }
+    index = new SamplingRuleIndex(rules);
+
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    spans = new DDSpan[64];
+    for (int i = 0; i < spans.length; i++) {
+      // spread the spans across the rules, with the last quarter matching nothing
+      int rule = i < 48 ? (i * ruleCount) / 48 : ruleCount + i;
+      spans[i] =
+          (DDSpan)
+              tracer
+                  .buildSpan("benchmark", "operation-" + rule + "-x")
+                  .withServiceName("service-" + rule)
+                  .withResourceName("GET /resource/" + (i % 8))
+                  .start();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public RateSamplingRule linearScan() {
+    DDSpan span = nextSpan();
+    for (RateSamplingRule rule : rules) {
+      if (rule.matches(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public RateSamplingRule index() {
+    return index.match(nextSpan());
+  }
+
+  private DDSpan nextSpan() {
+    return spans[next++ & (spans.length - 1)];
+  }
+}
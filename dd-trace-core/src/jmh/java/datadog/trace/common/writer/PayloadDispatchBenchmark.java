@@ -0,0 +1,150 @@
+package datadog.trace.common.writer;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.sun.net.httpserver.HttpServer;
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.http.OkHttpUtils;
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.common.writer.ddagent.DDAgentApi;
+import datadog.trace.common.writer.ddagent.DDAgentMapperDiscovery;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.monitor.HealthMetrics;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes traces and sends them to a local stub agent, comparing payloads sent from the
+ * serializing thread ({@code inFlightPayloads=0}) with chunks sent while serialization continues.
+ * Run with {@code -prof gc} to compare allocations, and in {@code SampleTime} mode ({@code -bm
+ * sample}) to see the latency spikes when a full payload is sent.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class PayloadDispatchBenchmark {
+
+  @Param({"0", "2"})
+  int inFlightPayloads;
+
+  @Param({"1", "500"})
+  int spansPerTrace;
+
+  private HttpServer agent;
+  private ExecutorService agentExecutor;
+  private CoreTracer tracer;
+  private PayloadDispatcherImpl dispatcher;
+  private List<DDSpan> trace;
+
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    agentExecutor = Executors.newFixedThreadPool(4);
+    agent = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    agent.createContext(
+        "/",
+        exchange -> {
+          byte[] discard = new byte[8192];
+          try (InputStream in = exchange.getRequestBody()) {
+            while (in.read(discard) >= 0) {}
+          }
+          byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(200, response.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+          }
+        });
+    agent.setExecutor(agentExecutor);
+    agent.start();
+
+    HttpUrl agentUrl = HttpUrl.get("http://127.0.0.1:" + agent.getAddress().getPort());
+    OkHttpClient client = OkHttpUtils.buildHttpClient(agentUrl, SECONDS.toMillis(10));
+    DDAgentFeaturesDiscovery discovery = new FixedFeaturesDiscovery(client, agentUrl);
+    DDAgentApi api = new DDAgentApi(client, agentUrl, discovery, Monitoring.DISABLED, false);
+    dispatcher =
+        new PayloadDispatcherImpl(
+            new DDAgentMapperDiscovery(discovery),
+            api,
+            HealthMetrics.NO_OP,
+            Monitoring.DISABLED,
+            inFlightPayloads,
+            1 << 20);
+
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    trace = new ArrayList<>(spansPerTrace);
+    DDSpan root = (DDSpan) tracer.buildSpan("benchmark", "root").start();
+    trace.add(root);
+    for (int i = 1; i < spansPerTrace; i++) {
+      DDSpan child =
+          (DDSpan)
+              tracer
+                  .buildSpan("benchmark", "child")
+                  .asChildOf(root.context())
+                  .withResourceName("resource" + (i % 10))
+                  .withTag("index", i)
+                  .start();
+      child.finish();
+      trace.add(child);
+    }
+    root.finish();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    dispatcher.flush();
+    dispatcher.awaitSent();
+    dispatcher.close();
+    tracer.close();
+    agent.stop(0);
+    agentExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public void dispatch() {
+    dispatcher.addTrace(trace);
+  }
+
+  /** Reports the v0.4 endpoint as supported, without querying the stub agent. */
+  static final class FixedFeaturesDiscovery extends DDAgentFeaturesDiscovery {
+    FixedFeaturesDiscovery(OkHttpClient client, HttpUrl agentUrl) {
+      super(client, Monitoring.DISABLED, agentUrl, false, false);
+    }
+
+    @Override
+    public void discover() {}
+
+    @Override
+    public void discoverIfOutdated() {}
+
+    @Override
+    public String getTraceEndpoint() {
+      return V4_ENDPOINT;
+    }
+  }
+}
@@ -91,6 +91,10 @@ public class TraceMapperBenchmark {
     tags.put(RUNTIME_ID_TAG, "fdd790b3-4aeb-4517-9b84-cafcc0129c48");
     tags.put(LANGUAGE_TAG_KEY, LANGUAGE_TAG_VALUE);
     tags.put("env", "prod");
+    // strings encoded without a byte[] per value, non-ASCII and repeated under another key
+    tags.put("http.url", "https://example.com/api/v1/orders?customer=12345&page=2");
+    tags.put("http.route", "/api/v1/commandes/{id}/détails");
+    tags.put("peer.service", "prod");
 
     writable = new MsgPackWriter(new BlackholeBuffer(blackhole));
 
@@ -0,0 +1,81 @@
+package datadog.trace.core.datastreams;
+
+import static datadog.trace.core.datastreams.TagsProcessor.DIRECTION_IN;
+import static datadog.trace.core.datastreams.TagsProcessor.DIRECTION_TAG;
+import static datadog.trace.core.datastreams.TagsProcessor.TOPIC_TAG;
+import static datadog.trace.core.datastreams.TagsProcessor.TYPE_TAG;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.WellKnownTags;
+import datadog.trace.api.time.SystemTimeSource;
+import datadog.trace.bootstrap.instrumentation.api.StatsPoint;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets a consume checkpoint on a new pathway for each message, the way the Kafka consumer
+ * instrumentation does, and aggregates the resulting points on the consuming threads. With a
+ * single stripe every thread contends on the same monitor. Run with {@code -prof gc} to see the
+ * allocation per checkpoint.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Threads(8)
+@Fork(value = 1)
+public class CheckpointBenchmark {
+
+  private static final WellKnownTags WELL_KNOWN_TAGS =
+      new WellKnownTags("runtimeid", "hostname", "env", "service", "version", "java");
+
+  @Param({"1", "8"})
+  int stripeCount;
+
+  private StatsStripe[] stripes;
+  private Consumer<StatsPoint> aggregator;
+
+  @Setup(Level.Trial)
+  public void init() {
+    stripes = new StatsStripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new StatsStripe(SECONDS.toNanos(10), 1024);
+    }
+    aggregator =
+        point -> stripes[(int) Thread.currentThread().getId() % stripes.length].addPoint(point);
+  }
+
+  @Setup(Level.Iteration)
+  public void clear() {
+    for (StatsStripe stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
+  @Benchmark
+  public DefaultPathwayContext consumeCheckpoint() {
+    DefaultPathwayContext context =
+        new DefaultPathwayContext(SystemTimeSource.INSTANCE, WELL_KNOWN_TAGS);
+    LinkedHashMap<String, String> sortedTags = new LinkedHashMap<>();
+    sortedTags.put(DIRECTION_TAG, DIRECTION_IN);
+    sortedTags.put(TOPIC_TAG, "orders");
+    sortedTags.put(TYPE_TAG, "kafka");
+    context.setCheckpoint(sortedTags, aggregator);
+    return context;
+  }
+}
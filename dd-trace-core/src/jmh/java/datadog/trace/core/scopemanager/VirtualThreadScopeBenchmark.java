@@ -0,0 +1,112 @@
+package datadog.trace.core.scopemanager;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.ProfilingContextIntegration;
+import datadog.trace.core.BlackholeWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.TraceCounters;
+import datadog.trace.core.monitor.HealthMetrics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Starts a virtual thread per task, each one querying the active span and then activating and
+ * closing a pair of nested scopes. Compares eager scope stacks with lazy ones. Requires Java 21+
+ * to run, and should be run with {@code -prof gc} to compare the allocation per virtual thread.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(value = 1)
+public class VirtualThreadScopeBenchmark {
+
+  @Param({"1000000"})
+  int virtualThreads;
+
+  @Param({"false", "true"})
+  boolean lazyScopeStacks;
+
+  private CoreTracer tracer;
+  private AgentSpan rootSpan;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void init(Blackhole blackhole) {
+    tracer =
+        CoreTracer.builder()
+            .writer(new BlackholeWriter(blackhole, new TraceCounters(), 0))
+            .scopeManager(
+                new ContinuableScopeManager(
+                    0,
+                    false,
+                    true,
+                    lazyScopeStacks,
+                    ProfilingContextIntegration.NoOp.INSTANCE,
+                    HealthMetrics.NO_OP))
+            .strictTraceWrites(false)
+            .build();
+    rootSpan = tracer.startSpan("benchmark", "root");
+  }
+
+  @Setup(Level.Iteration)
+  public void startExecutor() throws Exception {
+    // compiled against Java 8, so look up the virtual thread executor reflectively
+    executor =
+        (ExecutorService)
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+  }
+
+  @TearDown(Level.Iteration)
+  public void stopExecutor() {
+    executor.shutdown();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    rootSpan.finish();
+    tracer.close();
+  }
+
+  @Benchmark
+  public void activateScopes(Blackhole blackhole) throws Exception {
+    Future<?>[] futures = new Future<?>[virtualThreads];
+    for (int i = 0; i < virtualThreads; i++) {
+      futures[i] = executor.submit(() -> runTask(blackhole));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+  private void runTask(Blackhole blackhole) {
+    // most tasks ask for the active span, even when nothing was propagated
+    blackhole.consume(tracer.activeSpan());
+    AgentSpan child = tracer.startSpan("benchmark", "child", rootSpan.context());
+    try (AgentScope scope = tracer.activateSpan(rootSpan)) {
+      try (AgentScope childScope = tracer.activateSpan(child)) {
+        blackhole.consume(tracer.activeSpan());
+      }
+    }
+    child.finish();
+  }
+}
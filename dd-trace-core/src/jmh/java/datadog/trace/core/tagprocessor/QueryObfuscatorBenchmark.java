@@ -0,0 +1,70 @@
+package datadog.trace.core.tagprocessor;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.re2j.Matcher;
+import com.google.re2j.Pattern;
+import datadog.trace.util.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Obfuscates query strings with the default regex, as the obfuscator used to, and with the
+ * scanner which replaced it. The setup fails if the scanner's output differs from the regex's. Run
+ * with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class QueryObfuscatorBenchmark {
+
+  @Param({
+    "page=1&size=20&sort=name",
+    "key1=val1&token=a0b21ce2-006f-4cc6-95d5-d7b550698482&key2=val2",
+    "app_key=1111&application_key=2222&user=joe&password=hunter2",
+    "q=%22password%22%3A%20%22hunter2%22&access_token=eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiIxIn0.c2ln"
+  })
+  String query;
+
+  private Pattern pattern;
+
+  @Setup(Level.Trial)
+  public void init() {
+    pattern = Pattern.compile(QueryObfuscator.DEFAULT_OBFUSCATION_PATTERN);
+    String expected = pattern.matcher(query).replaceAll(QueryObfuscationScanner.REDACTED);
+    String actual = QueryObfuscationScanner.obfuscate(query);
+    if (!expected.equals(actual)) {
+      throw new IllegalStateException(
+          "Scanner obfuscated " + query + " to " + actual + " instead of " + expected);
+    }
+  }
+
+  @Benchmark
+  public String regex() {
+    String obfuscated = query;
+    Matcher matcher = pattern.matcher(query);
+    while (matcher.find()) {
+      obfuscated = Strings.replace(obfuscated, matcher.group(), QueryObfuscationScanner.REDACTED);
+    }
+    return obfuscated;
+  }
+
+  @Benchmark
+  public String scanner() {
+    return QueryObfuscationScanner.obfuscate(query);
+  }
+}
@@ -0,0 +1,106 @@
+package datadog.trace.common.metrics;
+
+import datadog.trace.core.util.LRUCache;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-aggregates the metrics published by the threads mapped to this stripe, so spans don't need
+ * to be handed to the {@link Aggregator} thread one batch at a time. The partial aggregates are
+ * merged into the reported aggregates when a report is due.
+ *
+ * <p>Publishing threads only hold the stripe's monitor while recording a single duration. The
+ * aggregator swaps the partials for a second, already drained, set before merging them, so it
+ * never holds the monitor while merging. Partial aggregates are kept for reuse until they have not
+ * been updated for a whole reporting interval.
+ *
+ * <p>When more keys are published than the stripe can hold, the least recently updated partials are
+ * evicted. Evicted partials that recorded durations are still merged on the next drain, like
+ * batches, so only the reported aggregates are subject to the aggregate limit.
+ */
+final class AggregateStripe {
+
+  private final LRUCache.ExpiryListener<MetricKey, AggregateMetric> onEviction = this::evicted;
+
+  private LRUCache<MetricKey, AggregateMetric> active;
+  private LRUCache<MetricKey, AggregateMetric> drained;
+
+  // partials evicted since the last drain, guarded by the stripe's monitor
+  private List<Map.Entry<MetricKey, AggregateMetric>> evicted = new ArrayList<>();
+
+  AggregateStripe(int maxAggregates) {
+    this.active = new LRUCache<>(onEviction, 16, 0.75f, maxAggregates);
+    this.drained = new LRUCache<>(onEviction, 16, 0.75f, maxAggregates);
+  }
+
+  synchronized void add(MetricKey key, long taggedDuration) {
+    AggregateMetric partial = active.get(key);
+    if (null == partial) {
+      partial = new AggregateMetric();
+      active.put(key, partial);
+    }
+    partial.recordDuration(taggedDuration);
+  }
+
+  private void evicted(Map.Entry<MetricKey, AggregateMetric> entry) {
+    if (entry.getValue().getHitCount() > 0) {
+      evicted.add(entry);
+    }
+  }
+
+  /**
+   * Merges the durations recorded since the last call into the aggregates. Must only be called by
+   * the aggregator thread.
+   *
+   * @return true if any durations were merged
+   */
+  boolean drainTo(Map<MetricKey, AggregateMetric> aggregates) {
+    LRUCache<MetricKey, AggregateMetric> partials;
+    List<Map.Entry<MetricKey, AggregateMetric>> evictedPartials;
+    synchronized (this) {
+      partials = active;
+      active = drained;
+      drained = partials;
+      evictedPartials = evicted;
+      if (!evictedPartials.isEmpty()) {
+        evicted = new ArrayList<>();
+      }
+    }
+    boolean merged = false;
+    for (Map.Entry<MetricKey, AggregateMetric> entry : evictedPartials) {
+      mergeTo(aggregates, entry.getKey(), entry.getValue());
+      merged = true;
+    }
+    Iterator<Map.Entry<MetricKey, AggregateMetric>> it = partials.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<MetricKey, AggregateMetric> entry = it.next();
+      AggregateMetric partial = entry.getValue();
+      if (partial.getHitCount() == 0) {
+        it.remove();
+      } else {
+        mergeTo(aggregates, entry.getKey(), partial);
+        partial.clear();
+        merged = true;
+      }
+    }
+    return merged;
+  }
+
+  private static void mergeTo(
+      Map<MetricKey, AggregateMetric> aggregates, MetricKey key, AggregateMetric partial) {
+    AggregateMetric aggregate = aggregates.get(key);
+    if (null == aggregate) {
+      aggregate = new AggregateMetric();
+      aggregates.put(key, aggregate);
+    }
+    aggregate.merge(partial);
+  }
+
+  /** Discards the durations recorded since the last time the stripe was drained. */
+  synchronized void clear() {
+    active.clear();
+    evicted.clear();
+  }
+}
@@ -25,6 +25,7 @@ final class Aggregator implements Runnable {
   private final MpscCompoundQueue<InboxItem> inbox;
   private final LRUCache<MetricKey, AggregateMetric> aggregates;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
+  private final AggregateStripe[] stripes;
   private final Set<MetricKey> commonKeys;
   private final MetricWriter writer;
   // the reporting interval controls how much history will be buffered
@@ -41,6 +42,7 @@ final class Aggregator implements Runnable {
       Queue<Batch> batchPool,
       MpscCompoundQueue<InboxItem> inbox,
       NonBlockingHashMap<MetricKey, Batch> pending,
+      AggregateStripe[] stripes,
       final Set<MetricKey> commonKeys,
       int maxAggregates,
       long reportingInterval,
@@ -50,6 +52,7 @@ final class Aggregator implements Runnable {
         batchPool,
         inbox,
         pending,
+        stripes,
         commonKeys,
         maxAggregates,
         reportingInterval,
@@ -62,6 +65,7 @@ final class Aggregator implements Runnable {
       Queue<Batch> batchPool,
       MpscCompoundQueue<InboxItem> inbox,
       NonBlockingHashMap<MetricKey, Batch> pending,
+      AggregateStripe[] stripes,
       final Set<MetricKey> commonKeys,
       int maxAggregates,
       long reportingInterval,
@@ -75,6 +79,7 @@ final class Aggregator implements Runnable {
         new LRUCache<>(
             new CommonKeyCleaner(commonKeys), maxAggregates * 4 / 3, 0.75f, maxAggregates);
     this.pending = pending;
+    this.stripes = stripes;
     this.reportingIntervalNanos = reportingIntervalTimeUnit.toNanos(reportingInterval);
     this.sleepMillis = sleepMillis;
   }
@@ -112,6 +117,7 @@ final class Aggregator implements Runnable {
       if (item instanceof SignalItem) {
         SignalItem signal = (SignalItem) item;
         if (!stopped) {
+          drainStripes();
           report(wallClockTime(), signal);
           stopped = item instanceof StopSignal;
           if (stopped) {
@@ -134,6 +140,14 @@ final class Aggregator implements Runnable {
     }
   }
 
+  private void drainStripes() {
+    for (AggregateStripe stripe : stripes) {
+      if (stripe.drainTo(aggregates)) {
+        dirty = true;
+      }
+    }
+  }
+
   private void report(long when, SignalItem signal) {
     boolean skipped = true;
     if (dirty) {
@@ -53,6 +53,14 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   private final Queue<Batch> batchPool;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
   private final NonBlockingHashMap<MetricKey, MetricKey> keys;
+  private final AggregateStripe[] stripes;
+  private final ThreadLocal<MetricKeyCache> keyCaches =
+      new ThreadLocal<MetricKeyCache>() {
+        @Override
+        protected MetricKeyCache initialValue() {
+          return new MetricKeyCache();
+        }
+      };
   private final Thread thread;
   private final MpscCompoundQueue<InboxItem> inbox;
   private final Sink sink;
@@ -77,7 +85,10 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
             false,
             DEFAULT_HEADERS),
         config.getTracerMetricsMaxAggregates(),
-        config.getTracerMetricsMaxPending());
+        config.getTracerMetricsMaxPending(),
+        config.getTracerMetricsStripes(),
+        10,
+        SECONDS);
   }
 
   ConflatingMetricsAggregator(
@@ -99,6 +110,28 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       int queueSize,
       long reportingInterval,
       TimeUnit timeUnit) {
+    this(
+        wellKnownTags,
+        ignoredResources,
+        features,
+        sink,
+        maxAggregates,
+        queueSize,
+        0,
+        reportingInterval,
+        timeUnit);
+  }
+
+  ConflatingMetricsAggregator(
+      WellKnownTags wellKnownTags,
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      int maxAggregates,
+      int queueSize,
+      int stripes,
+      long reportingInterval,
+      TimeUnit timeUnit) {
     this(
         ignoredResources,
         features,
@@ -106,10 +139,37 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
         new SerializingMetricWriter(wellKnownTags, sink),
         maxAggregates,
         queueSize,
+        stripes,
+        reportingInterval,
+        timeUnit);
+  }
+
+  ConflatingMetricsAggregator(
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      MetricWriter metricWriter,
+      int maxAggregates,
+      int queueSize,
+      long reportingInterval,
+      TimeUnit timeUnit) {
+    this(
+        ignoredResources,
+        features,
+        sink,
+        metricWriter,
+        maxAggregates,
+        queueSize,
+        0,
         reportingInterval,
         timeUnit);
   }
 
+  /**
+   * @param stripes the number of stripes pre-aggregating metrics on the publishing threads, rounded
+   *     up to a power of two. With no stripes, metrics are handed to the aggregator thread in
+   *     batches instead.
+   */
   ConflatingMetricsAggregator(
       Set<String> ignoredResources,
       DDAgentFeaturesDiscovery features,
@@ -117,6 +177,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       MetricWriter metricWriter,
       int maxAggregates,
       int queueSize,
+      int stripes,
       long reportingInterval,
       TimeUnit timeUnit) {
     this.ignoredResources = ignoredResources;
@@ -124,6 +185,10 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     this.batchPool = new SpmcArrayQueue<>(maxAggregates);
     this.pending = new NonBlockingHashMap<>(maxAggregates * 4 / 3);
     this.keys = new NonBlockingHashMap<>();
+    this.stripes = new AggregateStripe[stripeCount(stripes)];
+    for (int i = 0; i < this.stripes.length; i++) {
+      this.stripes[i] = new AggregateStripe(maxAggregates);
+    }
     this.features = features;
     this.sink = sink;
     this.aggregator =
@@ -132,6 +197,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
             batchPool,
             inbox,
             pending,
+            this.stripes,
             keys.keySet(),
             maxAggregates,
             reportingInterval,
@@ -141,6 +207,14 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     this.reportingIntervalTimeUnit = timeUnit;
   }
 
+  /** Rounds the requested number of stripes up to a power of two, so they can be masked. */
+  static int stripeCount(int stripes) {
+    if (stripes <= 0) {
+      return 0;
+    }
+    return stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+  }
+
   @Override
   public void start() {
     if (isMetricsEnabled()) {
@@ -238,22 +312,17 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   }
 
   private boolean publish(CoreSpan<?> span, boolean isTopLevel) {
-    MetricKey newKey =
-        new MetricKey(
-            span.getResourceName(),
-            SERVICE_NAMES.computeIfAbsent(span.getServiceName(), UTF8_ENCODE),
-            span.getOperationName(),
-            span.getType(),
-            span.getHttpStatusCode(),
-            isSynthetic(span));
-    boolean isNewKey = false;
-    MetricKey key = keys.putIfAbsent(newKey, newKey);
-    if (null == key) {
-      key = newKey;
-      isNewKey = true;
-    }
+    MetricKey key = resolveKey(span);
+    // the key may have been expunged since it was cached
+    boolean isNewKey = null == keys.putIfAbsent(key, key);
     long tag = (span.getError() > 0 ? ERROR_TAG : 0L) | (isTopLevel ? TOP_LEVEL_TAG : 0L);
     long durationNanos = span.getDurationNano();
+    if (stripes.length > 0) {
+      int stripe = (int) Thread.currentThread().getId() & (stripes.length - 1);
+      stripes[stripe].add(key, tag | durationNanos);
+      // force keep keys we haven't seen before or errors
+      return isNewKey || span.getError() > 0;
+    }
     Batch batch = pending.get(key);
     if (null != batch) {
       // there is a pending batch, try to win the race to add to it
@@ -280,6 +349,30 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     return isNewKey || span.getError() > 0;
   }
 
+  /** @return the canonical key of the span, only allocating a key the first time it is seen */
+  private MetricKey resolveKey(CoreSpan<?> span) {
+    CharSequence resource = span.getResourceName();
+    UTF8BytesString service = SERVICE_NAMES.computeIfAbsent(span.getServiceName(), UTF8_ENCODE);
+    CharSequence operationName = span.getOperationName();
+    CharSequence type = span.getType();
+    int httpStatusCode = span.getHttpStatusCode();
+    boolean synthetic = isSynthetic(span);
+    int hash = MetricKey.hash(resource, service, operationName, type, httpStatusCode, synthetic);
+    MetricKeyCache cache = keyCaches.get();
+    MetricKey key =
+        cache.get(hash, resource, service, operationName, type, httpStatusCode, synthetic);
+    if (null == key) {
+      MetricKey newKey =
+          new MetricKey(resource, service, operationName, type, httpStatusCode, synthetic);
+      key = keys.get(newKey);
+      if (null == key) {
+        key = newKey;
+      }
+      cache.put(key);
+    }
+    return key;
+  }
+
   private static boolean isSynthetic(CoreSpan<?> span) {
     return span.getOrigin() != null && SYNTHETICS_ORIGIN.equals(span.getOrigin().toString());
   }
@@ -336,6 +429,9 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       this.thread.interrupt();
       this.pending.clear();
       this.batchPool.clear();
+      for (AggregateStripe stripe : stripes) {
+        stripe.clear();
+      }
       this.inbox.clear();
       this.aggregator.clearAggregates();
     }
@@ -27,15 +27,98 @@ public final class MetricKey {
     this.type = null == type ? EMPTY : UTF8BytesString.create(type);
     this.httpStatusCode = httpStatusCode;
     this.synthetics = synthetics;
+    this.hash =
+        hash(
+            this.resource.hashCode(),
+            this.service.hashCode(),
+            this.operationName.hashCode(),
+            this.type.hashCode(),
+            httpStatusCode,
+            synthetics);
+  }
+
+  /**
+   * Computes the hash code of the key the arguments would produce, without creating it.
+   *
+   * @see #matches
+   */
+  public static int hash(
+      CharSequence resource,
+      CharSequence service,
+      CharSequence operationName,
+      CharSequence type,
+      int httpStatusCode,
+      boolean synthetics) {
+    return hash(
+        contentHash(resource),
+        contentHash(service),
+        contentHash(operationName),
+        contentHash(type),
+        httpStatusCode,
+        synthetics);
+  }
+
+  private static int hash(
+      int resourceHash,
+      int serviceHash,
+      int operationNameHash,
+      int typeHash,
+      int httpStatusCode,
+      boolean synthetics) {
     // unrolled polynomial hashcode which avoids allocating varargs
     // the constants are 31^5, 31^4, 31^3, 31^2, 31^1, 31^0
-    this.hash =
-        28629151 * this.resource.hashCode()
-            + 923521 * this.service.hashCode()
-            + 29791 * this.operationName.hashCode()
-            + 961 * this.type.hashCode()
-            + 31 * httpStatusCode
-            + (this.synthetics ? 1 : 0);
+    return 28629151 * resourceHash
+        + 923521 * serviceHash
+        + 29791 * operationNameHash
+        + 961 * typeHash
+        + 31 * httpStatusCode
+        + (synthetics ? 1 : 0);
+  }
+
+  /** Same as the hash code of the sequence's string value, without converting it to a string. */
+  private static int contentHash(CharSequence sequence) {
+    if (null == sequence) {
+      return 0;
+    } else if (sequence instanceof String || sequence instanceof UTF8BytesString) {
+      return sequence.hashCode();
+    }
+    int hash = 0;
+    for (int i = 0; i < sequence.length(); i++) {
+      hash = 31 * hash + sequence.charAt(i);
+    }
+    return hash;
+  }
+
+  /**
+   * @return true if this key is equal to the key the arguments would produce, the hash must be
+   *     computed with {@link #hash(CharSequence, CharSequence, CharSequence, CharSequence, int,
+   *     boolean)}
+   */
+  public boolean matches(
+      int hash,
+      CharSequence resource,
+      CharSequence service,
+      CharSequence operationName,
+      CharSequence type,
+      int httpStatusCode,
+      boolean synthetics) {
+    return this.hash == hash
+        && this.synthetics == synthetics
+        && this.httpStatusCode == httpStatusCode
+        && contentEquals(this.resource, resource)
+        && contentEquals(this.service, service)
+        && contentEquals(this.operationName, operationName)
+        && contentEquals(this.type, type);
+  }
+
+  private static boolean contentEquals(UTF8BytesString value, CharSequence sequence) {
+    if (null == sequence) {
+      // missing values are stored as empty strings
+      return value.length() == 0;
+    } else if (sequence instanceof UTF8BytesString) {
+      return value.equals(sequence);
+    }
+    return value.toString().contentEquals(sequence);
   }
 
   public UTF8BytesString getResource() {
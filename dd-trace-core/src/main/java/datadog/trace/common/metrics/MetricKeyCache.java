@@ -0,0 +1,38 @@
+package datadog.trace.common.metrics;
+
+/**
+ * Small direct-mapped cache of recently used keys, owned by a single publishing thread, which lets
+ * spans be matched to their key without allocating a new {@link MetricKey} each time.
+ *
+ * <p>Not thread-safe.
+ */
+final class MetricKeyCache {
+
+  private static final int SIZE = 64;
+
+  private final MetricKey[] keys = new MetricKey[SIZE];
+
+  MetricKey get(
+      int hash,
+      CharSequence resource,
+      CharSequence service,
+      CharSequence operationName,
+      CharSequence type,
+      int httpStatusCode,
+      boolean synthetics) {
+    MetricKey key = keys[slot(hash)];
+    if (null != key
+        && key.matches(hash, resource, service, operationName, type, httpStatusCode, synthetics)) {
+      return key;
+    }
+    return null;
+  }
+
+  void put(MetricKey key) {
+    keys[slot(key.hashCode())] = key;
+  }
+
+  private static int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & (SIZE - 1);
+  }
+}
@@ -88,6 +88,10 @@ public abstract class RateSamplingRule {
   }
 
   public static final class TraceSamplingRule extends RateSamplingRule {
+    private final String serviceGlob;
+    private final String operationGlob;
+    private final String resourceGlob;
+    private final boolean hasTags;
     private final Matcher serviceMatcher;
     private final Matcher operationMatcher;
     private final Matcher resourceMatcher;
@@ -102,6 +106,10 @@ public abstract class RateSamplingRule {
         final byte samplingMechanism) {
       super(sampler, samplingMechanism);
 
+      this.serviceGlob = serviceGlob;
+      this.operationGlob = operationGlob;
+      this.resourceGlob = resourceGlob;
+      this.hasTags = !tags.isEmpty();
       serviceMatcher = Matchers.compileGlob(serviceGlob);
       operationMatcher = Matchers.compileGlob(operationGlob);
       resourceMatcher = Matchers.compileGlob(resourceGlob);
@@ -115,6 +123,22 @@ public abstract class RateSamplingRule {
           && Matchers.matches(resourceMatcher, span.getResourceName())
           && tagsMatcher.matches(span);
     }
+
+    String serviceGlob() {
+      return serviceGlob;
+    }
+
+    String operationGlob() {
+      return operationGlob;
+    }
+
+    String resourceGlob() {
+      return resourceGlob;
+    }
+
+    boolean hasTags() {
+      return hasTags;
+    }
   }
 
   public static final class SpanSamplingRule extends RateSamplingRule {
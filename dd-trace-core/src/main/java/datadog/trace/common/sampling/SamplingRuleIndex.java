@@ -0,0 +1,247 @@
+package datadog.trace.common.sampling;
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.CoreSpan;
+import datadog.trace.core.util.Matchers;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the first rule matching a span, without evaluating every rule in turn.
+ *
+ * <p>Rules which only match an exact service, operation, or resource name are indexed by that name,
+ * so only the rules indexed under the span's names plus the rules that couldn't be indexed are
+ * evaluated, still in their original order. The outcome is cached by service, operation, and
+ * resource name in a fixed-size table, unless it depended on the span's tags.
+ */
+final class SamplingRuleIndex {
+  private static final int[] NO_RULES = new int[0];
+
+  private static final int CACHE_SIZE = 1024; // must be a power of 2
+
+  private final RateSamplingRule[] rules;
+  private final boolean[] namesOnly;
+  private final Map<String, int[]> byService;
+  private final Map<String, int[]> byOperation;
+  private final Map<String, int[]> byResource;
+  private final int[] unindexed;
+  private final int[] allRules;
+
+  private final CachedMatch[] cache = new CachedMatch[CACHE_SIZE];
+
+  SamplingRuleIndex(List<? extends RateSamplingRule> samplingRules) {
+    int ruleCount = samplingRules.size();
+    this.rules = samplingRules.toArray(new RateSamplingRule[0]);
+    this.namesOnly = new boolean[ruleCount];
+    this.allRules = new int[ruleCount];
+
+    Map<String, List<Integer>> services = new HashMap<>();
+    Map<String, List<Integer>> operations = new HashMap<>();
+    Map<String, List<Integer>> resources = new HashMap<>();
+    List<Integer> others = new ArrayList<>();
+    for (int i = 0; i < ruleCount; i++) {
+      RateSamplingRule rule = rules[i];
+      allRules[i] = i;
+      namesOnly[i] = dependsOnNamesOnly(rule);
+      if (rule instanceof RateSamplingRule.TraceSamplingRule) {
+        RateSamplingRule.TraceSamplingRule traceRule = (RateSamplingRule.TraceSamplingRule) rule;
+        if (isIndexable(traceRule.serviceGlob())) {
+          add(services, traceRule.serviceGlob(), i);
+          continue;
+        } else if (isIndexable(traceRule.operationGlob())) {
+          add(operations, traceRule.operationGlob(), i);
+          continue;
+        } else if (isIndexable(traceRule.resourceGlob())) {
+          add(resources, traceRule.resourceGlob(), i);
+          continue;
+        }
+      }
+      others.add(i);
+    }
+    this.byService = toArrays(services);
+    this.byOperation = toArrays(operations);
+    this.byResource = toArrays(resources);
+    this.unindexed = toArray(others);
+  }
+
+  /** Returns the first rule matching the span, or {@code null} if none match. */
+  <T extends CoreSpan<T>> RateSamplingRule match(T span) {
+    if (rules.length == 0) {
+      return null;
+    }
+    String service = span.getServiceName();
+    CharSequence operation = span.getOperationName();
+    CharSequence resource = span.getResourceName();
+
+    int slot = (31 * (31 * hash(service) + hash(operation)) + hash(resource)) & (CACHE_SIZE - 1);
+    CachedMatch cached = cache[slot];
+    if (null != cached && cached.matches(service, operation, resource)) {
+      return cached.rule;
+    }
+
+    RateSamplingRule matched = null;
+    boolean cacheable = true;
+    String serviceKey = asciiLowerCase(service);
+    String operationKey = asciiLowerCase(operation);
+    String resourceKey = asciiLowerCase(resource);
+    int[] serviceRules;
+    int[] operationRules;
+    int[] resourceRules;
+    int[] otherRules;
+    if (null != serviceKey && null != operationKey && null != resourceKey) {
+      serviceRules = lookup(byService, serviceKey);
+      operationRules = lookup(byOperation, operationKey);
+      resourceRules = lookup(byResource, resourceKey);
+      otherRules = unindexed;
+    } else {
+      // missing or non-ASCII names may still match ignoring case, so evaluate every rule
+      serviceRules = NO_RULES;
+      operationRules = NO_RULES;
+      resourceRules = NO_RULES;
+      otherRules = allRules;
+    }
+
+    // merge the candidates, which are each in rule order and don't overlap
+    int s = 0;
+    int o = 0;
+    int r = 0;
+    int u = 0;
+    while (true) {
+      int next = Integer.MAX_VALUE;
+      if (s < serviceRules.length) {
+        next = serviceRules[s];
+      }
+      if (o < operationRules.length && operationRules[o] < next) {
+        next = operationRules[o];
+      }
+      if (r < resourceRules.length && resourceRules[r] < next) {
+        next = resourceRules[r];
+      }
+      if (u < otherRules.length && otherRules[u] < next) {
+        next = otherRules[u];
+      }
+      if (next == Integer.MAX_VALUE) {
+        break;
+      }
+      if (s < serviceRules.length && serviceRules[s] == next) {
+        s++;
+      } else if (o < operationRules.length && operationRules[o] == next) {
+        o++;
+      } else if (r < resourceRules.length && resourceRules[r] == next) {
+        r++;
+      } else {
+        u++;
+      }
+      cacheable &= namesOnly[next];
+      if (rules[next].matches(span)) {
+        matched = rules[next];
+        break;
+      }
+    }
+
+    if (cacheable && null != service && null != operation && null != resource) {
+      cache[slot] = new CachedMatch(service, operation.toString(), resource.toString(), matched);
+    }
+    return matched;
+  }
+
+  private static boolean dependsOnNamesOnly(RateSamplingRule rule) {
+    if (rule instanceof RateSamplingRule.TraceSamplingRule) {
+      return !((RateSamplingRule.TraceSamplingRule) rule).hasTags();
+    }
+    return rule instanceof RateSamplingRule.AlwaysMatchesSamplingRule
+        || rule instanceof RateSamplingRule.ServiceSamplingRule
+        || rule instanceof RateSamplingRule.OperationSamplingRule;
+  }
+
+  private static boolean isIndexable(String glob) {
+    return Matchers.isExactGlob(glob) && null != asciiLowerCase(glob);
+  }
+
+  private static int hash(CharSequence value) {
+    if (value instanceof String || value instanceof UTF8BytesString) {
+      return value.hashCode();
+    }
+    return null == value ? 0 : value.toString().hashCode();
+  }
+
+  /** Lower-cases ASCII names, returns {@code null} for names that aren't ASCII. */
+  private static String asciiLowerCase(CharSequence value) {
+    if (null == value) {
+      return null;
+    }
+    boolean lowerCase = true;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c > 0x7F) {
+        return null;
+      }
+      lowerCase &= c < 'A' || c > 'Z';
+    }
+    if (lowerCase) {
+      return value.toString();
+    }
+    char[] chars = new char[value.length()];
+    for (int i = 0; i < chars.length; i++) {
+      char c = value.charAt(i);
+      chars[i] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    return new String(chars);
+  }
+
+  private static int[] lookup(Map<String, int[]> index, String key) {
+    int[] indexed = index.get(key);
+    return null == indexed ? NO_RULES : indexed;
+  }
+
+  private static void add(Map<String, List<Integer>> index, String glob, int rule) {
+    String key = asciiLowerCase(glob);
+    List<Integer> indexed = index.get(key);
+    if (null == indexed) {
+      indexed = new ArrayList<>();
+      index.put(key, indexed);
+    }
+    indexed.add(rule);
+  }
+
+  private static Map<String, int[]> toArrays(Map<String, List<Integer>> index) {
+    Map<String, int[]> arrays = new HashMap<>(index.size() * 2);
+    for (Map.Entry<String, List<Integer>> entry : index.entrySet()) {
+      arrays.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    return arrays;
+  }
+
+  private static int[] toArray(List<Integer> rules) {
+    int[] array = new int[rules.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = rules.get(i);
+    }
+    return array;
+  }
+
+  /** Immutable, so can be shared between threads without synchronization. */
+  private static final class CachedMatch {
+    final String service;
+    final String operation;
+    final String resource;
+    final RateSamplingRule rule;
+
+    CachedMatch(String service, String operation, String resource, RateSamplingRule rule) {
+      this.service = service;
+      this.operation = operation;
+      this.resource = resource;
+      this.rule = rule;
+    }
+
+    boolean matches(String service, CharSequence operation, CharSequence resource) {
+      return this.service.equals(service)
+          && null != operation
+          && null != resource
+          && this.operation.contentEquals(operation)
+          && this.resource.contentEquals(resource);
+    }
+  }
+}
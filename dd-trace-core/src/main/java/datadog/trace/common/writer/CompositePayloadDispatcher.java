@@ -34,6 +34,20 @@ public class CompositePayloadDispatcher implements PayloadDispatcher {
     }
   }
 
+  @Override
+  public void awaitSent() {
+    for (PayloadDispatcher delegate : delegates) {
+      delegate.awaitSent();
+    }
+  }
+
+  @Override
+  public void close() {
+    for (PayloadDispatcher delegate : delegates) {
+      delegate.close();
+    }
+  }
+
   @Override
   public Collection<RemoteApi> getApis() {
     Collection<RemoteApi> apis = new ArrayList<>(delegates.length);
@@ -40,6 +40,9 @@ public class DDAgentWriter extends RemoteWriter {
     boolean traceAgentV05Enabled = Config.get().isTraceAgentV05Enabled();
     boolean metricsReportingEnabled = Config.get().isTracerMetricsEnabled();
     boolean alwaysFlush = false;
+    int processingShards = 1;
+    int inFlightPayloads = 0;
+    int chunkSize = 0;
 
     private DDAgentApi agentApi;
     private Prioritization prioritization;
@@ -121,6 +124,21 @@ public class DDAgentWriter extends RemoteWriter {
       return this;
     }
 
+    public DDAgentWriterBuilder processingShards(int processingShards) {
+      this.processingShards = processingShards;
+      return this;
+    }
+
+    public DDAgentWriterBuilder inFlightPayloads(int inFlightPayloads) {
+      this.inFlightPayloads = inFlightPayloads;
+      return this;
+    }
+
+    public DDAgentWriterBuilder chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
     public DDAgentWriterBuilder spanSamplingRules(SingleSpanSampler singleSpanSampler) {
       this.singleSpanSampler = singleSpanSampler;
       return this;
@@ -142,14 +160,24 @@ public class DDAgentWriter extends RemoteWriter {
             new DDAgentApi(client, agentUrl, featureDiscovery, monitoring, metricsReportingEnabled);
       }
 
-      final DDAgentMapperDiscovery mapperDiscovery = new DDAgentMapperDiscovery(featureDiscovery);
-      final PayloadDispatcher dispatcher =
-          new PayloadDispatcherImpl(mapperDiscovery, agentApi, healthMetrics, monitoring);
+      // each shard serializes into its own buffer, so needs its own (stateful) mapper
+      final PayloadDispatcher[] dispatchers = new PayloadDispatcher[Math.max(1, processingShards)];
+      for (int i = 0; i < dispatchers.length; i++) {
+        final DDAgentMapperDiscovery mapperDiscovery = new DDAgentMapperDiscovery(featureDiscovery);
+        dispatchers[i] =
+            new PayloadDispatcherImpl(
+                mapperDiscovery,
+                agentApi,
+                healthMetrics,
+                monitoring,
+                inFlightPayloads,
+                chunkSize);
+      }
       final TraceProcessingWorker traceProcessingWorker =
           new TraceProcessingWorker(
               traceBufferSize,
               healthMetrics,
-              dispatcher,
+              dispatchers,
               featureDiscovery,
               null == prioritization ? FAST_LANE : prioritization,
               flushIntervalMilliseconds,
@@ -157,7 +185,8 @@ public class DDAgentWriter extends RemoteWriter {
               singleSpanSampler,
               null);
 
-      return new DDAgentWriter(traceProcessingWorker, dispatcher, healthMetrics, alwaysFlush);
+      // dropped trace counts only need to be reported once, so the first shard carries them
+      return new DDAgentWriter(traceProcessingWorker, dispatchers[0], healthMetrics, alwaysFlush);
     }
   }
 
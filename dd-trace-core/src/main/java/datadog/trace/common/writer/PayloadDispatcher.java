@@ -11,6 +11,12 @@ interface PayloadDispatcher {
 
   void flush();
 
+  /** Waits until the payloads flushed so far have been sent. */
+  void awaitSent();
+
+  /** Stops sending payloads, called once the serializer has stopped. */
+  void close();
+
   // used by tests
   Collection<RemoteApi> getApis();
 }
@@ -1,22 +1,39 @@
 package datadog.trace.common.writer;
 
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TRACE_DISPATCHER;
+import static datadog.trace.util.AgentThreadFactory.newAgentThread;
+
 import datadog.communication.monitor.Monitoring;
 import datadog.communication.monitor.Recording;
+import datadog.communication.serialization.BufferPool;
 import datadog.communication.serialization.ByteBufferConsumer;
 import datadog.communication.serialization.FlushingBuffer;
+import datadog.communication.serialization.PooledFlushingBuffer;
+import datadog.communication.serialization.StreamingBuffer;
 import datadog.communication.serialization.WritableFormatter;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
+import datadog.trace.common.writer.ddagent.TraceMapperV0_4;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import org.jctools.counters.CountersFactory;
 import org.jctools.counters.FixedSizeStripedLongCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Serializes traces into payloads and sends them through the {@link RemoteApi}.
+ *
+ * <p>By default payloads are sent from the serializing thread once the buffer is full or flushed.
+ * When payloads can be in flight, they are instead serialized in chunks into pooled buffers and
+ * sent from a separate thread, so serialization carries on while chunks are sent. Serialization
+ * only blocks when all the pooled buffers are in flight.
+ */
 public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatcher {
 
   private static final Logger log = LoggerFactory.getLogger(PayloadDispatcherImpl.class);
@@ -25,10 +42,14 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
   private final RemoteMapperDiscovery mapperDiscovery;
   private final HealthMetrics healthMetrics;
   private final Monitoring monitoring;
+  private final int inFlightPayloads;
+  private final int chunkSize;
 
   private Recording batchTimer;
   private RemoteMapper mapper;
   private WritableFormatter packer;
+  private BufferPool bufferPool;
+  private PayloadSender sender;
 
   private final FixedSizeStripedLongCounter droppedSpanCount =
       CountersFactory.createFixedSizeStripedCounter(8);
@@ -40,10 +61,27 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       RemoteApi api,
       HealthMetrics healthMetrics,
       Monitoring monitoring) {
+    this(mapperDiscovery, api, healthMetrics, monitoring, 0, 0);
+  }
+
+  /**
+   * @param inFlightPayloads max number of payloads being sent while serialization continues, or
+   *     {@code 0} to send payloads from the serializing thread
+   * @param chunkSize size of the pooled buffers when payloads can be in flight
+   */
+  public PayloadDispatcherImpl(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      int inFlightPayloads,
+      int chunkSize) {
     this.mapperDiscovery = mapperDiscovery;
     this.api = api;
     this.healthMetrics = healthMetrics;
     this.monitoring = monitoring;
+    this.inFlightPayloads = inFlightPayloads;
+    this.chunkSize = chunkSize;
   }
 
   @Override
@@ -53,6 +91,20 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
     }
   }
 
+  @Override
+  public void awaitSent() {
+    if (null != sender) {
+      sender.awaitSent();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (null != sender) {
+      sender.close();
+    }
+  }
+
   @Override
   public Collection<RemoteApi> getApis() {
     return Collections.singleton(api);
@@ -87,12 +139,25 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       if (null != mapper && null == packer) {
         batchTimer =
             monitoring.newTimer("tracer.trace.buffer.fill.time", "endpoint:" + mapper.endpoint());
-        packer = new MsgPackWriter(new FlushingBuffer(mapper.messageBufferSize(), this));
+        packer = new MsgPackWriter(newBuffer());
         batchTimer.start();
       }
     }
   }
 
+  private StreamingBuffer newBuffer() {
+    // v0.5 payloads share the mapper's dictionary, so must be sent before the mapper is reset
+    if (inFlightPayloads > 0 && chunkSize > 0 && mapper instanceof TraceMapperV0_4) {
+      if (null == sender) {
+        bufferPool =
+            new BufferPool(Math.min(chunkSize, mapper.messageBufferSize()), inFlightPayloads + 1);
+        sender = new PayloadSender();
+      }
+      return new PooledFlushingBuffer(bufferPool, mapper.messageBufferSize(), this);
+    }
+    return new FlushingBuffer(mapper.messageBufferSize(), this);
+  }
+
   Payload newPayload(int messageCount, ByteBuffer buffer) {
     return mapper
         .newPayload()
@@ -110,20 +175,105 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       Payload payload = newPayload(messageCount, buffer);
       final int sizeInBytes = payload.sizeInBytes();
       healthMetrics.onSerialize(sizeInBytes);
-      RemoteApi.Response response = api.sendSerializedTraces(payload);
-      mapper.reset();
-      if (response.success()) {
-        if (log.isDebugEnabled()) {
-          log.debug("Successfully sent {} traces to the API", messageCount);
-        }
-        healthMetrics.onSend(messageCount, sizeInBytes, response);
+      if (null != sender) {
+        mapper.reset();
+        sender.send(payload, sizeInBytes, buffer);
       } else {
-        if (log.isDebugEnabled()) {
-          log.debug(
-              "Failed to send {} traces of size {} bytes to the API", messageCount, sizeInBytes);
+        RemoteApi.Response response = api.sendSerializedTraces(payload);
+        mapper.reset();
+        onResponse(messageCount, sizeInBytes, response);
+      }
+    }
+  }
+
+  private void onResponse(int messageCount, int sizeInBytes, RemoteApi.Response response) {
+    if (response.success()) {
+      if (log.isDebugEnabled()) {
+        log.debug("Successfully sent {} traces to the API", messageCount);
+      }
+      healthMetrics.onSend(messageCount, sizeInBytes, response);
+    } else {
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Failed to send {} traces of size {} bytes to the API", messageCount, sizeInBytes);
+      }
+      healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
+    }
+  }
+
+  /** Sends payloads in order from its own thread, releasing their buffers once sent. */
+  private final class PayloadSender implements Runnable {
+    private final BlockingQueue<PendingPayload> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private int pending;
+    private boolean stopped;
+
+    PayloadSender() {
+      thread = newAgentThread(TRACE_DISPATCHER, this);
+      thread.start();
+    }
+
+    void send(Payload payload, int sizeInBytes, ByteBuffer buffer) {
+      synchronized (this) {
+        pending++;
+      }
+      queue.offer(new PendingPayload(payload, sizeInBytes, buffer));
+    }
+
+    synchronized void awaitSent() {
+      try {
+        while (pending > 0 && !stopped) {
+          wait();
         }
-        healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
     }
+
+    void close() {
+      thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          PendingPayload pendingPayload = queue.take();
+          Payload payload = pendingPayload.payload;
+          try {
+            RemoteApi.Response response = api.sendSerializedTraces(payload);
+            onResponse(payload.traceCount(), pendingPayload.sizeInBytes, response);
+          } catch (Throwable e) {
+            log.debug("Failed to send {} traces to the API", payload.traceCount(), e);
+          } finally {
+            bufferPool.release(pendingPayload.buffer);
+            synchronized (this) {
+              if (--pending == 0) {
+                notifyAll();
+              }
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (this) {
+        // payloads still queued are dropped, don't leave anyone waiting for them
+        stopped = true;
+        notifyAll();
+      }
+    }
+  }
+
+  private static final class PendingPayload {
+    final Payload payload;
+    final int sizeInBytes;
+    final ByteBuffer buffer;
+
+    PendingPayload(Payload payload, int sizeInBytes, ByteBuffer buffer) {
+      this.payload = payload;
+      this.sizeInBytes = sizeInBytes;
+      this.buffer = buffer;
+    }
   }
 }
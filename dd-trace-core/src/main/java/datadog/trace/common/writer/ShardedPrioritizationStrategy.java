@@ -0,0 +1,70 @@
+package datadog.trace.common.writer;
+
+import datadog.trace.api.DDTraceId;
+import datadog.trace.common.writer.ddagent.FlushEvent;
+import datadog.trace.common.writer.ddagent.PrioritizationStrategy;
+import datadog.trace.core.CoreSpan;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes traces through the prioritization strategy of a shard, chosen by hashing the trace id
+ * of their first span, so all chunks of a trace end up on the same serializer. A flush is offered
+ * to every shard and only completes once all of them have flushed.
+ */
+final class ShardedPrioritizationStrategy implements PrioritizationStrategy {
+
+  private final PrioritizationStrategy[] strategies;
+  private final Queue<Object>[] primaryQueues;
+  private final Thread[] serializerThreads;
+
+  ShardedPrioritizationStrategy(
+      PrioritizationStrategy[] strategies,
+      Queue<Object>[] primaryQueues,
+      Thread[] serializerThreads) {
+    this.strategies = strategies;
+    this.primaryQueues = primaryQueues;
+    this.serializerThreads = serializerThreads;
+  }
+
+  static int shardFor(List<?> trace, int shardCount) {
+    if (shardCount > 1 && !trace.isEmpty()) {
+      Object span = trace.get(0);
+      DDTraceId id = span instanceof CoreSpan ? ((CoreSpan<?>) span).getTraceId() : null;
+      if (null != id) {
+        long traceId = id.toLong();
+        int hash = (int) (traceId ^ (traceId >>> 32));
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shardCount;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public <T extends CoreSpan<T>> PublishResult publish(T root, int priority, List<T> trace) {
+    return strategies[shardFor(trace, strategies.length)].publish(root, priority, trace);
+  }
+
+  @Override
+  public boolean flush(long timeout, TimeUnit timeUnit) {
+    // every shard counts down the same latch once it has flushed
+    CountDownLatch latch = new CountDownLatch(primaryQueues.length);
+    FlushEvent event = new FlushEvent(latch);
+    for (int i = 0; i < primaryQueues.length; i++) {
+      boolean offered;
+      do {
+        offered = primaryQueues[i].offer(event);
+        // stop retrying once the serializer is gone, the latch will then time out
+      } while (!offered && serializerThreads[i].isAlive());
+    }
+    try {
+      return latch.await(timeout, timeUnit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.MpscBlockingConsumerArrayQueue;
 import org.slf4j.Logger;
@@ -40,8 +41,9 @@ public class TraceProcessingWorker implements AutoCloseable {
   private final PrioritizationStrategy prioritizationStrategy;
   private final MpscBlockingConsumerArrayQueue<Object> primaryQueue;
   private final MpscBlockingConsumerArrayQueue<Object> secondaryQueue;
-  private final TraceSerializingHandler serializingHandler;
-  private final Thread serializerThread;
+  private final MpscBlockingConsumerArrayQueue<Object>[] primaryQueues;
+  private final MpscBlockingConsumerArrayQueue<Object>[] secondaryQueues;
+  private final Thread[] serializerThreads;
   private final int capacity;
 
   private final SpanSamplingWorker spanSamplingWorker;
@@ -56,9 +58,44 @@ public class TraceProcessingWorker implements AutoCloseable {
       final TimeUnit timeUnit,
       final SingleSpanSampler singleSpanSampler,
       final SpanPostProcessor spanPostProcessor) {
+    this(
+        capacity,
+        healthMetrics,
+        new PayloadDispatcher[] {dispatcher},
+        droppingPolicy,
+        prioritization,
+        flushInterval,
+        timeUnit,
+        singleSpanSampler,
+        spanPostProcessor);
+  }
+
+  /**
+   * Creates a worker with one serializer per dispatcher. Each shard gets its own primary and
+   * secondary queue of the given capacity, and traces are routed to a shard by trace id.
+   */
+  @SuppressWarnings("unchecked")
+  public TraceProcessingWorker(
+      final int capacity,
+      final HealthMetrics healthMetrics,
+      final PayloadDispatcher[] dispatchers,
+      final DroppingPolicy droppingPolicy,
+      final Prioritization prioritization,
+      final long flushInterval,
+      final TimeUnit timeUnit,
+      final SingleSpanSampler singleSpanSampler,
+      final SpanPostProcessor spanPostProcessor) {
+    final int shards = dispatchers.length;
     this.capacity = capacity;
-    this.primaryQueue = createQueue(capacity);
-    this.secondaryQueue = createQueue(capacity);
+    this.primaryQueues = new MpscBlockingConsumerArrayQueue[shards];
+    this.secondaryQueues = new MpscBlockingConsumerArrayQueue[shards];
+    for (int i = 0; i < shards; i++) {
+      primaryQueues[i] = createQueue(capacity);
+      secondaryQueues[i] = createQueue(capacity);
+    }
+    this.primaryQueue = primaryQueues[0];
+    this.secondaryQueue = secondaryQueues[0];
+    // spans kept by single span sampling are not part of a trace, they go to the first shard
     this.spanSamplingWorker =
         SpanSamplingWorker.build(
             capacity,
@@ -67,47 +104,73 @@ public class TraceProcessingWorker implements AutoCloseable {
             singleSpanSampler,
             healthMetrics,
             droppingPolicy);
-    this.prioritizationStrategy =
-        prioritization.create(
-            primaryQueue,
-            secondaryQueue,
-            spanSamplingWorker.getSpanSamplingQueue(),
-            droppingPolicy);
+    // with a single shard publish straight to its queues, otherwise route by trace id
+    final PrioritizationStrategy[] strategies = new PrioritizationStrategy[shards];
+    for (int i = 0; i < shards; i++) {
+      strategies[i] =
+          prioritization.create(
+              primaryQueues[i],
+              secondaryQueues[i],
+              spanSamplingWorker.getSpanSamplingQueue(),
+              droppingPolicy);
+    }
 
     boolean runAsDaemon = !Config.get().isCiVisibilityEnabled();
-    this.serializingHandler =
-        runAsDaemon
-            ? new DaemonTraceSerializingHandler(
-                primaryQueue,
-                secondaryQueue,
-                healthMetrics,
-                dispatcher,
-                flushInterval,
-                timeUnit,
-                spanPostProcessor)
-            : new NonDaemonTraceSerializingHandler(
-                primaryQueue,
-                secondaryQueue,
-                healthMetrics,
-                dispatcher,
-                flushInterval,
-                timeUnit,
-                spanPostProcessor);
-    this.serializerThread = newAgentThread(TRACE_PROCESSOR, serializingHandler, runAsDaemon);
+    this.serializerThreads = new Thread[shards];
+    for (int i = 0; i < shards; i++) {
+      TraceSerializingHandler serializingHandler =
+          runAsDaemon
+              ? new DaemonTraceSerializingHandler(
+                  primaryQueues[i],
+                  secondaryQueues[i],
+                  healthMetrics,
+                  dispatchers[i],
+                  flushInterval,
+                  timeUnit,
+                  spanPostProcessor)
+              : new NonDaemonTraceSerializingHandler(
+                  primaryQueues[i],
+                  secondaryQueues[i],
+                  healthMetrics,
+                  dispatchers[i],
+                  flushInterval,
+                  timeUnit,
+                  spanPostProcessor);
+      this.serializerThreads[i] =
+          newAgentThread(
+              TRACE_PROCESSOR, shards == 1 ? null : "-" + i, serializingHandler, runAsDaemon);
+    }
+    if (shards == 1) {
+      this.prioritizationStrategy = strategies[0];
+    } else {
+      this.prioritizationStrategy =
+          new ShardedPrioritizationStrategy(strategies, primaryQueues, serializerThreads);
+      final IntSupplier[] shardQueueLengths = new IntSupplier[shards];
+      for (int i = 0; i < shards; i++) {
+        final int shard = i;
+        shardQueueLengths[i] = () -> primaryQueues[shard].size() + secondaryQueues[shard].size();
+      }
+      healthMetrics.onShardQueues(shardQueueLengths);
+    }
   }
 
   public void start() {
-    this.serializerThread.start();
+    for (Thread serializerThread : serializerThreads) {
+      serializerThread.start();
+    }
     this.spanSamplingWorker.start();
   }
 
   public boolean flush(long timeout, TimeUnit timeUnit) {
-    CountDownLatch latch = new CountDownLatch(1);
+    // every shard counts down the same latch once it has flushed its dispatcher
+    CountDownLatch latch = new CountDownLatch(serializerThreads.length);
     FlushEvent flush = new FlushEvent(latch);
-    boolean offered;
-    do {
-      offered = primaryQueue.offer(flush);
-    } while (!offered && serializerThread.isAlive());
+    for (int i = 0; i < serializerThreads.length; i++) {
+      boolean offered;
+      do {
+        offered = primaryQueues[i].offer(flush);
+      } while (!offered && serializerThreads[i].isAlive());
+    }
     try {
       return latch.await(timeout, timeUnit);
     } catch (InterruptedException e) {
@@ -119,10 +182,14 @@ public class TraceProcessingWorker implements AutoCloseable {
   @Override
   public void close() {
     spanSamplingWorker.close();
-    serializerThread.interrupt();
-    try {
-      serializerThread.join(THREAD_JOIN_TIMOUT_MS);
-    } catch (InterruptedException ignored) {
+    for (Thread serializerThread : serializerThreads) {
+      serializerThread.interrupt();
+    }
+    for (Thread serializerThread : serializerThreads) {
+      try {
+        serializerThread.join(THREAD_JOIN_TIMOUT_MS);
+      } catch (InterruptedException ignored) {
+      }
     }
   }
 
@@ -132,12 +199,20 @@ public class TraceProcessingWorker implements AutoCloseable {
   }
 
   public int getCapacity() {
-    return capacity;
+    return capacity * primaryQueues.length;
+  }
+
+  public int getShardCount() {
+    return primaryQueues.length;
   }
 
   public long getRemainingCapacity() {
     // only advertise primary capacity (partly to keep test which aims to saturate the queue happy)
-    return primaryQueue.remainingCapacity();
+    long remainingCapacity = 0;
+    for (MpscBlockingConsumerArrayQueue<Object> queue : primaryQueues) {
+      remainingCapacity += queue.remainingCapacity();
+    }
+    return remainingCapacity;
   }
 
   private static MpscBlockingConsumerArrayQueue<Object> createQueue(int capacity) {
@@ -170,6 +245,7 @@ public class TraceProcessingWorker implements AutoCloseable {
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
       }
+      onShutdown();
       log.debug("Datadog trace processor exited. Publishing traces stopped");
     }
 
@@ -218,6 +294,7 @@ public class TraceProcessingWorker implements AutoCloseable {
           }
         }
       }
+      onShutdown();
       log.debug("Datadog trace processor exited. Unpublished traces left: " + !queuesAreEmpty());
     }
 
@@ -274,6 +351,8 @@ public class TraceProcessingWorker implements AutoCloseable {
           payloadDispatcher.addTrace(trace);
         } else if (event instanceof FlushEvent) {
           payloadDispatcher.flush();
+          // unlike periodic flushes, requested flushes only complete once the payloads are sent
+          payloadDispatcher.awaitSent();
           ((FlushEvent) event).sync();
         }
       } catch (final Throwable e) {
@@ -327,6 +406,10 @@ public class TraceProcessingWorker implements AutoCloseable {
       queue.drain(this::onEvent, queue.size());
     }
 
+    protected void onShutdown() {
+      payloadDispatcher.close();
+    }
+
     protected boolean queuesAreEmpty() {
       return primaryQueue.isEmpty() && secondaryQueue.isEmpty();
     }
@@ -150,6 +150,9 @@ public class WriterFactory {
               .alwaysFlush(alwaysFlush)
               .spanSamplingRules(singleSpanSampler)
               .flushIntervalMilliseconds(flushIntervalMilliseconds)
+              .processingShards(config.getTraceProcessingShards())
+              .inFlightPayloads(config.getTraceDispatchInFlightPayloads())
+              .chunkSize(config.getTraceDispatchChunkSize())
               .build();
     }
 
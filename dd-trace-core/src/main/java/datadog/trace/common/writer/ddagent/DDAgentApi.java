@@ -15,11 +15,10 @@ import datadog.trace.common.writer.RemoteApi;
 import datadog.trace.common.writer.RemoteResponseListener;
 import datadog.trace.core.DDTraceCoreInfo;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -42,7 +41,8 @@ public class DDAgentApi extends RemoteApi {
   private static final String DATADOG_DROPPED_SPAN_COUNT = "Datadog-Client-Dropped-P0-Spans";
   private static final String DATADOG_AGENT_STATE = "Datadog-Agent-State";
 
-  private final List<RemoteResponseListener> responseListeners = new ArrayList<>();
+  private final CopyOnWriteArrayList<RemoteResponseListener> responseListeners =
+      new CopyOnWriteArrayList<>();
   private final boolean metricsEnabled;
 
   private final Recording sendPayloadTimer;
@@ -72,7 +72,8 @@ public class DDAgentApi extends RemoteApi {
     this.featuresDiscovery = featuresDiscovery;
     this.agentUrl = agentUrl;
     this.httpClient = client;
-    this.sendPayloadTimer = monitoring.newTimer("trace.agent.send.time");
+    // one timer per sending thread, because the API is shared by the sender of every shard
+    this.sendPayloadTimer = monitoring.newThreadLocalTimer("trace.agent.send.time");
     this.agentErrorCounter = monitoring.newCounter("trace.agent.error.counter");
     this.metricsEnabled = metricsEnabled;
 
@@ -82,9 +83,7 @@ public class DDAgentApi extends RemoteApi {
   }
 
   public void addResponseListener(final RemoteResponseListener listener) {
-    if (!responseListeners.contains(listener)) {
-      responseListeners.add(listener);
-    }
+    responseListeners.addIfAbsent(listener);
   }
 
   public Response sendSerializedTraces(final Payload payload) {
@@ -117,8 +116,8 @@ public class DDAgentApi extends RemoteApi {
                       : "")
               .put(payload.toRequest())
               .build();
-      this.totalTraces += payload.traceCount();
-      this.receivedTraces += payload.traceCount();
+      this.totalTraces.add(payload.traceCount());
+      this.receivedTraces.add(payload.traceCount());
       try (final Recording recording = sendPayloadTimer.start();
           final okhttp3.Response response = httpClient.newCall(request).execute()) {
         handleAgentChange(response.header(DATADOG_AGENT_STATE));
@@ -0,0 +1,85 @@
+package datadog.trace.common.writer.ddagent;
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.serialization.Codec;
+import datadog.communication.serialization.GrowableBuffer;
+import datadog.communication.serialization.msgpack.MsgPackWriter;
+import datadog.trace.core.CoreSpan;
+import java.nio.ByteBuffer;
+import org.jctools.queues.MpmcArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes single finished spans in the v0.4 format on the thread which finished them, so the
+ * serializer only has to copy the bytes into the payload.
+ *
+ * <p>The encoded form never includes the sampling priority, which {@link TraceMapperV0_4} only
+ * writes on the first and last span of a trace chunk, so those spans are always encoded again.
+ * Nothing is encoded until the agent is known to accept v0.4 payloads.
+ *
+ * <p>Encoders are shared through a bounded pool rather than kept per thread, so applications with
+ * many short-lived threads don't pin a buffer per thread. Encoders whose buffer grew beyond {@link
+ * #MAX_RETAINED_BUFFER_SIZE} to encode a large span are dropped instead of returned to the pool.
+ */
+public final class SpanPreEncoder {
+
+  private static final Logger log = LoggerFactory.getLogger(SpanPreEncoder.class);
+
+  private static final int BUFFER_SIZE = 1 << 10;
+  static final int MAX_RETAINED_BUFFER_SIZE = 1 << 16;
+
+  private final DDAgentFeaturesDiscovery featuresDiscovery;
+  private final MpmcArrayQueue<Encoder> encoders;
+
+  public SpanPreEncoder(DDAgentFeaturesDiscovery featuresDiscovery) {
+    this(featuresDiscovery, Runtime.getRuntime().availableProcessors());
+  }
+
+  SpanPreEncoder(DDAgentFeaturesDiscovery featuresDiscovery, int poolSize) {
+    this.featuresDiscovery = featuresDiscovery;
+    this.encoders = new MpmcArrayQueue<>(Math.max(2, poolSize));
+  }
+
+  /** @return the span encoded as a v0.4 trace element, or null if it was not encoded */
+  public byte[] encode(CoreSpan<?> span) {
+    String traceEndpoint = featuresDiscovery.getTraceEndpoint();
+    if (null == traceEndpoint
+        || DDAgentFeaturesDiscovery.V5_ENDPOINT.equalsIgnoreCase(traceEndpoint)) {
+      // the v0.5 mapper can't use the encoded span
+      return null;
+    }
+    Encoder encoder = encoders.relaxedPoll();
+    if (null == encoder) {
+      encoder = new Encoder();
+    }
+    byte[] encoded = encoder.encode(span);
+    if (encoder.buffer.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+      encoders.relaxedOffer(encoder);
+    }
+    return encoded;
+  }
+
+  private static final class Encoder {
+    private final GrowableBuffer buffer = new GrowableBuffer(BUFFER_SIZE);
+    private final MsgPackWriter writer = new MsgPackWriter(Codec.INSTANCE, buffer);
+    private final TraceMapperV0_4 mapper = new TraceMapperV0_4();
+
+    byte[] encode(CoreSpan<?> span) {
+      buffer.reset();
+      try {
+        mapper.mapSpan(span, writer, false);
+        ByteBuffer encoded = buffer.slice();
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        return bytes;
+      } catch (RuntimeException e) {
+        // the serializer will encode the span itself
+        log.debug("Failed to pre-encode span {}", span, e);
+        return null;
+      } finally {
+        buffer.reset();
+      }
+    }
+  }
+}
@@ -10,9 +10,11 @@ import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import datadog.trace.common.writer.Payload;
 import datadog.trace.core.CoreSpan;
+import datadog.trace.core.DDSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
 import datadog.trace.core.PendingTrace;
+import datadog.trace.core.TagMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
@@ -33,11 +35,20 @@ public final class TraceMapperV0_4 implements TraceMapper {
     this(5 << 20);
   }
 
-  private static final class MetaWriter implements MetadataConsumer {
+  private static final class MetaWriter implements MetadataConsumer, TagMap.Visitor {
+
+    // what the tag visitor is currently doing
+    private static final int COUNT = 0;
+    private static final int WRITE_METRICS = 1;
+    private static final int WRITE_META = 2;
 
     private Writable writable;
     private boolean writeSamplingPriority;
 
+    private int mode;
+    private int metaSize;
+    private int metricsSize;
+
     MetaWriter withWritable(Writable writable) {
       this.writable = writable;
       return this;
@@ -50,27 +61,27 @@ public final class TraceMapperV0_4 implements TraceMapper {
 
     @Override
     public void accept(Metadata metadata) {
-      int metaSize =
+      Map<String, Object> tags = metadata.getTags();
+      // span tags are usually still held in the span's own TagMap, which can be read in place
+      TagMap tagMap = tags instanceof TagMap ? (TagMap) tags : null;
+      metaSize =
           metadata.getBaggage().size()
-              + metadata.getTags().size()
+              + tags.size()
               + (null == metadata.getHttpStatusCode() ? 0 : 1)
               + (null == metadata.getOrigin() ? 0 : 1)
               + 1;
-      int metricsSize =
+      metricsSize =
           (writeSamplingPriority && metadata.hasSamplingPriority() ? 1 : 0)
               + (metadata.measured() ? 1 : 0)
               + (metadata.topLevel() ? 1 : 0)
               + (metadata.longRunningVersion() != 0 ? 1 : 0)
               + 1;
-      for (Map.Entry<String, Object> tag : metadata.getTags().entrySet()) {
-        Object value = tag.getValue();
-        if (value instanceof Number) {
-          ++metricsSize;
-          --metaSize;
-        } else if (value instanceof Map) {
-          // Compute size based on amount of elements in tree
-          --metaSize;
-          metaSize += getFlatMapSize((Map) value);
+      mode = COUNT;
+      if (null != tagMap) {
+        tagMap.forEach(this);
+      } else {
+        for (Map.Entry<String, Object> tag : tags.entrySet()) {
+          visit(tag.getKey(), tag.getValue());
         }
       }
       writable.writeUTF8(METRICS);
@@ -98,10 +109,15 @@ public final class TraceMapperV0_4 implements TraceMapper {
       }
       writable.writeUTF8(THREAD_ID);
       writable.writeLong(metadata.getThreadId());
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (entry.getValue() instanceof Number) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObject(entry.getValue(), null);
+      if (null != tagMap) {
+        mode = WRITE_METRICS;
+        tagMap.forEach(this);
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          if (entry.getValue() instanceof Number) {
+            writable.writeString(entry.getKey(), null);
+            writable.writeObject(entry.getValue(), null);
+          }
         }
       }
 
@@ -124,19 +140,93 @@ public final class TraceMapperV0_4 implements TraceMapper {
         writable.writeUTF8(ORIGIN_KEY);
         writable.writeString(metadata.getOrigin(), null);
       }
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        String key = entry.getKey();
-        Object value = entry.getValue();
-        if (value instanceof Map) {
-          // Write map as flat map
-          writeFlatMap(key, (Map) value);
-        } else if (!(value instanceof Number)) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObjectString(entry.getValue(), null);
+      if (null != tagMap) {
+        mode = WRITE_META;
+        tagMap.forEach(this);
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          writeMeta(entry.getKey(), entry.getValue());
         }
       }
     }
 
+    @Override
+    public void visit(String key, Object value) {
+      switch (mode) {
+        case COUNT:
+          if (value instanceof Number) {
+            ++metricsSize;
+            --metaSize;
+          } else if (value instanceof Map) {
+            // Compute size based on amount of elements in tree
+            --metaSize;
+            metaSize += getFlatMapSize((Map) value);
+          }
+          break;
+        case WRITE_METRICS:
+          if (value instanceof Number) {
+            writable.writeString(key, null);
+            writable.writeObject(value, null);
+          }
+          break;
+        default:
+          writeMeta(key, value);
+      }
+    }
+
+    @Override
+    public void visitInt(String key, int value) {
+      if (visitMetric(key)) {
+        writable.writeInt(value);
+      }
+    }
+
+    @Override
+    public void visitLong(String key, long value) {
+      if (visitMetric(key)) {
+        writable.writeLong(value);
+      }
+    }
+
+    @Override
+    public void visitFloat(String key, float value) {
+      if (visitMetric(key)) {
+        writable.writeFloat(value);
+      }
+    }
+
+    @Override
+    public void visitDouble(String key, double value) {
+      if (visitMetric(key)) {
+        writable.writeDouble(value);
+      }
+    }
+
+    /** @return true when the metric value should be written after its key */
+    private boolean visitMetric(String key) {
+      switch (mode) {
+        case COUNT:
+          ++metricsSize;
+          --metaSize;
+          return false;
+        case WRITE_METRICS:
+          writable.writeString(key, null);
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private void writeMeta(String key, Object value) {
+      if (value instanceof Map) {
+        // Write map as flat map
+        writeFlatMap(key, (Map) value);
+      } else if (!(value instanceof Number)) {
+        writable.writeString(key, null);
+        writable.writeObjectString(value, null);
+      }
+    }
+
     /**
      * Calculate number of all values from map and all sub-maps Assuming map could be a binary tree
      *
@@ -237,50 +327,64 @@ public final class TraceMapperV0_4 implements TraceMapper {
     writable.startArray(trace.size());
     for (int i = 0; i < trace.size(); i++) {
       final CoreSpan<?> span = trace.get(i);
-      final Map<String, Object> metaStruct = span.getMetaStruct();
-      writable.startMap(metaStruct.isEmpty() ? 12 : 13);
-      /* 1  */
-      writable.writeUTF8(SERVICE);
-      writable.writeString(span.getServiceName(), null);
-      /* 2  */
-      writable.writeUTF8(NAME);
-      writable.writeObject(span.getOperationName(), null);
-      /* 3  */
-      writable.writeUTF8(RESOURCE);
-      writable.writeObject(span.getResourceName(), null);
-      /* 4  */
-      writable.writeUTF8(TRACE_ID);
-      writable.writeUnsignedLong(span.getTraceId().toLong());
-      /* 5  */
-      writable.writeUTF8(SPAN_ID);
-      writable.writeUnsignedLong(span.getSpanId());
-      /* 6  */
-      writable.writeUTF8(PARENT_ID);
-      writable.writeUnsignedLong(span.getParentId());
-      /* 7  */
-      writable.writeUTF8(START);
-      writable.writeLong(span.getStartTime());
-      /* 8  */
-      writable.writeUTF8(DURATION);
-      writable.writeLong(PendingTrace.getDurationNano(span));
-      /* 9  */
-      writable.writeUTF8(TYPE);
-      writable.writeString(span.getType(), null);
-      /* 10 */
-      writable.writeUTF8(ERROR);
-      writable.writeInt(span.getError());
-      /* 11, 12 */
-      span.processTagsAndBaggage(
-          metaWriter
-              .withWritable(writable)
-              .withWriteSamplingPriority(i == 0 || i == trace.size() - 1));
-      if (!metaStruct.isEmpty()) {
-        /* 13 */
-        metaStructWriter.withWritable(writable).write(metaStruct);
+      // the first and last spans carry the sampling priority, so are never pre-encoded
+      final boolean writeSamplingPriority = i == 0 || i == trace.size() - 1;
+      final byte[] encoded =
+          writeSamplingPriority || !(span instanceof DDSpan)
+              ? null
+              : ((DDSpan) span).getPreEncoded();
+      if (null != encoded) {
+        writable.writeEncoded(encoded);
+      } else {
+        mapSpan(span, writable, writeSamplingPriority);
       }
     }
   }
 
+  /** Writes a single span of a v0.4 trace. */
+  void mapSpan(
+      final CoreSpan<?> span, final Writable writable, final boolean writeSamplingPriority) {
+    final Map<String, Object> metaStruct = span.getMetaStruct();
+    writable.startMap(metaStruct.isEmpty() ? 12 : 13);
+    /* 1  */
+    writable.writeUTF8(SERVICE);
+    writable.writeString(span.getServiceName(), null);
+    /* 2  */
+    writable.writeUTF8(NAME);
+    writable.writeObject(span.getOperationName(), null);
+    /* 3  */
+    writable.writeUTF8(RESOURCE);
+    writable.writeObject(span.getResourceName(), null);
+    /* 4  */
+    writable.writeUTF8(TRACE_ID);
+    writable.writeUnsignedLong(span.getTraceId().toLong());
+    /* 5  */
+    writable.writeUTF8(SPAN_ID);
+    writable.writeUnsignedLong(span.getSpanId());
+    /* 6  */
+    writable.writeUTF8(PARENT_ID);
+    writable.writeUnsignedLong(span.getParentId());
+    /* 7  */
+    writable.writeUTF8(START);
+    writable.writeLong(span.getStartTime());
+    /* 8  */
+    writable.writeUTF8(DURATION);
+    writable.writeLong(PendingTrace.getDurationNano(span));
+    /* 9  */
+    writable.writeUTF8(TYPE);
+    writable.writeString(span.getType(), null);
+    /* 10 */
+    writable.writeUTF8(ERROR);
+    writable.writeInt(span.getError());
+    /* 11, 12 */
+    span.processTagsAndBaggage(
+        metaWriter.withWritable(writable).withWriteSamplingPriority(writeSamplingPriority));
+    if (!metaStruct.isEmpty()) {
+      /* 13 */
+      metaStructWriter.withWritable(writable).write(metaStruct);
+    }
+  }
+
   @Override
   public Payload newPayload() {
     return new PayloadV0_4();
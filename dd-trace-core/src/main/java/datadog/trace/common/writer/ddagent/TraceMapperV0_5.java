@@ -86,11 +86,13 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
   private void writeDictionaryEncoded(final Writable writable, final Object value) {
     final Object target = null == value ? "" : value;
-    final Integer encoded = encoding.get(target);
+    // strings and UTF8BytesStrings with the same content share an entry
+    final Object key = target instanceof UTF8BytesString ? target.toString() : target;
+    final Integer encoded = encoding.get(key);
     if (null == encoded) {
       dictionaryWriter.format(target, dictionaryMapper);
       final int dictionaryCode = dictionary.messageCount() - 1;
-      encoding.put(target, dictionaryCode);
+      encoding.put(key, dictionaryCode);
       // this call can fail, but the dictionary has been written to now
       // so should make sure dictionary state is consistent first
       writable.writeInt(dictionaryCode);
@@ -260,10 +262,10 @@ public final class TraceMapperV0_5 implements TraceMapper {
       }
       if (metadata.longRunningVersion() != 0) {
         if (metadata.longRunningVersion() > 0) {
-          writable.writeUTF8(InstrumentationTags.DD_PARTIAL_VERSION);
+          writeDictionaryEncoded(writable, InstrumentationTags.DD_PARTIAL_VERSION);
           writable.writeInt(metadata.longRunningVersion());
         } else {
-          writable.writeUTF8(InstrumentationTags.DD_WAS_LONG_RUNNING);
+          writeDictionaryEncoded(writable, InstrumentationTags.DD_WAS_LONG_RUNNING);
           writable.writeInt(1);
         }
       }
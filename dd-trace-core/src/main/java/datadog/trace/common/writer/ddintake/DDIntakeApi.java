@@ -131,8 +131,8 @@ public class DDIntakeApi extends RemoteApi {
             .post(payload.toRequest())
             .tag(OkHttpUtils.CustomListener.class, telemetryListener)
             .build();
-    totalTraces += payload.traceCount();
-    receivedTraces += payload.traceCount();
+    totalTraces.add(payload.traceCount());
+    receivedTraces.add(payload.traceCount());
 
     try (okhttp3.Response response =
         OkHttpUtils.sendWithRetries(httpClient, retryPolicyFactory, request)) {
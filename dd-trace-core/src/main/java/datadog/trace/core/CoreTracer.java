@@ -71,6 +71,7 @@ import datadog.trace.common.sampling.TraceSamplingRules;
 import datadog.trace.common.writer.DDAgentWriter;
 import datadog.trace.common.writer.Writer;
 import datadog.trace.common.writer.WriterFactory;
+import datadog.trace.common.writer.ddagent.SpanPreEncoder;
 import datadog.trace.common.writer.ddintake.DDIntakeTraceInterceptor;
 import datadog.trace.context.TraceScope;
 import datadog.trace.core.datastreams.DataStreamContextInjector;
@@ -631,6 +632,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
               config.getScopeDepthLimit(),
               config.isScopeStrictMode(),
               config.isScopeInheritAsyncPropagation(),
+              config.isScopeLazyStacksEnabled(),
               profilingContextIntegration,
               healthMetrics);
     } else {
@@ -672,7 +674,17 @@ public class CoreTracer implements AgentTracer.TracerAPI {
                 this.timeSource, config, sharedCommunicationObjects, healthMetrics);
     pendingTraceFactory =
         new PendingTrace.Factory(
-            this, pendingTraceBuffer, this.timeSource, strictTraceWrites, healthMetrics);
+            this,
+            pendingTraceBuffer,
+            this.timeSource,
+            strictTraceWrites,
+            healthMetrics,
+            // spans are pre-encoded for the agent's v0.4 endpoint, and must not change once encoded
+            config.isTraceSpanPreEncodingEnabled()
+                    && this.writer instanceof DDAgentWriter
+                    && !config.isLongRunningTraceEnabled()
+                ? new SpanPreEncoder(sharedCommunicationObjects.featuresDiscovery(config))
+                : null);
     pendingTraceBuffer.start();
 
     this.writer.start();
@@ -687,7 +699,11 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     if (dataStreamsMonitoring == null) {
       this.dataStreamsMonitoring =
           new DefaultDataStreamsMonitoring(
-              config, sharedCommunicationObjects, this.timeSource, this::captureTraceConfig);
+              config,
+              sharedCommunicationObjects,
+              this.timeSource,
+              this::captureTraceConfig,
+              healthMetrics);
     } else {
       this.dataStreamsMonitoring = dataStreamsMonitoring;
     }
@@ -1000,8 +1016,17 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     }
   }
 
+  boolean hasTraceInterceptors() {
+    return !interceptors.isEmpty();
+  }
+
   private List<DDSpan> interceptCompleteTrace(List<DDSpan> trace) {
     if (!interceptors.isEmpty() && !trace.isEmpty()) {
+      // interceptors may change the spans, so spans encoded before an interceptor was added are
+      // encoded again by the serializer
+      for (final DDSpan span : trace) {
+        span.setPreEncoded(null);
+      }
       Collection<? extends MutableSpan> interceptedTrace = new ArrayList<>(trace);
       for (final TraceInterceptor interceptor : interceptors) {
         try {
@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import javax.annotation.Nonnull;
@@ -114,6 +115,18 @@ public class DDSpan
 
   private final List<AgentSpanLink> links;
 
+  /** The finished span encoded ahead of serialization, see {@link PendingTrace#onPublish}. */
+  private volatile byte[] preEncoded;
+
+  /**
+   * Size accounted against the pending trace buffer's byte budget while the span is buffered, or
+   * -1 once the finished span has been written.
+   */
+  private volatile int bufferedSize;
+
+  private static final AtomicIntegerFieldUpdater<DDSpan> BUFFERED_SIZE_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(DDSpan.class, "bufferedSize");
+
   /**
    * Spans should be constructed using the builder, not by calling the constructor directly.
    *
@@ -143,6 +156,25 @@ public class DDSpan
     this.links = links == null ? new CopyOnWriteArrayList<>() : new CopyOnWriteArrayList<>(links);
   }
 
+  /** @return the span's v0.4 encoding made when it finished, or null */
+  public byte[] getPreEncoded() {
+    return preEncoded;
+  }
+
+  void setPreEncoded(byte[] preEncoded) {
+    this.preEncoded = preEncoded;
+  }
+
+  /** @return false if the span was already written, in which case the size must not be counted */
+  boolean setBufferedSize(int bufferedSize) {
+    return BUFFERED_SIZE_UPDATER.compareAndSet(this, 0, bufferedSize);
+  }
+
+  /** @return the size which was accounted for the finished span, which is now written */
+  int releaseBufferedSize() {
+    return Math.max(0, BUFFERED_SIZE_UPDATER.getAndSet(this, -1));
+  }
+
   public boolean isFinished() {
     return durationNano != 0;
   }
@@ -604,6 +636,8 @@ public class DDSpan
 
   @Override
   public DDSpan setSpanSamplingPriority(double rate, int limit) {
+    // single span sampling happens after the span was finished and adds metrics to it
+    preEncoded = null;
     context.setSpanSamplingPriority(rate, limit);
     return this;
   }
@@ -87,13 +87,14 @@ public class DDSpanContext
   /**
    * Tags are associated to the current span, they will not propagate to the children span.
    *
-   * <p>The underlying assumption for using a normal Map with synchronized access instead of a
-   * ConcurrentHashMap is that even though the tags can be accessed and modified from multiple
-   * threads, they will rarely, if ever, be read and modified concurrently by multiple threads but
-   * rather read and accessed in a serial fashion on thread after thread. The synchronization can
-   * then be wrapped around bulk operations to minimize the costly atomic operations.
+   * <p>The underlying assumption for using a compact {@link TagMap} with synchronized access
+   * instead of a ConcurrentHashMap is that even though the tags can be accessed and modified from
+   * multiple threads, they will rarely, if ever, be read and modified concurrently by multiple
+   * threads but rather read and accessed in a serial fashion on thread after thread. The
+   * synchronization can then be wrapped around bulk operations to minimize the costly atomic
+   * operations.
    */
-  private final Map<String, Object> unsafeTags;
+  private final TagMap unsafeTags;
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -342,7 +343,7 @@ public class DDSpanContext
     // The +1 is the magic number from the tags below that we set at the end,
     // and "* 4 / 3" is to make sure that we don't resize immediately
     final int capacity = Math.max((tagsSize <= 0 ? 3 : (tagsSize + 1)) * 4 / 3, 8);
-    this.unsafeTags = new HashMap<>(capacity);
+    this.unsafeTags = new TagMap(capacity);
     // must set this before setting the service and resource names below
     this.profilingContextIntegration = profilingContextIntegration;
     // as fast as we can try to make this operation, we still might need to activate/deactivate
@@ -717,6 +718,30 @@ public class DDSpanContext
     }
   }
 
+  public void setMetric(final CharSequence key, final int value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putInt(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final long value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putLong(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final float value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putFloat(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final double value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putDouble(key.toString(), value);
+    }
+  }
+
   /**
    * Sets a tag to the span. Tags are not propagated to the children.
    *
@@ -790,6 +815,12 @@ public class DDSpanContext
     return unsafeTags.get(tag);
   }
 
+  int getTagCount() {
+    synchronized (unsafeTags) {
+      return unsafeTags.size();
+    }
+  }
+
   public Map<String, Object> getTags() {
     synchronized (unsafeTags) {
       Map<String, Object> tags = new HashMap<>(unsafeTags);
@@ -1031,6 +1062,13 @@ public class DDSpanContext
     return requiresPostProcessing;
   }
 
+  /** @return whether the tag post-processors would change the tags of this span */
+  public boolean hasTagsToPostProcess() {
+    synchronized (unsafeTags) {
+      return TagsPostProcessorFactory.instance().appliesTo(unsafeTags, this);
+    }
+  }
+
   public CharSequence getLastParentId() {
     return lastParentId;
   }
@@ -8,6 +8,7 @@ import datadog.trace.api.time.TimeSource;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentTrace;
 import datadog.trace.common.sampling.PrioritySampler;
+import datadog.trace.common.writer.ddagent.SpanPreEncoder;
 import datadog.trace.core.CoreTracer.ConfigSnapshot;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.util.ArrayList;
@@ -53,6 +54,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     private final TimeSource timeSource;
     private final boolean strictTraceWrites;
     private final HealthMetrics healthMetrics;
+    private final SpanPreEncoder spanPreEncoder;
 
     Factory(
         CoreTracer tracer,
@@ -60,11 +62,22 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
         TimeSource timeSource,
         boolean strictTraceWrites,
         HealthMetrics healthMetrics) {
+      this(tracer, pendingTraceBuffer, timeSource, strictTraceWrites, healthMetrics, null);
+    }
+
+    Factory(
+        CoreTracer tracer,
+        PendingTraceBuffer pendingTraceBuffer,
+        TimeSource timeSource,
+        boolean strictTraceWrites,
+        HealthMetrics healthMetrics,
+        SpanPreEncoder spanPreEncoder) {
       this.tracer = tracer;
       this.pendingTraceBuffer = pendingTraceBuffer;
       this.timeSource = timeSource;
       this.strictTraceWrites = strictTraceWrites;
       this.healthMetrics = healthMetrics;
+      this.spanPreEncoder = spanPreEncoder;
     }
 
     /** Used by tests and benchmarks. */
@@ -80,12 +93,22 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
           timeSource,
           traceConfig,
           strictTraceWrites,
-          healthMetrics);
+          healthMetrics,
+          spanPreEncoder);
     }
   }
 
   private static final List<DDSpan> EMPTY = new ArrayList<>(0);
 
+  // rough estimates of the heap retained by a finished span and by each of its tags
+  private static final int SPAN_SIZE_ESTIMATE = 256;
+  private static final int TAG_SIZE_ESTIMATE = 64;
+
+  // spills write a batch of at least a tenth of the partial flush size, so a trace isn't written
+  // one span at a time while the pending trace buffer stays over its byte budget
+  private static final int SPILL_BATCH_DIVISOR = 10;
+  private static final int MIN_SPILL_SPANS = 10;
+
   private final CoreTracer tracer;
   private final DDTraceId traceId;
   private final PendingTraceBuffer pendingTraceBuffer;
@@ -93,6 +116,8 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   private final boolean strictTraceWrites;
   private final HealthMetrics healthMetrics;
   private final ConfigSnapshot traceConfig;
+  /** Encodes finished spans for the agent, or null if spans are not pre-encoded. */
+  private final SpanPreEncoder spanPreEncoder;
 
   /**
    * Contains finished spans. If the long-running trace feature is enabled it also contains running
@@ -151,7 +176,8 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
       @Nonnull TimeSource timeSource,
       ConfigSnapshot traceConfig,
       boolean strictTraceWrites,
-      HealthMetrics healthMetrics) {
+      HealthMetrics healthMetrics,
+      SpanPreEncoder spanPreEncoder) {
     this.tracer = tracer;
     this.traceId = traceId;
     this.pendingTraceBuffer = pendingTraceBuffer;
@@ -159,6 +185,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     this.traceConfig = traceConfig != null ? traceConfig : tracer.captureTraceConfig();
     this.strictTraceWrites = strictTraceWrites;
     this.healthMetrics = healthMetrics;
+    this.spanPreEncoder = spanPreEncoder;
     this.spans = new ConcurrentLinkedDeque<>();
   }
 
@@ -246,6 +273,17 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   }
 
   PublishState onPublish(final DDSpan span) {
+    final DDSpan rootSpan = getRootSpan();
+    if (null != spanPreEncoder && span != rootSpan) {
+      preEncode(span);
+    }
+    if (pendingTraceBuffer.hasByteBudget()) {
+      int size = estimateSize(span);
+      // a long-running trace may already have written the span once it was marked finished
+      if (span.setBufferedSize(size)) {
+        pendingTraceBuffer.onSpanBuffered(size);
+      }
+    }
     if (!pendingTraceBuffer.longRunningSpansEnabled()) {
       spans.addFirst(span);
     }
@@ -254,13 +292,36 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     // write method.
     healthMetrics.onFinishSpan();
     COMPLETED_SPAN_COUNT.incrementAndGet(this);
-    final DDSpan rootSpan = getRootSpan();
     if (span == rootSpan) {
       tracer.onRootSpanPublished(rootSpan);
     }
     return decrementRefAndMaybeWrite(span == rootSpan);
   }
 
+  /**
+   * Encodes the finished span on the calling thread so the serializer only has to copy it. Spans
+   * which may still be changed after they were finished are left to the serializer: the root span,
+   * spans which need post-processing, and spans passed to trace interceptors. Interceptors added
+   * after a span was encoded are handled by {@link CoreTracer} discarding the encoded form. Spans
+   * whose tags are changed by the tag post-processors are also left to the serializer, so those
+   * only run once, on its thread, even when the span is encoded again as the first or last span.
+   */
+  private void preEncode(final DDSpan span) {
+    final DDSpanContext context = span.context();
+    if (!context.isRequiresPostProcessing()
+        && !tracer.hasTraceInterceptors()
+        && !context.hasTagsToPostProcess()) {
+      span.setPreEncoded(spanPreEncoder.encode(span));
+    }
+  }
+
+  static int estimateSize(final DDSpan span) {
+    byte[] preEncoded = span.getPreEncoded();
+    return SPAN_SIZE_ESTIMATE
+        + TAG_SIZE_ESTIMATE * span.context().getTagCount()
+        + (null == preEncoded ? 0 : preEncoded.length);
+  }
+
   @Override
   public DDSpan getRootSpan() {
     return rootSpan;
@@ -298,6 +359,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     PARTIAL_FLUSH,
     ROOT_BUFFERED,
     BUFFERED,
+    SPILLED,
     PENDING
   }
 
@@ -320,6 +382,11 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
       // Trace is getting too big, write anything completed.
       partialFlush();
       return PublishState.PARTIAL_FLUSH;
+    } else if (size() >= spillMinSpans(partialFlushMinSpans)
+        && pendingTraceBuffer.overByteBudget()) {
+      // Too much is buffered across all traces to keep holding finished spans, write them now.
+      write(true, true);
+      return PublishState.SPILLED;
     } else if (rootSpanWritten) {
       // Late arrival span ... delay write
       pendingTraceBuffer.enqueue(this);
@@ -328,9 +395,13 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     return PublishState.PENDING;
   }
 
+  static int spillMinSpans(int partialFlushMinSpans) {
+    return Math.max(MIN_SPILL_SPANS, partialFlushMinSpans / SPILL_BATCH_DIVISOR);
+  }
+
   /** Important to note: may be called multiple times. */
   private void partialFlush() {
-    int size = write(true);
+    int size = write(true, false);
     healthMetrics.onPartialFlush(size);
     if (log.isDebugEnabled()) {
       log.debug("t_id={} -> wrote partial trace of size {}", traceId, size);
@@ -340,10 +411,15 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   /** Important to note: may be called multiple times. */
   @Override
   public void write() {
-    write(false);
+    write(false, false);
   }
 
-  private int write(boolean isPartial) {
+  /**
+   * @param isPartial true if the trace is not complete yet
+   * @param isSpill true if finished spans are written early because the pending trace buffer is
+   *     over its byte budget, in batches smaller than partial flushes
+   */
+  private int write(boolean isPartial, boolean isSpill) {
     if (!spans.isEmpty()) {
       try (Recording recording = tracer.writeTimer()) {
         // Only one writer at a time
@@ -365,7 +441,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
           // the completedSpanCount has not yet been incremented. This means that eventually the
           // count(s) will be incremented, and any new spans added during the period that the count
           // was negative will be written by someone even if we don't write them right now.
-          if (size > 0 && (!isPartial || size >= tracer.getPartialFlushMinSpans())) {
+          if (size > 0 && (!isPartial || isSpill || size >= tracer.getPartialFlushMinSpans())) {
             trace = new ArrayList<>(size);
             completedSpans = enqueueSpansToWrite(trace, writeRunningSpans);
           } else {
@@ -373,6 +449,13 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
           }
         }
         if (!trace.isEmpty()) {
+          if (pendingTraceBuffer.hasByteBudget()) {
+            long writtenBytes = releaseBufferedSize(trace);
+            pendingTraceBuffer.onSpansWritten(writtenBytes);
+            if (isSpill) {
+              healthMetrics.onSpill(completedSpans, writtenBytes);
+            }
+          }
           COMPLETED_SPAN_COUNT.addAndGet(this, -completedSpans);
           tracer.write(trace);
           healthMetrics.onCreateTrace();
@@ -383,6 +466,18 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     return 0;
   }
 
+  /** @return the size the written spans were accounted for while they were buffered */
+  private static long releaseBufferedSize(final List<DDSpan> trace) {
+    long size = 0;
+    for (DDSpan span : trace) {
+      // running spans written by the long-running traces tracker are accounted once finished
+      if (span.isFinished()) {
+        size += span.releaseBufferedSize();
+      }
+    }
+    return size;
+  }
+
   public int enqueueSpansToWrite(List<DDSpan> trace, boolean writeRunningSpans) {
     int completedSpans = 0;
     boolean runningSpanSeen = false;
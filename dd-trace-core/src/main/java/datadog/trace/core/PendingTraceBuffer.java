@@ -10,6 +10,7 @@ import datadog.trace.api.time.TimeSource;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.MpscBlockingConsumerArrayQueue;
 import org.slf4j.Logger;
@@ -22,6 +23,26 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
     return false;
   }
 
+  /**
+   * @return true if the estimated size of finished spans which have not been written yet is
+   *     limited, in which case {@link PendingTrace} reports spans buffered and written
+   */
+  public boolean hasByteBudget() {
+    return false;
+  }
+
+  /**
+   * @return true if the finished spans which have not been written yet exceed the byte budget, so
+   *     should be written as soon as possible instead of waiting for their traces to complete
+   */
+  public boolean overByteBudget() {
+    return false;
+  }
+
+  public void onSpanBuffered(int sizeInBytes) {}
+
+  public void onSpansWritten(long sizeInBytes) {}
+
   public interface Element {
     long oldestFinishedTime();
 
@@ -57,10 +78,42 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
 
     private final LongRunningTracesTracker runningTracesTracker;
 
+    private final HealthMetrics healthMetrics;
+    private final long maxBufferedBytes;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private long lastBufferedBytesReportMillis;
+
     public boolean longRunningSpansEnabled() {
       return runningTracesTracker != null;
     }
 
+    @Override
+    public boolean hasByteBudget() {
+      return maxBufferedBytes > 0;
+    }
+
+    @Override
+    public boolean overByteBudget() {
+      return maxBufferedBytes > 0 && bufferedBytes.get() > maxBufferedBytes;
+    }
+
+    @Override
+    public void onSpanBuffered(int sizeInBytes) {
+      bufferedBytes.addAndGet(sizeInBytes);
+    }
+
+    @Override
+    public void onSpansWritten(long sizeInBytes) {
+      bufferedBytes.addAndGet(-sizeInBytes);
+    }
+
+    private void reportBufferedBytes(long nowMillis) {
+      if (nowMillis >= lastBufferedBytesReportMillis + TimeUnit.SECONDS.toMillis(1)) {
+        lastBufferedBytesReportMillis = nowMillis;
+        healthMetrics.onPendingBufferBytes(bufferedBytes.get());
+      }
+    }
+
     @Override
     public void enqueue(Element pendingTrace) {
       if (pendingTrace.setEnqueued(true)) {
@@ -170,9 +223,15 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
           while (!closed && !Thread.currentThread().isInterrupted()) {
 
             Element pendingTrace = null;
-            if (longRunningSpansEnabled()) {
+            if (longRunningSpansEnabled() || hasByteBudget()) {
               pendingTrace = queue.poll(1, TimeUnit.SECONDS);
-              runningTracesTracker.flushAndCompact(timeSource.getCurrentTimeMillis());
+              long nowMillis = timeSource.getCurrentTimeMillis();
+              if (longRunningSpansEnabled()) {
+                runningTracesTracker.flushAndCompact(nowMillis);
+              }
+              if (hasByteBudget()) {
+                reportBufferedBytes(nowMillis);
+              }
               if (pendingTrace == null) {
                 continue;
               }
@@ -207,6 +266,9 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
             if (pendingTrace.lastReferencedNanosAgo(SEND_DELAY_NS)) {
               // Trace has been unmodified long enough, go ahead and write whatever is finished.
               pendingTrace.write();
+            } else if (overByteBudget()) {
+              // Too much is buffered to wait for the trace, spill whatever is finished.
+              pendingTrace.write();
             } else {
               // Trace is too new.  Requeue it and sleep to avoid a hot loop.
               enqueue(pendingTrace);
@@ -228,6 +290,8 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
       this.queue = new MpscBlockingConsumerArrayQueue<>(bufferSize);
       this.worker = newAgentThread(TRACE_MONITOR, new Worker());
       this.timeSource = timeSource;
+      this.healthMetrics = healthMetrics;
+      this.maxBufferedBytes = config.getTracePendingBufferMaxBytes();
       boolean runningSpansEnabled = config.isLongRunningTraceEnabled();
       this.runningTracesTracker =
           runningSpansEnabled
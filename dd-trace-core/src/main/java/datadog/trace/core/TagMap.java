@@ -0,0 +1,347 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact tag store used by {@link DDSpanContext}.
+ *
+ * <p>Entries live in flat, open-addressed arrays instead of per-entry nodes, and metrics set
+ * through the primitive {@code put} methods are kept unboxed until they are read through the {@link
+ * Map} interface. Serializers should use {@link #forEach(Visitor)} to read tags without boxing or
+ * copying.
+ *
+ * <p>This class is not thread-safe: like {@link DDSpanContext}, callers must synchronize on the map
+ * itself.
+ */
+public final class TagMap extends AbstractMap<String, Object> {
+
+  /** Visits each tag, passing metrics which were set as primitives without boxing them. */
+  public interface Visitor {
+    void visit(String key, Object value);
+
+    void visitInt(String key, int value);
+
+    void visitLong(String key, long value);
+
+    void visitFloat(String key, float value);
+
+    void visitDouble(String key, double value);
+  }
+
+  // markers stored in the value slot when the value is held in the primitive slot
+  private static final Object INT = new Object();
+  private static final Object LONG = new Object();
+  private static final Object FLOAT = new Object();
+  private static final Object DOUBLE = new Object();
+
+  private static final int MIN_CAPACITY = 8;
+
+  private String[] keys;
+  private Object[] values;
+  private long[] primitives;
+  private int size;
+  private int threshold;
+
+  private Set<Entry<String, Object>> entrySet;
+
+  public TagMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public TagMap(int initialCapacity) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < initialCapacity) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int index = indexOf((String) key);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int index = slotFor(key);
+    Object previous = null == keys[index] ? null : valueAt(index);
+    store(index, key, value);
+    return previous;
+  }
+
+  public void putInt(String key, int value) {
+    putPrimitive(key, INT, value);
+  }
+
+  public void putLong(String key, long value) {
+    putPrimitive(key, LONG, value);
+  }
+
+  public void putFloat(String key, float value) {
+    putPrimitive(key, FLOAT, Float.floatToRawIntBits(value));
+  }
+
+  public void putDouble(String key, double value) {
+    putPrimitive(key, DOUBLE, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int index = indexOf((String) key);
+    if (index < 0) {
+      return null;
+    }
+    Object previous = valueAt(index);
+    delete(index);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+  }
+
+  /** Visits every tag in table order without allocating. */
+  public void forEach(Visitor visitor) {
+    for (int i = 0; i < keys.length; i++) {
+      String key = keys[i];
+      if (null != key) {
+        Object value = values[i];
+        if (value == INT) {
+          visitor.visitInt(key, (int) primitives[i]);
+        } else if (value == LONG) {
+          visitor.visitLong(key, primitives[i]);
+        } else if (value == FLOAT) {
+          visitor.visitFloat(key, Float.intBitsToFloat((int) primitives[i]));
+        } else if (value == DOUBLE) {
+          visitor.visitDouble(key, Double.longBitsToDouble(primitives[i]));
+        } else {
+          visitor.visit(key, value);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Set<Entry<String, Object>> entries = entrySet;
+    if (null == entries) {
+      entrySet = entries = new EntrySet();
+    }
+    return entries;
+  }
+
+  private void putPrimitive(String key, Object kind, long bits) {
+    if (null == primitives) {
+      primitives = new long[keys.length];
+    }
+    int index = slotFor(key);
+    // set the bits first, storing the key may resize the table
+    primitives[index] = bits;
+    store(index, key, kind);
+  }
+
+  private void store(int index, String key, Object value) {
+    if (null == keys[index]) {
+      keys[index] = key;
+      values[index] = value;
+      if (++size > threshold) {
+        resize();
+      }
+    } else {
+      values[index] = value;
+    }
+  }
+
+  private Object valueAt(int index) {
+    Object value = values[index];
+    if (value == INT) {
+      return (int) primitives[index];
+    } else if (value == LONG) {
+      return primitives[index];
+    } else if (value == FLOAT) {
+      return Float.intBitsToFloat((int) primitives[index]);
+    } else if (value == DOUBLE) {
+      return Double.longBitsToDouble(primitives[index]);
+    }
+    return value;
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private int indexOf(String key) {
+    int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    String candidate;
+    while (null != (candidate = keys[index])) {
+      if (candidate.equals(key)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** @return the slot holding the key, or the empty slot where it should be inserted */
+  private int slotFor(String key) {
+    int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    String candidate;
+    while (null != (candidate = keys[index])) {
+      if (candidate.equals(key)) {
+        break;
+      }
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  /** Removes the entry at the slot, shifting back later entries of the same probe sequence. */
+  private void delete(int index) {
+    int mask = keys.length - 1;
+    int hole = index;
+    int next = (hole + 1) & mask;
+    String key;
+    while (null != (key = keys[next])) {
+      int home = hash(key) & mask;
+      // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+      if (hole <= next ? (home <= hole || home > next) : (home <= hole && home > next)) {
+        keys[hole] = key;
+        values[hole] = values[next];
+        if (null != primitives) {
+          primitives[hole] = primitives[next];
+        }
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[hole] = null;
+    values[hole] = null;
+    size--;
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    values = new Object[capacity];
+    if (null != primitives) {
+      primitives = new long[capacity];
+    }
+    threshold = capacity - (capacity >>> 2); // 0.75 load factor
+  }
+
+  private void resize() {
+    String[] oldKeys = keys;
+    Object[] oldValues = values;
+    long[] oldPrimitives = primitives;
+    allocate(oldKeys.length << 1);
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      String key = oldKeys[i];
+      if (null != key) {
+        int index = hash(key) & mask;
+        while (null != keys[index]) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+        if (null != oldPrimitives) {
+          primitives[index] = oldPrimitives[i];
+        }
+      }
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * Iterates in table order. Removing an entry shifts back later entries of its probe sequence,
+   * which may wrap around to entries that were already returned, so the first removal switches the
+   * iteration to a copy of the keys and values are then looked up by key.
+   */
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private String[] traversal = keys;
+    private int index = advance(0);
+    private int lastReturned = -1;
+
+    private int advance(int from) {
+      int i = from;
+      while (i < traversal.length && null == traversal[i]) {
+        i++;
+      }
+      return i;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < traversal.length;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (index >= traversal.length) {
+        throw new NoSuchElementException();
+      }
+      String key = traversal[index];
+      Object value = traversal == keys ? valueAt(index) : get(key);
+      lastReturned = index;
+      index = advance(index + 1);
+      return new SimpleImmutableEntry<>(key, value);
+    }
+
+    @Override
+    public void remove() {
+      if (lastReturned < 0) {
+        throw new IllegalStateException();
+      }
+      if (traversal == keys) {
+        traversal = keys.clone();
+      }
+      TagMap.this.remove(traversal[lastReturned]);
+      lastReturned = -1;
+    }
+  }
+}
@@ -32,6 +32,7 @@ import datadog.trace.common.metrics.OkHttpSink;
 import datadog.trace.common.metrics.Sink;
 import datadog.trace.core.DDSpan;
 import datadog.trace.core.DDTraceCoreInfo;
+import datadog.trace.core.monitor.HealthMetrics;
 import datadog.trace.core.propagation.HttpCodec;
 import datadog.trace.util.AgentTaskScheduler;
 import java.util.ArrayList;
@@ -54,12 +55,16 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
 
   static final long FEATURE_CHECK_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
 
+  // groups and backlogs each stripe can hold between reports
+  private static final int MAX_GROUPS_PER_STRIPE = 1024;
+
   private static final StatsPoint REPORT =
       new StatsPoint(Collections.emptyList(), 0, 0, 0, 0, 0, 0, 0);
   private static final StatsPoint POISON_PILL =
       new StatsPoint(Collections.emptyList(), 0, 0, 0, 0, 0, 0, 0);
 
   private final Map<Long, StatsBucket> timeToBucket = new HashMap<>();
+  private final StatsStripe[] stripes;
   private final BlockingQueue<InboxItem> inbox = new MpscBlockingConsumerArrayQueue<>(1024);
   private final DatastreamsPayloadWriter payloadWriter;
   private final DDAgentFeaturesDiscovery features;
@@ -68,6 +73,7 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
   private final Supplier<TraceConfig> traceConfigSupplier;
   private final long bucketDurationNanos;
   private final DataStreamContextInjector injector;
+  private final HealthMetrics healthMetrics;
   private final Thread thread;
   private AgentTaskScheduler.Scheduled<DefaultDataStreamsMonitoring> cancellation;
   private volatile long nextFeatureCheck;
@@ -81,6 +87,16 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
       SharedCommunicationObjects sharedCommunicationObjects,
       TimeSource timeSource,
       Supplier<TraceConfig> traceConfigSupplier) {
+    this(
+        config, sharedCommunicationObjects, timeSource, traceConfigSupplier, HealthMetrics.NO_OP);
+  }
+
+  public DefaultDataStreamsMonitoring(
+      Config config,
+      SharedCommunicationObjects sharedCommunicationObjects,
+      TimeSource timeSource,
+      Supplier<TraceConfig> traceConfigSupplier,
+      HealthMetrics healthMetrics) {
     this(
         new OkHttpSink(
             sharedCommunicationObjects.okHttpClient,
@@ -92,7 +108,8 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
         sharedCommunicationObjects.featuresDiscovery(config),
         timeSource,
         traceConfigSupplier,
-        config);
+        config,
+        healthMetrics);
   }
 
   public DefaultDataStreamsMonitoring(
@@ -101,6 +118,16 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
       TimeSource timeSource,
       Supplier<TraceConfig> traceConfigSupplier,
       Config config) {
+    this(sink, features, timeSource, traceConfigSupplier, config, HealthMetrics.NO_OP);
+  }
+
+  private DefaultDataStreamsMonitoring(
+      Sink sink,
+      DDAgentFeaturesDiscovery features,
+      TimeSource timeSource,
+      Supplier<TraceConfig> traceConfigSupplier,
+      Config config,
+      HealthMetrics healthMetrics) {
     this(
         sink,
         features,
@@ -109,7 +136,8 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
         config.getWellKnownTags(),
         new MsgPackDatastreamsPayloadWriter(
             sink, config.getWellKnownTags(), DDTraceCoreInfo.VERSION, config.getPrimaryTag()),
-        Config.get().getDataStreamsBucketDurationNanoseconds());
+        Config.get().getDataStreamsBucketDurationNanoseconds(),
+        healthMetrics);
   }
 
   public DefaultDataStreamsMonitoring(
@@ -120,6 +148,26 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
       WellKnownTags wellKnownTags,
       DatastreamsPayloadWriter payloadWriter,
       long bucketDurationNanos) {
+    this(
+        sink,
+        features,
+        timeSource,
+        traceConfigSupplier,
+        wellKnownTags,
+        payloadWriter,
+        bucketDurationNanos,
+        HealthMetrics.NO_OP);
+  }
+
+  DefaultDataStreamsMonitoring(
+      Sink sink,
+      DDAgentFeaturesDiscovery features,
+      TimeSource timeSource,
+      Supplier<TraceConfig> traceConfigSupplier,
+      WellKnownTags wellKnownTags,
+      DatastreamsPayloadWriter payloadWriter,
+      long bucketDurationNanos,
+      HealthMetrics healthMetrics) {
     this.features = features;
     this.timeSource = timeSource;
     this.traceConfigSupplier = traceConfigSupplier;
@@ -127,6 +175,14 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
     this.payloadWriter = payloadWriter;
     this.bucketDurationNanos = bucketDurationNanos;
     this.injector = new DataStreamContextInjector(this);
+    this.healthMetrics = healthMetrics;
+
+    // points are aggregated on the checkpointing threads, spread over stripes by thread id
+    int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+    this.stripes = new StatsStripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new StatsStripe(bucketDurationNanos, MAX_GROUPS_PER_STRIPE);
+    }
 
     thread = newAgentThread(DATA_STREAMS_MONITORING, new InboxProcessor());
     sink.register(this);
@@ -159,10 +215,14 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
   @Override
   public void add(StatsPoint statsPoint) {
     if (thread.isAlive()) {
-      inbox.offer(statsPoint);
+      currentStripe().addPoint(statsPoint);
     }
   }
 
+  private StatsStripe currentStripe() {
+    return stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+  }
+
   @Override
   public int trySampleSchema(String topic) {
     SchemaSampler sampler = schemaSamplers.computeIfAbsent(topic, t -> new SchemaSampler());
@@ -221,7 +281,7 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
       }
       tags.add(tag);
     }
-    inbox.offer(new Backlog(tags, value, timeSource.getCurrentTimeNanos()));
+    currentStripe().addBacklog(new Backlog(tags, value, timeSource.getCurrentTimeNanos()));
   }
 
   @Override
@@ -308,31 +368,23 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
             checkDynamicConfig();
 
             if (supportsDataStreams) {
+              drainStripes();
               flush(timeSource.getCurrentTimeNanos());
-            } else if (timeSource.getCurrentTimeNanos() >= nextFeatureCheck) {
-              checkFeatures();
+            } else {
+              if (timeSource.getCurrentTimeNanos() >= nextFeatureCheck) {
+                checkFeatures();
+              }
+              // keep the points if an upgrade was just detected, they go with the next flush
+              if (!supportsDataStreams) {
+                clearStripes();
+              }
             }
           } else if (payload == POISON_PILL) {
             if (supportsDataStreams) {
+              drainStripes();
               flush(Long.MAX_VALUE);
             }
             break;
-          } else if (supportsDataStreams) {
-            if (payload instanceof StatsPoint) {
-              StatsPoint statsPoint = (StatsPoint) payload;
-              Long bucket = currentBucket(statsPoint.getTimestampNanos());
-              StatsBucket statsBucket =
-                  timeToBucket.computeIfAbsent(
-                      bucket, startTime -> new StatsBucket(startTime, bucketDurationNanos));
-              statsBucket.addPoint(statsPoint);
-            } else if (payload instanceof Backlog) {
-              Backlog backlog = (Backlog) payload;
-              Long bucket = currentBucket(backlog.getTimestampNanos());
-              StatsBucket statsBucket =
-                  timeToBucket.computeIfAbsent(
-                      bucket, startTime -> new StatsBucket(startTime, bucketDurationNanos));
-              statsBucket.addBacklog(backlog);
-            }
           }
         } catch (InterruptedException e) {
           currentThread.interrupt();
@@ -343,6 +395,18 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
     }
   }
 
+  private void drainStripes() {
+    for (StatsStripe stripe : stripes) {
+      stripe.drainTo(timeToBucket, healthMetrics);
+    }
+  }
+
+  private void clearStripes() {
+    for (StatsStripe stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
   private long currentBucket(long timestampNanos) {
     return timestampNanos - (timestampNanos % bucketDurationNanos);
   }
@@ -371,6 +435,7 @@ public class DefaultDataStreamsMonitoring implements DataStreamsMonitoring, Even
   @Override
   public void clear() {
     timeToBucket.clear();
+    clearStripes();
   }
 
   void report() {
@@ -18,10 +18,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -119,14 +121,9 @@ public class DefaultPathwayContext implements PathwayContext {
       long payloadSizeBytes) {
     long startNanos = timeSource.getCurrentTimeNanos();
     long nanoTicks = timeSource.getNanoTicks();
+    CheckpointTags checkpointTags = CheckpointTags.of(sortedTags, wellKnownTags);
     lock.lock();
     try {
-      // So far, each tag key has only one tag value, so we're initializing the capacity to match
-      // the number of tag keys for now. We should revisit this later if it's no longer the case.
-      List<String> allTags = new ArrayList<>(sortedTags.size());
-      PathwayHashBuilder pathwayHashBuilder = new PathwayHashBuilder(wellKnownTags);
-      DataSetHashBuilder dataSetHashBuilder = new DataSetHashBuilder();
-
       if (!started) {
         if (defaultTimestamp == 0) {
           pathwayStartNanos = startNanos;
@@ -145,26 +142,11 @@ public class DefaultPathwayContext implements PathwayContext {
         log.debug("Started {}", this);
       }
 
-      for (Map.Entry<String, String> entry : sortedTags.entrySet()) {
-        String tag = TagsProcessor.createTag(entry.getKey(), entry.getValue());
-        if (tag == null) {
-          continue;
-        }
-        if (hashableTagKeys.contains(entry.getKey())) {
-          pathwayHashBuilder.addTag(tag);
-        }
-        if (dataSetTagKeys.contains(entry.getKey())) {
-          dataSetHashBuilder.addValue(tag);
-        }
-        allTags.add(tag);
-      }
-
-      long nodeHash = generateNodeHash(pathwayHashBuilder);
       // loop protection - a node should not be chosen as parent
       // for a sequential node with the same direction, as this
       // will cause a `cardinality explosion` for hash / parentHash tag values
-      if (sortedTags.containsKey(TagsProcessor.DIRECTION_TAG)) {
-        String direction = sortedTags.get(TagsProcessor.DIRECTION_TAG);
+      String direction = checkpointTags.direction;
+      if (direction != null) {
         if (direction.equals(previousDirection)) {
           hash = closestOppositeDirectionHash;
         } else {
@@ -173,15 +155,15 @@ public class DefaultPathwayContext implements PathwayContext {
         }
       }
 
-      long newHash = generatePathwayHash(nodeHash, hash);
-      long dataSetHash = dataSetHashBuilder.addValue(String.valueOf(newHash));
+      long newHash = generatePathwayHash(checkpointTags.nodeHash, hash);
+      long dataSetHash = DataSetHashBuilder.addValue(checkpointTags.dataSetHash, newHash);
 
       long pathwayLatencyNano = nanoTicks - pathwayStartNanoTicks;
       long edgeLatencyNano = nanoTicks - edgeStartNanoTicks;
 
       StatsPoint point =
           new StatsPoint(
-              allTags,
+              checkpointTags.edgeTags,
               newHash,
               hash,
               dataSetHash,
@@ -193,7 +175,7 @@ public class DefaultPathwayContext implements PathwayContext {
       hash = newHash;
 
       pointConsumer.accept(point);
-      log.debug("Checkpoint set {}, hash source: {}", this, pathwayHashBuilder);
+      log.debug("Checkpoint set {}, hash source: {}", this, checkpointTags.hashSource);
     } finally {
       lock.unlock();
     }
@@ -399,23 +381,158 @@ public class DefaultPathwayContext implements PathwayContext {
   }
 
   static class DataSetHashBuilder {
+    private static final long FNV_INIT = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     private long currentHash = 0L;
 
     public long addValue(String val) {
       currentHash = FNV64Hash.generateHash(currentHash + val, FNV64Hash.Version.v1);
       return currentHash;
     }
+
+    /**
+     * Equivalent to {@code addValue(String.valueOf(value))} on a builder whose current hash is
+     * {@code currentHash}, without building the intermediate strings.
+     */
+    static long addValue(long currentHash, long value) {
+      return addDecimal(addDecimal(FNV_INIT, currentHash), value);
+    }
+
+    /** Continues a FNV-1 hash with the decimal digits of the value. */
+    private static long addDecimal(long hash, long value) {
+      // accumulate on the negative side, which can represent Long.MIN_VALUE
+      long negative = value;
+      if (value < 0) {
+        hash = (hash * FNV_PRIME) ^ '-';
+      } else {
+        negative = -value;
+      }
+      long divisor = 1;
+      while (negative / divisor <= -10) {
+        divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+        hash = (hash * FNV_PRIME) ^ ('0' - (negative / divisor) % 10);
+      }
+      return hash;
+    }
+  }
+
+  /**
+   * The edge tags of a checkpoint, along with the hashes derived from them. These only depend on
+   * the checkpoint's tags and the service's well-known tags, so they are cached and shared between
+   * pathways instead of being rebuilt for each checkpoint.
+   */
+  static final class CheckpointTags {
+    private static final int CACHE_SIZE = 256; // must be a power of 2
+
+    private static final CheckpointTags[] CACHE = new CheckpointTags[CACHE_SIZE];
+
+    private final WellKnownTags wellKnownTags;
+    private final String primaryTag;
+    private final String[] keys;
+    private final String[] values;
+    private final int tagsHash;
+
+    final List<String> edgeTags;
+    final long nodeHash;
+    final long dataSetHash;
+    final String direction;
+    final String hashSource;
+
+    static CheckpointTags of(
+        LinkedHashMap<String, String> sortedTags, WellKnownTags wellKnownTags) {
+      String primaryTag = Config.get().getPrimaryTag();
+      int tagsHash = 0;
+      for (Map.Entry<String, String> entry : sortedTags.entrySet()) {
+        tagsHash =
+            31 * (31 * tagsHash + Objects.hashCode(entry.getKey()))
+                + Objects.hashCode(entry.getValue());
+      }
+      int slot = (tagsHash ^ (tagsHash >>> 16)) & (CACHE_SIZE - 1);
+      CheckpointTags cached = CACHE[slot];
+      if (null != cached && cached.matches(tagsHash, sortedTags, wellKnownTags, primaryTag)) {
+        return cached;
+      }
+      CheckpointTags checkpointTags =
+          new CheckpointTags(sortedTags, tagsHash, wellKnownTags, primaryTag);
+      CACHE[slot] = checkpointTags;
+      return checkpointTags;
+    }
+
+    private CheckpointTags(
+        LinkedHashMap<String, String> sortedTags,
+        int tagsHash,
+        WellKnownTags wellKnownTags,
+        String primaryTag) {
+      this.wellKnownTags = wellKnownTags;
+      this.primaryTag = primaryTag;
+      this.tagsHash = tagsHash;
+      this.keys = new String[sortedTags.size()];
+      this.values = new String[sortedTags.size()];
+
+      // So far, each tag key has only one tag value, so we're initializing the capacity to match
+      // the number of tag keys for now. We should revisit this later if it's no longer the case.
+      List<String> allTags = new ArrayList<>(sortedTags.size());
+      PathwayHashBuilder pathwayHashBuilder = new PathwayHashBuilder(wellKnownTags, primaryTag);
+      DataSetHashBuilder dataSetHashBuilder = new DataSetHashBuilder();
+      long dataSetHash = 0;
+      int i = 0;
+      for (Map.Entry<String, String> entry : sortedTags.entrySet()) {
+        keys[i] = entry.getKey();
+        values[i] = entry.getValue();
+        i++;
+        String tag = TagsProcessor.createTag(entry.getKey(), entry.getValue());
+        if (tag == null) {
+          continue;
+        }
+        if (hashableTagKeys.contains(entry.getKey())) {
+          pathwayHashBuilder.addTag(tag);
+        }
+        if (dataSetTagKeys.contains(entry.getKey())) {
+          dataSetHash = dataSetHashBuilder.addValue(tag);
+        }
+        allTags.add(tag);
+      }
+      this.edgeTags = Collections.unmodifiableList(allTags);
+      this.nodeHash = pathwayHashBuilder.generateHash();
+      this.dataSetHash = dataSetHash;
+      this.direction = sortedTags.get(TagsProcessor.DIRECTION_TAG);
+      this.hashSource = pathwayHashBuilder.toString();
+    }
+
+    private boolean matches(
+        int tagsHash,
+        LinkedHashMap<String, String> sortedTags,
+        WellKnownTags wellKnownTags,
+        String primaryTag) {
+      if (this.tagsHash != tagsHash
+          || this.wellKnownTags != wellKnownTags
+          || keys.length != sortedTags.size()
+          || !Objects.equals(this.primaryTag, primaryTag)) {
+        return false;
+      }
+      int i = 0;
+      for (Map.Entry<String, String> entry : sortedTags.entrySet()) {
+        if (!Objects.equals(keys[i], entry.getKey())
+            || !Objects.equals(values[i], entry.getValue())) {
+          return false;
+        }
+        i++;
+      }
+      return true;
+    }
   }
 
   private static class PathwayHashBuilder {
     private final StringBuilder builder;
 
-    public PathwayHashBuilder(WellKnownTags wellKnownTags) {
+    public PathwayHashBuilder(WellKnownTags wellKnownTags, String primaryTag) {
       builder = new StringBuilder();
       builder.append(wellKnownTags.getService());
       builder.append(wellKnownTags.getEnv());
 
-      String primaryTag = Config.get().getPrimaryTag();
       if (primaryTag != null) {
         builder.append(primaryTag);
       }
@@ -435,10 +552,6 @@ public class DefaultPathwayContext implements PathwayContext {
     }
   }
 
-  private long generateNodeHash(PathwayHashBuilder pathwayHashBuilder) {
-    return pathwayHashBuilder.generateHash();
-  }
-
   private long generatePathwayHash(long nodeHash, long parentHash) {
     lock.lock();
     try {
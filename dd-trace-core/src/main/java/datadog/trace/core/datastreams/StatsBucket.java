@@ -18,14 +18,16 @@ public class StatsBucket {
     this.bucketDurationNanos = bucketDurationNanos;
   }
 
-  public void addPoint(StatsPoint statsPoint) {
+  /** @return true if the point started a new group */
+  public boolean addPoint(StatsPoint statsPoint) {
     // we want to perform aggregation per dataset, to allow
     // lower-level granularity and unblock dataset name manipulations on the backend
     // without affecting the precision.
     StatsGroup statsGroup = hashToGroup.get(statsPoint.getDataSetHash());
+    boolean newGroup = statsGroup == null;
 
     // FIXME Java 7
-    if (statsGroup == null) {
+    if (newGroup) {
       // stats group remains the same
       statsGroup =
           new StatsGroup(
@@ -37,12 +39,46 @@ public class StatsBucket {
         statsPoint.getPathwayLatencyNano(),
         statsPoint.getEdgeLatencyNano(),
         statsPoint.getPayloadSizeBytes());
+    return newGroup;
   }
 
-  public void addBacklog(Backlog backlog) {
-    backlogs.compute(
-        backlog.getSortedTags(),
-        (k, v) -> (v == null) ? backlog.getValue() : Math.max(v, backlog.getValue()));
+  public boolean hasGroup(long dataSetHash) {
+    return hashToGroup.containsKey(dataSetHash);
+  }
+
+  /** @return true if the backlog is the first one with its tags */
+  public boolean addBacklog(Backlog backlog) {
+    return addBacklog(backlog.getSortedTags(), backlog.getValue());
+  }
+
+  public boolean hasBacklog(List<String> sortedTags) {
+    return backlogs.containsKey(sortedTags);
+  }
+
+  private boolean addBacklog(List<String> sortedTags, long value) {
+    Long previous = backlogs.get(sortedTags);
+    if (previous == null || previous < value) {
+      backlogs.put(sortedTags, value);
+    }
+    return previous == null;
+  }
+
+  /**
+   * Adds the groups and backlogs of a bucket for the same time interval. The groups of the other
+   * bucket are taken over rather than copied, so it must be discarded afterwards.
+   */
+  public void merge(StatsBucket other) {
+    for (Map.Entry<Long, StatsGroup> entry : other.hashToGroup.entrySet()) {
+      StatsGroup statsGroup = hashToGroup.get(entry.getKey());
+      if (statsGroup == null) {
+        hashToGroup.put(entry.getKey(), entry.getValue());
+      } else {
+        statsGroup.merge(entry.getValue());
+      }
+    }
+    for (Map.Entry<List<String>, Long> entry : other.backlogs.entrySet()) {
+      addBacklog(entry.getKey(), entry.getValue());
+    }
   }
 
   public long getStartTimeNanos() {
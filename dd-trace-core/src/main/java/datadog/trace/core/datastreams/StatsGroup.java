@@ -31,6 +31,13 @@ public class StatsGroup {
     if (payloadSizeBytes != 0) payloadSize.accept((double) payloadSizeBytes);
   }
 
+  /** Adds the latencies and payload sizes recorded by another group for the same pathway. */
+  public void merge(StatsGroup other) {
+    pathwayLatency.mergeWith(other.pathwayLatency);
+    edgeLatency.mergeWith(other.edgeLatency);
+    payloadSize.mergeWith(other.payloadSize);
+  }
+
   public List<String> getEdgeTags() {
     return edgeTags;
   }
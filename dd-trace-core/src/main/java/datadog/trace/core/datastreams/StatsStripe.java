@@ -0,0 +1,101 @@
+package datadog.trace.core.datastreams;
+
+import datadog.trace.bootstrap.instrumentation.api.Backlog;
+import datadog.trace.bootstrap.instrumentation.api.StatsPoint;
+import datadog.trace.core.monitor.HealthMetrics;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregates the points and backlogs reported by the threads mapped to this stripe, so they
+ * don't need to be handed to the data streams thread one at a time. The partial buckets are merged
+ * into the reported buckets when a report is due.
+ *
+ * <p>Checkpointing threads only hold the stripe's monitor while recording a single point. The
+ * data streams thread swaps the partial buckets for a second, empty, set before merging them, so
+ * it never holds the monitor while merging. Once a stripe holds {@code maxGroups} groups and
+ * backlogs, points and backlogs which would need a new one are dropped until the stripe is next
+ * drained.
+ */
+final class StatsStripe {
+
+  private final long bucketDurationNanos;
+  private final int maxGroups;
+
+  private Map<Long, StatsBucket> active = new HashMap<>();
+  private Map<Long, StatsBucket> drained = new HashMap<>();
+  private int groups;
+  private int droppedPoints;
+  private int droppedBacklogs;
+
+  StatsStripe(long bucketDurationNanos, int maxGroups) {
+    this.bucketDurationNanos = bucketDurationNanos;
+    this.maxGroups = maxGroups;
+  }
+
+  synchronized void addPoint(StatsPoint statsPoint) {
+    StatsBucket statsBucket = bucketFor(statsPoint.getTimestampNanos());
+    if (groups >= maxGroups && !statsBucket.hasGroup(statsPoint.getDataSetHash())) {
+      droppedPoints++;
+    } else if (statsBucket.addPoint(statsPoint)) {
+      groups++;
+    }
+  }
+
+  synchronized void addBacklog(Backlog backlog) {
+    StatsBucket statsBucket = bucketFor(backlog.getTimestampNanos());
+    if (groups >= maxGroups && !statsBucket.hasBacklog(backlog.getSortedTags())) {
+      droppedBacklogs++;
+    } else if (statsBucket.addBacklog(backlog)) {
+      groups++;
+    }
+  }
+
+  private StatsBucket bucketFor(long timestampNanos) {
+    long startTime = timestampNanos - (timestampNanos % bucketDurationNanos);
+    StatsBucket statsBucket = active.get(startTime);
+    if (statsBucket == null) {
+      statsBucket = new StatsBucket(startTime, bucketDurationNanos);
+      active.put(startTime, statsBucket);
+    }
+    return statsBucket;
+  }
+
+  /**
+   * Merges the points and backlogs recorded since the last call into the buckets. Must only be
+   * called by the data streams thread.
+   */
+  void drainTo(Map<Long, StatsBucket> timeToBucket, HealthMetrics healthMetrics) {
+    Map<Long, StatsBucket> partials;
+    int points;
+    int backlogs;
+    synchronized (this) {
+      partials = active;
+      active = drained;
+      drained = partials;
+      groups = 0;
+      points = droppedPoints;
+      backlogs = droppedBacklogs;
+      droppedPoints = 0;
+      droppedBacklogs = 0;
+    }
+    for (StatsBucket partial : partials.values()) {
+      StatsBucket statsBucket = timeToBucket.get(partial.getStartTimeNanos());
+      if (statsBucket == null) {
+        timeToBucket.put(partial.getStartTimeNanos(), partial);
+      } else {
+        statsBucket.merge(partial);
+      }
+    }
+    partials.clear();
+    if (points > 0 || backlogs > 0) {
+      healthMetrics.onDataStreamsDrop(points, backlogs);
+    }
+  }
+
+  /** Discards the points and backlogs recorded since the last time the stripe was drained. */
+  synchronized void clear() {
+    active.clear();
+    groups = 0;
+  }
+}
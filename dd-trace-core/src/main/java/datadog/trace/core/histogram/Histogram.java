@@ -47,6 +47,11 @@ public class Histogram implements AgentHistogram {
     return sketch.getMaxValue();
   }
 
+  /** Adds the values of another histogram created by the same {@link Histograms} method. */
+  public void mergeWith(Histogram other) {
+    sketch.mergeWith(other.sketch);
+  }
+
   @Override
   public void clear() {
     sketch.clear();
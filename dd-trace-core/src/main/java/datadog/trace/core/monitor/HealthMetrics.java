@@ -3,6 +3,7 @@ package datadog.trace.core.monitor;
 import datadog.trace.common.writer.RemoteApi;
 import datadog.trace.core.DDSpan;
 import java.util.List;
+import java.util.function.IntSupplier;
 
 /**
  * Callback for monitoring the health of the DDAgentWriter. Provides hooks for major lifecycle
@@ -43,6 +44,12 @@ public abstract class HealthMetrics implements AutoCloseable {
 
   public void onSerialize(final int serializedSizeInBytes) {}
 
+  public void onShardQueues(final IntSupplier[] shardQueueLengths) {}
+
+  public void onPendingBufferBytes(final long bufferedBytes) {}
+
+  public void onSpill(final int spanCount, final long sizeInBytes) {}
+
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {}
 
   public void onCreateSpan() {}
@@ -73,6 +80,8 @@ public abstract class HealthMetrics implements AutoCloseable {
 
   public void onLongRunningUpdate(final int dropped, final int write, final int expired) {}
 
+  public void onDataStreamsDrop(final int droppedPoints, final int droppedBacklogs) {}
+
   /** @return Human-readable summary of the current health metrics. */
   public String summary() {
     return "";
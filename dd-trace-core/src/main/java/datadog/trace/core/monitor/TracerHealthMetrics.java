@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
 import org.jctools.counters.CountersFactory;
 import org.jctools.counters.FixedSizeStripedLongCounter;
 import org.slf4j.Logger;
@@ -30,13 +31,17 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
   private static final IntFunction<String[]> STATUS_TAGS =
       httpStatus -> new String[] {"status:" + httpStatus};
 
+  private static final IntFunction<String[]> SHARD_TAGS = shard -> new String[] {"shard:" + shard};
+
   private static final String[] NO_TAGS = new String[0];
   private static final String[] STATUS_OK_TAGS = STATUS_TAGS.apply(200);
   private final RadixTreeCache<String[]> statusTagsCache =
       new RadixTreeCache<>(16, 32, STATUS_TAGS, 200, 400);
+  private final RadixTreeCache<String[]> shardTagsCache = new RadixTreeCache<>(4, 32, SHARD_TAGS);
 
   private final AtomicBoolean started = new AtomicBoolean(false);
   private volatile AgentTaskScheduler.Scheduled<TracerHealthMetrics> cancellation;
+  private volatile IntSupplier[] shardQueueLengths;
 
   private final FixedSizeStripedLongCounter apiRequests =
       CountersFactory.createFixedSizeStripedCounter(8);
@@ -100,6 +105,10 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
       CountersFactory.createFixedSizeStripedCounter(8);
   private final FixedSizeStripedLongCounter partialBytes =
       CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter spilledSpans =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter spilledBytes =
+      CountersFactory.createFixedSizeStripedCounter(8);
   private final FixedSizeStripedLongCounter clientSpansWithoutContext =
       CountersFactory.createFixedSizeStripedCounter(8);
 
@@ -133,6 +142,11 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
   private final FixedSizeStripedLongCounter longRunningTracesExpired =
       CountersFactory.createFixedSizeStripedCounter(8);
 
+  private final FixedSizeStripedLongCounter dataStreamsDroppedPoints =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter dataStreamsDroppedBacklogs =
+      CountersFactory.createFixedSizeStripedCounter(8);
+
   private final StatsDClient statsd;
   private final long interval;
   private final TimeUnit units;
@@ -258,6 +272,22 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     enqueuedBytes.inc(serializedSizeInBytes);
   }
 
+  @Override
+  public void onShardQueues(final IntSupplier[] shardQueueLengths) {
+    this.shardQueueLengths = shardQueueLengths;
+  }
+
+  @Override
+  public void onPendingBufferBytes(final long bufferedBytes) {
+    statsd.gauge("pending.buffer.bytes", bufferedBytes, NO_TAGS);
+  }
+
+  @Override
+  public void onSpill(final int spanCount, final long sizeInBytes) {
+    spilledSpans.inc(spanCount);
+    spilledBytes.inc(sizeInBytes);
+  }
+
   @Override
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {
     if (trace != null) {
@@ -338,6 +368,12 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     longRunningTracesExpired.inc(expired);
   }
 
+  @Override
+  public void onDataStreamsDrop(final int droppedPoints, final int droppedBacklogs) {
+    dataStreamsDroppedPoints.inc(droppedPoints);
+    dataStreamsDroppedBacklogs.inc(droppedBacklogs);
+  }
+
   private void onSendAttempt(
       final int traceCount, final int sizeInBytes, final RemoteApi.Response response) {
     apiRequests.inc();
@@ -378,7 +414,7 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     private static final String[] UNSET_TAG = new String[] {"priority:unset"};
     private static final String[] SINGLE_SPAN_SAMPLER = new String[] {"sampler:single-span"};
 
-    private final long[] previousCounts = new long[43];
+    private final long[] previousCounts = new long[47];
     private int countIndex;
 
     @Override
@@ -456,6 +492,8 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         reportIfChanged(target.statsd, "flush.bytes.total", target.flushedBytes, NO_TAGS);
         reportIfChanged(target.statsd, "queue.partial.traces", target.partialTraces, NO_TAGS);
         reportIfChanged(target.statsd, "span.flushed.partial", target.partialBytes, NO_TAGS);
+        reportIfChanged(target.statsd, "span.spilled", target.spilledSpans, NO_TAGS);
+        reportIfChanged(target.statsd, "span.spilled.bytes", target.spilledBytes, NO_TAGS);
         reportIfChanged(
             target.statsd, "span.client.no-context", target.clientSpansWithoutContext, NO_TAGS);
 
@@ -489,6 +527,24 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         reportIfChanged(
             target.statsd, "long-running.expired", target.longRunningTracesExpired, NO_TAGS);
 
+        reportIfChanged(
+            target.statsd, "datastreams.dropped.points", target.dataStreamsDroppedPoints, NO_TAGS);
+        reportIfChanged(
+            target.statsd,
+            "datastreams.dropped.backlogs",
+            target.dataStreamsDroppedBacklogs,
+            NO_TAGS);
+
+        IntSupplier[] shardQueueLengths = target.shardQueueLengths;
+        if (null != shardQueueLengths) {
+          for (int shard = 0; shard < shardQueueLengths.length; shard++) {
+            target.statsd.gauge(
+                "queue.shard.length",
+                shardQueueLengths[shard].getAsInt(),
+                target.shardTagsCache.get(shard));
+          }
+        }
+
       } catch (ArrayIndexOutOfBoundsException e) {
         log.warn(
             "previousCounts array needs resizing to at least {}, was {}",
@@ -575,6 +631,10 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         + partialTraces.get()
         + "\npartialBytes="
         + partialBytes.get()
+        + "\nspilledSpans="
+        + spilledSpans.get()
+        + "\nspilledBytes="
+        + spilledBytes.get()
         + "\n"
         + "\nclientSpansWithoutContext="
         + clientSpansWithoutContext.get()
@@ -607,6 +667,11 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         + "\nlongRunningTracesDropped="
         + longRunningTracesDropped.get()
         + "\nlongRunningTracesExpired="
-        + longRunningTracesExpired.get();
+        + longRunningTracesExpired.get()
+        + "\n"
+        + "\ndataStreamsDroppedPoints="
+        + dataStreamsDroppedPoints.get()
+        + "\ndataStreamsDroppedBacklogs="
+        + dataStreamsDroppedBacklogs.get();
   }
 }
@@ -247,9 +247,6 @@ public abstract class ContextInterpreter implements AgentPropagation.KeyClassifi
   protected TagContext build() {
     if (valid) {
       if (fullContext && !DDTraceId.ZERO.equals(traceId)) {
-        if (propagationTags == null) {
-          propagationTags = propagationTagsFactory.empty();
-        }
         return new ExtractedContext(
             traceId,
             spanId,
@@ -260,6 +257,7 @@ public abstract class ContextInterpreter implements AgentPropagation.KeyClassifi
             tags,
             httpHeaders,
             propagationTags,
+            propagationTagsFactory,
             traceConfig,
             style());
       } else if (origin != null
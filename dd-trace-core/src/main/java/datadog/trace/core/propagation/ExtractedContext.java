@@ -14,7 +14,8 @@ public class ExtractedContext extends TagContext {
   private final DDTraceId traceId;
   private final long spanId;
   private final long endToEndStartTime;
-  private final PropagationTags propagationTags;
+  private final PropagationTags.Factory propagationTagsFactory;
+  private volatile PropagationTags propagationTags;
 
   public ExtractedContext(
       final DDTraceId traceId,
@@ -49,11 +50,45 @@ public class ExtractedContext extends TagContext {
       final PropagationTags propagationTags,
       final TraceConfig traceConfig,
       final TracePropagationStyle propagationStyle) {
+    this(
+        traceId,
+        spanId,
+        samplingPriority,
+        origin,
+        endToEndStartTime,
+        baggage,
+        tags,
+        httpHeaders,
+        propagationTags,
+        null,
+        traceConfig,
+        propagationStyle);
+  }
+
+  /**
+   * @param propagationTags the extracted propagation tags, or null if no tags were propagated
+   * @param propagationTagsFactory creates empty propagation tags the first time they are read, if
+   *     none were propagated
+   */
+  ExtractedContext(
+      final DDTraceId traceId,
+      final long spanId,
+      final int samplingPriority,
+      final CharSequence origin,
+      final long endToEndStartTime,
+      final Map<String, String> baggage,
+      final Map<String, String> tags,
+      final HttpHeaders httpHeaders,
+      final PropagationTags propagationTags,
+      final PropagationTags.Factory propagationTagsFactory,
+      final TraceConfig traceConfig,
+      final TracePropagationStyle propagationStyle) {
     super(origin, tags, httpHeaders, baggage, samplingPriority, traceConfig, propagationStyle);
     this.traceId = traceId;
     this.spanId = spanId;
     this.endToEndStartTime = endToEndStartTime;
     this.propagationTags = propagationTags;
+    this.propagationTagsFactory = propagationTagsFactory;
   }
 
   @Override
@@ -71,7 +106,17 @@ public class ExtractedContext extends TagContext {
   }
 
   public PropagationTags getPropagationTags() {
-    return propagationTags;
+    PropagationTags tags = propagationTags;
+    if (tags == null && propagationTagsFactory != null) {
+      // contexts from secondary propagation styles are usually dropped without being read
+      synchronized (this) {
+        tags = propagationTags;
+        if (tags == null) {
+          propagationTags = tags = propagationTagsFactory.empty();
+        }
+      }
+    }
+    return tags;
   }
 
   @Override
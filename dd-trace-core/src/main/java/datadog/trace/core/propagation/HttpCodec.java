@@ -16,6 +16,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
@@ -201,6 +202,8 @@ public class HttpCodec {
   public static class CompoundExtractor implements Extractor {
     private final List<Extractor> extractors;
     private final boolean extractFirst;
+    private final ThreadLocal<ExtractionCache> extractionCaches =
+        ThreadLocal.withInitial(ExtractionCache::new);
 
     public CompoundExtractor(final List<Extractor> extractors, boolean extractFirst) {
       this.extractors = extractors;
@@ -210,10 +213,22 @@ public class HttpCodec {
     @Override
     public <C> TagContext extract(
         final C carrier, final AgentPropagation.ContextVisitor<C> getter) {
+      ExtractionCache extractionCache = extractionCaches.get();
+      if (extractionCache.inUse) {
+        // extraction was re-entered from the getter, don't clobber the outer headers
+        extractionCache = new ExtractionCache();
+      }
+      try {
+        // Extract and cache all headers in advance
+        return extract(extractionCache.fill(carrier, getter));
+      } finally {
+        extractionCache.clear();
+      }
+    }
+
+    private TagContext extract(final ExtractionCache extractionCache) {
       ExtractedContext context = null;
       TagContext partialContext = null;
-      // Extract and cache all headers in advance
-      ExtractionCache<C> extractionCache = new ExtractionCache<>(carrier, getter);
 
       for (final Extractor extractor : this.extractors) {
         TagContext extracted = extractor.extract(extractionCache, extractionCache);
@@ -264,29 +279,45 @@ public class HttpCodec {
     }
   }
 
-  private static class ExtractionCache<C>
-      implements AgentPropagation.KeyClassifier,
-          AgentPropagation.ContextVisitor<ExtractionCache<?>> {
+  /**
+   * Headers read once from the carrier and replayed to each extractor. Instances are reused by the
+   * extracting thread, so the headers are cleared as soon as the extraction is complete.
+   */
+  private static final class ExtractionCache
+      implements AgentPropagation.KeyClassifier, AgentPropagation.ContextVisitor<ExtractionCache> {
     /** Cached context key-values (even indexes are header names, odd indexes are header values). */
-    private final List<String> keysAndValues;
+    private String[] keysAndValues = new String[32];
+
+    private int size;
+    boolean inUse;
 
-    public ExtractionCache(C carrier, AgentPropagation.ContextVisitor<C> getter) {
-      this.keysAndValues = new ArrayList<>(32);
+    <C> ExtractionCache fill(C carrier, AgentPropagation.ContextVisitor<C> getter) {
+      inUse = true;
       getter.forEachKey(carrier, this);
+      return this;
+    }
+
+    void clear() {
+      Arrays.fill(keysAndValues, 0, size, null);
+      size = 0;
+      inUse = false;
     }
 
     @Override
     public boolean accept(String key, String value) {
-      this.keysAndValues.add(key);
-      this.keysAndValues.add(value);
+      if (size == keysAndValues.length) {
+        keysAndValues = Arrays.copyOf(keysAndValues, size << 1);
+      }
+      keysAndValues[size++] = key;
+      keysAndValues[size++] = value;
       return true;
     }
 
     @Override
-    public void forEachKey(ExtractionCache<?> carrier, AgentPropagation.KeyClassifier classifier) {
-      List<String> keysAndValues = carrier.keysAndValues;
-      for (int i = 0; i < keysAndValues.size(); i += 2) {
-        classifier.accept(keysAndValues.get(i), keysAndValues.get(i + 1));
+    public void forEachKey(ExtractionCache carrier, AgentPropagation.KeyClassifier classifier) {
+      String[] keysAndValues = carrier.keysAndValues;
+      for (int i = 0; i < carrier.size; i += 2) {
+        classifier.accept(keysAndValues[i], keysAndValues[i + 1]);
       }
     }
   }
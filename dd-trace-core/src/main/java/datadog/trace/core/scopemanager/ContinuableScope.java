@@ -68,7 +68,7 @@ class ContinuableScope implements AgentScope, AttachableWrapper {
   }
 
   void cleanup(final ScopeStack scopeStack) {
-    scopeStack.cleanup();
+    scopeManager.cleanup(scopeStack);
   }
 
   /*
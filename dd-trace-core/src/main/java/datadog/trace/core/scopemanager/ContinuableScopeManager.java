@@ -36,6 +36,12 @@ import org.slf4j.LoggerFactory;
  * currently active Scope. Such scopes can be suspended with a Continuation to prevent the trace
  * from being reported even if all related spans are finished. It also delegates to other
  * ScopeInterceptors to provide additional functionality.
+ *
+ * <p>When there are many short-lived threads, such as virtual threads, scope stacks can be managed
+ * lazily: a thread only gets a stack when a scope is activated, and the stack is removed from the
+ * thread once its last scope closes. This avoids pinning a stack to every thread that was ever
+ * asked for its active span, at the cost of re-creating stacks on threads that activate scopes
+ * again later.
  */
 public final class ContinuableScopeManager implements AgentScopeManager {
   static final Logger log = LoggerFactory.getLogger(ContinuableScopeManager.class);
@@ -49,6 +55,7 @@ public final class ContinuableScopeManager implements AgentScopeManager {
   private final ScopeStackThreadLocal tlsScopeStack;
   private final int depthLimit;
   private final boolean inheritAsyncPropagation;
+  private final boolean lazyScopeStacks;
   final HealthMetrics healthMetrics;
   private final ProfilingContextIntegration profilingContextIntegration;
 
@@ -84,13 +91,38 @@ public final class ContinuableScopeManager implements AgentScopeManager {
       final boolean inheritAsyncPropagation,
       final ProfilingContextIntegration profilingContextIntegration,
       final HealthMetrics healthMetrics) {
+    this(
+        depthLimit,
+        strictMode,
+        inheritAsyncPropagation,
+        false,
+        profilingContextIntegration,
+        healthMetrics);
+  }
+
+  /**
+   * @param depthLimit The maximum scope depth limit, <code>0</code> for unlimited.
+   * @param strictMode Whether check if the closed spans are the active ones or not.
+   * @param inheritAsyncPropagation Whether the next span should inherit the active span
+   *     asyncPropagation flag.
+   * @param lazyScopeStacks Whether scope stacks should only be kept by threads with active scopes.
+   *     Threads which only query the active scope still record an empty thread-local entry.
+   */
+  public ContinuableScopeManager(
+      final int depthLimit,
+      final boolean strictMode,
+      final boolean inheritAsyncPropagation,
+      final boolean lazyScopeStacks,
+      final ProfilingContextIntegration profilingContextIntegration,
+      final HealthMetrics healthMetrics) {
     this.depthLimit = depthLimit == 0 ? Integer.MAX_VALUE : depthLimit;
     this.strictMode = strictMode;
     this.inheritAsyncPropagation = inheritAsyncPropagation;
+    this.lazyScopeStacks = lazyScopeStacks;
     this.scopeListeners = new CopyOnWriteArrayList<>();
     this.extendedScopeListeners = new CopyOnWriteArrayList<>();
     this.healthMetrics = healthMetrics;
-    this.tlsScopeStack = new ScopeStackThreadLocal(profilingContextIntegration);
+    this.tlsScopeStack = new ScopeStackThreadLocal(profilingContextIntegration, lazyScopeStacks);
     this.profilingContextIntegration = profilingContextIntegration;
   }
 
@@ -187,7 +219,10 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   @Override
   public void closePrevious(final boolean finishSpan) {
-    ScopeStack scopeStack = scopeStack();
+    ScopeStack scopeStack = tlsScopeStack.get();
+    if (scopeStack == null) {
+      return; // lazy stack not created yet, so there is no previous scope
+    }
 
     // close any immediately previous iteration scope
     final ContinuableScope top = scopeStack.top;
@@ -196,7 +231,7 @@ public final class ContinuableScopeManager implements AgentScopeManager {
         cancelRootIterationScopeCleanup(scopeStack, top);
       }
       top.close();
-      scopeStack.cleanup();
+      cleanup(scopeStack);
       if (finishSpan) {
         top.span.finishWithEndToEnd();
         healthMetrics.onFinishContinuation();
@@ -206,9 +241,10 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   @Override
   public AgentScope activateNext(final AgentSpan span) {
-    ScopeStack scopeStack = scopeStack();
+    // only create a lazy stack once the scope is known to be pushed
+    ScopeStack scopeStack = tlsScopeStack.get();
 
-    final int currentDepth = scopeStack.depth();
+    final int currentDepth = scopeStack == null ? 0 : scopeStack.depth();
     if (depthLimit <= currentDepth) {
       healthMetrics.onScopeStackOverflow();
       log.debug("Scope depth limit exceeded ({}).  Returning NoopScope.", currentDepth);
@@ -217,7 +253,7 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
     assert span != null;
 
-    final ContinuableScope top = scopeStack.top;
+    final ContinuableScope top = scopeStack == null ? null : scopeStack.top;
 
     boolean asyncPropagation =
         inheritAsyncPropagation && top != null
@@ -228,6 +264,9 @@ public final class ContinuableScopeManager implements AgentScopeManager {
         new ContinuableScope(
             this, span, ScopeSource.ITERATION.id(), asyncPropagation, createScopeState(span));
 
+    if (scopeStack == null) {
+      scopeStack = scopeStack();
+    }
     if (iterationKeepAlive > 0 && currentDepth == 0) {
       // no surrounding scope to aid cleanup, so use background task instead
       scheduleRootIterationScopeCleanup(scopeStack, scope);
@@ -240,12 +279,14 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   @Override
   public AgentScope active() {
-    return scopeStack().active();
+    final ScopeStack scopeStack = tlsScopeStack.get();
+    return scopeStack == null ? null : scopeStack.active();
   }
 
   @Override
   public AgentSpan activeSpan() {
-    final ContinuableScope active = scopeStack().active();
+    final ScopeStack scopeStack = tlsScopeStack.get();
+    final ContinuableScope active = scopeStack == null ? null : scopeStack.active();
     return active == null ? null : active.span;
   }
 
@@ -289,7 +330,20 @@ public final class ContinuableScopeManager implements AgentScopeManager {
   }
 
   ScopeStack scopeStack() {
-    return this.tlsScopeStack.get();
+    ScopeStack scopeStack = this.tlsScopeStack.get();
+    if (scopeStack == null) {
+      scopeStack = new ScopeStack(profilingContextIntegration, lazyScopeStacks);
+      this.tlsScopeStack.set(scopeStack);
+    }
+    return scopeStack;
+  }
+
+  /** Removes closed scopes from the stack, releasing it from the thread once empty if lazy. */
+  void cleanup(final ScopeStack scopeStack) {
+    scopeStack.cleanup();
+    if (lazyScopeStacks && scopeStack.top == null && tlsScopeStack.get() == scopeStack) {
+      tlsScopeStack.remove();
+    }
   }
 
   @Override
@@ -303,7 +357,11 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
     @Override
     public void activate() {
-      tlsScopeStack.set(localScopeStack);
+      if (localScopeStack != null) {
+        tlsScopeStack.set(localScopeStack);
+      } else {
+        tlsScopeStack.remove();
+      }
     }
 
     @Override
@@ -312,17 +370,25 @@ public final class ContinuableScopeManager implements AgentScopeManager {
     }
   }
 
+  /**
+   * Note that {@link ThreadLocal#get()} records the initial value on first access, so with lazy
+   * stacks a thread which only queries the active scope still gets an entry in its thread-local
+   * map, holding null instead of a stack. {@link ThreadLocal} offers no way to peek without it.
+   */
   static final class ScopeStackThreadLocal extends ThreadLocal<ScopeStack> {
 
     private final ProfilingContextIntegration profilingContextIntegration;
+    private final boolean lazy;
 
-    ScopeStackThreadLocal(ProfilingContextIntegration profilingContextIntegration) {
+    ScopeStackThreadLocal(ProfilingContextIntegration profilingContextIntegration, boolean lazy) {
       this.profilingContextIntegration = profilingContextIntegration;
+      this.lazy = lazy;
     }
 
     @Override
     protected ScopeStack initialValue() {
-      return new ScopeStack(profilingContextIntegration);
+      // lazy stacks are only created when a scope is activated, see scopeStack()
+      return lazy ? null : new ScopeStack(profilingContextIntegration, false);
     }
   }
 
@@ -7,19 +7,27 @@ import java.util.ArrayDeque;
 /**
  * The invariant is that the top of a non-empty stack is always active. Anytime a scope is closed,
  * cleanup() is called to ensure the invariant
+ *
+ * <p>Most stacks are shallow, so the previous scope is held inline and the deque is only allocated
+ * for deeper stacks. Lazy stacks, which are only kept by threads with active scopes, also release
+ * the deque again once they are empty; other stacks keep it for their thread's next deep stack.
  */
 final class ScopeStack {
 
   private final ProfilingContextIntegration profilingContextIntegration;
-  private final ArrayDeque<ContinuableScope> stack = new ArrayDeque<>(); // previous scopes
+  private final boolean lazy;
+  private ArrayDeque<ContinuableScope> stack; // scopes before the previous scope, lazily created
 
   ContinuableScope top; // current scope
 
+  private ContinuableScope previous; // previous scope
+
   // set by background task when a root iteration scope remains unclosed for too long
   volatile ContinuableScope overdueRootScope;
 
-  ScopeStack(ProfilingContextIntegration profilingContextIntegration) {
+  ScopeStack(ProfilingContextIntegration profilingContextIntegration, boolean lazy) {
     this.profilingContextIntegration = profilingContextIntegration;
+    this.lazy = lazy;
   }
 
   ContinuableScope active() {
@@ -35,7 +43,7 @@ final class ScopeStack {
       // no longer alive -- trigger listener & null out
       curScope.onProperClose();
       changedTop = true;
-      curScope = stack.poll();
+      curScope = poll();
     }
     if (curScope != null && curScope == overdueRootScope) {
       // we know this scope is the last on the stack and is overdue
@@ -50,6 +58,9 @@ final class ScopeStack {
       }
     }
     if (top == null) {
+      if (lazy) {
+        stack = null;
+      }
       onBecomeEmpty();
     }
   }
@@ -58,7 +69,13 @@ final class ScopeStack {
   void push(final ContinuableScope scope) {
     scope.beforeActivated();
     if (top != null) {
-      stack.push(top);
+      if (previous != null) {
+        if (stack == null) {
+          stack = new ArrayDeque<>();
+        }
+        stack.push(previous);
+      }
+      previous = top;
     } else {
       onBecomeNonEmpty();
     }
@@ -85,12 +102,22 @@ final class ScopeStack {
     top.clearReferences();
     top.span.finishWithEndToEnd();
     // now do the same for any previous iteration scopes ahead of the expected scope
-    for (ContinuableScope scope : stack) {
-      if (scope.source() != ScopeSource.ITERATION.id()) {
-        return expectedScope.equals(scope);
-      } else {
-        scope.clearReferences();
-        scope.span.finishWithEndToEnd();
+    if (previous == null) {
+      return false;
+    }
+    if (previous.source() != ScopeSource.ITERATION.id()) {
+      return expectedScope.equals(previous);
+    }
+    previous.clearReferences();
+    previous.span.finishWithEndToEnd();
+    if (stack != null) {
+      for (ContinuableScope scope : stack) {
+        if (scope.source() != ScopeSource.ITERATION.id()) {
+          return expectedScope.equals(scope);
+        } else {
+          scope.clearReferences();
+          scope.span.finishWithEndToEnd();
+        }
       }
     }
     return false; // we didn't find the expected scope
@@ -98,12 +125,26 @@ final class ScopeStack {
 
   /** Returns the current depth, including the top scope */
   int depth() {
-    return top != null ? 1 + stack.size() : 0;
+    if (top == null) {
+      return 0;
+    }
+    if (previous == null) {
+      return 1;
+    }
+    return stack != null ? 2 + stack.size() : 2;
+  }
+
+  /** Removes and returns the previous scope, pulling the next one from the deque */
+  private ContinuableScope poll() {
+    ContinuableScope curScope = previous;
+    previous = stack != null ? stack.poll() : null;
+    return curScope;
   }
 
   // DQH - regrettably needed for pre-existing tests
   void clear() {
-    stack.clear();
+    stack = null;
+    previous = null;
     top = null;
   }
 
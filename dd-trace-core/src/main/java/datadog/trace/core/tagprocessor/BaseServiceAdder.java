@@ -16,11 +16,16 @@ public class BaseServiceAdder implements TagsPostProcessor {
   @Override
   public Map<String, Object> processTags(
       Map<String, Object> unsafeTags, DDSpanContext spanContext) {
-    if (ddService != null
-        && spanContext != null
-        && !ddService.toString().equalsIgnoreCase(spanContext.getServiceName())) {
+    if (appliesTo(unsafeTags, spanContext)) {
       unsafeTags.put(DDTags.BASE_SERVICE, ddService);
     }
     return unsafeTags;
   }
+
+  @Override
+  public boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+    return ddService != null
+        && spanContext != null
+        && !ddService.toString().equalsIgnoreCase(spanContext.getServiceName());
+  }
 }
@@ -48,6 +48,11 @@ public class PeerServiceCalculator implements TagsPostProcessor {
     return unsafeTags;
   }
 
+  @Override
+  public boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+    return unsafeTags.get(Tags.PEER_SERVICE) != null ? canRemap : peerServiceNaming.supports();
+  }
+
   private Map<String, Object> remapPeerService(Map<String, Object> unsafeTags, Object value) {
     if (value != null) {
       String mapped = peerServiceMapping.get(value);
@@ -21,4 +21,14 @@ public class PostProcessorChain implements TagsPostProcessor {
     }
     return currentTags;
   }
+
+  @Override
+  public boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+    for (final TagsPostProcessor tagsPostProcessor : chain) {
+      if (tagsPostProcessor.appliesTo(unsafeTags, spanContext)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
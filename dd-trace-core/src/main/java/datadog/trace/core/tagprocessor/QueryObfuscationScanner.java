@@ -0,0 +1,629 @@
+package datadog.trace.core.tagprocessor;
+
+/**
+ * Hand-written equivalent of the default query obfuscation regex, which redacts the same matches
+ * in a single scan of the query and doesn't allocate unless something is redacted.
+ *
+ * <p>Each alternative of the regex is matched by its own method, tried in the regex's order at
+ * each position. Most of the regex's repetitions can't give back characters to what follows them,
+ * so they're matched greedily without backtracking; the private key alternative is the exception.
+ * Matching ignores case like the regex, which includes the characters that fold to ASCII letters:
+ * the long s ({@code U+017F}) and the Kelvin sign ({@code U+212A}).
+ */
+final class QueryObfuscationScanner {
+  static final String REDACTED = "<redacted>";
+
+  private static final char LONG_S = '\u017F';
+  private static final char KELVIN_SIGN = '\u212A';
+
+  private QueryObfuscationScanner() {}
+
+  static String obfuscate(String query) {
+    StringBuilder obfuscated = null;
+    int copied = 0;
+    int i = 0;
+    while (i < query.length()) {
+      int end = matchAt(query, i);
+      if (end < 0) {
+        i++;
+      } else {
+        if (null == obfuscated) {
+          obfuscated = new StringBuilder(query.length());
+        }
+        obfuscated.append(query, copied, i).append(REDACTED);
+        copied = i = end;
+      }
+    }
+    if (null == obfuscated) {
+      return query;
+    }
+    return obfuscated.append(query, copied, query.length()).toString();
+  }
+
+  /** Returns the end of the match starting at {@code i}, or -1 if there isn't one. */
+  static int matchAt(String s, int i) {
+    if (!mayStartMatch(s.charAt(i))) {
+      return -1;
+    }
+    int end = keyValue(s, i);
+    if (end < 0) {
+      end = bearerToken(s, i);
+    }
+    if (end < 0) {
+      end = colonToken(s, i);
+    }
+    if (end < 0) {
+      end = githubToken(s, i);
+    }
+    if (end < 0) {
+      end = jsonWebToken(s, i);
+    }
+    if (end < 0) {
+      end = privateKey(s, i);
+    }
+    if (end < 0) {
+      end = publicKey(s, i);
+    }
+    return end;
+  }
+
+  private static boolean mayStartMatch(char c) {
+    switch (c | 0x20) {
+      case 'a':
+      case 'b':
+      case 'c':
+      case 'e':
+      case 'g':
+      case 'n':
+      case 'o':
+      case 'p':
+      case 's':
+      case 't':
+        return true;
+      default:
+        return c == '"' || c == '%' || c == '-' || c == LONG_S;
+    }
+  }
+
+  // (?:"|%22)?(?:<key>)(?:(?:\s|%20)*(?:=|%3D)[^&]+|<quoted json value>)
+  private static int keyValue(String s, int i) {
+    int p = quote(s, i);
+    if (p < 0) {
+      // the optional quote can't be skipped instead, because keys don't start with '"' or '%'
+      p = i;
+    }
+    // a value can't start with a letter, digit, '-' or '_', so trying the shorter forms of a key
+    // (e.g. "pass" for "passphrase") would never succeed and only the longest form is matched
+    int end = value(s, passwordKey(s, p));
+    if (end < 0) {
+      end = value(s, passPhraseKey(s, p));
+    }
+    if (end < 0) {
+      end = value(s, literal(s, p, "secret"));
+    }
+    if (end < 0) {
+      end = value(s, apiKey(s, p));
+    }
+    if (end < 0) {
+      end = value(s, literal(s, p, "token"));
+    }
+    if (end < 0) {
+      end = value(s, consumerKey(s, p));
+    }
+    if (end < 0) {
+      end = value(s, optionalSuffix(s, literal(s, p, "sign"), "ed", "ature"));
+    }
+    if (end < 0) {
+      end = value(s, optionalSuffix(s, literal(s, p, "auth"), "entication", "orization"));
+    }
+    return end;
+  }
+
+  // (?:old[-_]?|new[-_]?)?p(?:ass)?w(?:or)?d(?:1|2)?
+  private static int passwordKey(String s, int p) {
+    int q = literal(s, p, "old");
+    if (q < 0) {
+      q = literal(s, p, "new");
+    }
+    q = q < 0 ? p : separator(s, q);
+    q = literal(s, q, "p");
+    if (q < 0) {
+      return -1;
+    }
+    q = optional(s, q, "ass");
+    q = literal(s, q, "w");
+    if (q < 0) {
+      return -1;
+    }
+    q = optional(s, q, "or");
+    q = literal(s, q, "d");
+    if (q < 0) {
+      return -1;
+    }
+    return q < s.length() && (s.charAt(q) == '1' || s.charAt(q) == '2') ? q + 1 : q;
+  }
+
+  // pass(?:[-_]?phrase)?
+  private static int passPhraseKey(String s, int p) {
+    int q = literal(s, p, "pass");
+    if (q < 0) {
+      return -1;
+    }
+    int phrase = literal(s, separator(s, q), "phrase");
+    return phrase < 0 ? q : phrase;
+  }
+
+  // (?:api[-_]?|private[-_]?|public[-_]?|access[-_]?|secret[-_]?|app(?:lication)?[-_]?)
+  //   key(?:[-_]?id)?
+  private static int apiKey(String s, int p) {
+    int q = literal(s, p, "api");
+    if (q < 0) {
+      q = literal(s, p, "private");
+    }
+    if (q < 0) {
+      q = literal(s, p, "public");
+    }
+    if (q < 0) {
+      q = literal(s, p, "access");
+    }
+    if (q < 0) {
+      q = literal(s, p, "secret");
+    }
+    if (q < 0) {
+      q = literal(s, p, "app");
+      if (q < 0) {
+        return -1;
+      }
+      q = optional(s, q, "lication");
+    }
+    q = literal(s, separator(s, q), "key");
+    if (q < 0) {
+      return -1;
+    }
+    int id = literal(s, separator(s, q), "id");
+    return id < 0 ? q : id;
+  }
+
+  // consumer[-_]?(?:id|key|secret)
+  private static int consumerKey(String s, int p) {
+    int q = literal(s, p, "consumer");
+    if (q < 0) {
+      return -1;
+    }
+    q = separator(s, q);
+    int end = literal(s, q, "id");
+    if (end < 0) {
+      end = literal(s, q, "key");
+    }
+    if (end < 0) {
+      end = literal(s, q, "secret");
+    }
+    return end;
+  }
+
+  // (?:\s|%20)*(?:=|%3D)[^&]+|(?:"|%22)(?:\s|%20)*(?::|%3A)(?:\s|%20)*(?:"|%22)<body>(?:"|%22)
+  private static int value(String s, int k) {
+    if (k < 0) {
+      return -1;
+    }
+    int p = spaces(s, k);
+    int q = p < s.length() && s.charAt(p) == '=' ? p + 1 : literal(s, p, "%3d");
+    if (q >= 0) {
+      int ampersand = s.indexOf('&', q);
+      int end = ampersand < 0 ? s.length() : ampersand;
+      // a quoted value can't start where the unquoted value did, so there's nothing to fall back to
+      return end > q ? end : -1;
+    }
+    p = quote(s, k);
+    if (p < 0) {
+      return -1;
+    }
+    p = spaces(s, p);
+    q = p < s.length() && s.charAt(p) == ':' ? p + 1 : literal(s, p, "%3a");
+    if (q < 0) {
+      return -1;
+    }
+    p = quote(s, spaces(s, q));
+    if (p < 0) {
+      return -1;
+    }
+    // (?:%2[^2]|%[^2]|[^"%])+ stops at the first '"' or "%22", which is the only place the closing
+    // quote can be, so giving back characters wouldn't help
+    q = p;
+    while (q < s.length()) {
+      char c = s.charAt(q);
+      if (c == '"') {
+        break;
+      } else if (c != '%') {
+        q++;
+      } else if (q + 1 < s.length() && s.charAt(q + 1) != '2') {
+        q += 2;
+      } else if (q + 2 < s.length() && s.charAt(q + 1) == '2' && s.charAt(q + 2) != '2') {
+        q += 3;
+      } else {
+        break;
+      }
+    }
+    return q > p ? quote(s, q) : -1;
+  }
+
+  // bearer(?:\s|%20)+[a-z0-9._\-]+
+  private static int bearerToken(String s, int i) {
+    int p = literal(s, i, "bearer");
+    if (p < 0) {
+      return -1;
+    }
+    int q = spaces(s, p);
+    if (q == p) {
+      return -1;
+    }
+    int end = q;
+    while (end < s.length() && isTokenChar(s.charAt(end))) {
+      end++;
+    }
+    return end > q ? end : -1;
+  }
+
+  // token(?::|%3A)[a-z0-9]{13}
+  private static int colonToken(String s, int i) {
+    int p = literal(s, i, "token");
+    if (p < 0) {
+      return -1;
+    }
+    p = p < s.length() && s.charAt(p) == ':' ? p + 1 : literal(s, p, "%3a");
+    if (p < 0) {
+      return -1;
+    }
+    return alphanumerics(s, p, 13);
+  }
+
+  // gh[opsu]_[0-9a-zA-Z]{36}
+  private static int githubToken(String s, int i) {
+    int p = literal(s, i, "gh");
+    if (p < 0 || p >= s.length()) {
+      return -1;
+    }
+    char c = s.charAt(p);
+    if (!(equalsIgnoreCase(c, 'o')
+        || equalsIgnoreCase(c, 'p')
+        || equalsIgnoreCase(c, 's')
+        || equalsIgnoreCase(c, 'u'))) {
+      return -1;
+    }
+    p = literal(s, p + 1, "_");
+    if (p < 0) {
+      return -1;
+    }
+    return alphanumerics(s, p, 36);
+  }
+
+  // ey[I-L](?:[\w=-]|%3D)+\.ey[I-L](?:[\w=-]|%3D)+(?:\.(?:[\w.+/=-]|%3D|%2F|%2B)+)?
+  private static int jsonWebToken(String s, int i) {
+    int p = jsonWebTokenPart(s, i);
+    if (p < 0 || p >= s.length() || s.charAt(p) != '.') {
+      return -1;
+    }
+    p = jsonWebTokenPart(s, p + 1);
+    if (p < 0 || p >= s.length() || s.charAt(p) != '.') {
+      return p;
+    }
+    int q = p + 1;
+    while (q < s.length()) {
+      char c = s.charAt(q);
+      if (isWordChar(c) || c == '.' || c == '+' || c == '/' || c == '=' || c == '-') {
+        q++;
+      } else if (literal(s, q, "%3d") > 0 || literal(s, q, "%2f") > 0 || literal(s, q, "%2b") > 0) {
+        q += 3;
+      } else {
+        break;
+      }
+    }
+    return q > p + 1 ? q : p;
+  }
+
+  // ey[I-L](?:[\w=-]|%3D)+
+  private static int jsonWebTokenPart(String s, int i) {
+    int p = literal(s, i, "ey");
+    if (p < 0 || p >= s.length()) {
+      return -1;
+    }
+    char c = s.charAt(p);
+    if (!((c >= 'I' && c <= 'L') || (c >= 'i' && c <= 'l') || c == KELVIN_SIGN)) {
+      return -1;
+    }
+    int q = ++p;
+    while (q < s.length()) {
+      char u = s.charAt(q);
+      if (isWordChar(u) || u == '=' || u == '-') {
+        q++;
+      } else if (literal(s, q, "%3d") > 0) {
+        q += 3;
+      } else {
+        break;
+      }
+    }
+    return q > p ? q : -1;
+  }
+
+  // -{5}BEGIN(?:[a-z\s]|%20)+PRIVATE(?:\s|%20)KEY-{5}[^\-]+-{5}END<label>(?:-{5})?(?:\n|%0A)?
+  private static int privateKey(String s, int i) {
+    int p = literal(s, i, "-----begin");
+    if (p < 0) {
+      return -1;
+    }
+    // the label's repetition also matches "PRIVATE KEY", so it has to give back characters until
+    // the rest of the pattern matches, trying the longest label first
+    int[] labelEnds = labelEnds(s, p);
+    for (int l = labelEnds.length - 1; l >= 0; l--) {
+      int q = privateKeyLabelEnd(s, labelEnds[l]);
+      if (q < 0 || (q = literal(s, q, "-----")) < 0) {
+        continue;
+      }
+      int dash = s.indexOf('-', q);
+      if (dash <= q) {
+        continue;
+      }
+      q = literal(s, dash, "-----end");
+      if (q < 0) {
+        continue;
+      }
+      int[] endLabelEnds = labelEnds(s, q);
+      for (int e = endLabelEnds.length - 1; e >= 0; e--) {
+        int end = privateKeyLabelEnd(s, endLabelEnds[e]);
+        if (end >= 0) {
+          end = optional(s, end, "-----");
+          if (end < s.length() && s.charAt(end) == '\n') {
+            return end + 1;
+          }
+          return optional(s, end, "%0a");
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the positions after each repetition of {@code (?:[a-z\s]|%20)} starting at {@code p}
+   * which are followed by "PRIVATE", since that's the only place the label can end.
+   */
+  private static int[] labelEnds(String s, int p) {
+    int[] ends = null;
+    int count = 0;
+    int q = p;
+    while (q < s.length()) {
+      char c = s.charAt(q);
+      if (isLetter(c) || isSpace(c)) {
+        q++;
+      } else if (s.startsWith("%20", q)) {
+        q += 3;
+      } else {
+        break;
+      }
+      if (literal(s, q, "private") > 0) {
+        if (null == ends) {
+          ends = new int[2];
+        } else if (count == ends.length) {
+          int[] grown = new int[count * 2];
+          System.arraycopy(ends, 0, grown, 0, count);
+          ends = grown;
+        }
+        ends[count++] = q;
+      }
+    }
+    if (null == ends) {
+      return new int[0];
+    }
+    if (count < ends.length) {
+      int[] trimmed = new int[count];
+      System.arraycopy(ends, 0, trimmed, 0, count);
+      return trimmed;
+    }
+    return ends;
+  }
+
+  // PRIVATE(?:\s|%20)KEY
+  private static int privateKeyLabelEnd(String s, int p) {
+    int q = literal(s, p, "private");
+    if (q < 0) {
+      return -1;
+    }
+    if (q < s.length() && isSpace(s.charAt(q))) {
+      q++;
+    } else if (s.startsWith("%20", q)) {
+      q += 3;
+    } else {
+      return -1;
+    }
+    return literal(s, q, "key");
+  }
+
+  // (?:ssh-(?:rsa|dss)|ecdsa-[a-z0-9]+-[a-z0-9]+)(?:\s|%20|%09)+(?:[a-z0-9/.+]|%2F|%5C|%2B){100,}
+  //   (?:=|%3D)*(?:(?:\s|%20|%09)+[a-z0-9._-]+)?
+  private static int publicKey(String s, int i) {
+    int p = literal(s, i, "ssh-rsa");
+    if (p < 0) {
+      p = literal(s, i, "ssh-dss");
+    }
+    if (p < 0) {
+      p = literal(s, i, "ecdsa-");
+      if (p < 0) {
+        return -1;
+      }
+      int q = alphanumerics(s, p);
+      if (q == p || (q = literal(s, q, "-")) < 0) {
+        return -1;
+      }
+      p = alphanumerics(s, q);
+      if (p == q) {
+        return -1;
+      }
+    }
+    int q = publicKeySpaces(s, p);
+    if (q == p) {
+      return -1;
+    }
+    int count = 0;
+    while (q < s.length()) {
+      char c = s.charAt(q);
+      if (isLetter(c) || isDigit(c) || c == '/' || c == '.' || c == '+') {
+        q++;
+      } else if (literal(s, q, "%2f") > 0 || literal(s, q, "%5c") > 0 || literal(s, q, "%2b") > 0) {
+        q += 3;
+      } else {
+        break;
+      }
+      count++;
+    }
+    if (count < 100) {
+      return -1;
+    }
+    while (true) {
+      if (q < s.length() && s.charAt(q) == '=') {
+        q++;
+      } else if (literal(s, q, "%3d") > 0) {
+        q += 3;
+      } else {
+        break;
+      }
+    }
+    int comment = publicKeySpaces(s, q);
+    if (comment > q) {
+      int end = comment;
+      while (end < s.length() && isTokenChar(s.charAt(end))) {
+        end++;
+      }
+      if (end > comment) {
+        return end;
+      }
+    }
+    return q;
+  }
+
+  // (?:\s|%20|%09)*
+  private static int publicKeySpaces(String s, int p) {
+    while (true) {
+      if (p < s.length() && isSpace(s.charAt(p))) {
+        p++;
+      } else if (s.startsWith("%20", p) || s.startsWith("%09", p)) {
+        p += 3;
+      } else {
+        return p;
+      }
+    }
+  }
+
+  // (?:\s|%20)*
+  private static int spaces(String s, int p) {
+    while (true) {
+      if (p < s.length() && isSpace(s.charAt(p))) {
+        p++;
+      } else if (s.startsWith("%20", p)) {
+        p += 3;
+      } else {
+        return p;
+      }
+    }
+  }
+
+  // (?:"|%22)
+  private static int quote(String s, int p) {
+    if (p < s.length() && s.charAt(p) == '"') {
+      return p + 1;
+    }
+    return s.startsWith("%22", p) ? p + 3 : -1;
+  }
+
+  // [-_]?
+  private static int separator(String s, int p) {
+    return p < s.length() && (s.charAt(p) == '-' || s.charAt(p) == '_') ? p + 1 : p;
+  }
+
+  private static int optional(String s, int p, String lowerCase) {
+    int q = literal(s, p, lowerCase);
+    return q < 0 ? p : q;
+  }
+
+  private static int optionalSuffix(String s, int p, String first, String second) {
+    if (p < 0) {
+      return -1;
+    }
+    int q = literal(s, p, first);
+    if (q < 0) {
+      q = literal(s, p, second);
+    }
+    return q < 0 ? p : q;
+  }
+
+  // [a-z0-9]+
+  private static int alphanumerics(String s, int p) {
+    while (p < s.length() && (isLetter(s.charAt(p)) || isDigit(s.charAt(p)))) {
+      p++;
+    }
+    return p;
+  }
+
+  // [a-z0-9]{count}
+  private static int alphanumerics(String s, int p, int count) {
+    if (p + count > s.length()) {
+      return -1;
+    }
+    for (int i = p; i < p + count; i++) {
+      if (!isLetter(s.charAt(i)) && !isDigit(s.charAt(i))) {
+        return -1;
+      }
+    }
+    return p + count;
+  }
+
+  /**
+   * Returns the position after {@code lowerCase} if it's at {@code p} ignoring case, otherwise -1.
+   */
+  private static int literal(String s, int p, String lowerCase) {
+    if (p < 0 || p + lowerCase.length() > s.length()) {
+      return -1;
+    }
+    for (int i = 0; i < lowerCase.length(); i++) {
+      if (!equalsIgnoreCase(s.charAt(p + i), lowerCase.charAt(i))) {
+        return -1;
+      }
+    }
+    return p + lowerCase.length();
+  }
+
+  private static boolean equalsIgnoreCase(char c, char lowerCase) {
+    if (c == lowerCase) {
+      return true;
+    }
+    if (lowerCase < 'a' || lowerCase > 'z') {
+      return false;
+    }
+    return c == lowerCase - ('a' - 'A')
+        || (c == LONG_S && lowerCase == 's')
+        || (c == KELVIN_SIGN && lowerCase == 'k');
+  }
+
+  // [a-z] ignoring case
+  private static boolean isLetter(char c) {
+    char lowerCase = (char) (c | 0x20);
+    return (lowerCase >= 'a' && lowerCase <= 'z') || c == LONG_S || c == KELVIN_SIGN;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  // \w ignoring case
+  private static boolean isWordChar(char c) {
+    return isLetter(c) || isDigit(c) || c == '_';
+  }
+
+  // [a-z0-9._\-] ignoring case
+  private static boolean isTokenChar(char c) {
+    return isLetter(c) || isDigit(c) || c == '.' || c == '_' || c == '-';
+  }
+
+  // \s
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+  }
+}
@@ -4,10 +4,12 @@ import com.google.re2j.Matcher;
 import com.google.re2j.Pattern;
 import com.google.re2j.PatternSyntaxException;
 import datadog.trace.api.DDTags;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.core.DDSpanContext;
-import datadog.trace.util.Strings;
 import java.util.Map;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,10 +17,15 @@ public class QueryObfuscator implements TagsPostProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(QueryObfuscator.class);
 
-  private static final String DEFAULT_OBFUSCATION_PATTERN =
+  static final String DEFAULT_OBFUSCATION_PATTERN =
       "(?i)(?:(?:\"|%22)?)(?:(?:old[-_]?|new[-_]?)?p(?:ass)?w(?:or)?d(?:1|2)?|pass(?:[-_]?phrase)?|secret|(?:api[-_]?|private[-_]?|public[-_]?|access[-_]?|secret[-_]?|app(?:lication)?[-_]?)key(?:[-_]?id)?|token|consumer[-_]?(?:id|key|secret)|sign(?:ed|ature)?|auth(?:entication|orization)?)(?:(?:\\s|%20)*(?:=|%3D)[^&]+|(?:\"|%22)(?:\\s|%20)*(?::|%3A)(?:\\s|%20)*(?:\"|%22)(?:%2[^2]|%[^2]|[^\"%])+(?:\"|%22))|(?:bearer(?:\\s|%20)+[a-z0-9._\\-]+|token(?::|%3A)[a-z0-9]{13}|gh[opsu]_[0-9a-zA-Z]{36}|ey[I-L](?:[\\w=-]|%3D)+\\.ey[I-L](?:[\\w=-]|%3D)+(?:\\.(?:[\\w.+/=-]|%3D|%2F|%2B)+)?|-{5}BEGIN(?:[a-z\\s]|%20)+PRIVATE(?:\\s|%20)KEY-{5}[^\\-]+-{5}END(?:[a-z\\s]|%20)+PRIVATE(?:\\s|%20)KEY(?:-{5})?(?:\\n|%0A)?|(?:ssh-(?:rsa|dss)|ecdsa-[a-z0-9]+-[a-z0-9]+)(?:\\s|%20|%09)+(?:[a-z0-9/.+]|%2F|%5C|%2B){100,}(?:=|%3D)*(?:(?:\\s|%20|%09)+[a-z0-9._-]+)?)";
 
+  private static final int MAX_CACHED_QUERY_LENGTH = 1024;
+
   private final Pattern pattern;
+  private final boolean defaultPattern;
+  private final DDCache<String, String> cache;
+  private final Function<String, String> obfuscation = this::obfuscateUncached;
 
   /**
    * If regex is null - then used default regex pattern If regex is empty string - then disable
@@ -28,12 +35,17 @@ public class QueryObfuscator implements TagsPostProcessor {
     // empty string -> disabled query obfuscation
     if ("".equals(regex)) {
       this.pattern = null;
+      this.defaultPattern = false;
+      this.cache = null;
       return;
     }
 
-    // null -> use default regex
-    if (regex == null) {
-      regex = DEFAULT_OBFUSCATION_PATTERN;
+    // null -> use default regex, which is matched without a regex
+    if (regex == null || DEFAULT_OBFUSCATION_PATTERN.equals(regex)) {
+      this.pattern = null;
+      this.defaultPattern = true;
+      this.cache = newCache();
+      return;
     }
 
     Pattern pattern = null;
@@ -43,16 +55,35 @@ public class QueryObfuscator implements TagsPostProcessor {
       log.error("Could not compile given query obfuscation regex: {}", regex, e);
     }
     this.pattern = pattern;
+    this.defaultPattern = false;
+    this.cache = null == pattern ? null : newCache();
+  }
+
+  private static DDCache<String, String> newCache() {
+    // weighed by length so a few long queries can't hold on to a lot of memory
+    return DDCaches.newFixedSizeWeightedCache(256, String::length, 64 * 1024);
   }
 
   private String obfuscate(String query) {
-    if (pattern != null) {
-      Matcher matcher = pattern.matcher(query);
-      while (matcher.find()) {
-        query = Strings.replace(query, matcher.group(), "<redacted>");
-      }
+    if (null == cache) {
+      return query;
+    }
+    // the same queries are often repeated, e.g. by health checks or polling clients
+    if (query.length() <= MAX_CACHED_QUERY_LENGTH) {
+      return cache.computeIfAbsent(query, obfuscation);
     }
-    return query;
+    return obfuscateUncached(query);
+  }
+
+  private String obfuscateUncached(String query) {
+    if (defaultPattern) {
+      return QueryObfuscationScanner.obfuscate(query);
+    }
+    Matcher matcher = pattern.matcher(query);
+    if (!matcher.find()) {
+      return query;
+    }
+    return matcher.replaceAll(QueryObfuscationScanner.REDACTED);
   }
 
   @Override
@@ -72,4 +103,9 @@ public class QueryObfuscator implements TagsPostProcessor {
 
     return unsafeTags;
   }
+
+  @Override
+  public boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+    return unsafeTags.get(DDTags.HTTP_QUERY) instanceof CharSequence;
+  }
 }
@@ -5,4 +5,9 @@ import java.util.Map;
 
 public interface TagsPostProcessor {
   Map<String, Object> processTags(Map<String, Object> unsafeTags, DDSpanContext spanContext);
+
+  /** @return false only if {@link #processTags} is known to leave the tags unchanged */
+  default boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+    return true;
+  }
 }
@@ -2,7 +2,6 @@ package datadog.trace.core.util;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Pattern;
 
 public final class Matchers {
   public static final Matcher ANY = new AnyMatcher();
@@ -15,9 +14,7 @@ public final class Matchers {
     } else if (isExact(glob)) {
       return new InsensitiveEqualsMatcher(glob);
     } else {
-      // DQH - not sure about the error handling here
-      Pattern pattern = GlobPattern.globToRegexPattern(glob);
-      return new PatternMatcher(pattern);
+      return new GlobMatcher(glob);
     }
   }
 
@@ -46,6 +43,11 @@ public final class Matchers {
     return (glob.indexOf('*') == -1) && (glob.indexOf('?') == -1);
   }
 
+  /** Returns {@code true} if the glob only matches values equal to it, ignoring case. */
+  public static boolean isExactGlob(String glob) {
+    return glob != null && isExact(glob);
+  }
+
   static final class AnyMatcher implements Matcher {
     @Override
     public boolean matches(CharSequence charSeq) {
@@ -143,21 +145,73 @@ public final class Matchers {
     }
   }
 
-  static final class PatternMatcher extends BaseMatcher {
-    private final Pattern pattern;
+  /**
+   * Matches globs directly, without compiling them to regular expressions. Each {@code *} only
+   * needs to be revisited when the rest of the glob fails to match, so matching is linear for the
+   * usual globs with a single {@code *}. Like the regular expressions previously used, {@code *}
+   * and {@code ?} don't match line terminators.
+   */
+  static final class GlobMatcher extends BaseMatcher {
+    private final String glob;
 
-    PatternMatcher(Pattern pattern) {
-      this.pattern = pattern;
+    GlobMatcher(String glob) {
+      this.glob = glob;
     }
 
     @Override
     public boolean matches(CharSequence charSeq) {
-      return pattern.matcher(charSeq).matches();
+      final String glob = this.glob;
+      final int globLength = glob.length();
+      final int length = charSeq.length();
+      int g = 0;
+      int i = 0;
+      int starG = -1;
+      int starI = 0;
+      while (i < length) {
+        if (g < globLength) {
+          char p = glob.charAt(g);
+          if (p == '*') {
+            starG = g++;
+            starI = i;
+            continue;
+          }
+          char c = charSeq.charAt(i);
+          if (p == '?' ? !isLineTerminator(c) : equalsIgnoreCase(p, c)) {
+            g++;
+            i++;
+            continue;
+          }
+        }
+        // backtrack, letting the last * consume one more character
+        if (starG >= 0 && !isLineTerminator(charSeq.charAt(starI))) {
+          g = starG + 1;
+          i = ++starI;
+          continue;
+        }
+        return false;
+      }
+      while (g < globLength && glob.charAt(g) == '*') {
+        g++;
+      }
+      return g == globLength;
     }
 
     @Override
     public boolean matches(String str) {
-      return pattern.matcher(str).matches();
+      return matches((CharSequence) str);
+    }
+
+    private static boolean equalsIgnoreCase(char p, char c) {
+      // like the CASE_INSENSITIVE regexes previously used, only US-ASCII letters are folded
+      return p == c || toLowerAscii(p) == toLowerAscii(c);
+    }
+
+    private static char toLowerAscii(char c) {
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isLineTerminator(char c) {
+      return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
   }
 }
@@ -88,6 +88,27 @@ class AggregateMetricTest extends DDSpecification {
     aggregate.getTopLevelCount() == 1
   }
 
+  def "merge adds counts and latencies"() {
+    given:
+    AggregateMetric aggregate = new AggregateMetric()
+      .recordDuration(1)
+      .recordDuration(TOP_LEVEL_TAG | 2)
+    AggregateMetric partial = new AggregateMetric()
+      .recordDuration(3)
+      .recordDuration(ERROR_TAG | 100)
+
+    when:
+    aggregate.merge(partial)
+
+    then:
+    aggregate.getDuration() == 106
+    aggregate.getHitCount() == 4
+    aggregate.getErrorCount() == 1
+    aggregate.getTopLevelCount() == 1
+    aggregate.getOkLatencies().getCount() == 3
+    aggregate.getErrorLatencies().getMaxValue() >= 99
+  }
+
   def "ignore trailing zeros"() {
     given:
     AggregateMetric aggregate = new AggregateMetric()
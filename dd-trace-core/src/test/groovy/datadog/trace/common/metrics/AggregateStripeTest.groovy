@@ -0,0 +1,72 @@
+package datadog.trace.common.metrics
+
+import datadog.trace.test.util.DDSpecification
+
+class AggregateStripeTest extends DDSpecification {
+
+  def "partials are merged into the aggregates when drained"() {
+    setup:
+    AggregateStripe stripe = new AggregateStripe(10)
+    Map<MetricKey, AggregateMetric> aggregates = new HashMap<>()
+
+    when:
+    stripe.add(key(0), 10)
+    stripe.add(key(0), 20)
+    boolean merged = stripe.drainTo(aggregates)
+
+    then:
+    merged
+    aggregates[key(0)].getHitCount() == 2
+    aggregates[key(0)].getDuration() == 30
+
+    when: "nothing was recorded since the last drain"
+    merged = stripe.drainTo(aggregates)
+
+    then:
+    !merged
+  }
+
+  def "partials evicted from a full stripe are still merged"() {
+    setup:
+    AggregateStripe stripe = new AggregateStripe(2)
+    Map<MetricKey, AggregateMetric> aggregates = new HashMap<>()
+
+    when:
+    for (int i = 0; i < 5; i++) {
+      stripe.add(key(i), 10 * (i + 1))
+    }
+    stripe.drainTo(aggregates)
+
+    then:
+    aggregates.size() == 5
+    (0..4).every {
+      aggregates[key(it)].getHitCount() == 1 && aggregates[key(it)].getDuration() == 10 * (it + 1)
+    }
+
+    when: "evicted partials are only merged once"
+    aggregates.clear()
+    stripe.drainTo(aggregates)
+
+    then:
+    aggregates.isEmpty()
+  }
+
+  def "cleared stripes drop evicted partials"() {
+    setup:
+    AggregateStripe stripe = new AggregateStripe(1)
+    Map<MetricKey, AggregateMetric> aggregates = new HashMap<>()
+
+    when:
+    stripe.add(key(0), 10)
+    stripe.add(key(1), 10)
+    stripe.clear()
+
+    then:
+    !stripe.drainTo(aggregates)
+    aggregates.isEmpty()
+  }
+
+  static MetricKey key(int i) {
+    return new MetricKey("resource", "service" + i, "operation", "type", 200, false)
+  }
+}
@@ -196,6 +196,77 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
     count << [10, 100]
   }
 
+  def "striped aggregation conflates spans published from many threads"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    Sink sink = Stub(Sink)
+    DDAgentFeaturesDiscovery features = Mock(DDAgentFeaturesDiscovery)
+    features.supportsMetrics() >> true
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(empty,
+      features, sink, writer, 10, queueSize, stripes, reportingInterval, SECONDS)
+    long duration = 100
+    List<CoreSpan> trace = [
+      new SimpleSpan("service", "operation", "resource", "type", true, false, false, 0, duration, HTTP_OK),
+      new SimpleSpan("service", "operation", "resource", "type", true, false, true, 0, duration * 2, HTTP_OK)
+    ]
+    aggregator.start()
+
+    when:
+    CountDownLatch latch = new CountDownLatch(1)
+    List<Thread> threads = (1..threadCount).collect {
+      Thread.start {
+        for (int i = 0; i < count; ++i) {
+          aggregator.publish(trace)
+        }
+      }
+    }
+    threads*.join()
+    aggregator.report()
+    latch.await(2, SECONDS)
+
+    then: "metrics from every stripe should be merged"
+    1 * writer.startBucket(1, _, SECONDS.toNanos(reportingInterval))
+    1 * writer.add(new MetricKey("resource", "service", "operation", "type", HTTP_OK, false), _) >> { MetricKey key, AggregateMetric value ->
+      assert value.getHitCount() == 2 * threadCount * count
+      assert value.getErrorCount() == threadCount * count
+      assert value.getDuration() == 3 * threadCount * count * duration
+    }
+    1 * writer.finishBucket() >> { latch.countDown() }
+
+    cleanup:
+    aggregator.close()
+
+    where:
+    threadCount | count | stripes
+    1           | 10    | 4
+    8           | 1000  | 4
+    8           | 1000  | 1
+    8           | 1000  | 3
+  }
+
+  def "requested stripes are rounded up to a power of two"() {
+    setup:
+    DDAgentFeaturesDiscovery features = Stub(DDAgentFeaturesDiscovery)
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(empty,
+      features, Stub(Sink), Stub(MetricWriter), 10, queueSize, requested, reportingInterval, SECONDS)
+
+    expect:
+    ConflatingMetricsAggregator.stripeCount(requested) == expected
+    aggregator.stripes.length == expected
+
+    where:
+    requested | expected
+    -1        | 0
+    0         | 0
+    1         | 1
+    2         | 2
+    3         | 4
+    5         | 8
+    6         | 8
+    8         | 8
+    9         | 16
+  }
+
   def "test least recently written to aggregate flushed when size limit exceeded"() {
     setup:
     int maxAggregates = 10
@@ -0,0 +1,75 @@
+package datadog.trace.common.sampling
+
+import datadog.trace.core.DDSpan
+import datadog.trace.test.util.DDSpecification
+
+import static datadog.trace.api.sampling.SamplingMechanism.LOCAL_USER_RULE
+
+class SamplingRuleIndexTest extends DDSpecification {
+
+  def "first matching rule wins across indexed and unindexed rules: #service #operation #resource"() {
+    given:
+    def rules = [
+      rule("*", "*", "GET /health", [:]),
+      rule("checkout", "*", "*", [:]),
+      rule("*", "http.*", "*", [:]),
+      rule("Checkout", "http.request", "*", [:]),
+      rule("cart", "*", "*", [:]),
+      rule("*", "*", "*", [:])
+    ]
+    def index = new SamplingRuleIndex(rules)
+
+    when:
+    def first = index.match(span(service, operation, resource, [:]))
+    def cached = index.match(span(service, operation, resource, [:]))
+
+    then:
+    first == rules[expected]
+    cached == rules[expected]
+
+    where:
+    service    | operation      | resource      | expected
+    "checkout" | "http.request" | "GET /health" | 0
+    "CHECKOUT" | "http.request" | "GET /"       | 1
+    "cart"     | "http.request" | "GET /"       | 2
+    "cart"     | "db.query"     | "SELECT"      | 4
+    "other"    | "db.query"     | "SELECT"      | 5
+    "ünicode"  | "db.query"     | "SELECT"      | 5
+    null       | "db.query"     | "SELECT"      | 5
+  }
+
+  def "returns null when no rule matches"() {
+    given:
+    def index = new SamplingRuleIndex([rule("checkout", "*", "*", [:]), rule("*", "db.*", "*", [:])])
+
+    expect:
+    index.match(span("cart", "http.request", "GET /", [:])) == null
+    index.match(span("cart", "http.request", "GET /", [:])) == null
+    new SamplingRuleIndex([]).match(span("cart", "http.request", "GET /", [:])) == null
+  }
+
+  def "outcomes which depend on tags are not cached"() {
+    given:
+    def rules = [rule("checkout", "*", "*", ["env": "prod"]), rule("checkout", "*", "*", [:])]
+    def index = new SamplingRuleIndex(rules)
+
+    expect:
+    index.match(span("checkout", "http.request", "GET /", ["env": "prod"])) == rules[0]
+    index.match(span("checkout", "http.request", "GET /", ["env": "test"])) == rules[1]
+    index.match(span("checkout", "http.request", "GET /", ["env": "prod"])) == rules[0]
+  }
+
+  def rule(String service, String operation, String resource, Map<String, String> tags) {
+    return new RateSamplingRule.TraceSamplingRule(
+      service, operation, resource, tags, new DeterministicSampler.TraceSampler(1.0), LOCAL_USER_RULE)
+  }
+
+  def span(String service, String operation, String resource, Map<String, String> tags) {
+    return Stub(DDSpan) {
+      getServiceName() >> service
+      getOperationName() >> operation
+      getResourceName() >> resource
+      getTag(_) >> { String tag -> tags[tag] }
+    }
+  }
+}
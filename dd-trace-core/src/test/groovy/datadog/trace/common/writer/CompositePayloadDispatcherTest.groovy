@@ -56,6 +56,26 @@ class CompositePayloadDispatcherTest extends Specification {
     0 * _
   }
 
+  def "test awaitSent and close"() {
+    given:
+    def dispatcherA = Mock(PayloadDispatcher)
+    def dispatcherB = Mock(PayloadDispatcher)
+    def dispatcher = new CompositePayloadDispatcher(dispatcherA, dispatcherB)
+
+    when:
+    dispatcher.awaitSent()
+    dispatcher.close()
+
+    then:
+    1 * dispatcherA.awaitSent()
+    1 * dispatcherB.awaitSent()
+
+    then:
+    1 * dispatcherA.close()
+    1 * dispatcherB.close()
+    0 * _
+  }
+
   def "test getApis"() {
     given:
     def dispatcherA = Mock(PayloadDispatcher)
@@ -20,8 +20,10 @@ import spock.lang.Shared
 import spock.lang.Timeout
 
 import java.nio.ByteBuffer
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
 
 class PayloadDispatcherImplTest extends DDSpecification {
 
@@ -81,6 +83,73 @@ class PayloadDispatcherImplTest extends DDSpecification {
     "v0.5/traces" | 100
   }
 
+  @Timeout(10)
+  def "should send chunks while serializing when payloads can be in flight"() {
+    setup:
+    HealthMetrics healthMetrics = Stub(HealthMetrics)
+    DDAgentFeaturesDiscovery discovery = Stub(DDAgentFeaturesDiscovery)
+    discovery.getTraceEndpoint() >> "v0.4/traces"
+    List<Integer> sentTraceCounts = Collections.synchronizedList([])
+    List<String> senderThreads = Collections.synchronizedList([])
+    DDAgentApi api = Stub(DDAgentApi)
+    api.sendSerializedTraces(_) >> { Payload payload ->
+      sentTraceCounts.add(payload.traceCount())
+      senderThreads.add(Thread.currentThread().name)
+      return RemoteApi.Response.success(200)
+    }
+    PayloadDispatcherImpl dispatcher = new PayloadDispatcherImpl(new DDAgentMapperDiscovery(discovery), api, healthMetrics, monitoring, 2, 1024)
+    List<DDSpan> trace = [realSpan()]
+
+    when:
+    for (int i = 0; i < 100; ++i) {
+      dispatcher.addTrace(trace)
+    }
+    dispatcher.flush()
+    dispatcher.awaitSent()
+
+    then: "all traces are sent in chunks"
+    sentTraceCounts.size() > 1
+    sentTraceCounts.sum() == 100
+    senderThreads.every { it.contains("dd-trace-dispatcher") }
+
+    cleanup:
+    dispatcher.close()
+  }
+
+  @Timeout(10)
+  def "flushing doesn't wait for payloads in flight, and closing stops their sender"() {
+    setup:
+    DDAgentFeaturesDiscovery discovery = Stub(DDAgentFeaturesDiscovery)
+    discovery.getTraceEndpoint() >> "v0.4/traces"
+    CountDownLatch sending = new CountDownLatch(1)
+    CountDownLatch sent = new CountDownLatch(1)
+    AtomicReference<Thread> senderThread = new AtomicReference<>()
+    DDAgentApi api = Stub(DDAgentApi)
+    api.sendSerializedTraces(_) >> {
+      senderThread.set(Thread.currentThread())
+      sending.countDown()
+      sent.await()
+      return RemoteApi.Response.success(200)
+    }
+    PayloadDispatcherImpl dispatcher = new PayloadDispatcherImpl(new DDAgentMapperDiscovery(discovery), api, Stub(HealthMetrics), monitoring, 2, 1024)
+
+    when: "a flushed payload is still being sent"
+    dispatcher.addTrace([realSpan()])
+    dispatcher.flush()
+
+    then: "the flush has returned"
+    sending.await(5, TimeUnit.SECONDS)
+
+    when:
+    sent.countDown()
+    dispatcher.awaitSent()
+    dispatcher.close()
+    senderThread.get().join(5000)
+
+    then:
+    !senderThread.get().alive
+  }
+
   def "should report failed request to monitor"() {
     setup:
     HealthMetrics healthMetrics = Mock(HealthMetrics)
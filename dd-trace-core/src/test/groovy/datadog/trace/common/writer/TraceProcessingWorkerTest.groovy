@@ -1,5 +1,6 @@
 package datadog.trace.common.writer
 
+import datadog.trace.api.DDTraceId
 import datadog.trace.common.sampling.SingleSpanSampler
 import datadog.trace.common.writer.ddagent.PrioritizationStrategy.PublishResult
 import datadog.trace.core.CoreSpan
@@ -11,8 +12,10 @@ import datadog.trace.core.postprocessor.SpanPostProcessor
 import datadog.trace.test.util.DDSpecification
 import spock.util.concurrent.PollingConditions
 
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.IntSupplier
 
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_DROP
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_KEEP
@@ -115,6 +118,54 @@ class TraceProcessingWorkerTest extends DDSpecification {
     worker.close()
   }
 
+  def "only requested flushes wait for payloads to be sent and the dispatcher is closed on shutdown"() {
+    setup:
+    AtomicInteger flushCount = new AtomicInteger()
+    AtomicInteger awaitCount = new AtomicInteger()
+    AtomicInteger closeCount = new AtomicInteger()
+    PayloadDispatcherImpl dispatcher = flushCountingPayloadDispatcher(flushCount)
+    dispatcher.awaitSent() >> {
+      awaitCount.incrementAndGet()
+    }
+    dispatcher.close() >> {
+      closeCount.incrementAndGet()
+    }
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, Stub(HealthMetrics),
+      dispatcher,
+      {
+        false
+      },
+      FAST_LANE,
+      1,
+      TimeUnit.NANOSECONDS,
+      null,
+      null
+      ) // stop heartbeats from being throttled
+
+    when: "heartbeats flush the dispatcher"
+    worker.start()
+
+    then: "they don't wait for payloads to be sent"
+    conditions.eventually {
+      assert flushCount.get() > 1
+    }
+    awaitCount.get() == 0
+
+    when: "a flush is requested"
+    boolean flushed = worker.flush(10, TimeUnit.SECONDS)
+
+    then: "it waits for payloads to be sent"
+    flushed
+    awaitCount.get() == 1
+    closeCount.get() == 0
+
+    when:
+    worker.close()
+
+    then:
+    closeCount.get() == 1
+  }
+
   def "should report failure if serialization fails"() {
     setup:
     Throwable theError = new IllegalStateException("thrown by test")
@@ -282,6 +333,127 @@ class TraceProcessingWorkerTest extends DDSpecification {
     !flushed
   }
 
+  def "sharded worker routes traces by trace id and flushes every shard"() {
+    setup:
+    AtomicInteger flushCount = new AtomicInteger()
+    Map<Long, Set<Integer>> shardsByTraceId = new ConcurrentHashMap<>()
+    PayloadDispatcher[] dispatchers = new PayloadDispatcher[4]
+    for (int i = 0; i < dispatchers.length; i++) {
+      int shard = i
+      PayloadDispatcherImpl dispatcher = Mock(PayloadDispatcherImpl)
+      dispatcher.flush() >> {
+        flushCount.incrementAndGet()
+      }
+      dispatcher.addTrace(_) >> {
+        List trace = it[0]
+        shardsByTraceId.computeIfAbsent(trace[0].getTraceId().toLong(), {
+          ConcurrentHashMap.newKeySet()
+        }).add(shard)
+      }
+      dispatchers[i] = dispatcher
+    }
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, Stub(HealthMetrics),
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    worker.start()
+
+    when: "chunks of the same traces are published"
+    for (int chunk = 0; chunk < 2; chunk++) {
+      for (long traceId = 1; traceId <= 8; traceId++) {
+        DDSpan span = Stub(DDSpan) {
+          getTraceId() >> DDTraceId.from(traceId)
+        }
+        worker.publish(span, SAMPLER_KEEP, [span])
+      }
+    }
+    boolean flushed = worker.flush(10, TimeUnit.SECONDS)
+
+    then: "all shards were flushed and each trace was serialized by a single shard"
+    flushed
+    flushCount.get() == 4
+    worker.getShardCount() == 4
+    worker.getCapacity() == 40
+    shardsByTraceId.size() == 8
+    shardsByTraceId.values().every { it.size() == 1 }
+
+    cleanup:
+    worker.close()
+  }
+
+  def "flush requested by the prioritization strategy reaches every shard"() {
+    setup:
+    AtomicInteger flushCount = new AtomicInteger()
+    PayloadDispatcher[] dispatchers = new PayloadDispatcher[4]
+    for (int i = 0; i < dispatchers.length; i++) {
+      dispatchers[i] = flushCountingPayloadDispatcher(flushCount)
+    }
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, Stub(HealthMetrics),
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    worker.start()
+
+    when:
+    boolean flushed = worker.prioritizationStrategy.flush(10, TimeUnit.SECONDS)
+
+    then:
+    flushed
+    flushCount.get() == 4
+
+    cleanup:
+    worker.close()
+  }
+
+  def "sharded flush gives up on shards whose serializer is not running"() {
+    setup:
+    HealthMetrics healthMetrics = Mock(HealthMetrics)
+    PayloadDispatcher[] dispatchers = new PayloadDispatcher[2]
+    for (int i = 0; i < dispatchers.length; i++) {
+      dispatchers[i] = Mock(PayloadDispatcherImpl)
+    }
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, healthMetrics,
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    // the serializers are never started, so nothing drains the full queues
+    worker.primaryQueues.each { queue ->
+      while (queue.offer(new Object())) {}
+    }
+
+    when:
+    boolean flushed = worker.prioritizationStrategy.flush(100, TimeUnit.MILLISECONDS)
+
+    then:
+    !flushed
+  }
+
+  def "sharded worker reports the length of every shard queue"() {
+    setup:
+    IntSupplier[] shardQueueLengths = null
+    HealthMetrics healthMetrics = Mock(HealthMetrics)
+    PayloadDispatcher[] dispatchers = new PayloadDispatcher[2]
+    for (int i = 0; i < dispatchers.length; i++) {
+      dispatchers[i] = Mock(PayloadDispatcherImpl)
+    }
+
+    when:
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, healthMetrics,
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    worker.primaryQueues[1].offer(new Object())
+    worker.secondaryQueues[1].offer(new Object())
+
+    then:
+    1 * healthMetrics.onShardQueues(_) >> {
+      shardQueueLengths = it[0]
+    }
+    shardQueueLengths.length == 2
+    shardQueueLengths[0].getAsInt() == 0
+    shardQueueLengths[1].getAsInt() == 2
+  }
+
   def "send unsampled traces to the SpanProcessingWorker and expect only sampled spans dispatched when dropping policy is active"() {
     setup:
     HealthMetrics healthMetrics = Mock(HealthMetrics)
@@ -0,0 +1,186 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery
+import datadog.communication.serialization.GrowableBuffer
+import datadog.communication.serialization.msgpack.MsgPackWriter
+import datadog.trace.api.DDTags
+import datadog.trace.api.DDTraceId
+import datadog.trace.api.interceptor.MutableSpan
+import datadog.trace.api.interceptor.TraceInterceptor
+import datadog.trace.api.time.SystemTimeSource
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.CoreTracer
+import datadog.trace.core.DDSpan
+import datadog.trace.core.PendingTrace
+import datadog.trace.core.PendingTraceBuffer
+import datadog.trace.core.monitor.HealthMetrics
+import datadog.trace.core.tagprocessor.TagsPostProcessorFactory
+import datadog.trace.core.test.DDCoreSpecification
+
+import java.nio.ByteBuffer
+
+import static datadog.trace.core.PendingTraceBufferTest.newSpanOf
+
+class SpanPreEncoderTest extends DDCoreSpecification {
+
+  def writer = new ListWriter()
+  def tracer = tracerBuilder().writer(writer).build()
+  def features = Stub(DDAgentFeaturesDiscovery) {
+    getTraceEndpoint() >> DDAgentFeaturesDiscovery.V4_ENDPOINT
+  }
+  def encoder = new SpanPreEncoder(features, 2)
+
+  def cleanup() {
+    tracer?.close()
+    TagsPostProcessorFactory.reset()
+  }
+
+  def "pre-encoded spans are copied into the payload unchanged"() {
+    setup:
+    def root = tracer.buildSpan("root").withServiceName("service").start()
+    List<DDSpan> children = (1..4).collect {
+      def child = tracer.buildSpan("child" + it).asChildOf(root.context()).start()
+      child.setTag("string", "value" + it)
+      child.setMetric("metric", it)
+      child.finish()
+      return child as DDSpan
+    }
+    root.finish()
+    List<DDSpan> trace = [root as DDSpan] + children
+    byte[] expected = encode(trace)
+
+    when:
+    trace.each {
+      it.setPreEncoded(encoder.encode(it))
+    }
+    byte[] actual = encode(trace)
+
+    then:
+    trace.every { it.getPreEncoded() != null }
+    actual == expected
+  }
+
+  def "single span sampling discards the pre-encoded span"() {
+    setup:
+    def span = tracer.buildSpan("span").start()
+    span.finish()
+    span.setPreEncoded(encoder.encode(span))
+
+    when:
+    span.setSpanSamplingPriority(1.0d, 10)
+
+    then:
+    span.getPreEncoded() == null
+  }
+
+  def "spans are only pre-encoded for the v0.4 endpoint"() {
+    setup:
+    def span = tracer.buildSpan("span").start()
+    span.finish()
+    def encoder = new SpanPreEncoder(Stub(DDAgentFeaturesDiscovery) {
+      getTraceEndpoint() >> endpoint
+    }, 2)
+
+    expect:
+    (encoder.encode(span) != null) == encoded
+
+    where:
+    endpoint                                | encoded
+    null                                    | false
+    DDAgentFeaturesDiscovery.V5_ENDPOINT    | false
+    DDAgentFeaturesDiscovery.V4_ENDPOINT    | true
+  }
+
+  def "encoders which grew for large spans are not kept"() {
+    setup:
+    def small = tracer.buildSpan("small").start()
+    small.finish()
+    def large = tracer.buildSpan("large").start()
+    large.setTag("large", "x" * SpanPreEncoder.MAX_RETAINED_BUFFER_SIZE)
+    large.finish()
+
+    when:
+    encoder.encode(small)
+
+    then:
+    encoder.encoders.size() == 1
+
+    when:
+    def encoded = encoder.encode(large)
+
+    then:
+    encoded.length > SpanPreEncoder.MAX_RETAINED_BUFFER_SIZE
+    encoder.encoders.size() == 0
+  }
+
+  def "pending traces pre-encode finished child spans"() {
+    setup:
+    // the test spans don't use the default service, which the base service adder would tag
+    TagsPostProcessorFactory.withAddBaseService(false)
+    def coreTracer = Mock(CoreTracer)
+    def traceConfig = Mock(CoreTracer.ConfigSnapshot)
+    coreTracer.captureTraceConfig() >> traceConfig
+    traceConfig.getServiceMapping() >> [:]
+    coreTracer.hasTraceInterceptors() >> interceptors
+    def factory = new PendingTrace.Factory(
+      coreTracer, Stub(PendingTraceBuffer), SystemTimeSource.INSTANCE, false, HealthMetrics.NO_OP,
+      preEncode ? encoder : null)
+    def root = newSpanOf(factory.create(DDTraceId.ONE))
+    def child = newSpanOf(root)
+    if (query) {
+      child.setTag(DDTags.HTTP_QUERY, "a=b")
+    }
+
+    when:
+    child.finish()
+    root.finish()
+
+    then:
+    (child.getPreEncoded() != null) == encoded
+    root.getPreEncoded() == null
+
+    where:
+    preEncode | interceptors | query | encoded
+    true      | false        | false | true
+    true      | true         | false | false
+    true      | false        | true  | false
+    false     | false        | false | false
+  }
+
+  def "trace interceptors discard pre-encoded spans"() {
+    setup:
+    tracer.addTraceInterceptor(new TraceInterceptor() {
+        @Override
+        Collection<? extends MutableSpan> onTraceComplete(Collection<? extends MutableSpan> trace) {
+          return trace
+        }
+
+        @Override
+        int priority() {
+          return 0
+        }
+      })
+    def root = tracer.buildSpan("root").start()
+    def child = tracer.buildSpan("child").asChildOf(root.context()).start()
+    child.finish()
+    child.setPreEncoded(encoder.encode(child))
+    root.finish()
+
+    when:
+    writer.waitForTraces(1)
+
+    then:
+    child.getPreEncoded() == null
+    writer.firstTrace().every { it.getPreEncoded() == null }
+  }
+
+  static byte[] encode(List<DDSpan> trace) {
+    GrowableBuffer buffer = new GrowableBuffer(1 << 10)
+    MsgPackWriter writer = new MsgPackWriter(buffer)
+    new TraceMapperV0_4().map(trace, writer)
+    ByteBuffer slice = buffer.slice()
+    byte[] bytes = new byte[slice.remaining()]
+    slice.get(bytes)
+    return bytes
+  }
+}
@@ -443,6 +443,54 @@ class PendingTraceBufferTest extends DDSpecification {
     }
   }
 
+  def "finished spans are spilled in batches once over the byte budget"() {
+    setup:
+    def healthMetrics = Mock(HealthMetrics)
+    def config = Mock(Config) {
+      getTracePendingBufferMaxBytes() >> 1
+    }
+    def budgetBuffer = PendingTraceBuffer.delaying(SystemTimeSource.INSTANCE, config, null, healthMetrics)
+    def budgetFactory = new PendingTrace.Factory(tracer, budgetBuffer, SystemTimeSource.INSTANCE, false, healthMetrics)
+    def pendingTrace = budgetFactory.create(DDTraceId.ONE)
+    def parent = addContinuation(newSpanOf(pendingTrace))
+    def batch = PendingTrace.spillMinSpans(100)
+    List<DDSpan> children = []
+
+    expect:
+    budgetBuffer.hasByteBudget()
+    !budgetBuffer.overByteBudget()
+
+    when: "fewer children than a spill batch finish while their trace is still open"
+    (batch - 1).times {
+      def child = newSpanOf(parent)
+      child.finish()
+      children << child
+    }
+
+    then: "they are kept even though the buffer is over its byte budget"
+    _ * tracer.getPartialFlushMinSpans() >> 100
+    0 * tracer.write(_)
+    0 * healthMetrics.onSpill(_, _)
+    budgetBuffer.overByteBudget()
+    pendingTrace.spans.size() == batch - 1
+
+    when: "the batch is complete"
+    def last = newSpanOf(parent)
+    last.finish()
+    children << last
+
+    then: "it is written right away instead of waiting for the rest of the trace"
+    _ * tracer.getPartialFlushMinSpans() >> 100
+    1 * tracer.writeTimer() >> Monitoring.DISABLED.newTimer("")
+    1 * tracer.write({ it.size() == batch && it.containsAll(children) })
+    1 * healthMetrics.onSpill(batch, children.sum { PendingTrace.estimateSize(it) })
+    !budgetBuffer.overByteBudget()
+    pendingTrace.spans.isEmpty()
+
+    cleanup:
+    budgetBuffer.close()
+  }
+
   def addContinuation(DDSpan span) {
     def scope = scopeManager.activate(span, ScopeSource.INSTRUMENTATION, true)
     continuations << scope.capture()
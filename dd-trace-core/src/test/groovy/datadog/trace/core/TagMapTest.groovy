@@ -0,0 +1,171 @@
+package datadog.trace.core
+
+import datadog.trace.test.util.DDSpecification
+
+class TagMapTest extends DDSpecification {
+
+  def "behaves like a HashMap under random updates"() {
+    setup:
+    Random random = new Random(seed)
+    TagMap tags = new TagMap(4)
+    Map<String, Object> expected = new HashMap<>()
+
+    when:
+    for (int i = 0; i < 5000; i++) {
+      String key = "key" + random.nextInt(64)
+      switch (random.nextInt(5)) {
+        case 0:
+          tags.put(key, "value" + i)
+          expected.put(key, "value" + i)
+          break
+        case 1:
+          tags.putInt(key, i)
+          expected.put(key, i)
+          break
+        case 2:
+          tags.putDouble(key, i * 0.5d)
+          expected.put(key, i * 0.5d)
+          break
+        case 3:
+          assert tags.remove(key) == expected.remove(key)
+          break
+        default:
+          assert tags.get(key) == expected.get(key)
+      }
+      assert tags.size() == expected.size()
+    }
+
+    then:
+    tags == expected
+    expected == tags
+
+    where:
+    seed << [1, 2, 3, 42]
+  }
+
+  def "entries can be removed while iterating"() {
+    setup:
+    TagMap tags = new TagMap(4)
+    Map<String, Object> expected = new HashMap<>()
+    for (int i = 0; i < 200; i++) {
+      tags.putInt("key" + i, i)
+      expected.put("key" + i, i)
+    }
+    List<String> visited = []
+
+    when:
+    Iterator<Map.Entry<String, Object>> iterator = tags.entrySet().iterator()
+    while (iterator.hasNext()) {
+      Map.Entry<String, Object> entry = iterator.next()
+      visited.add(entry.key)
+      assert entry.value == expected.get(entry.key)
+      if (((int) entry.value) % modulo == 0) {
+        iterator.remove()
+      }
+    }
+    expected.removeAll { ((int) it.value) % modulo == 0 }
+
+    then: "every entry was visited once and only the matching ones were removed"
+    visited.size() == 200
+    visited.toSet().size() == 200
+    tags == expected
+    tags.size() == expected.size()
+
+    where:
+    modulo << [1, 2, 3, 7]
+  }
+
+  def "removing through an iterator requires a current entry"() {
+    setup:
+    TagMap tags = new TagMap()
+    tags.put("key", "value")
+    Iterator<Map.Entry<String, Object>> iterator = tags.entrySet().iterator()
+
+    when:
+    iterator.remove()
+
+    then:
+    thrown(IllegalStateException)
+
+    when:
+    iterator.next()
+    iterator.remove()
+    iterator.remove()
+
+    then:
+    thrown(IllegalStateException)
+    tags.isEmpty()
+  }
+
+  def "primitive metrics are boxed only when read through the map"() {
+    setup:
+    TagMap tags = new TagMap()
+    tags.putInt("int", 1)
+    tags.putLong("long", 2L)
+    tags.putFloat("float", 3.5f)
+    tags.putDouble("double", 4.5d)
+    tags.put("string", "five")
+
+    def visited = [:]
+    def visitor = new TagMap.Visitor() {
+        void visit(String key, Object value) {
+          visited[key] = value
+        }
+
+        void visitInt(String key, int value) {
+          visited[key] = "int:" + value
+        }
+
+        void visitLong(String key, long value) {
+          visited[key] = "long:" + value
+        }
+
+        void visitFloat(String key, float value) {
+          visited[key] = "float:" + value
+        }
+
+        void visitDouble(String key, double value) {
+          visited[key] = "double:" + value
+        }
+      }
+
+    when:
+    tags.forEach(visitor)
+
+    then:
+    visited == ["int": "int:1", "long": "long:2", "float": "float:3.5", "double": "double:4.5", "string": "five"]
+    tags.get("int") == Integer.valueOf(1)
+    tags.get("long") == Long.valueOf(2L)
+    tags.get("float") == Float.valueOf(3.5f)
+    tags.get("double") == Double.valueOf(4.5d)
+  }
+
+  def "replacing a metric with a string value drops the primitive"() {
+    setup:
+    TagMap tags = new TagMap()
+    tags.putLong("key", 10L)
+
+    when:
+    def previous = tags.put("key", "value")
+
+    then:
+    previous == 10L
+    tags.get("key") == "value"
+    tags.size() == 1
+  }
+
+  def "clear removes every tag"() {
+    setup:
+    TagMap tags = new TagMap()
+
+    when:
+    tags.putInt("sampled", 1)
+    tags.put("peer.service", "db")
+    tags.remove("peer.service")
+    tags.clear()
+
+    then:
+    tags.isEmpty()
+    tags.entrySet().isEmpty()
+  }
+}
@@ -19,4 +19,21 @@ class DataSetHashBuilderTest extends DDCoreSpecification {
     // different parent hashes should produce different results
     assert  builderOne.addValue("1") != builderTwo.addValue("0")
   }
+
+  def "Dataset hash of a pathway hash matches the string based hash"() {
+    given:
+    var builder = new DefaultPathwayContext.DataSetHashBuilder()
+    var currentHash = tag == null ? 0L : builder.addValue(tag)
+
+    expect:
+    DefaultPathwayContext.DataSetHashBuilder.addValue(currentHash, pathwayHash) == builder.addValue(String.valueOf(pathwayHash))
+
+    where:
+    tag                            | pathwayHash
+    null                           | 0L
+    null                           | 1234567890123L
+    "ds.namespace=s3://my_bucket"  | -42L
+    "ds.name=my_table"             | Long.MAX_VALUE
+    "ds.name=my_table"             | Long.MIN_VALUE
+  }
 }
@@ -581,6 +581,27 @@ class DefaultPathwayContextTest extends DDCoreSpecification {
     pointConsumer.points[0].hash != pointConsumer.points[1].hash
   }
 
+  def "Checkpoints with the same tags share their edge tags"() {
+    given:
+    def timeSource = new ControllableTimeSource()
+    def firstContext = new DefaultPathwayContext(timeSource, wellKnownTags)
+    def secondContext = new DefaultPathwayContext(timeSource, wellKnownTags)
+
+    when:
+    firstContext.setCheckpoint(new LinkedHashMap<>(["direction": "out", "topic": "topic", "type": "kafka"]), pointConsumer)
+    secondContext.setCheckpoint(new LinkedHashMap<>(["direction": "out", "topic": "topic", "type": "kafka"]), pointConsumer)
+    secondContext.setCheckpoint(new LinkedHashMap<>(["direction": "out", "topic": "other", "type": "kafka"]), pointConsumer)
+
+    then:
+    pointConsumer.points.size() == 3
+    pointConsumer.points[0].edgeTags == ["direction:out", "topic:topic", "type:kafka"]
+    pointConsumer.points[1].edgeTags.is(pointConsumer.points[0].edgeTags)
+    pointConsumer.points[1].hash == pointConsumer.points[0].hash
+    pointConsumer.points[1].dataSetHash == pointConsumer.points[0].dataSetHash
+    pointConsumer.points[2].edgeTags == ["direction:out", "topic:other", "type:kafka"]
+    pointConsumer.points[2].hash != pointConsumer.points[1].hash
+  }
+
   def "Check context extractor decorator behavior"() {
     given:
     def sink = Mock(Sink)
@@ -0,0 +1,81 @@
+package datadog.trace.core.datastreams
+
+import datadog.trace.bootstrap.instrumentation.api.Backlog
+import datadog.trace.bootstrap.instrumentation.api.StatsPoint
+import datadog.trace.core.monitor.HealthMetrics
+import datadog.trace.core.test.DDCoreSpecification
+
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class StatsStripeTest extends DDCoreSpecification {
+
+  static final BUCKET_DURATION_NANOS = SECONDS.toNanos(10)
+
+  def "partial buckets are merged into the reported buckets"() {
+    given:
+    def healthMetrics = Mock(HealthMetrics)
+    def stripe = new StatsStripe(BUCKET_DURATION_NANOS, 16)
+    def timeToBucket = new HashMap<Long, StatsBucket>()
+    def existing = new StatsBucket(0, BUCKET_DURATION_NANOS)
+    existing.addPoint(point(1, 0))
+    timeToBucket.put(0L, existing)
+
+    when:
+    stripe.addPoint(point(1, 1))
+    stripe.addPoint(point(2, 2))
+    stripe.addPoint(point(1, BUCKET_DURATION_NANOS + 1))
+    stripe.addBacklog(new Backlog(["topic:testTopic"], 3, 3))
+    stripe.addBacklog(new Backlog(["topic:testTopic"], 2, 4))
+    stripe.drainTo(timeToBucket, healthMetrics)
+
+    then:
+    0 * healthMetrics._
+    timeToBucket.size() == 2
+    with(timeToBucket.get(0L)) {
+      it.is(existing)
+      groups.size() == 2
+      groups.find { it.hash == 1 }.pathwayLatency.count == 2
+      backlogs.size() == 1
+      backlogs.iterator().next().value == 3
+    }
+    timeToBucket.get(BUCKET_DURATION_NANOS).groups.size() == 1
+
+    when: "draining again"
+    stripe.drainTo(timeToBucket, healthMetrics)
+
+    then: "nothing more is merged"
+    timeToBucket.get(0L).groups.find { it.hash == 1 }.pathwayLatency.count == 2
+  }
+
+  def "points needing new groups are dropped once the stripe is full"() {
+    given:
+    def healthMetrics = Mock(HealthMetrics)
+    def stripe = new StatsStripe(BUCKET_DURATION_NANOS, 2)
+    def timeToBucket = new HashMap<Long, StatsBucket>()
+
+    when:
+    stripe.addPoint(point(1, 0))
+    stripe.addPoint(point(2, 0))
+    stripe.addPoint(point(3, 0))
+    stripe.addPoint(point(1, 1))
+    stripe.addBacklog(new Backlog(["topic:testTopic"], 1, 0))
+    stripe.drainTo(timeToBucket, healthMetrics)
+
+    then:
+    1 * healthMetrics.onDataStreamsDrop(1, 1)
+    timeToBucket.get(0L).groups.size() == 2
+    timeToBucket.get(0L).groups.find { it.hash == 1 }.pathwayLatency.count == 2
+
+    when: "the stripe has been drained"
+    stripe.addPoint(point(3, 0))
+    stripe.drainTo(timeToBucket, healthMetrics)
+
+    then: "it accepts new groups again"
+    0 * healthMetrics._
+    timeToBucket.get(0L).groups.size() == 3
+  }
+
+  static StatsPoint point(long hash, long timestampNanos) {
+    return new StatsPoint(["type:testType"], hash, 0, hash, timestampNanos, 1, 1, 0)
+  }
+}
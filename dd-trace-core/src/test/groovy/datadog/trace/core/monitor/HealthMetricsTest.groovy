@@ -12,6 +12,7 @@ import spock.lang.Subject
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ThreadLocalRandom
 import java.util.concurrent.TimeUnit
+import java.util.function.IntSupplier
 
 
 class HealthMetricsTest extends DDSpecification {
@@ -415,6 +416,36 @@ class HealthMetricsTest extends DDSpecification {
     healthMetrics.close()
   }
 
+  def "test onDataStreamsDrop"() {
+    setup:
+    def latch = new CountDownLatch(2)
+    def healthMetrics = new TracerHealthMetrics(new Latched(statsD, latch), 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+    when:
+    healthMetrics.onDataStreamsDrop(7, 2)
+    latch.await(10, TimeUnit.SECONDS)
+    then:
+    1 * statsD.count("datastreams.dropped.points", 7, _)
+    1 * statsD.count("datastreams.dropped.backlogs", 2, _)
+    cleanup:
+    healthMetrics.close()
+  }
+
+  def "test onShardQueues"() {
+    setup:
+    def latch = new CountDownLatch(2)
+    def healthMetrics = new TracerHealthMetrics(new Latched(statsD, latch), 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+    when:
+    healthMetrics.onShardQueues([{ 3 } as IntSupplier, { 0 } as IntSupplier] as IntSupplier[])
+    latch.await(10, TimeUnit.SECONDS)
+    then:
+    (1.._) * statsD.gauge("queue.shard.length", 3, "shard:0")
+    (1.._) * statsD.gauge("queue.shard.length", 0, "shard:1")
+    cleanup:
+    healthMetrics.close()
+  }
+
   private static class Latched implements StatsDClient {
     final StatsDClient delegate
     final CountDownLatch latch
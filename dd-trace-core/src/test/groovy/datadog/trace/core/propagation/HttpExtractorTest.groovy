@@ -93,4 +93,38 @@ class HttpExtractorTest extends DDSpecification {
     [NONE]             | "1"               | "2"               | null              | null              | null            | null           | true             | false               | true
     // spotless:on
   }
+
+  def "compound extractor reuses its header cache across extractions"() {
+    setup:
+    Config config = Mock(Config) {
+      getTracePropagationStylesToExtract() >> [DATADOG, B3MULTI]
+    }
+    DynamicConfig dynamicConfig = DynamicConfig.create()
+      .setHeaderTags([:])
+      .setBaggageMapping([:])
+      .apply()
+    HttpCodec.Extractor extractor = HttpCodec.createExtractor(config, { dynamicConfig.captureTraceConfig() })
+    Map<String, String> manyHeaders = (1..40).collectEntries { ["some-header-$it".toString(), "ignored"] }
+
+    when: "more headers than the initial cache capacity are extracted"
+    final TagContext first = extractor.extract(manyHeaders + [
+      (DatadogHttpCodec.TRACE_ID_KEY): "1",
+      (DatadogHttpCodec.SPAN_ID_KEY) : "2"
+    ], ContextVisitors.stringValuesMap())
+
+    then:
+    first.traceId.toLong() == 1
+    first.spanId == 2
+
+    when: "headers from the previous extraction are not replayed"
+    final TagContext second = extractor.extract([
+      (B3HttpCodec.TRACE_ID_KEY): "a",
+      (B3HttpCodec.SPAN_ID_KEY) : "b"
+    ], ContextVisitors.stringValuesMap())
+
+    then:
+    second.traceId.toLong() == 10
+    second.spanId == 11
+    second.propagationTags != null
+  }
 }
@@ -4,6 +4,7 @@ import datadog.trace.agent.test.utils.ThreadUtils
 import datadog.trace.api.DDTraceId
 import datadog.trace.api.Stateful
 import datadog.trace.api.TraceConfig
+import datadog.trace.api.config.TracerConfig
 import datadog.trace.api.interceptor.MutableSpan
 import datadog.trace.api.interceptor.TraceInterceptor
 import datadog.trace.api.scopemanager.ExtendedScopeListener
@@ -1076,6 +1077,83 @@ class ScopeManagerTest extends DDCoreSpecification {
     executor.shutdown()
   }
 
+  def "lazy scope stacks are only kept by threads with active scopes"() {
+    setup:
+    injectSysConfig(TracerConfig.SCOPE_LAZY_STACKS_ENABLED, "true")
+    def lazyTracer = tracerBuilder().writer(writer).build()
+    ContinuableScopeManager lazyScopeManager = lazyTracer.scopeManager
+
+    when: "the active span is queried"
+    lazyScopeManager.activeSpan()
+
+    then: "no stack is created"
+    lazyScopeManager.tlsScopeStack.get() == null
+
+    when: "there is no previous iteration scope to close"
+    lazyScopeManager.closePrevious(true)
+
+    then: "no stack is created"
+    lazyScopeManager.tlsScopeStack.get() == null
+
+    when: "an iteration scope is activated and closed"
+    def iterationSpan = lazyTracer.buildSpan("iteration").start()
+    lazyScopeManager.activateNext(iterationSpan)
+
+    then:
+    lazyScopeManager.activeSpan() == iterationSpan
+
+    when:
+    lazyScopeManager.closePrevious(true)
+
+    then: "the stack is released again"
+    iterationSpan.isFinished()
+    lazyScopeManager.tlsScopeStack.get() == null
+
+    when: "scopes are activated beyond the inline slot"
+    def spans = (1..4).collect { lazyTracer.buildSpan("test" + it).start() }
+    def scopes = spans.collect { lazyTracer.activateSpan(it) }
+
+    def stack = lazyScopeManager.scopeStack()
+
+    then:
+    stack.depth() == 4
+    lazyScopeManager.activeSpan() == spans[3]
+
+    when: "scopes are closed in order"
+    scopes.reverse().eachWithIndex { scope, i ->
+      scope.close()
+      assert lazyScopeManager.activeSpan() == (i < 3 ? spans[2 - i] : null)
+    }
+
+    then: "the stack and its deque are released"
+    lazyScopeManager.tlsScopeStack.get() == null
+    stack.stack == null
+
+    cleanup:
+    spans*.finish()
+    lazyTracer.close()
+  }
+
+  def "eager scope stacks keep their deque once empty"() {
+    setup:
+    def spans = (1..4).collect { tracer.buildSpan("test" + it).start() }
+    def scopes = spans.collect { tracer.activateSpan(it) }
+    def stack = scopeManager.scopeStack()
+    def deque = stack.stack
+
+    when:
+    scopes.reverse()*.close()
+
+    then:
+    deque != null
+    stack.depth() == 0
+    stack.stack.is(deque)
+    scopeManager.scopeStack().is(stack)
+
+    cleanup:
+    spans*.finish()
+  }
+
   boolean spanFinished(AgentSpan span) {
     return ((DDSpan) span)?.isFinished()
   }
@@ -59,4 +59,30 @@ class PostProcessorChainTest extends DDSpecification {
     then:
     assert out == ["my": "tag"]
   }
+
+  def "chain applies when any processor applies"() {
+    setup:
+    def processors = applies.collect { boolean processorApplies ->
+      new TagsPostProcessor() {
+          @Override
+          Map<String, Object> processTags(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+            return unsafeTags
+          }
+
+          @Override
+          boolean appliesTo(Map<String, Object> unsafeTags, DDSpanContext spanContext) {
+            return processorApplies
+          }
+        }
+    }
+
+    expect:
+    new PostProcessorChain(processors as TagsPostProcessor[]).appliesTo([:], null) == expected
+
+    where:
+    applies        | expected
+    []             | false
+    [false, false] | false
+    [false, true]  | true
+  }
 }
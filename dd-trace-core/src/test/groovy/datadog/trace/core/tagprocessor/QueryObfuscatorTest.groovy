@@ -5,6 +5,15 @@ import datadog.trace.bootstrap.instrumentation.api.Tags
 import datadog.trace.test.util.DDSpecification
 
 class QueryObfuscatorTest extends DDSpecification {
+  def "only applies to tags with a query"() {
+    setup:
+    def obfuscator = new QueryObfuscator()
+
+    expect:
+    obfuscator.appliesTo([(Tags.HTTP_URL): 'http://site.com/index', (DDTags.HTTP_QUERY): 'a=b'], null)
+    !obfuscator.appliesTo([(Tags.HTTP_URL): 'http://site.com/index'], null)
+  }
+
   def "tags processing"() {
     setup:
     def obfuscator = new QueryObfuscator()
@@ -20,9 +20,9 @@ class MatchersTest extends DDSpecification {
     glob << ["a", "ogre", "bcoho34e2"]
   }
 
-  def "pattern with either * or ? must be a PatternMatcher"() {
+  def "pattern with either * or ? must be a GlobMatcher"() {
     expect:
-    Matchers.compileGlob(glob) instanceof Matchers.PatternMatcher
+    Matchers.compileGlob(glob) instanceof Matchers.GlobMatcher
 
     where:
     glob << ["?", "foo*", "*bar", "F?oB?r", "F?o*", "?*", "*?"]
@@ -106,6 +106,13 @@ class MatchersTest extends DDSpecification {
     "()"    | "()"                     | true
     "(*)"   | "(-)"                    | true
     "\$"    | "\$"                     | true
+    "*a*b"  | "xaybzb"                 | true
+    "*a*b"  | "xaybzc"                 | false
+    "a*"    | "a\nb"                   | false
+    "a?b"   | "a\nb"                   | false
+    "F*"    | "foo"                    | true
+    "é*"    | "É"                      | false
+    "k*"    | "\u212a"                 | false
   }
 
   // helper functions - to subvert codenarc
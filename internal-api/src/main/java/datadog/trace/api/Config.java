@@ -77,6 +77,7 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_ERROR_STATUSE
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_ROUTE_BASED_NAMING;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_TAG_QUERY_STRING;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_DEBUG_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_HARDCODED_SECRET_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_REDACTION_ENABLED;
@@ -202,6 +203,7 @@ import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_JVM_INFO_
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_MODULE_EXECUTION_SETTINGS_CACHE_SIZE;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_MODULE_ID;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_MODULE_NAME;
+import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_REPO_INDEX_CACHE_DIR;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_REPO_INDEX_SHARING_ENABLED;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_RESOURCE_FOLDER_NAMES;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_RUM_FLUSH_WAIT_MILLIS;
@@ -278,6 +280,7 @@ import static datadog.trace.api.config.GeneralConfig.STATSD_CLIENT_SOCKET_BUFFER
 import static datadog.trace.api.config.GeneralConfig.STATSD_CLIENT_SOCKET_TIMEOUT;
 import static datadog.trace.api.config.GeneralConfig.TAGS;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_DEPENDENCY_COLLECTION_ENABLED;
+import static datadog.trace.api.config.GeneralConfig.TELEMETRY_DEPENDENCY_RESOLUTION_CACHE_PATH;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_DEPENDENCY_RESOLUTION_QUEUE_SIZE;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_EXTENDED_HEARTBEAT_INTERVAL;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_HEARTBEAT_INTERVAL;
@@ -288,6 +291,7 @@ import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_IGNORED_RESOURCES;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_MAX_AGGREGATES;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_MAX_PENDING;
+import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_STRIPES;
 import static datadog.trace.api.config.GeneralConfig.TRACE_DEBUG;
 import static datadog.trace.api.config.GeneralConfig.TRACE_TAGS;
 import static datadog.trace.api.config.GeneralConfig.TRACE_TRIAGE;
@@ -295,6 +299,7 @@ import static datadog.trace.api.config.GeneralConfig.TRIAGE_REPORT_DIR;
 import static datadog.trace.api.config.GeneralConfig.TRIAGE_REPORT_TRIGGER;
 import static datadog.trace.api.config.GeneralConfig.VERSION;
 import static datadog.trace.api.config.IastConfig.IAST_ANONYMOUS_CLASSES_ENABLED;
+import static datadog.trace.api.config.IastConfig.IAST_CONCURRENT_TAINTED_MAP_ENABLED;
 import static datadog.trace.api.config.IastConfig.IAST_CONTEXT_MODE;
 import static datadog.trace.api.config.IastConfig.IAST_DEBUG_ENABLED;
 import static datadog.trace.api.config.IastConfig.IAST_DETECTION_MODE;
@@ -444,6 +449,7 @@ import static datadog.trace.api.config.TracerConfig.RESPONSE_HEADER_TAGS;
 import static datadog.trace.api.config.TracerConfig.SCOPE_DEPTH_LIMIT;
 import static datadog.trace.api.config.TracerConfig.SCOPE_INHERIT_ASYNC_PROPAGATION;
 import static datadog.trace.api.config.TracerConfig.SCOPE_ITERATION_KEEP_ALIVE;
+import static datadog.trace.api.config.TracerConfig.SCOPE_LAZY_STACKS_ENABLED;
 import static datadog.trace.api.config.TracerConfig.SCOPE_STRICT_MODE;
 import static datadog.trace.api.config.TracerConfig.SECURE_RANDOM;
 import static datadog.trace.api.config.TracerConfig.SERVICE_MAPPING;
@@ -459,6 +465,8 @@ import static datadog.trace.api.config.TracerConfig.TRACE_AGENT_URL;
 import static datadog.trace.api.config.TracerConfig.TRACE_ANALYTICS_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_CLIENT_IP_HEADER;
 import static datadog.trace.api.config.TracerConfig.TRACE_CLIENT_IP_RESOLVER_ENABLED;
+import static datadog.trace.api.config.TracerConfig.TRACE_DISPATCH_CHUNK_SIZE;
+import static datadog.trace.api.config.TracerConfig.TRACE_DISPATCH_IN_FLIGHT_PAYLOADS;
 import static datadog.trace.api.config.TracerConfig.TRACE_GIT_METADATA_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_HTTP_CLIENT_PATH_RESOURCE_NAME_MAPPING;
 import static datadog.trace.api.config.TracerConfig.TRACE_HTTP_RESOURCE_REMOVE_TRAILING_SLASH;
@@ -466,7 +474,9 @@ import static datadog.trace.api.config.TracerConfig.TRACE_HTTP_SERVER_PATH_RESOU
 import static datadog.trace.api.config.TracerConfig.TRACE_PEER_SERVICE_COMPONENT_OVERRIDES;
 import static datadog.trace.api.config.TracerConfig.TRACE_PEER_SERVICE_DEFAULTS_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_PEER_SERVICE_MAPPING;
+import static datadog.trace.api.config.TracerConfig.TRACE_PENDING_BUFFER_MAX_BYTES;
 import static datadog.trace.api.config.TracerConfig.TRACE_POST_PROCESSING_TIMEOUT;
+import static datadog.trace.api.config.TracerConfig.TRACE_PROCESSING_SHARDS;
 import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_EXTRACT_FIRST;
 import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_STYLE;
 import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_STYLE_EXTRACT;
@@ -480,6 +490,7 @@ import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_OPERATION_RUL
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_RULES;
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_SERVICE_RULES;
 import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_ATTRIBUTE_SCHEMA;
+import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_PRE_ENCODING_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_STRICT_WRITES_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_X_DATADOG_TAGS_MAX_LENGTH;
 import static datadog.trace.api.config.TracerConfig.WRITER_BAGGAGE_INJECT;
@@ -652,6 +663,7 @@ public class Config {
   private final boolean scopeStrictMode;
   private final boolean scopeInheritAsyncPropagation;
   private final int scopeIterationKeepAlive;
+  private final boolean scopeLazyStacksEnabled;
   private final int partialFlushMinSpans;
   private final boolean traceStrictWritesEnabled;
   private final boolean logExtractHeaderNames;
@@ -694,6 +706,7 @@ public class Config {
   private final boolean tracerMetricsBufferingEnabled;
   private final int tracerMetricsMaxAggregates;
   private final int tracerMetricsMaxPending;
+  private final int tracerMetricsStripes;
 
   private final boolean reportHostName;
 
@@ -777,6 +790,7 @@ public class Config {
   private final IastContext.Mode iastContextMode;
   private final boolean iastHardcodedSecretEnabled;
   private final boolean iastAnonymousClassesEnabled;
+  private final boolean iastConcurrentTaintedMapEnabled;
 
   private final boolean ciVisibilityTraceSanitationEnabled;
   private final boolean ciVisibilityAgentlessEnabled;
@@ -817,6 +831,7 @@ public class Config {
   private final boolean ciVisibilityTestSkippingEnabled;
   private final boolean ciVisibilityCiProviderIntegrationEnabled;
   private final boolean ciVisibilityRepoIndexSharingEnabled;
+  private final String ciVisibilityRepoIndexCacheDir;
   private final int ciVisibilityModuleExecutionSettingsCacheSize;
   private final int ciVisibilityJvmInfoCacheSize;
   private final boolean ciVisibilityCoverageSegmentsEnabled;
@@ -954,6 +969,7 @@ public class Config {
   private final boolean telemetryMetricsEnabled;
   private final boolean isTelemetryLogCollectionEnabled;
   private final int telemetryDependencyResolutionQueueSize;
+  private final String telemetryDependencyResolutionCachePath;
 
   private final boolean azureAppServices;
   private final String traceAgentPath;
@@ -981,6 +997,11 @@ public class Config {
   private final boolean axisPromoteResourceName;
   private final float traceFlushIntervalSeconds;
   private final long tracePostProcessingTimeout;
+  private final int traceProcessingShards;
+  private final boolean traceSpanPreEncodingEnabled;
+  private final long tracePendingBufferMaxBytes;
+  private final int traceDispatchInFlightPayloads;
+  private final int traceDispatchChunkSize;
 
   private final boolean telemetryDebugRequestsEnabled;
 
@@ -1308,6 +1329,8 @@ public class Config {
     scopeIterationKeepAlive =
         configProvider.getInteger(SCOPE_ITERATION_KEEP_ALIVE, DEFAULT_SCOPE_ITERATION_KEEP_ALIVE);
 
+    scopeLazyStacksEnabled = configProvider.getBoolean(SCOPE_LAZY_STACKS_ENABLED, false);
+
     boolean partialFlushEnabled = configProvider.getBoolean(PARTIAL_FLUSH_ENABLED, true);
     partialFlushMinSpans =
         !partialFlushEnabled
@@ -1471,6 +1494,7 @@ public class Config {
         configProvider.getBoolean(TRACER_METRICS_BUFFERING_ENABLED, false);
     tracerMetricsMaxAggregates = configProvider.getInteger(TRACER_METRICS_MAX_AGGREGATES, 2048);
     tracerMetricsMaxPending = configProvider.getInteger(TRACER_METRICS_MAX_PENDING, 2048);
+    tracerMetricsStripes = configProvider.getInteger(TRACER_METRICS_STRIPES, 0);
 
     reportHostName =
         configProvider.getBoolean(TRACE_REPORT_HOSTNAME, DEFAULT_TRACE_REPORT_HOSTNAME);
@@ -1641,6 +1665,8 @@ public class Config {
         configProvider.getInteger(
             TELEMETRY_DEPENDENCY_RESOLUTION_QUEUE_SIZE,
             DEFAULT_TELEMETRY_DEPENDENCY_RESOLUTION_QUEUE_SIZE);
+    telemetryDependencyResolutionCachePath =
+        configProvider.getString(TELEMETRY_DEPENDENCY_RESOLUTION_CACHE_PATH);
     clientIpEnabled = configProvider.getBoolean(CLIENT_IP_ENABLED, DEFAULT_CLIENT_IP_ENABLED);
 
     appSecReportingInband =
@@ -1728,6 +1754,9 @@ public class Config {
     iastAnonymousClassesEnabled =
         configProvider.getBoolean(
             IAST_ANONYMOUS_CLASSES_ENABLED, DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED);
+    iastConcurrentTaintedMapEnabled =
+        configProvider.getBoolean(
+            IAST_CONCURRENT_TAINTED_MAP_ENABLED, DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED);
 
     ciVisibilityTraceSanitationEnabled =
         configProvider.getBoolean(CIVISIBILITY_TRACE_SANITATION_ENABLED, true);
@@ -1848,6 +1877,7 @@ public class Config {
         configProvider.getBoolean(CIVISIBILITY_CIPROVIDER_INTEGRATION_ENABLED, true);
     ciVisibilityRepoIndexSharingEnabled =
         configProvider.getBoolean(CIVISIBILITY_REPO_INDEX_SHARING_ENABLED, true);
+    ciVisibilityRepoIndexCacheDir = configProvider.getString(CIVISIBILITY_REPO_INDEX_CACHE_DIR);
     ciVisibilityModuleExecutionSettingsCacheSize =
         configProvider.getInteger(CIVISIBILITY_MODULE_EXECUTION_SETTINGS_CACHE_SIZE, 16);
     ciVisibilityJvmInfoCacheSize = configProvider.getInteger(CIVISIBILITY_JVM_INFO_CACHE_SIZE, 8);
@@ -2159,6 +2189,36 @@ public class Config {
         configProvider.getLong(
             TRACE_POST_PROCESSING_TIMEOUT, ConfigDefaults.DEFAULT_TRACE_POST_PROCESSING_TIMEOUT);
 
+    this.traceProcessingShards =
+        Math.max(
+            1,
+            configProvider.getInteger(
+                TRACE_PROCESSING_SHARDS, ConfigDefaults.DEFAULT_TRACE_PROCESSING_SHARDS));
+
+    this.traceSpanPreEncodingEnabled =
+        configProvider.getBoolean(
+            TRACE_SPAN_PRE_ENCODING_ENABLED,
+            ConfigDefaults.DEFAULT_TRACE_SPAN_PRE_ENCODING_ENABLED);
+
+    this.tracePendingBufferMaxBytes =
+        Math.max(
+            0,
+            configProvider.getLong(
+                TRACE_PENDING_BUFFER_MAX_BYTES,
+                ConfigDefaults.DEFAULT_TRACE_PENDING_BUFFER_MAX_BYTES));
+
+    this.traceDispatchInFlightPayloads =
+        Math.max(
+            0,
+            configProvider.getInteger(
+                TRACE_DISPATCH_IN_FLIGHT_PAYLOADS,
+                ConfigDefaults.DEFAULT_TRACE_DISPATCH_IN_FLIGHT_PAYLOADS));
+    this.traceDispatchChunkSize =
+        Math.max(
+            0,
+            configProvider.getInteger(
+                TRACE_DISPATCH_CHUNK_SIZE, ConfigDefaults.DEFAULT_TRACE_DISPATCH_CHUNK_SIZE));
+
     if (isCiVisibilityEnabled()
         && ciVisibilityAgentlessEnabled
         && (apiKey == null || apiKey.isEmpty())) {
@@ -2281,6 +2341,26 @@ public class Config {
     return tracePostProcessingTimeout;
   }
 
+  public int getTraceProcessingShards() {
+    return traceProcessingShards;
+  }
+
+  public boolean isTraceSpanPreEncodingEnabled() {
+    return traceSpanPreEncodingEnabled;
+  }
+
+  public long getTracePendingBufferMaxBytes() {
+    return tracePendingBufferMaxBytes;
+  }
+
+  public int getTraceDispatchInFlightPayloads() {
+    return traceDispatchInFlightPayloads;
+  }
+
+  public int getTraceDispatchChunkSize() {
+    return traceDispatchChunkSize;
+  }
+
   public boolean isIntegrationSynapseLegacyOperationName() {
     return integrationSynapseLegacyOperationName;
   }
@@ -2473,6 +2553,10 @@ public class Config {
     return scopeIterationKeepAlive;
   }
 
+  public boolean isScopeLazyStacksEnabled() {
+    return scopeLazyStacksEnabled;
+  }
+
   public int getPartialFlushMinSpans() {
     return partialFlushMinSpans;
   }
@@ -2616,6 +2700,10 @@ public class Config {
     return tracerMetricsMaxPending;
   }
 
+  public int getTracerMetricsStripes() {
+    return tracerMetricsStripes;
+  }
+
   public boolean isLogsInjectionEnabled() {
     return logsInjectionEnabled;
   }
@@ -2849,6 +2937,10 @@ public class Config {
     return telemetryDependencyResolutionQueueSize;
   }
 
+  public String getTelemetryDependencyResolutionCachePath() {
+    return telemetryDependencyResolutionCachePath;
+  }
+
   public boolean isClientIpEnabled() {
     return clientIpEnabled;
   }
@@ -2974,6 +3066,10 @@ public class Config {
     return iastAnonymousClassesEnabled;
   }
 
+  public boolean isIastConcurrentTaintedMapEnabled() {
+    return iastConcurrentTaintedMapEnabled;
+  }
+
   public boolean isCiVisibilityEnabled() {
     return instrumenterConfig.isCiVisibilityEnabled();
   }
@@ -3147,6 +3243,10 @@ public class Config {
     return ciVisibilityRepoIndexSharingEnabled;
   }
 
+  public String getCiVisibilityRepoIndexCacheDir() {
+    return ciVisibilityRepoIndexCacheDir;
+  }
+
   public int getCiVisibilityModuleExecutionSettingsCacheSize() {
     return ciVisibilityModuleExecutionSettingsCacheSize;
   }
@@ -4450,6 +4550,8 @@ public class Config {
         + scopeInheritAsyncPropagation
         + ", scopeIterationKeepAlive="
         + scopeIterationKeepAlive
+        + ", scopeLazyStacksEnabled="
+        + scopeLazyStacksEnabled
         + ", partialFlushMinSpans="
         + partialFlushMinSpans
         + ", traceStrictWritesEnabled="
@@ -4505,6 +4607,8 @@ public class Config {
         + tracerMetricsMaxAggregates
         + ", tracerMetricsMaxPending="
         + tracerMetricsMaxPending
+        + ", tracerMetricsStripes="
+        + tracerMetricsStripes
         + ", reportHostName="
         + reportHostName
         + ", traceAnalyticsEnabled="
@@ -1,10 +1,9 @@
 package datadog.trace.api.normalize;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +14,9 @@ import org.slf4j.LoggerFactory;
  * will not remove literals in MySQL which are indistinguishable from object names. This is not an
  * obfuscator, and the strings produced by this class must be passed through obfuscation in the
  * trace agent.
+ *
+ * <p>Lists of literals or placeholders following {@code IN} are collapsed to a single placeholder,
+ * so that statements which only differ by the length of such a list normalize the same way.
  */
 public final class SQLNormalizer {
 
@@ -45,45 +47,253 @@ public final class SQLNormalizer {
   }
 
   public static UTF8BytesString normalize(String sql) {
-    byte[] utf8 = sql.getBytes(UTF_8);
     try {
-      BitSet splitters = findSplitterPositions(utf8);
-      int outputLength = utf8.length;
-      int end = outputLength;
-      int start = end > 0 ? splitters.previousSetBit(end - 1) : -1;
-      boolean modified = false;
-      // strip out anything ending with a quote (covers string and hex literals)
-      // or anything starting with a number, a quote, a decimal point, or a sign
-      while (end > 0 && start > 0) {
-        int sequenceStart = start + 1;
-        int sequenceEnd = end - 1;
-        if (sequenceEnd == sequenceStart) {
+      return new Normalization(sql).toUTF8BytesString();
+    } catch (Throwable paranoid) {
+      log.debug("Error normalizing sql {}", sql, paranoid);
+    }
+    return UTF8BytesString.create(sql);
+  }
+
+  /**
+   * Caches values derived from normalized SQL by the fingerprint of the normalized bytes, so that
+   * statements which only differ by their literals share an entry. Lookups still normalize the SQL,
+   * but a hit doesn't allocate the normalized string or the cached value again.
+   *
+   * <p>The cache is direct-mapped, so a colliding fingerprint replaces the previous entry.
+   */
+  public static final class FingerprintCache<V> {
+    private final Entry<V>[] entries;
+    private final int mask;
+    private final int maxCachedLength;
+
+    /**
+     * @param capacity the number of entries, rounded up to a power of 2
+     * @param maxCachedLength the longest normalized SQL, in bytes, that gets cached
+     */
+    @SuppressWarnings("unchecked")
+    public FingerprintCache(int capacity, int maxCachedLength) {
+      int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+      this.entries = new Entry[size];
+      this.mask = size - 1;
+      this.maxCachedLength = maxCachedLength;
+    }
+
+    public V computeIfAbsent(String sql, Function<UTF8BytesString, ? extends V> producer) {
+      Normalization normalization;
+      try {
+        normalization = new Normalization(sql);
+      } catch (Throwable paranoid) {
+        log.debug("Error normalizing sql {}", sql, paranoid);
+        return producer.apply(UTF8BytesString.create(sql));
+      }
+      if (normalization.length > maxCachedLength) {
+        return producer.apply(normalization.toUTF8BytesString());
+      }
+      long fingerprint = normalization.fingerprint();
+      int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+      Entry<V> entry = entries[slot];
+      if (null != entry
+          && entry.fingerprint == fingerprint
+          && normalization.contentEquals(entry.sql.getUtf8Bytes())) {
+        return entry.value;
+      }
+      UTF8BytesString normalized = normalization.toUTF8BytesString();
+      V value = producer.apply(normalized);
+      entries[slot] = new Entry<>(fingerprint, normalized, value);
+      return value;
+    }
+
+    private static final class Entry<V> {
+      final long fingerprint;
+      final UTF8BytesString sql;
+      final V value;
+
+      Entry(long fingerprint, UTF8BytesString sql, V value) {
+        this.fingerprint = fingerprint;
+        this.sql = sql;
+        this.value = value;
+      }
+    }
+  }
+
+  /**
+   * Encodes the SQL to UTF-8 and normalizes it in a single pass. Splitters outside of quotes end
+   * each token, and the encoded token is replaced in the output when it's a literal, so the output
+   * never grows beyond the encoded input.
+   */
+  private static final class Normalization {
+    private final String sql;
+    private byte[] utf8;
+    private int length;
+    private boolean modified;
+
+    // output position of the current token
+    private int tokenStart;
+    // the first token, and the one after a leading splitter, are never treated as literals
+    private boolean literalAllowed;
+    // whether the last token was "IN", ignoring any whitespace since
+    private boolean afterIn;
+    // output position after the parenthesis opening an IN list, -1 outside of IN lists
+    private int listStart = -1;
+    private int listElements;
+
+    Normalization(String sql) {
+      this.sql = sql;
+      int inputLength = sql.length();
+      // sized for ASCII, and grown when other characters need more than a byte
+      this.utf8 = new byte[inputLength];
+      boolean quoted = false;
+      boolean escaped = false;
+      for (int i = 0; i < inputLength; ++i) {
+        char c = sql.charAt(i);
+        if (c >= 0x80) {
+          // never a quote, escape, or splitter
+          escaped = false;
+          i = encode(c, i);
+          continue;
+        }
+        byte b = (byte) c;
+        if (b == '\'' && !escaped) {
+          quoted = !quoted;
+        } else {
+          escaped = (b == '\\') & !escaped;
+          if (!quoted && isSplitter(b)) {
+            endToken();
+            onSplitter(b);
+            literalAllowed = i > 0;
+            utf8[length++] = b;
+            tokenStart = length;
+            continue;
+          }
+        }
+        utf8[length++] = b;
+      }
+      endToken();
+    }
+
+    long fingerprint() {
+      // FNV-1a
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < length; ++i) {
+        hash ^= utf8[i] & 0xFF;
+        hash *= 0x100000001b3L;
+      }
+      return hash;
+    }
+
+    boolean contentEquals(byte[] bytes) {
+      if (bytes.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; ++i) {
+        if (bytes[i] != utf8[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    UTF8BytesString toUTF8BytesString() {
+      if (modified) {
+        return UTF8BytesString.create(Arrays.copyOf(utf8, length));
+      }
+      return UTF8BytesString.create(
+          sql, length == utf8.length ? utf8 : Arrays.copyOf(utf8, length));
+    }
+
+    private void endToken() {
+      int tokenLength = length - tokenStart;
+      if (tokenLength == 0) {
+        return;
+      }
+      if (literalAllowed) {
+        if (tokenLength == 1) {
           // single digit numbers can can be fixed in place
-          if (Character.isDigit(utf8[sequenceStart])) {
-            utf8[sequenceStart] = '?';
+          if (Character.isDigit(utf8[tokenStart])) {
+            utf8[tokenStart] = '?';
             modified = true;
           }
-        } else if (sequenceStart < sequenceEnd) {
-          if (isQuoted(utf8, sequenceStart, sequenceEnd)
-              || isNumericLiteralPrefix(utf8, sequenceStart)
-              || isHexLiteralPrefix(utf8, sequenceStart, sequenceEnd)) {
-            int length = sequenceEnd - sequenceStart;
-            System.arraycopy(utf8, end, utf8, sequenceStart + 1, outputLength - end);
-            utf8[sequenceStart] = '?';
-            outputLength -= length;
+        } else {
+          int tokenEnd = length - 1;
+          // strip out anything ending with a quote (covers string and hex literals)
+          // or anything starting with a number, a quote, a decimal point, or a sign
+          if (isQuoted(utf8, tokenStart, tokenEnd)
+              || isNumericLiteralPrefix(utf8, tokenStart)
+              || isHexLiteralPrefix(utf8, tokenStart, tokenEnd)) {
+            utf8[tokenStart] = '?';
+            length = tokenStart + 1;
             modified = true;
           }
         }
-        end = start;
-        start = splitters.previousSetBit(start - 1);
       }
-      if (modified) {
-        return UTF8BytesString.create(Arrays.copyOf(utf8, outputLength));
+      boolean placeholder = length - tokenStart == 1 && utf8[tokenStart] == '?';
+      if (listStart >= 0) {
+        if (placeholder) {
+          listElements++;
+        } else {
+          listStart = -1;
+        }
       }
-    } catch (Throwable paranoid) {
-      log.debug("Error normalizing sql {}", sql, paranoid);
+      afterIn =
+          length - tokenStart == 2
+              && (utf8[tokenStart] | ' ') == 'i'
+              && (utf8[tokenStart + 1] | ' ') == 'n';
+    }
+
+    private void onSplitter(byte splitter) {
+      switch (splitter) {
+        case '(':
+          listStart = afterIn ? length + 1 : -1;
+          listElements = 0;
+          break;
+        case ')':
+          if (listStart >= 0 && listElements > 1) {
+            length = listStart;
+            utf8[length++] = '?';
+            modified = true;
+          }
+          listStart = -1;
+          break;
+        case ',':
+          break;
+        case '|':
+          listStart = -1;
+          break;
+        default:
+          // whitespace separates "IN" from its list
+          return;
+      }
+      afterIn = false;
+    }
+
+    private int encode(char c, int i) {
+      int remaining = sql.length() - i;
+      if (utf8.length - length < remaining + 2) {
+        utf8 = Arrays.copyOf(utf8, Math.max(utf8.length * 2, length + remaining + 2));
+      }
+      if (c < 0x800) {
+        utf8[length++] = (byte) (0xC0 | (c >> 6));
+        utf8[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        utf8[length++] = (byte) (0xE0 | (c >> 12));
+        utf8[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        utf8[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)
+          && remaining > 1
+          && Character.isLowSurrogate(sql.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, sql.charAt(i + 1));
+        utf8[length++] = (byte) (0xF0 | (codePoint >> 18));
+        utf8[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        utf8[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        utf8[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        return i + 1;
+      } else {
+        // malformed, encoded as '?' like String.getBytes does
+        utf8[length++] = '?';
+      }
+      return i;
     }
-    return UTF8BytesString.create(sql, utf8);
   }
 
   private static boolean isQuoted(byte[] utf8, int start, int end) {
@@ -103,20 +313,4 @@ public final class SQLNormalizer {
   private static boolean isSplitter(byte symbol) {
     return SPLITTERS.get(symbol & 0xFF);
   }
-
-  private static BitSet findSplitterPositions(byte[] utf8) {
-    BitSet positions = new BitSet(utf8.length);
-    boolean quoted = false;
-    boolean escaped = false;
-    for (int i = 0; i < utf8.length; ++i) {
-      byte b = utf8[i];
-      if (b == '\'' && !escaped) {
-        quoted = !quoted;
-      } else {
-        escaped = (b == '\\') & !escaped;
-        positions.set(i, !quoted & isSplitter(b));
-      }
-    }
-    return positions;
-  }
 }
@@ -1,11 +1,12 @@
 package datadog.trace.relocate.api;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 
 /** Logger specialized on logging IO-related activity */
 public class IOLogger {
-  private boolean logNextSuccess = false;
+  private final AtomicBoolean logNextSuccess = new AtomicBoolean();
   private final Logger log;
   private final RatelimitedLogger ratelimitedLogger;
 
@@ -26,8 +27,7 @@ public class IOLogger {
       return true;
     }
 
-    if (this.logNextSuccess) {
-      this.logNextSuccess = false;
+    if (logNextSuccess.compareAndSet(true, false)) {
       if (log.isInfoEnabled()) {
         log.info(format, arguments);
         return true;
@@ -84,7 +84,7 @@ public class IOLogger {
       hasLogged = ratelimitedLogger.warn(message);
     }
     if (hasLogged) {
-      this.logNextSuccess = true;
+      logNextSuccess.set(true);
     }
 
     return hasLogged;
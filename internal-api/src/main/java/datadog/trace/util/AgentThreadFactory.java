@@ -16,6 +16,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     TRACE_STARTUP("dd-agent-startup-datadog-tracer"),
     TRACE_MONITOR("dd-trace-monitor"),
     TRACE_PROCESSOR("dd-trace-processor"),
+    TRACE_DISPATCHER("dd-trace-dispatcher"),
     SPAN_SAMPLING_PROCESSOR("dd-span-sampling-processor"),
     TRACE_CASSANDRA_ASYNC_SESSION("dd-cassandra-session-executor"),
 
@@ -32,6 +33,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     APPSEC_HTTP_DISPATCHER("dd-appsec-http-dispatcher"),
 
     TELEMETRY("dd-telemetry"),
+    TELEMETRY_DEPENDENCY_RESOLVER("dd-telemetry-dependency-resolver"),
 
     FLEET_MANAGEMENT_POLLER("dd-fleet-management-poller"),
     REMOTE_CONFIG("dd-remote-config"),
@@ -24,6 +24,19 @@ public abstract class UnsafeUtils {
     }
   }
 
+  /**
+   * Ensures that loads before the fence are not reordered with loads and stores after it.
+   *
+   * @return {@code false} if the fence could not be issued because Unsafe is unavailable
+   */
+  public static boolean loadFence() {
+    if (UNSAFE == null) {
+      return false;
+    }
+    UNSAFE.loadFence();
+    return true;
+  }
+
   /**
    * Tries to create a shallow clone of the provided object: another instance of the same class
    * whose fields have the same values as the original (for reference fields that means referring to
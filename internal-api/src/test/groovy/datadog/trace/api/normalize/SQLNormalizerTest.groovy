@@ -27,8 +27,10 @@ class SQLNormalizerTest extends DDSpecification {
     "SELECT * FROM TABLE WHERE userId = 'abc\\'1287681\\'964'"                                                                       | "SELECT * FROM TABLE WHERE userId = ?"
     "SELECT * FROM TABLE WHERE userId = 'abc\\'1287\\'681\\'964'"                                                                    | "SELECT * FROM TABLE WHERE userId = ?"
     "SELECT * FROM TABLE WHERE userId = 'abc\\'1287\\'681\\'\\'\\'\\'964'"                                                           | "SELECT * FROM TABLE WHERE userId = ?"
-    "SELECT * FROM TABLE WHERE userId IN (\'a\', \'b\', \'c\')"                                                                      | "SELECT * FROM TABLE WHERE userId IN (?, ?, ?)"
-    "SELECT * FROM TABLE WHERE userId IN (\'abc\\'1287681\\'964\', \'abc\\'1287\\'681\\'\\'\\'\\'964\', \'abc\\'1287\\'681\\'964\')" | "SELECT * FROM TABLE WHERE userId IN (?, ?, ?)"
+    "SELECT * FROM TABLE WHERE userId IN (\'a\', \'b\', \'c\')"                                                                      | "SELECT * FROM TABLE WHERE userId IN (?)"
+    "SELECT * FROM TABLE WHERE userId IN (\'abc\\'1287681\\'964\', \'abc\\'1287\\'681\\'\\'\\'\\'964\', \'abc\\'1287\\'681\\'964\')" | "SELECT * FROM TABLE WHERE userId IN (?)"
+    "SELECT * FROM TABLE WHERE userId in(?,?,?) AND id IN ( 1, 2 ) AND x NOT IN (?)"                                                 | "SELECT * FROM TABLE WHERE userId in(?) AND id IN (?) AND x NOT IN (?)"
+    "SELECT * FROM TABLE WHERE userId IN (1, name) OR id IN (SELECT 1, 2) OR x IN ()"                                                | "SELECT * FROM TABLE WHERE userId IN (?, name) OR id IN (SELECT ?, ?) OR x IN ()"
     "SELECT * FROM TABLE WHERE userId = 'abc1287681964' ORDER BY FOO DESC"                                                           | "SELECT * FROM TABLE WHERE userId = ? ORDER BY FOO DESC"
     "SELECT * FROM TABLE WHERE userId = 'abc\\'1287\\'681\\'\\'\\'\\'964' ORDER BY FOO DESC"                                         | "SELECT * FROM TABLE WHERE userId = ? ORDER BY FOO DESC"
     "SELECT * FROM TABLE JOIN SOMETHING ON TABLE.foo = SOMETHING.bar"                                                                | "SELECT * FROM TABLE JOIN SOMETHING ON TABLE.foo = SOMETHING.bar"
@@ -135,4 +137,28 @@ INSERT INTO country (country_name, country_name_eng, country_code) VALUES (?, ?,
       "SELECT count(*) AS totcount FROM (SELECT \"c1\", \"c2\",\"c3\",\"c4\",\"c5\",\"c6\",\"c7\",\"c8\", \"c9\", \"c10\",\"c11\",\"c12\",\"c13\",\"c14\", \"c15\",\"c16\",\"c17\",\"c18\", \"c19\",\"c20\",\"c21\",\"c22\",\"c23\", \"c24\",\"c25\",\"c26\", \"c27\" FROM (SELECT bar.y AS \"c2\", foo.x AS \"c3\", foo.z AS \"c4\", DECODE(foo.a, NULL,NULL, foo.a ||?|| foo.b) AS \"c5\" , foo.c AS \"c6\", bar.d AS \"c1\", bar.e AS \"c7\", bar.f AS \"c8\", bar.g AS \"c9\", TO_DATE(TO_CHAR(TO_DATE(bar.h,?),?),?) AS \"c10\", TO_DATE(TO_CHAR(TO_DATE(bar.i,?),?),?) AS \"c11\", CASE WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? WHEN DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?))) > ? THEN ? ELSE NULL END AS \"c12\", DECODE(bar.j, NULL, TRUNC(SYSDATE) - TRUNC(TO_DATE(bar.h,?)),NULL) as \"c13\", bar.k AS \"c14\", bar.l ||?||bar.m AS \"c15\", DECODE(bar.n, NULL, NULL,bar.n ||?||bar.o) AS \"c16\", bar.p AS \"c17\", bar.q AS \"c18\", bar.r AS \"c19\", bar.s AS \"c20\", qux.a AS \"c21\", TO_CHAR(TO_DATE(qux.b,?),?) AS \"c22\", DECODE(qux.l,NULL,NULL, qux.l ||?||qux.m) AS \"c23\", bar.a AS \"c24\", TO_CHAR(TO_DATE(bar.j,?),?) AS \"c25\", DECODE(bar.c , ?,?,?, ?, bar.c ) AS \"c26\", bar.y AS y, bar.d, bar.d AS \"c27\" FROM blort.bar , ( SELECT * FROM (SELECT a,a,l,m,b,c, RANK() OVER (PARTITION BY c ORDER BY b DESC) RNK FROM blort.d WHERE y IN (:protocols)) WHERE RNK = ?) qux, blort.foo WHERE bar.c = qux.c(+) AND bar.x = foo.x AND bar.y IN (:protocols) and bar.x IN (:sites)) )"
     // spotless:on
   }
+
+  def "fingerprint cache shares entries between statements which only differ by literals"() {
+    setup:
+    def cache = new SQLNormalizer.FingerprintCache<String>(16, 1024)
+    def produced = []
+    def producer = { UTF8BytesString normalized ->
+      produced.add(normalized as String)
+      return normalized as String
+    }
+
+    when:
+    def first = cache.computeIfAbsent("SELECT * FROM t WHERE id = 1 AND x IN (1, 2)", producer)
+    def second = cache.computeIfAbsent("SELECT * FROM t WHERE id = 2 AND x IN ('a', 'b', 'c')", producer)
+    def third = cache.computeIfAbsent("SELECT * FROM u WHERE id = 2", producer)
+    def longSql = "SELECT * FROM t WHERE y = z" + " AND y = z" * 200
+    cache.computeIfAbsent(longSql, producer)
+    cache.computeIfAbsent(longSql, producer)
+
+    then:
+    first == "SELECT * FROM t WHERE id = ? AND x IN (?)"
+    second.is(first)
+    third == "SELECT * FROM u WHERE id = ?"
+    produced.size() == 4
+  }
 }
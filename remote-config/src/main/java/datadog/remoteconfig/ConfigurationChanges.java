@@ -0,0 +1,48 @@
+package datadog.remoteconfig;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** The configurations of a product changed by a remote config response, by config key. */
+public final class ConfigurationChanges<T> {
+  private final Map<String, T> added;
+  private final Map<String, T> modified;
+  private final Map<String, T> removed;
+
+  public ConfigurationChanges(
+      Map<String, T> added, Map<String, T> modified, Map<String, T> removed) {
+    this.added = Collections.unmodifiableMap(added);
+    this.modified = Collections.unmodifiableMap(modified);
+    this.removed = Collections.unmodifiableMap(removed);
+  }
+
+  public Map<String, T> getAdded() {
+    return added;
+  }
+
+  /** @return the new version of the modified configurations */
+  public Map<String, T> getModified() {
+    return modified;
+  }
+
+  /** @return the last version of the removed configurations */
+  public Map<String, T> getRemoved() {
+    return removed;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigurationChanges{"
+        + "added="
+        + added.keySet()
+        + ", modified="
+        + modified.keySet()
+        + ", removed="
+        + removed.keySet()
+        + '}';
+  }
+}
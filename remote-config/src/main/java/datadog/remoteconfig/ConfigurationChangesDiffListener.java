@@ -0,0 +1,12 @@
+package datadog.remoteconfig;
+
+/**
+ * Receives the configurations of a product that were added, modified or removed by a remote config
+ * response, once all of them have been deserialized. Unchanged configurations are not deserialized
+ * again, and are not part of the changes.
+ */
+public interface ConfigurationChangesDiffListener<T> {
+  void accept(
+      ConfigurationChanges<T> changes,
+      ConfigurationChangesListener.PollingRateHinter pollingRateHinter);
+}
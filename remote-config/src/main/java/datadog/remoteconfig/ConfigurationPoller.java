@@ -7,6 +7,7 @@ import cafe.cryptography.ed25519.Ed25519PublicKey;
 import cafe.cryptography.ed25519.Ed25519Signature;
 import com.squareup.moshi.Moshi;
 import datadog.remoteconfig.ConfigurationChangesListener.PollingRateHinter;
+import datadog.remoteconfig.state.DiffProductListener;
 import datadog.remoteconfig.state.ParsedConfigKey;
 import datadog.remoteconfig.state.ProductListener;
 import datadog.remoteconfig.state.ProductState;
@@ -159,6 +160,13 @@ public class ConfigurationPoller
         product, configKey, new SimpleProductListener(useDeserializer(deserializer, listener)));
   }
 
+  public synchronized <T> void addDiffListener(
+      Product product,
+      ConfigurationDeserializer<T> deserializer,
+      ConfigurationChangesDiffListener<T> listener) {
+    this.addListener(product, new DiffProductListener<>(deserializer, listener));
+  }
+
   public synchronized void removeListeners(Product product) {
     this.productStates.remove(product);
   }
@@ -349,7 +357,7 @@ public class ConfigurationPoller
 
     try (InputStream inputStream = new SizeCheckedInputStream(body.byteStream(), maxPayloadSize)) {
       Optional<RemoteConfigResponse> maybeFleetResp;
-      maybeFleetResp = this.responseFactory.fromInputStream(inputStream);
+      maybeFleetResp = this.responseFactory.fromInputStream(inputStream, getCachedTargetFiles());
       if (!maybeFleetResp.isPresent()) {
         log.debug("No configuration changes");
         return;
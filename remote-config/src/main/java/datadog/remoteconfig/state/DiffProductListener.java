@@ -0,0 +1,73 @@
+package datadog.remoteconfig.state;
+
+import datadog.remoteconfig.ConfigurationChanges;
+import datadog.remoteconfig.ConfigurationChangesDiffListener;
+import datadog.remoteconfig.ConfigurationChangesListener;
+import datadog.remoteconfig.ConfigurationDeserializer;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the deserialized configurations of a product, and hands the ones changed by a response to
+ * a {@link ConfigurationChangesDiffListener} when they are committed.
+ */
+public class DiffProductListener<T> implements ProductListener {
+  private final ConfigurationDeserializer<T> deserializer;
+  private final ConfigurationChangesDiffListener<T> listener;
+
+  private final Map<String, T> configurations = new HashMap<>();
+  private Map<String, T> added = new HashMap<>();
+  private Map<String, T> modified = new HashMap<>();
+  private Map<String, T> removed = new HashMap<>();
+
+  public DiffProductListener(
+      ConfigurationDeserializer<T> deserializer, ConfigurationChangesDiffListener<T> listener) {
+    this.deserializer = deserializer;
+    this.listener = listener;
+  }
+
+  @Override
+  public void accept(
+      ParsedConfigKey configKey,
+      byte[] content,
+      ConfigurationChangesListener.PollingRateHinter pollingRateHinter)
+      throws IOException {
+    T configuration = deserializer.deserialize(content);
+    if (configuration == null) {
+      throw new RuntimeException("Configuration deserializer didn't provide a configuration");
+    }
+    String key = configKey.toString();
+    T previous = configurations.put(key, configuration);
+    if (previous == null && removed.remove(key) == null) {
+      added.put(key, configuration);
+    } else if (added.containsKey(key)) {
+      added.put(key, configuration);
+    } else {
+      modified.put(key, configuration);
+    }
+  }
+
+  @Override
+  public void remove(
+      ParsedConfigKey configKey, ConfigurationChangesListener.PollingRateHinter pollingRateHinter) {
+    String key = configKey.toString();
+    T configuration = configurations.remove(key);
+    if (configuration != null && added.remove(key) == null) {
+      modified.remove(key);
+      removed.put(key, configuration);
+    }
+  }
+
+  @Override
+  public void commit(ConfigurationChangesListener.PollingRateHinter pollingRateHinter) {
+    if (added.isEmpty() && modified.isEmpty() && removed.isEmpty()) {
+      return;
+    }
+    ConfigurationChanges<T> changes = new ConfigurationChanges<>(added, modified, removed);
+    added = new HashMap<>();
+    modified = new HashMap<>();
+    removed = new HashMap<>();
+    listener.accept(changes, pollingRateHinter);
+  }
+}
@@ -4,21 +4,24 @@ import com.squareup.moshi.Json;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.Moshi;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import okio.Buffer;
+import okio.ByteString;
 import okio.Okio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,39 +33,57 @@ public class RemoteConfigResponse {
   @Json(name = "client_configs")
   public List<String> clientConfigs;
 
-  @Json(name = "targets")
-  private String targetsJson;
-
   private transient Targets targets;
 
   @Json(name = "target_files")
   public List<TargetFile> targetFiles;
 
   public static class Factory {
-    private final JsonAdapter<RemoteConfigResponse> adapterRC;
     private final JsonAdapter<Targets> adapterTargets;
 
     public Factory(Moshi moshi) {
-      this.adapterRC = moshi.adapter(RemoteConfigResponse.class);
       this.adapterTargets = moshi.adapter(Targets.class);
     }
 
     public Optional<RemoteConfigResponse> fromInputStream(InputStream inputStream) {
-      try {
-        RemoteConfigResponse response = adapterRC.fromJson(Okio.buffer(Okio.source(inputStream)));
-        String targetsJsonBase64 = response.targetsJson;
-        if (targetsJsonBase64 == null) {
-          return Optional.empty(); // empty response -- no change
+      return fromInputStream(inputStream, Collections.emptyList());
+    }
+
+    /**
+     * Parses the response as it is streamed. The content of the target files is kept base64
+     * encoded until it is requested, and is not read at all for the files whose hashes match the
+     * ones of the cached target files.
+     */
+    public Optional<RemoteConfigResponse> fromInputStream(
+        InputStream inputStream, Collection<RemoteConfigRequest.CachedTargetFile> cachedFiles) {
+      try (JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(inputStream)))) {
+        RemoteConfigResponse response = new RemoteConfigResponse();
+        boolean hasTargets = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "client_configs":
+              response.clientConfigs = readStrings(reader);
+              break;
+            case "targets":
+              hasTargets = reader.peek() != JsonReader.Token.NULL;
+              if (hasTargets) {
+                response.targets = readTargets(readBase64(reader));
+              } else {
+                reader.skipValue();
+              }
+              break;
+            case "target_files":
+              response.targetFiles = readTargetFiles(reader, response.targets, cachedFiles);
+              break;
+            default:
+              reader.skipValue();
+          }
         }
-        byte[] targetsJsonDecoded =
-            Base64.getDecoder().decode(targetsJsonBase64.getBytes(StandardCharsets.ISO_8859_1));
-        if (targetsJsonDecoded.length > 0) {
-          response.targets =
-              adapterTargets.fromJson(
-                  Okio.buffer(Okio.source(new ByteArrayInputStream(targetsJsonDecoded))));
-          response.targets.targetsSignedUntyped = extractUntypedSignedField(targetsJsonDecoded);
+        reader.endObject();
+        if (!hasTargets) {
+          return Optional.empty(); // empty response -- no change
         }
-        response.targetsJson = null;
         return Optional.of(response);
       } catch (InterruptedIOException ignored) {
         return Optional.empty();
@@ -71,10 +92,109 @@ public class RemoteConfigResponse {
       }
     }
 
-    private Map<String, Object> extractUntypedSignedField(byte[] targetsJsonDecoded)
+    private Targets readTargets(ByteString targetsJsonDecoded) throws IOException {
+      if (targetsJsonDecoded.size() == 0) {
+        return null;
+      }
+      Targets targets = adapterTargets.fromJson(new Buffer().write(targetsJsonDecoded));
+      targets.targetsSignedUntyped = extractUntypedSignedField(targetsJsonDecoded);
+      return targets;
+    }
+
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+      if (reader.peek() == JsonReader.Token.NULL) {
+        return reader.nextNull();
+      }
+      List<String> strings = new ArrayList<>();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        strings.add(reader.nextString());
+      }
+      reader.endArray();
+      return strings;
+    }
+
+    private static List<TargetFile> readTargetFiles(
+        JsonReader reader,
+        Targets targets,
+        Collection<RemoteConfigRequest.CachedTargetFile> cachedFiles)
         throws IOException {
-      JsonReader reader =
-          JsonReader.of(Okio.buffer(Okio.source(new ByteArrayInputStream(targetsJsonDecoded))));
+      if (reader.peek() == JsonReader.Token.NULL) {
+        return reader.nextNull();
+      }
+      List<TargetFile> targetFiles = new ArrayList<>();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        TargetFile targetFile = new TargetFile();
+        boolean unchanged = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "path":
+              targetFile.path = reader.nextString();
+              unchanged = isCached(targetFile.path, targets, cachedFiles);
+              break;
+            case "raw":
+              if (unchanged) {
+                // skipped without being buffered
+                reader.skipValue();
+              } else {
+                targetFile.raw = readRawString(reader);
+              }
+              break;
+            default:
+              reader.skipValue();
+          }
+        }
+        reader.endObject();
+        if (unchanged) {
+          log.debug("Skipped content of unchanged target file {}", targetFile.path);
+        } else {
+          targetFiles.add(targetFile);
+        }
+      }
+      reader.endArray();
+      return targetFiles;
+    }
+
+    private static boolean isCached(
+        String path,
+        Targets targets,
+        Collection<RemoteConfigRequest.CachedTargetFile> cachedFiles) {
+      if (targets == null || targets.targetsSigned == null) {
+        return false; // targets not read yet, the hashes of the file are unknown
+      }
+      Targets.ConfigTarget target = targets.targetsSigned.targets.get(path);
+      if (target == null || target.hashes == null) {
+        return false;
+      }
+      for (RemoteConfigRequest.CachedTargetFile cachedFile : cachedFiles) {
+        if (path.equals(cachedFile.path)) {
+          return cachedFile.hashesMatch(target.hashes);
+        }
+      }
+      return false;
+    }
+
+    /** @return the bytes of a JSON string value, without decoding it into a {@link String} */
+    private static ByteString readRawString(JsonReader reader) throws IOException {
+      ByteString json = reader.nextSource().readByteString();
+      if (json.size() < 2 || json.getByte(0) != '"' || json.getByte(json.size() - 1) != '"') {
+        throw new IOException("Expected a string");
+      }
+      if (json.indexOf(ESCAPE) == -1) {
+        return json.substring(1, json.size() - 1);
+      }
+      return ByteString.encodeUtf8(JsonReader.of(new Buffer().write(json)).nextString());
+    }
+
+    private static ByteString readBase64(JsonReader reader) throws IOException {
+      return ByteString.of(decodeBase64(readRawString(reader)));
+    }
+
+    private Map<String, Object> extractUntypedSignedField(ByteString targetsJsonDecoded)
+        throws IOException {
+      JsonReader reader = JsonReader.of(new Buffer().write(targetsJsonDecoded));
       reader.beginObject();
       while (reader.peek() == JsonReader.Token.NAME) {
         String curName = reader.nextName();
@@ -88,6 +208,15 @@ public class RemoteConfigResponse {
     }
   }
 
+  private static final ByteString ESCAPE = ByteString.encodeUtf8("\\");
+
+  static byte[] decodeBase64(ByteString base64) {
+    ByteBuffer decoded = Base64.getDecoder().decode(base64.asByteBuffer());
+    byte[] bytes = new byte[decoded.remaining()];
+    decoded.get(bytes);
+    return bytes;
+  }
+
   public Targets.ConfigTarget getTarget(String configKey) {
     return this.targets.targetsSigned.targets.get(configKey);
   }
@@ -131,8 +260,7 @@ public class RemoteConfigResponse {
         }
         BigInteger expectedHash = new BigInteger(hashStr, 16);
 
-        String raw = targetFile.raw;
-        byte[] decode = Base64.getDecoder().decode(raw);
+        byte[] decode = decodeBase64(targetFile.raw);
         BigInteger gottenHash = sha256(decode);
         if (!expectedHash.equals(gottenHash)) {
           throw new IntegrityCheckException(
@@ -230,6 +358,7 @@ public class RemoteConfigResponse {
 
   public static class TargetFile {
     public String path;
-    public String raw;
+    /** base64 encoded content, only decoded when it is requested */
+    public ByteString raw;
   }
 }
@@ -603,6 +603,48 @@ class ConfigurationPollerSpecification extends DDSpecification {
     0 * _._
   }
 
+  void 'diff listeners only receive changed configurations'() {
+    ConfigurationChangesDiffListener listener = Mock()
+
+    when:
+    poller.addDiffListener(Product.ASM_DD,
+      { SLURPER.parse(it) } as ConfigurationDeserializer,
+      listener)
+    poller.start()
+
+    then:
+    1 * scheduler.scheduleAtFixedRate(_, poller, 0, DEFAULT_POLL_PERIOD, TimeUnit.MILLISECONDS) >> { task = it[0]; scheduled }
+
+    when:
+    2.times { task.run(poller) }
+
+    then:
+    2 * okHttpClient.newCall(_ as Request) >> { request = it[0]; call }
+    2 * call.execute() >> { buildOKResponse(SAMPLE_RESP_BODY) }
+    1 * listener.accept({ ConfigurationChanges changes ->
+      changes.added.keySet() == ['employee/ASM_DD/1.recommended.json/config'] as Set &&
+        changes.modified.isEmpty() && changes.removed.isEmpty()
+    }, _ as ConfigurationChangesListener.PollingRateHinter)
+    0 * _._
+
+    when:
+    task.run(poller)
+
+    then:
+    1 * okHttpClient.newCall(_ as Request) >> { request = it[0]; call }
+    1 * call.execute() >> {
+      SLURPER.parse(SAMPLE_RESP_BODY.bytes).with {
+        it['client_configs'] = []
+        buildOKResponse(JsonOutput.toJson(it))
+      }
+    }
+    1 * listener.accept({ ConfigurationChanges changes ->
+      changes.removed.keySet() == ['employee/ASM_DD/1.recommended.json/config'] as Set &&
+        changes.added.isEmpty() && changes.modified.isEmpty()
+    }, _ as ConfigurationChangesListener.PollingRateHinter)
+    0 * _._
+  }
+
   void 'configuration cannot be applied without hashes'() {
     ConfigurationChangesTypedListener listener = Mock()
 
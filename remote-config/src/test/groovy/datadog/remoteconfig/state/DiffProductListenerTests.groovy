@@ -0,0 +1,89 @@
+package datadog.remoteconfig.state
+
+import datadog.remoteconfig.ConfigurationChanges
+import datadog.remoteconfig.ConfigurationChangesDiffListener
+import datadog.remoteconfig.ConfigurationChangesListener
+import datadog.remoteconfig.ConfigurationDeserializer
+import spock.lang.Specification
+
+class DiffProductListenerTests extends Specification {
+  ConfigurationChangesListener.PollingRateHinter hinter = ConfigurationChangesListener.PollingRateHinter.NOOP
+  List<ConfigurationChanges<String>> received = []
+  DiffProductListener<String> listener = new DiffProductListener<>(
+    { new String(it, 'UTF-8') } as ConfigurationDeserializer<String>,
+    { changes, h -> received << changes } as ConfigurationChangesDiffListener<String>)
+
+  void 'changes are handed over on commit'() {
+    when:
+    listener.accept(key('a'), 'a1'.bytes, hinter)
+    listener.accept(key('b'), 'b1'.bytes, hinter)
+    listener.commit(hinter)
+
+    then:
+    received.size() == 1
+    received[0].added == [(key('a').toString()): 'a1', (key('b').toString()): 'b1']
+    received[0].modified.isEmpty()
+    received[0].removed.isEmpty()
+
+    when:
+    listener.accept(key('a'), 'a2'.bytes, hinter)
+    listener.remove(key('b'), hinter)
+    listener.commit(hinter)
+
+    then:
+    received.size() == 2
+    received[1].added.isEmpty()
+    received[1].modified == [(key('a').toString()): 'a2']
+    received[1].removed == [(key('b').toString()): 'b1']
+  }
+
+  void 'nothing is handed over without changes'() {
+    when:
+    listener.commit(hinter)
+    listener.remove(key('a'), hinter)
+    listener.commit(hinter)
+
+    then:
+    received.isEmpty()
+  }
+
+  void 'changes within a response are combined'() {
+    when:
+    listener.accept(key('a'), 'a1'.bytes, hinter)
+    listener.commit(hinter)
+    listener.remove(key('a'), hinter)
+    listener.accept(key('a'), 'a2'.bytes, hinter)
+    listener.accept(key('b'), 'b1'.bytes, hinter)
+    listener.remove(key('b'), hinter)
+    listener.commit(hinter)
+
+    then:
+    received.size() == 2
+    received[1].added.isEmpty()
+    received[1].modified == [(key('a').toString()): 'a2']
+    received[1].removed.isEmpty()
+  }
+
+  void 'failing deserialization is not recorded'() {
+    given:
+    def failing = new DiffProductListener<String>(
+      { throw new IOException('bad') } as ConfigurationDeserializer<String>,
+      { changes, h -> received << changes } as ConfigurationChangesDiffListener<String>)
+
+    when:
+    failing.accept(key('a'), 'a1'.bytes, hinter)
+
+    then:
+    thrown IOException
+
+    when:
+    failing.commit(hinter)
+
+    then:
+    received.isEmpty()
+  }
+
+  private static ParsedConfigKey key(String id) {
+    ParsedConfigKey.parse("datadog/2/ASM_DATA/$id/config")
+  }
+}
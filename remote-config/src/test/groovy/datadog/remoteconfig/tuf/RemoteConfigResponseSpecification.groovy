@@ -0,0 +1,90 @@
+package datadog.remoteconfig.tuf
+
+import com.squareup.moshi.Moshi
+import groovy.json.JsonOutput
+import okio.ByteString
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.time.Instant
+
+class RemoteConfigResponseSpecification extends Specification {
+  private static final String PATH = 'employee/ASM_DD/1.recommended.json/config'
+  // encodes to base64 with slashes, which JSON encoders may escape
+  private static final byte[] CONTENT = [0xfb, 0xff, 0xbf, 0x7b, 0x7d] as byte[]
+
+  RemoteConfigResponse.Factory factory = new RemoteConfigResponse.Factory(new Moshi.Builder()
+    .add(Instant, new InstantJsonAdapter())
+    .add(ByteString, new RawJsonAdapter())
+    .build())
+
+  void 'target files are decoded when requested'() {
+    when:
+    def response = parse(responseBody(raw), [])
+
+    then:
+    response.clientConfigs == [PATH]
+    response.targetsSigned.version == 7
+    response.untypedTargetsSigned['version'] == 7
+    response.getFileContents(PATH) == CONTENT
+
+    where:
+    raw << [base64(CONTENT), base64(CONTENT).replace('/', '\\/')]
+  }
+
+  void 'unchanged target files are skipped'() {
+    when:
+    def response = parse(responseBody(base64(CONTENT)), [cachedFile(hash)])
+
+    then:
+    response.targetFiles*.path == expectedPaths
+
+    where:
+    hash                  | expectedPaths
+    sha256(CONTENT)       | []
+    sha256([1] as byte[]) | [PATH]
+  }
+
+  void 'response without targets has no changes'() {
+    expect:
+    !factory.fromInputStream(new ByteArrayInputStream('{"client_configs":[]}'.bytes)).present
+  }
+
+  private RemoteConfigResponse parse(String body, List cachedFiles) {
+    factory.fromInputStream(
+      new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), cachedFiles).get()
+  }
+
+  private static RemoteConfigRequest.CachedTargetFile cachedFile(String hash) {
+    new RemoteConfigRequest.CachedTargetFile(PATH, CONTENT.length, [sha256: hash])
+  }
+
+  private static String responseBody(String raw) {
+    def targets = [
+      signed: [
+        _type: 'targets',
+        version: 7,
+        targets: [
+          (PATH): [custom: [v: 1], hashes: [sha256: sha256(CONTENT)], length: CONTENT.length]
+        ]
+      ],
+      signatures: []
+    ]
+    // targets come before the target files, like in the responses of the agent
+    """{
+      "roots": [],
+      "targets": "${base64(JsonOutput.toJson(targets).bytes)}",
+      "target_files": [{"path": "$PATH", "raw": "$raw"}],
+      "client_configs": ["$PATH"]
+    }"""
+  }
+
+  private static String base64(byte[] bytes) {
+    Base64.encoder.encodeToString(bytes)
+  }
+
+  private static String sha256(byte[] bytes) {
+    new BigInteger(1, MessageDigest.getInstance('SHA-256').digest(bytes)).toString(16)
+  }
+}
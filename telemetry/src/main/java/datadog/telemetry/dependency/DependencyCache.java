@@ -0,0 +1,225 @@
+package datadog.telemetry.dependency;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dependencies resolved from jars, persisted in a file so that the jars of an application are not
+ * read again when it restarts. Entries are keyed by the location of the jar, and only used while
+ * the size and the last modified time of the jar file are unchanged.
+ *
+ * <p>The file is made of a header line, then for each jar a line with its location, size, last
+ * modified time and number of dependencies, followed by one line per dependency. Fields are
+ * separated by tabs.
+ */
+final class DependencyCache {
+
+  private static final Logger log = LoggerFactory.getLogger(DependencyCache.class);
+
+  private static final String HEADER = "dd-telemetry-dependencies v1";
+
+  private static final class Entry {
+    final long size;
+    final long lastModified;
+    final List<Dependency> dependencies;
+
+    Entry(long size, long lastModified, List<Dependency> dependencies) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.dependencies = dependencies;
+    }
+  }
+
+  private final File file;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private boolean loaded; // guarded by this
+  private volatile boolean dirty;
+
+  DependencyCache(File file) {
+    this.file = file;
+  }
+
+  /** @return the cached dependencies of the jar, or the ones resolved from it */
+  List<Dependency> resolve(URI uri) {
+    final File jar = jarFile(uri);
+    if (jar == null || !jar.isFile()) {
+      return DependencyResolver.resolve(uri);
+    }
+    load();
+    final String key = uri.toString();
+    final long size = jar.length();
+    final long lastModified = jar.lastModified();
+    final Entry entry = entries.get(key);
+    if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+      log.debug("Cached dependencies {} for {}", entry.dependencies, uri);
+      return entry.dependencies;
+    }
+    final List<Dependency> dependencies = DependencyResolver.resolve(uri);
+    // failures are not cached, they may not happen on the next run
+    if (!dependencies.isEmpty() && isStorable(dependencies)) {
+      entries.put(key, new Entry(size, lastModified, dependencies));
+      dirty = true;
+    }
+    return dependencies;
+  }
+
+  /** Writes the cache to its file, if dependencies were resolved since it was last written. */
+  synchronized void save() {
+    if (!dirty) {
+      return;
+    }
+    dirty = false;
+    File tmp = null;
+    try {
+      final File dir = file.getAbsoluteFile().getParentFile();
+      if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Unable to create " + dir);
+      }
+      tmp = File.createTempFile(file.getName(), ".tmp", dir);
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          final Entry value = entry.getValue();
+          writeLine(
+              writer,
+              entry.getKey(),
+              Long.toString(value.size),
+              Long.toString(value.lastModified),
+              Integer.toString(value.dependencies.size()));
+          for (Dependency dependency : value.dependencies) {
+            writeLine(
+                writer,
+                dependency.name,
+                dependency.version,
+                dependency.source,
+                dependency.hash == null ? "" : dependency.hash);
+          }
+        }
+      }
+      // another process sharing the file sees either the previous or the new content
+      try {
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      tmp = null;
+      log.debug("Saved {} resolved jars to {}", entries.size(), file);
+    } catch (IOException | RuntimeException e) {
+      log.debug("Unable to save the resolved dependencies to {}", file, e);
+    } finally {
+      if (tmp != null && !tmp.delete()) {
+        log.debug("Unable to delete {}", tmp);
+      }
+    }
+  }
+
+  private synchronized void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (!file.isFile()) {
+      return;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+      if (!HEADER.equals(reader.readLine())) {
+        log.debug("Ignoring {}, written by another version", file);
+        return;
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String[] jar = line.split("\t", -1);
+        final int count = Integer.parseInt(jar[3]);
+        final List<Dependency> dependencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          final String[] dependency = reader.readLine().split("\t", -1);
+          dependencies.add(
+              new Dependency(
+                  dependency[0],
+                  dependency[1],
+                  dependency[2],
+                  dependency[3].isEmpty() ? null : dependency[3]));
+        }
+        entries.putIfAbsent(
+            jar[0],
+            new Entry(
+                Long.parseLong(jar[1]),
+                Long.parseLong(jar[2]),
+                Collections.unmodifiableList(dependencies)));
+      }
+      log.debug("Loaded {} resolved jars from {}", entries.size(), file);
+    } catch (IOException | RuntimeException e) {
+      log.debug("Unable to load the resolved dependencies from {}", file, e);
+      entries.clear();
+    }
+  }
+
+  /** @return the file holding the jar, the outer jar for nested jars */
+  static File jarFile(URI uri) {
+    final String scheme = uri.getScheme();
+    if ("file".equals(scheme)) {
+      try {
+        return uri.isOpaque() ? new File(uri.getSchemeSpecificPart()) : new File(uri);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+    final String path = uri.getSchemeSpecificPart();
+    if ("jar".equals(scheme) && path.startsWith("file:")) {
+      final int sepIdx = path.indexOf("!/");
+      return new File(path.substring("file:".length(), sepIdx == -1 ? path.length() : sepIdx));
+    }
+    return null;
+  }
+
+  private static boolean isStorable(List<Dependency> dependencies) {
+    for (Dependency dependency : dependencies) {
+      if (!isStorable(dependency.name)
+          || !isStorable(dependency.version)
+          || !isStorable(dependency.source)
+          || (dependency.hash != null && !isStorable(dependency.hash))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isStorable(String field) {
+    if (field == null) {
+      return false;
+    }
+    for (int i = 0; i < field.length(); i++) {
+      final char c = field.charAt(i);
+      if (c == '\t' || c == '\n' || c == '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeLine(BufferedWriter writer, String... fields) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        writer.write('\t');
+      }
+      writer.write(fields[i]);
+    }
+    writer.newLine();
+  }
+}
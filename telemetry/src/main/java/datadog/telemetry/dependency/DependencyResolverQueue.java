@@ -17,13 +17,19 @@ public class DependencyResolverQueue {
 
   private final Queue<URI> newUrlsQueue;
   private final Set<URI> processedUrlsSet; // guarded by this
+  private final DependencyCache cache;
   private static int MAX_QUEUE_SIZE = Config.get().getTelemetryDependencyResolutionQueueSize();
 
   private boolean resolverQueueDisabled = false;
 
   public DependencyResolverQueue() {
+    this(null);
+  }
+
+  DependencyResolverQueue(DependencyCache cache) {
     newUrlsQueue = new ConcurrentLinkedQueue<>();
     processedUrlsSet = new HashSet<>();
+    this.cache = cache;
   }
 
   // This constructor is intended for testing purposes only
@@ -31,6 +37,7 @@ public class DependencyResolverQueue {
     MAX_QUEUE_SIZE = maxQueueSize;
     newUrlsQueue = new ConcurrentLinkedQueue<>();
     processedUrlsSet = new HashSet<>();
+    cache = null;
   }
 
   public void queueURI(URI uri) {
@@ -71,6 +78,11 @@ public class DependencyResolverQueue {
     newUrlsQueue.add(uri);
   }
 
+  public boolean isEmpty() {
+    return newUrlsQueue.isEmpty();
+  }
+
+  /** Resolves the dependencies of the next queued location, can be called concurrently. */
   public List<Dependency> pollDependency() {
     URI uri = newUrlsQueue.poll();
 
@@ -79,7 +91,7 @@ public class DependencyResolverQueue {
       return Collections.emptyList();
     }
 
-    List<Dependency> dep = DependencyResolver.resolve(uri);
+    List<Dependency> dep = cache != null ? cache.resolve(uri) : DependencyResolver.resolve(uri);
     if (dep.isEmpty()) {
       log.debug("unable to detect dependency for URI {}", uri);
       return Collections.emptyList();
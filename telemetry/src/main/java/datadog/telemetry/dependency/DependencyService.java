@@ -1,6 +1,11 @@
 package datadog.telemetry.dependency;
 
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TELEMETRY_DEPENDENCY_RESOLVER;
+
+import datadog.trace.api.Config;
 import datadog.trace.util.AgentTaskScheduler;
+import datadog.trace.util.AgentThreadFactory;
+import java.io.File;
 import java.lang.instrument.Instrumentation;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -11,27 +16,98 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Service that detects app dependencies from classloading by using a no-op class-file transformer
+ * Service that detects app dependencies from classloading by using a no-op class-file transformer.
+ * The queued locations are resolved by up to {@link #MAX_RESOLVER_THREADS} threads, so the
+ * periodic task only has to start them. {@link #run()} resolves them synchronously.
  */
 public class DependencyService implements Runnable {
 
   private static final Logger log = LoggerFactory.getLogger(DependencyService.class);
 
-  private final DependencyResolverQueue resolverQueue = new DependencyResolverQueue();
+  private static final int MAX_RESOLVER_THREADS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  private final DependencyCache cache;
+
+  private final DependencyResolverQueue resolverQueue;
+
+  private final AtomicInteger activeResolvers = new AtomicInteger();
+
+  private final ThreadPoolExecutor resolverExecutor;
 
   private final BlockingQueue<Dependency> newDependencies = new LinkedBlockingQueue<>();
 
-  private AgentTaskScheduler.Scheduled<Runnable> scheduledTask;
+  private AgentTaskScheduler.Scheduled<DependencyService> scheduledTask;
+
+  public DependencyService() {
+    this(createCache(Config.get().getTelemetryDependencyResolutionCachePath()));
+  }
+
+  DependencyService(DependencyCache cache) {
+    this.cache = cache;
+    this.resolverQueue = new DependencyResolverQueue(cache);
+    this.resolverExecutor =
+        new ThreadPoolExecutor(
+            MAX_RESOLVER_THREADS,
+            MAX_RESOLVER_THREADS,
+            10,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new AgentThreadFactory(TELEMETRY_DEPENDENCY_RESOLVER));
+    // no thread is kept around once the dependencies of the application have been resolved
+    this.resolverExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  private static DependencyCache createCache(String path) {
+    return path != null && !path.isEmpty() ? new DependencyCache(new File(path)) : null;
+  }
 
   public void schedulePeriodicResolution() {
     scheduledTask =
         AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
-            AgentTaskScheduler.RunnableTask.INSTANCE, this, 0, 1000L, TimeUnit.MILLISECONDS);
+            DependencyService::resolveQueuedDependencies, this, 0, 1000L, TimeUnit.MILLISECONDS);
+  }
+
+  /** Starts resolver threads for the queued locations, up to {@link #MAX_RESOLVER_THREADS}. */
+  public void resolveQueuedDependencies() {
+    while (!resolverQueue.isEmpty()) {
+      int active = activeResolvers.get();
+      if (active >= MAX_RESOLVER_THREADS) {
+        return;
+      }
+      if (activeResolvers.compareAndSet(active, active + 1)) {
+        try {
+          resolverExecutor.execute(this::resolveUntilEmpty);
+        } catch (RejectedExecutionException e) {
+          // stopped
+          activeResolvers.decrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+
+  private void resolveUntilEmpty() {
+    try {
+      while (!resolverQueue.isEmpty()) {
+        resolveOneDependency();
+      }
+    } finally {
+      if (activeResolvers.decrementAndGet() == 0) {
+        JarReader.releaseMappedJars();
+        if (cache != null) {
+          cache.save();
+        }
+      }
+    }
   }
 
   public void resolveOneDependency() {
@@ -91,9 +167,14 @@ public class DependencyService implements Runnable {
     return uri;
   }
 
+  /**
+   * Resolves the queued locations in the calling thread, the periodic task started by {@link
+   * #schedulePeriodicResolution()} hands them to the resolver threads instead.
+   */
   @Override
   public void run() {
-    resolveOneDependency();
+    activeResolvers.incrementAndGet();
+    resolveUntilEmpty();
   }
 
   public void stop() {
@@ -101,5 +182,6 @@ public class DependencyService implements Runnable {
       scheduledTask.cancel();
       scheduledTask = null;
     }
+    resolverExecutor.shutdownNow();
   }
 }
@@ -1,10 +1,13 @@
 package datadog.telemetry.dependency;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,8 +17,15 @@ import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class JarReader {
+  private static final Logger log = LoggerFactory.getLogger(JarReader.class);
+
+  private static volatile MappedJar lastMappedJar;
+
   static class Extracted {
     final String jarName;
     final Map<String, Properties> pomProperties;
@@ -78,10 +88,94 @@ class JarReader {
     }
     final String outerJarPath = jarPath.substring(0, sepIdx);
     final String innerJarPath = getInnerJarPath(jarPath);
+    final ZipCentralDirectory outerJar;
+    try {
+      outerJar = mapOuterJar(outerJarPath);
+    } catch (ZipException e) {
+      log.debug("Unable to map {}, reading it as a stream", outerJarPath, e);
+      return readNestedJarFileAsStream(outerJarPath, innerJarPath);
+    }
+    final ZipCentralDirectory.Entry entry = outerJar.getEntry(innerJarPath);
+    if (entry == null) {
+      throw new NoSuchFileException("Nested jar not found: " + jarPath);
+    }
+    if (entry.isDirectory()) {
+      return new Extracted(
+          new File(innerJarPath).getName(), new HashMap<>(), new Attributes(), true, () -> null);
+    }
+    if (entry.method != ZipEntry.STORED) {
+      // only the stored nested jars can be read in place, this is how spring-boot packages them
+      return readNestedJarFileAsStream(outerJarPath, innerJarPath);
+    }
+    final Map<String, Properties> pomProperties = new HashMap<>();
+    final Attributes attributes;
+    try {
+      final ZipCentralDirectory innerJar = ZipCentralDirectory.read(outerJar.getRawData(entry));
+      for (ZipCentralDirectory.Entry innerEntry : innerJar.getEntriesEndingWith("pom.properties")) {
+        final Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(innerJar.read(innerEntry)));
+        pomProperties.put(innerEntry.name, properties);
+      }
+      final ZipCentralDirectory.Entry manifestEntry = innerJar.getEntry(JarFile.MANIFEST_NAME);
+      attributes =
+          (manifestEntry == null)
+              ? new Attributes()
+              : new Manifest(new ByteArrayInputStream(innerJar.read(manifestEntry)))
+                  .getMainAttributes();
+    } catch (ZipException e) {
+      // e.g. a nested jar with a zip64 or otherwise unsupported layout
+      log.debug("Unable to read {} in place, reading it as a stream", jarPath, e);
+      return readNestedJarFileAsStream(outerJarPath, innerJarPath);
+    }
+    return new Extracted(
+        new File(innerJarPath).getName(),
+        pomProperties,
+        attributes,
+        false,
+        () -> new NestedJarInputStream(outerJarPath, innerJarPath));
+  }
+
+  /**
+   * Maps the outer jar in memory and reads its central directory. The nested jars of an
+   * application are usually resolved one after the other, so the last outer jar is kept mapped
+   * until {@link #releaseMappedJars()} is called.
+   */
+  private static ZipCentralDirectory mapOuterJar(final String outerJarPath) throws IOException {
+    final File file = new File(outerJarPath);
+    final long size = file.length();
+    final long lastModified = file.lastModified();
+    final MappedJar mapped = lastMappedJar;
+    if (mapped != null
+        && mapped.path.equals(outerJarPath)
+        && mapped.size == size
+        && mapped.lastModified == lastModified) {
+      return mapped.centralDirectory;
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new ZipException("Jar too large to be mapped: " + outerJarPath);
+    }
+    final ZipCentralDirectory centralDirectory;
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      centralDirectory =
+          ZipCentralDirectory.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    lastMappedJar = new MappedJar(outerJarPath, size, lastModified, centralDirectory);
+    return centralDirectory;
+  }
+
+  /** Drops the reference to the last mapped jar, so it can be unmapped. */
+  static void releaseMappedJars() {
+    lastMappedJar = null;
+  }
+
+  static Extracted readNestedJarFileAsStream(
+      final String outerJarPath, final String innerJarPath) throws IOException {
     try (final JarFile outerJar = new JarFile(outerJarPath, false /* no verify */)) {
       final ZipEntry entry = outerJar.getEntry(innerJarPath);
       if (entry == null) {
-        throw new NoSuchFileException("Nested jar not found: " + jarPath);
+        throw new NoSuchFileException(
+            "Nested jar not found: " + outerJarPath + "!/" + innerJarPath);
       }
       if (entry.isDirectory()) {
         return new Extracted(
@@ -124,6 +218,20 @@ class JarReader {
     return innerJarPath;
   }
 
+  private static final class MappedJar {
+    final String path;
+    final long size;
+    final long lastModified;
+    final ZipCentralDirectory centralDirectory;
+
+    MappedJar(String path, long size, long lastModified, ZipCentralDirectory centralDirectory) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.centralDirectory = centralDirectory;
+    }
+  }
+
   static class NestedJarInputStream extends InputStream implements AutoCloseable {
     private final JarFile outerJar;
     private final InputStream innerInputStream;
@@ -0,0 +1,184 @@
+package datadog.telemetry.dependency;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the entries of a zip archive held in a buffer from its central directory, so that only the
+ * entries that are looked up are read, and only those are decompressed. Zip64 archives are not
+ * supported.
+ */
+final class ZipCentralDirectory {
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int CENTRAL_SIGNATURE = 0x02014b50;
+  private static final int LOCAL_SIGNATURE = 0x04034b50;
+  private static final int END_HEADER_SIZE = 22;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  static final class Entry {
+    final String name;
+    final int method;
+    final int compressedSize;
+    final int size;
+    final int localHeaderOffset;
+
+    Entry(String name, int method, int compressedSize, int size, int localHeaderOffset) {
+      this.name = name;
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    boolean isDirectory() {
+      return name.endsWith("/");
+    }
+  }
+
+  private final ByteBuffer zip;
+  private final Map<String, Entry> entries;
+
+  private ZipCentralDirectory(ByteBuffer zip, Map<String, Entry> entries) {
+    this.zip = zip;
+    this.entries = entries;
+  }
+
+  static ZipCentralDirectory read(ByteBuffer buffer) throws ZipException {
+    ByteBuffer zip = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    int end = findEndOfCentralDirectory(zip);
+    int count = zip.getShort(end + 10) & 0xFFFF;
+    long directorySize = zip.getInt(end + 12) & 0xFFFFFFFFL;
+    long directoryOffset = zip.getInt(end + 16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || directoryOffset + directorySize > end) {
+      throw new ZipException("Unsupported or invalid central directory");
+    }
+    Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+    int position = (int) directoryOffset;
+    for (int i = 0; i < count; i++) {
+      if (position + CENTRAL_HEADER_SIZE > end || zip.getInt(position) != CENTRAL_SIGNATURE) {
+        throw new ZipException("Invalid central directory header");
+      }
+      int method = zip.getShort(position + 10) & 0xFFFF;
+      long compressedSize = zip.getInt(position + 20) & 0xFFFFFFFFL;
+      long size = zip.getInt(position + 24) & 0xFFFFFFFFL;
+      int nameLength = zip.getShort(position + 28) & 0xFFFF;
+      int extraLength = zip.getShort(position + 30) & 0xFFFF;
+      int commentLength = zip.getShort(position + 32) & 0xFFFF;
+      long localHeaderOffset = zip.getInt(position + 42) & 0xFFFFFFFFL;
+      if (compressedSize > Integer.MAX_VALUE
+          || size > Integer.MAX_VALUE
+          || localHeaderOffset >= directoryOffset
+          || position + CENTRAL_HEADER_SIZE + nameLength > end) {
+        throw new ZipException("Unsupported or invalid central directory header");
+      }
+      String name = decode(zip, position + CENTRAL_HEADER_SIZE, nameLength);
+      entries.put(
+          name,
+          new Entry(name, method, (int) compressedSize, (int) size, (int) localHeaderOffset));
+      position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return new ZipCentralDirectory(zip, entries);
+  }
+
+  /** Looks up an entry by name, or the directory entry of that name like {@link ZipEntry} does. */
+  Entry getEntry(String name) {
+    Entry entry = entries.get(name);
+    if (entry == null && !name.endsWith("/")) {
+      entry = entries.get(name + "/");
+    }
+    return entry;
+  }
+
+  List<Entry> getEntriesEndingWith(String suffix) {
+    List<Entry> matching = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      if (entry.name.endsWith(suffix)) {
+        matching.add(entry);
+      }
+    }
+    return matching;
+  }
+
+  /** @return the data of the entry as it is stored in the archive, compressed or not */
+  ByteBuffer getRawData(Entry entry) throws ZipException {
+    int position = entry.localHeaderOffset;
+    if (position + LOCAL_HEADER_SIZE > zip.limit() || zip.getInt(position) != LOCAL_SIGNATURE) {
+      throw new ZipException("Invalid local header for " + entry.name);
+    }
+    int nameLength = zip.getShort(position + 26) & 0xFFFF;
+    int extraLength = zip.getShort(position + 28) & 0xFFFF;
+    int start = position + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    if (start + entry.compressedSize > zip.limit()) {
+      throw new ZipException("Truncated data for " + entry.name);
+    }
+    ByteBuffer data = zip.duplicate();
+    data.position(start).limit(start + entry.compressedSize);
+    return data.slice();
+  }
+
+  /** @return the decompressed data of the entry */
+  byte[] read(Entry entry) throws IOException {
+    ByteBuffer data = getRawData(entry);
+    byte[] compressed = new byte[data.remaining()];
+    data.get(compressed);
+    if (entry.method == ZipEntry.STORED) {
+      return compressed;
+    }
+    if (entry.method != ZipEntry.DEFLATED) {
+      throw new ZipException("Unsupported compression method for " + entry.name);
+    }
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      byte[] uncompressed = new byte[entry.size];
+      int length = 0;
+      while (length < uncompressed.length) {
+        int inflated = inflater.inflate(uncompressed, length, uncompressed.length - length);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != uncompressed.length) {
+        throw new ZipException("Invalid compressed data for " + entry.name);
+      }
+      return uncompressed;
+    } catch (DataFormatException e) {
+      throw new ZipException("Invalid compressed data for " + entry.name);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer zip) throws ZipException {
+    int last = zip.limit() - END_HEADER_SIZE;
+    int first = Math.max(0, last - MAX_COMMENT_SIZE);
+    for (int position = last; position >= first; position--) {
+      if (zip.getInt(position) == END_SIGNATURE) {
+        return position;
+      }
+    }
+    throw new ZipException("End of central directory not found");
+  }
+
+  private static String decode(ByteBuffer zip, int position, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer name = zip.duplicate();
+    name.position(position);
+    name.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
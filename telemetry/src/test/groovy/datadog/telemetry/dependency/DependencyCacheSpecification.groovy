@@ -0,0 +1,89 @@
+package datadog.telemetry.dependency
+
+import spock.lang.TempDir
+
+class DependencyCacheSpecification extends DepSpecification {
+
+  @TempDir
+  File tempDir
+
+  void 'resolved dependencies are reused after a restart'() {
+    given:
+    File cacheFile = new File(tempDir, 'dependencies.cache')
+    URI uri = getJar('junit-4.12.jar').toURI()
+
+    when:
+    new DependencyCache(cacheFile).with {
+      resolve(uri)
+      save()
+    }
+
+    then:
+    cacheFile.isFile()
+
+    when:
+    // a dependency only found in the cache shows that the jar is not read again
+    cacheFile.text = cacheFile.text.replace('\njunit\t', '\ncached\t')
+    def dependencies = new DependencyCache(cacheFile).resolve(uri)
+
+    then:
+    dependencies.size() == 1
+    dependencies[0].name == 'cached'
+    dependencies[0].version == '4.12'
+  }
+
+  void 'modified jars are resolved again'() {
+    given:
+    File cacheFile = new File(tempDir, 'dependencies.cache')
+    File jar = new File(tempDir, 'junit-4.12.jar')
+    jar.bytes = getJar('junit-4.12.jar').bytes
+    new DependencyCache(cacheFile).with {
+      resolve(jar.toURI())
+      save()
+    }
+    cacheFile.text = cacheFile.text.replace('\njunit\t', '\ncached\t')
+
+    when:
+    jar.setLastModified(jar.lastModified() - 60_000)
+    def dependencies = new DependencyCache(cacheFile).resolve(jar.toURI())
+
+    then:
+    dependencies.size() == 1
+    dependencies[0].name == 'junit'
+  }
+
+  void 'nested jars are keyed by their location in the outer jar'() {
+    given:
+    File cacheFile = new File(tempDir, 'dependencies.cache')
+    String outerPath = getJar('spring-boot-app.jar').absolutePath
+    URI uri = new URI("jar:file:$outerPath!/BOOT-INF/lib/opentracing-util-0.33.0.jar!/")
+
+    when:
+    new DependencyCache(cacheFile).with {
+      resolve(uri)
+      save()
+    }
+    def dependencies = new DependencyCache(cacheFile).resolve(uri)
+
+    then:
+    DependencyCache.jarFile(uri).absolutePath == outerPath
+    cacheFile.text.contains(uri.toString())
+    dependencies.size() == 1
+    dependencies[0].name == 'io.opentracing:opentracing-util'
+    dependencies[0].version == '0.33.0'
+  }
+
+  void 'corrupted cache is ignored'() {
+    given:
+    File cacheFile = new File(tempDir, 'dependencies.cache')
+    cacheFile.text = 'dd-telemetry-dependencies v1\nnot a valid entry\n'
+    URI uri = getJar('junit-4.12.jar').toURI()
+
+    when:
+    def dependencies = new DependencyCache(cacheFile).resolve(uri)
+
+    then:
+    dependencies.size() == 1
+    dependencies[0].name == 'junit'
+  }
+}
@@ -6,6 +6,8 @@ import java.lang.instrument.Instrumentation
 import java.security.CodeSigner
 import java.security.CodeSource
 import java.security.ProtectionDomain
+import java.util.jar.JarFile
+import spock.util.concurrent.PollingConditions
 
 import static org.hamcrest.Matchers.is
 import static org.junit.Assert.assertThat
@@ -182,4 +184,27 @@ class DependencyServiceSpecification extends DepSpecification {
     then:
     depService.drainDeterminedDependencies().isEmpty()
   }
+
+  void 'queued dependencies are resolved in the background'() {
+    given:
+    def conditions = new PollingConditions(timeout: 10)
+    String outerPath = getJar('spring-boot-app.jar').absolutePath
+    def innerPaths = new JarFile(outerPath).withCloseable { jar ->
+      jar.entries().findAll { it.name.startsWith('BOOT-INF/lib/') && it.name.endsWith('.jar') }*.name
+    }
+    Set<Dependency> resolved = []
+
+    when:
+    innerPaths.each { depService.addURL(new URL("jar:file:$outerPath!/$it!/")) }
+    depService.run()
+
+    then:
+    conditions.eventually {
+      resolved.addAll(depService.drainDeterminedDependencies())
+      assert resolved*.source.toSet().size() == innerPaths.size()
+    }
+
+    cleanup:
+    depService.stop()
+  }
 }
@@ -1,7 +1,20 @@
 package datadog.telemetry.dependency
 
+import spock.lang.TempDir
+
+import java.util.jar.Attributes
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 class JarReaderSpecification extends DepSpecification {
 
+  @TempDir
+  File testDir
+
   void 'read plain jar with manifest and no pom.properties'() {
     given:
     String jarPath = getJar("bson-4.2.0.jar").getAbsolutePath()
@@ -68,6 +81,71 @@ class JarReaderSpecification extends DepSpecification {
     result.manifest.getValue("Automatic-Module-Name") == "io.opentracing.util"
   }
 
+  void 'nested jars read in place like the stream reader does'() {
+    given:
+    String outerPath = getJar("spring-boot-app.jar").getAbsolutePath()
+    def innerPaths = new JarFile(outerPath).withCloseable { jar ->
+      jar.entries().findAll { it.name.startsWith('BOOT-INF/lib/') && it.name.endsWith('.jar') }*.name
+    }
+
+    expect:
+    !innerPaths.empty
+    innerPaths.each { innerPath ->
+      def mapped = JarReader.readNestedJarFile("$outerPath!/$innerPath")
+      def streamed = JarReader.readNestedJarFileAsStream(outerPath, innerPath)
+      assert mapped.jarName == streamed.jarName
+      assert mapped.pomProperties == streamed.pomProperties
+      assert mapped.manifest == streamed.manifest
+      assert mapped.inputStreamSupplier.get().withCloseable { it.bytes } ==
+      streamed.inputStreamSupplier.get().withCloseable { it.bytes }
+    }
+  }
+
+  void 'nested jars which cannot be read in place are read as a stream'() {
+    given: 'a stored nested jar whose central directory claims to be zip64'
+    def manifest = new Manifest()
+    manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, '1.0')
+    manifest.mainAttributes.putValue('Implementation-Title', 'inner')
+    def innerBytes = new ByteArrayOutputStream()
+    new JarOutputStream(innerBytes, manifest).close()
+    byte[] inner = innerBytes.toByteArray()
+    // total number of entries in the end of central directory record
+    inner[inner.length - 12] = (byte) 0xFF
+    inner[inner.length - 11] = (byte) 0xFF
+    def crc = new CRC32()
+    crc.update(inner)
+    def entry = new ZipEntry('BOOT-INF/lib/inner.jar')
+    entry.method = ZipEntry.STORED
+    entry.size = inner.length
+    entry.compressedSize = inner.length
+    entry.crc = crc.value
+    def outer = new File(testDir, 'outer.jar')
+    new ZipOutputStream(new FileOutputStream(outer)).withCloseable { out ->
+      out.putNextEntry(entry)
+      out.write(inner)
+      out.closeEntry()
+    }
+
+    when:
+    def result = JarReader.readNestedJarFile("${outer.absolutePath}!/BOOT-INF/lib/inner.jar")
+
+    then:
+    result.jarName == 'inner.jar'
+    result.manifest.getValue('Implementation-Title') == 'inner'
+  }
+
+  void 'nested directory'() {
+    given:
+    String outerPath = getJar("spring-boot-app.jar").getAbsolutePath()
+
+    when:
+    def result = JarReader.readNestedJarFile("$outerPath!/BOOT-INF/lib!/")
+
+    then:
+    result.isDirectory
+    result.jarName == "lib"
+  }
+
   void 'non-existent simple jar'() {
     given:
     String jarPath = "non-existent.jar"